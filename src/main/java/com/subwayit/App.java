@@ -1,9 +1,12 @@
 package com.subwayit;
 
+import com.subwayit.dao.DaoExecutor;
 import com.subwayit.dao.UserDAO;
 import com.subwayit.database.DatabaseManager;
 import com.subwayit.model.User;
-import com.subwayit.gui.DashboardPage;
+import com.subwayit.gui.FamilyContext;
+import com.subwayit.gui.FxAsync;
+import com.subwayit.gui.NavigationController;
 
 // Import model dan DAO yang diperlukan
 import com.subwayit.model.Penanggung;
@@ -54,6 +57,9 @@ public class App extends Application {
     // Primary stage reference
     private Stage primaryStage;
 
+    // Database setup running behind the login scene
+    private AppBootstrap bootstrap;
+
     // Theme colors
     private static final String PRIMARY_GREEN = "#86DA71";
     private static final String DARK_GREEN = "#6BB85A";
@@ -66,31 +72,62 @@ public class App extends Application {
         this.primaryStage = primaryStage;
         primaryStage.setTitle("SUBWAYIT - Family Finance Management");
 
-        try {
-            DatabaseManager.initializeDatabase();
-            DatabaseManager.updateDatabaseSchema();
-            System.out.println("Database setup completed successfully.");
-        } catch (Exception e) {
-            System.err.println("Error setting up database: " + e.getMessage());
-            e.printStackTrace();
-            showModernAlert(Alert.AlertType.ERROR, "Kesalahan Database",
-                    "Gagal menginisialisasi database. Harap periksa apakah aplikasi memiliki izin tulis.");
-            return;
-        }
-
-        // Initialize all DAOs once at the start of the application
-        this.userDAO = new UserDAO();
-        this.tanggunganDAO = new TanggunganDAO(userDAO);
-        this.penanggungDAO = new PenanggungDAO(userDAO);
-        this.adminDAO = new AdminDAO();
-        this.transaksiDAO = new TransaksiDAO(); // FIX 3: Initialize TransaksiDAO
-        this.utangDAO = new UtangDAO();
-
-        // Show the login scene
+        // Show the login scene right away; the buttons stay disabled until the database is ready
         Scene loginScene = createLoginScene();
+        setLoginReady(false);
+        bootstrap = new AppBootstrap();
+        loginScene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                bootstrap.markFirstFrame();
+                loginScene.removePostLayoutPulseListener(this);
+            }
+        });
         primaryStage.setScene(loginScene);
         primaryStage.centerOnScreen();
         primaryStage.show();
+
+        // Schema check, connection and cache warm-up and DAO construction run in the background
+        FxAsync.onFx(bootstrap.start(), services -> {
+            // Initialize all DAOs once at the start of the application
+            this.userDAO = services.userDAO;
+            this.tanggunganDAO = services.tanggunganDAO;
+            this.penanggungDAO = services.penanggungDAO;
+            this.adminDAO = services.adminDAO;
+            this.transaksiDAO = services.transaksiDAO; // FIX 3: Initialize TransaksiDAO
+            this.utangDAO = services.utangDAO;
+            setLoginReady(true);
+            bootstrap.markInteractive();
+        }, error -> {
+            System.err.println("Error setting up database: " + error.getMessage());
+            error.printStackTrace();
+            loginButton.setText("⚠️ Database tidak tersedia");
+            showModernAlert(Alert.AlertType.ERROR, "Kesalahan Database",
+                    "Gagal menginisialisasi database. Harap periksa apakah aplikasi memiliki izin tulis.");
+        });
+    }
+
+    /**
+     * Puts a fresh login scene on the stage after a sign out. The database and the DAOs
+     * set up at start stay in use, so the buttons are enabled right away and the startup
+     * metrics are not recorded again.
+     */
+    private void showLogin() {
+        primaryStage.setScene(createLoginScene());
+        primaryStage.centerOnScreen();
+    }
+
+    private void setLoginReady(boolean ready) {
+        loginButton.setDisable(!ready);
+        registerButton.setDisable(!ready);
+        loginButton.setText(ready ? "🚀 Masuk" : "⏳ Menyiapkan database...");
+    }
+
+    @Override
+    public void stop() {
+        // Stop background DAO calls, then release pooled SQLite connections on exit
+        DaoExecutor.shutdownShared();
+        DatabaseManager.shutdown();
     }
 
     private Scene createLoginScene() {
@@ -230,33 +267,41 @@ public class App extends Application {
             return;
         }
 
-        User user = userDAO.getUserByUserId(username);
-
-        if (user != null && user.getPassword().equals(password)) {
-            showModernAlert(Alert.AlertType.INFORMATION, "Login Berhasil",
-                    "Selamat datang kembali, " + user.getNama() + "!");
-
-            // Check if user is Admin and redirect to Admin Dashboard
-            if ("Admin".equals(user.getRole())) {
-                openAdminDashboard(user);
+        // The lookup and the family load run off the FX thread; the button stays disabled until they answer
+        loginButton.setDisable(true);
+        FxAsync.onFx(DaoExecutor.shared().read(() -> {
+            User user = userDAO.getUserByUserId(username);
+            if (user == null || !user.getPassword().equals(password)) {
+                return null;
+            }
+            // Head, dependents and their IDs in one query, shared by every page of the session
+            return FamilyContext.load(user, userDAO, penanggungDAO, tanggunganDAO, adminDAO, transaksiDAO,
+                    utangDAO);
+        }), context -> {
+            loginButton.setDisable(false);
+            if (context != null) {
+                User user = context.getUser();
+                showModernAlert(Alert.AlertType.INFORMATION, "Login Berhasil",
+                        "Selamat datang kembali, " + user.getNama() + "!");
+
+                // Check if user is Admin and redirect to Admin Dashboard
+                if ("Admin".equals(user.getRole())) {
+                    openAdminDashboard(context);
+                } else {
+                    openDashboard(context);
+                }
             } else {
-                openDashboard(user);
+                showModernAlert(Alert.AlertType.ERROR, "Login Gagal", "Nama pengguna atau kata sandi salah.");
             }
-        } else {
-            showModernAlert(Alert.AlertType.ERROR, "Login Gagal", "Nama pengguna atau kata sandi salah.");
-        }
+        }, error -> {
+            loginButton.setDisable(false);
+            showModernAlert(Alert.AlertType.ERROR, "Login Gagal", "Gagal menghubungi database: " + error.getMessage());
+        });
     }
 
-    private void openAdminDashboard(User admin) {
-        com.subwayit.gui.AdminDashboard adminDashboard = new com.subwayit.gui.AdminDashboard(
-                primaryStage,
-                admin,
-                userDAO,
-                penanggungDAO,
-                tanggunganDAO,
-                adminDAO,
-                transaksiDAO,
-                utangDAO);
+    private void openAdminDashboard(FamilyContext context) {
+        com.subwayit.gui.AdminDashboard adminDashboard = new com.subwayit.gui.AdminDashboard(primaryStage, context,
+                this::showLogin);
         Scene adminScene = adminDashboard.createScene();
         primaryStage.setScene(adminScene);
         primaryStage.centerOnScreen();
@@ -300,60 +345,63 @@ public class App extends Application {
         Button cancelBtn = new Button("Batal");
 
         registerBtn.setOnAction(e -> {
+            String userIdInput = userID.getText().trim();
+            String nama = namaField.getText().trim();
+            String umurStr = umurField.getText().trim();
+            String email = emailField.getText().trim();
+            String password = passwordRegField.getText().trim();
+            String pekerjaan = pekerjaanField.getText().trim();
+            String role = roleComboBox.getValue();
+
+            if (nama.isEmpty() || umurStr.isEmpty() || email.isEmpty() || password.isEmpty() || role == null) {
+                showModernAlert(Alert.AlertType.ERROR, "Error", "Semua field harus diisi!");
+                return;
+            }
+
+            int umur;
             try {
-                String userId = userID.getText().trim();
-                String nama = namaField.getText().trim();
-                String umurStr = umurField.getText().trim();
-                String email = emailField.getText().trim();
-                String password = passwordRegField.getText().trim();
-                String pekerjaan = pekerjaanField.getText().trim();
-                String role = roleComboBox.getValue();
-
-                if (nama.isEmpty() || umurStr.isEmpty() || email.isEmpty() || password.isEmpty() || role == null) {
-                    showModernAlert(Alert.AlertType.ERROR, "Error", "Semua field harus diisi!");
-                    return;
-                }
+                umur = Integer.parseInt(umurStr);
+            } catch (NumberFormatException ex) {
+                showModernAlert(Alert.AlertType.ERROR, "Error", "Umur harus berupa angka!");
+                return;
+            }
 
-                // Generate user ID if not provided
-                if (userId.isEmpty()) {
-                    userId = "USR-" + java.util.UUID.randomUUID().toString().substring(0, 8);
-                }
+            // Generate user ID if not provided
+            String userId = userIdInput.isEmpty()
+                    ? "USR-" + java.util.UUID.randomUUID().toString().substring(0, 8)
+                    : userIdInput;
 
+            // The ID check and the insert run on the DAO writer; the button stays disabled until they finish
+            registerBtn.setDisable(true);
+            FxAsync.onFx(DaoExecutor.shared().write(() -> {
                 // Check if user ID already exists
                 if (userDAO.getUserByUserId(userId) != null) {
-                    showModernAlert(Alert.AlertType.ERROR, "Error",
-                            "User ID sudah ada. Silakan gunakan User ID lain atau kosongkan untuk generate otomatis.");
-                    return;
+                    return false;
                 }
-
-                int umur = Integer.parseInt(umurStr);
-
                 // Create user based on role
                 if ("Penanggung".equals(role)) {
-                    // Create user first
-                    User newUser = new User(userId, nama, umur, email, password, role);
-                    userDAO.addUser(newUser);
-
-                    // Then create Penanggung entry
-                    Penanggung newPenanggung = new Penanggung(userId, nama, umur, email, password, pekerjaan);
-                    penanggungDAO.addPenanggung(newPenanggung);
-
+                    // Create Penanggung entry (this writes the Pengguna row in the same transaction)
+                    penanggungDAO.addPenanggung(new Penanggung(userId, nama, umur, email, password, pekerjaan));
                 } else if ("Admin".equals(role)) {
                     // Create Admin entry (this will handle User creation internally)
-                    Admin newAdmin = new Admin(userId, nama, umur, email, password, userId); // Use userId as adminId
-                    adminDAO.addAdmin(newAdmin);
+                    adminDAO.addAdmin(new Admin(userId, nama, umur, email, password, userId)); // Use userId as adminId
+                }
+                return true;
+            }), created -> {
+                registerBtn.setDisable(false);
+                if (!created) {
+                    showModernAlert(Alert.AlertType.ERROR, "Error",
+                            "User ID sudah ada. Silakan gunakan User ID lain atau kosongkan untuk generate otomatis.");
+                    return;
                 }
-
                 showModernAlert(Alert.AlertType.INFORMATION, "Berhasil",
                         "Akun berhasil dibuat! Silakan login dengan User ID: " + userId);
                 registerStage.close();
-
-            } catch (NumberFormatException ex) {
-                showModernAlert(Alert.AlertType.ERROR, "Error", "Umur harus berupa angka!");
-            } catch (Exception ex) {
-                showModernAlert(Alert.AlertType.ERROR, "Error", "Terjadi kesalahan: " + ex.getMessage());
-                ex.printStackTrace();
-            }
+            }, error -> {
+                registerBtn.setDisable(false);
+                showModernAlert(Alert.AlertType.ERROR, "Error", "Terjadi kesalahan: " + error.getMessage());
+                error.printStackTrace();
+            });
         });
 
         cancelBtn.setOnAction(e -> registerStage.close());
@@ -371,19 +419,10 @@ public class App extends Application {
         registerStage.showAndWait();
     }
 
-    private void openDashboard(User user) {
-        DashboardPage dashboardPage = new DashboardPage(
-                primaryStage,
-                user,
-                userDAO,
-                penanggungDAO,
-                tanggunganDAO,
-                adminDAO,
-                transaksiDAO,
-                utangDAO // <- Add the utangDAO instance here
-        );
-        Scene dashboardScene = dashboardPage.createScene();
-        primaryStage.setScene(dashboardScene);
+    private void openDashboard(FamilyContext context) {
+        // Pages are built once per session and reused as the user navigates between them
+        NavigationController navigation = new NavigationController(primaryStage, context, this::showLogin);
+        navigation.show(NavigationController.Destination.DASHBOARD);
         primaryStage.centerOnScreen();
     }
 
@@ -0,0 +1,162 @@
+package com.subwayit;
+
+import com.subwayit.dao.AdminDAO;
+import com.subwayit.dao.DaoExecutor;
+import com.subwayit.dao.PenanggungDAO;
+import com.subwayit.dao.TanggunganDAO;
+import com.subwayit.dao.TransaksiDAO;
+import com.subwayit.dao.UserDAO;
+import com.subwayit.dao.UtangDAO;
+import com.subwayit.database.DatabaseManager;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Prepares the database and the DAOs while the login scene is already on screen.
+ *
+ * {@link #start()} runs three things at once on the {@link DaoExecutor}: the schema
+ * migration, opening the pooled connections and constructing the DAOs. Once the schema
+ * is current the user cache is filled as well. The returned future completes with the
+ * DAOs when all of that has finished; only a failed migration fails it, since a cold pool
+ * or cache merely makes the first queries slower.
+ *
+ * The bootstrap also records the startup metrics: time to first frame and time to
+ * interactive, both measured from JVM start, plus the duration of every phase.
+ */
+public class AppBootstrap {
+
+    // Connections opened ahead of time; the dashboard's parallel reads need a few at once
+    private static final int WARM_CONNECTIONS = 4;
+    // Users loaded into the cache, enough for every account of a typical household install
+    private static final int WARM_USERS = 256;
+
+    private final DaoExecutor executor;
+    private final Map<String, Long> phaseMillis = new ConcurrentHashMap<>();
+    private volatile long firstFrameMillis = -1;
+    private volatile long interactiveMillis = -1;
+
+    public AppBootstrap() {
+        this(DaoExecutor.shared());
+    }
+
+    AppBootstrap(DaoExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Starts the bootstrap in the background and returns immediately.
+     *
+     * @return completes with the DAOs once the database is ready for logins
+     */
+    public CompletableFuture<Services> start() {
+        CompletableFuture<Void> schema = executor.write(
+                () -> timed("schema", () -> {
+                    // Applies pending schema migrations; skips all DDL when the schema is current
+                    DatabaseManager.initializeDatabase();
+                    return null;
+                }));
+        CompletableFuture<Integer> pool = executor.read(
+                () -> timed("pool", () -> DatabaseManager.warmUp(WARM_CONNECTIONS)));
+        CompletableFuture<Services> services = executor.read(() -> timed("daos", Services::new));
+
+        CompletableFuture<Integer> userCache = schema.thenCombine(services, (ignored, s) -> s)
+                .thenCompose(s -> executor.read(() -> timed("userCache", () -> s.userDAO.warmCache(WARM_USERS))));
+
+        CompletableFuture<?> warmups = CompletableFuture.allOf(
+                optional(pool, "connection pool"), optional(userCache, "user cache"));
+        // A failed migration fails startup, warm-up problems do not
+        return schema.thenCompose(ignored -> warmups).thenCompose(ignored -> services);
+    }
+
+    private static <T> CompletableFuture<T> optional(CompletableFuture<T> warmup, String name) {
+        return warmup.exceptionally(error -> {
+            System.err.println("Warm-up of the " + name + " failed: " + error.getMessage());
+            return null;
+        });
+    }
+
+    private <T> T timed(String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            phaseMillis.put(phase, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Called once the login scene has been laid out and rendered for the first time.
+     */
+    public void markFirstFrame() {
+        if (firstFrameMillis < 0) {
+            firstFrameMillis = sinceJvmStart();
+        }
+    }
+
+    /**
+     * Called once the login button is enabled; prints the startup metrics.
+     */
+    public void markInteractive() {
+        if (interactiveMillis < 0) {
+            interactiveMillis = sinceJvmStart();
+            System.out.println("Startup: " + getStats());
+        }
+    }
+
+    private static long sinceJvmStart() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /**
+     * @return the startup metrics recorded so far
+     */
+    public Stats getStats() {
+        return new Stats(firstFrameMillis, interactiveMillis, Map.copyOf(phaseMillis));
+    }
+
+    /**
+     * The DAOs the GUI works with, constructed off the FX thread.
+     */
+    public static class Services {
+        final UserDAO userDAO = new UserDAO();
+        final TanggunganDAO tanggunganDAO = new TanggunganDAO(userDAO);
+        final PenanggungDAO penanggungDAO = new PenanggungDAO(userDAO);
+        final AdminDAO adminDAO = new AdminDAO();
+        final TransaksiDAO transaksiDAO = new TransaksiDAO();
+        final UtangDAO utangDAO = new UtangDAO();
+    }
+
+    /**
+     * Immutable snapshot of the startup metrics, in milliseconds. A value of -1 means the
+     * point has not been reached yet.
+     */
+    public static class Stats {
+        private final long firstFrameMillis;
+        private final long interactiveMillis;
+        private final Map<String, Long> phaseMillis;
+
+        Stats(long firstFrameMillis, long interactiveMillis, Map<String, Long> phaseMillis) {
+            this.firstFrameMillis = firstFrameMillis;
+            this.interactiveMillis = interactiveMillis;
+            this.phaseMillis = phaseMillis;
+        }
+
+        /** Time to first frame: JVM start until the login scene was first rendered. */
+        public long getFirstFrameMillis() { return firstFrameMillis; }
+        /** Time to interactive: JVM start until the login button was enabled. */
+        public long getInteractiveMillis() { return interactiveMillis; }
+        /** Duration of each bootstrap phase: schema, pool, daos and userCache. */
+        public Map<String, Long> getPhaseMillis() { return phaseMillis; }
+
+        @Override
+        public String toString() {
+            return String.format("firstFrame=%dms, interactive=%dms, schema=%sms, pool=%sms, daos=%sms, "
+                    + "userCache=%sms", firstFrameMillis, interactiveMillis, phaseMillis.get("schema"),
+                    phaseMillis.get("pool"), phaseMillis.get("daos"), phaseMillis.get("userCache"));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.subwayit.dao;
 
 import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.UnitOfWork;
 import com.subwayit.model.Admin;
 import com.subwayit.model.User;
 
@@ -26,33 +27,28 @@ public class AdminDAO {
      */
     public void addAdmin(Admin admin) {
         try {
-            // Check if user already exists in Pengguna table
-            User existingUser = userDAO.getUserByUserId(admin.getUserId());
+            // Pengguna (jika belum ada) dan Admin ditulis dalam satu transaksi
+            UnitOfWork.run(() -> {
+                // Check if user already exists in Pengguna table
+                User existingUser = userDAO.getUserByUserId(admin.getUserId());
 
-            if (existingUser == null) {
-                // User doesn't exist, add to Pengguna table first
-                userDAO.addUser(admin);
-            } else {
-                // User already exists, just log it
-                System.out.println("User already exists in Pengguna table: " + admin.getUserId());
-            }
-
-            // Add to Admin table
-            String sql = "INSERT INTO Admin(admin_id) VALUES(?)";
-            try (Connection conn = DatabaseManager.connect();
-                    PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, admin.getAdminId());
-                pstmt.executeUpdate();
-                System.out.println("Admin added successfully: " + admin.getNama());
-            } catch (SQLException e) {
-                System.err.println("Error adding Admin to Admin table: " + e.getMessage());
-                e.printStackTrace();
-                // If adding to Admin table fails and we added to Pengguna, clean up
                 if (existingUser == null) {
-                    userDAO.deleteUser(admin.getUserId());
+                    // User doesn't exist, add to Pengguna table first
+                    userDAO.addUser(admin);
+                } else {
+                    // User already exists, just log it
+                    System.out.println("User already exists in Pengguna table: " + admin.getUserId());
                 }
-                throw new RuntimeException("Failed to create Admin: " + e.getMessage(), e);
-            }
+
+                // Add to Admin table
+                String sql = "INSERT INTO Admin(admin_id) VALUES(?)";
+                try (Connection conn = DatabaseManager.connect();
+                        PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, admin.getAdminId());
+                    pstmt.executeUpdate();
+                }
+            });
+            System.out.println("Admin added successfully: " + admin.getNama());
         } catch (Exception e) {
             System.err.println("Error adding Admin: " + e.getMessage());
             e.printStackTrace();
@@ -68,39 +64,20 @@ public class AdminDAO {
      * @return The Admin object if found, null otherwise.
      */
     public Admin getAdminById(String adminId) {
-        // First, get the User portion
-        User user = userDAO.getUserByUserId(adminId);
-        if (user == null || !"Admin".equals(user.getRole())) {
-            return null; // Not found or not an Admin
-        }
-
-        // If the Admin table only contains admin_id (which is also user_id), no
-        // separate query is strictly needed
-        // unless there are admin-specific columns. The document lists adminID and email
-        // for Admin class attributes.
-        // Email is in User. adminID is the only distinct one.
-        // Assuming admin_id in Admin table is same as user_id.
-        String sql = "SELECT admin_id FROM Admin WHERE admin_id = ?";
-        Admin admin = null;
+        // The User portion and admin_id come from one JOIN of Pengguna and Admin
+        String sql = RowMappers.ADMIN_SELECT + " WHERE a.admin_id = ? AND p.role = 'Admin'";
         try (Connection conn = DatabaseManager.connect();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, adminId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                admin = new Admin(
-                        user.getUserId(),
-                        user.getNama(),
-                        user.getUmur(),
-                        user.getEmail(),
-                        user.getPassword(),
-                        rs.getString("admin_id") // Get admin_id from the Admin table
-                );
+                return RowMappers.admin(rs);
             }
         } catch (SQLException e) {
             System.err.println("Error getting Admin by ID: " + e.getMessage());
             e.printStackTrace();
         }
-        return admin;
+        return null;
     }
 
     /**
@@ -166,17 +143,14 @@ public class AdminDAO {
      */
     public List<Admin> getAllAdmins() {
         List<Admin> admins = new ArrayList<>();
-        String sql = "SELECT a.admin_id FROM Admin a";
-
         try (Connection conn = DatabaseManager.connect();
-                PreparedStatement pstmt = conn.prepareStatement(sql);
+                PreparedStatement pstmt = conn.prepareStatement(RowMappers.ADMIN_SELECT);
                 ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
-                String adminId = rs.getString("admin_id");
-                Admin admin = getAdminById(adminId);
-                if (admin != null) {
-                    admins.add(admin);
+                // Same rule as getAdminById: only users whose role is Admin
+                if ("Admin".equals(rs.getString("role"))) {
+                    admins.add(RowMappers.admin(rs));
                 }
             }
         } catch (SQLException e) {
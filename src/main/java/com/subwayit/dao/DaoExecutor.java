@@ -0,0 +1,256 @@
+package com.subwayit.dao;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs DAO calls off the calling thread and returns their results as CompletableFutures.
+ *
+ * Reads run concurrently, limited only by the connection pool. Writes additionally take
+ * one of a fixed number of writer permits (one by default, the system property
+ * {@code subwayit.db.writers} changes it), so they queue here instead of contending for
+ * SQLite's single write lock and waiting out busy_timeout.
+ *
+ * On Java 21 and later every call gets its own virtual thread; on older runtimes a cached
+ * pool of daemon threads is used instead.
+ *
+ * Cancelling a read that is running interrupts it. Cancelling a write only succeeds
+ * while it is still queued or waiting for a permit; once it has started it runs to the
+ * end and cancel() returns false, so a cancelled future never hides a committed write.
+ */
+public class DaoExecutor {
+
+    private static final int DEFAULT_WRITERS = Integer.getInteger("subwayit.db.writers", 1);
+
+    private static DaoExecutor shared;
+
+    private final ExecutorService executor;
+    private final Semaphore writerPermits;
+    private final int maxWriters;
+
+    // Metrics
+    private final AtomicInteger runningReads = new AtomicInteger();
+    private final AtomicInteger waitingWrites = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+
+    /**
+     * @param maxWriters number of writes allowed to run at the same time, at least 1
+     */
+    public DaoExecutor(int maxWriters) {
+        if (maxWriters < 1) {
+            throw new IllegalArgumentException("At least one writer is required");
+        }
+        this.maxWriters = maxWriters;
+        this.writerPermits = new Semaphore(maxWriters, true);
+        this.executor = newExecutor();
+    }
+
+    /**
+     * @return the executor shared by the whole application, created on first use
+     */
+    public static synchronized DaoExecutor shared() {
+        if (shared == null) {
+            shared = new DaoExecutor(DEFAULT_WRITERS);
+        }
+        return shared;
+    }
+
+    /**
+     * Stops the shared executor, if one was created. Called when the application exits.
+     */
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            System.out.println("Shutting down DAO executor: " + shared.getStats());
+            shared.shutdown();
+            shared = null;
+        }
+    }
+
+    private static ExecutorService newExecutor() {
+        try {
+            // Executors.newVirtualThreadPerTaskExecutor() exists from Java 21 on
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory daemons = r -> {
+                Thread t = new Thread(r, "dao-async-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            };
+            return Executors.newCachedThreadPool(daemons);
+        }
+    }
+
+    /**
+     * Runs a DAO read.
+     */
+    public <T> CompletableFuture<T> read(Supplier<T> call) {
+        return submit(call, false);
+    }
+
+    /**
+     * Runs a DAO write once a writer permit is free.
+     */
+    public <T> CompletableFuture<T> write(Supplier<T> call) {
+        return submit(call, true);
+    }
+
+    /**
+     * Runs a DAO write that returns nothing once a writer permit is free.
+     */
+    public CompletableFuture<Void> write(Runnable call) {
+        return submit(() -> {
+            call.run();
+            return null;
+        }, true);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call, boolean isWrite) {
+        DaoFuture<T> future = new DaoFuture<>(isWrite);
+        future.task = executor.submit(() -> run(future, call));
+        return future;
+    }
+
+    private <T> void run(DaoFuture<T> future, Supplier<T> call) {
+        boolean permitted = false;
+        try {
+            if (future.isWrite) {
+                waitingWrites.incrementAndGet();
+                try {
+                    writerPermits.acquire();
+                    permitted = true;
+                } finally {
+                    waitingWrites.decrementAndGet();
+                }
+            } else {
+                runningReads.incrementAndGet();
+            }
+            if (!future.start()) {
+                return; // cancelled before it started
+            }
+            T result = call.get();
+            completed.incrementAndGet();
+            future.complete(result);
+        } catch (InterruptedException e) {
+            // cancel(true) while waiting for a permit; the future is already cancelled
+        } catch (Throwable t) {
+            if (!future.isCancelled()) {
+                failed.incrementAndGet();
+            }
+            future.completeExceptionally(t);
+        } finally {
+            if (permitted) {
+                writerPermits.release();
+            }
+            if (!future.isWrite) {
+                runningReads.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Rejects new calls and interrupts running reads.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return a snapshot of the executor's load and outcome counters
+     */
+    public Stats getStats() {
+        return new Stats(maxWriters, maxWriters - writerPermits.availablePermits(), waitingWrites.get(),
+                runningReads.get(), completed.get(), failed.get(), cancelled.get());
+    }
+
+    /**
+     * Immutable snapshot of executor metrics.
+     */
+    public static class Stats {
+        private final int maxWriters;
+        private final int activeWriters;
+        private final int waitingWriters;
+        private final int activeReads;
+        private final long completed;
+        private final long failed;
+        private final long cancelled;
+
+        Stats(int maxWriters, int activeWriters, int waitingWriters, int activeReads, long completed, long failed,
+                long cancelled) {
+            this.maxWriters = maxWriters;
+            this.activeWriters = activeWriters;
+            this.waitingWriters = waitingWriters;
+            this.activeReads = activeReads;
+            this.completed = completed;
+            this.failed = failed;
+            this.cancelled = cancelled;
+        }
+
+        public int getMaxWriters() { return maxWriters; }
+        public int getActiveWriters() { return activeWriters; }
+        public int getWaitingWriters() { return waitingWriters; }
+        public int getActiveReads() { return activeReads; }
+        public long getCompleted() { return completed; }
+        public long getFailed() { return failed; }
+        public long getCancelled() { return cancelled; }
+
+        @Override
+        public String toString() {
+            return String.format("dao[writers=%d/%d, waitingWriters=%d, activeReads=%d, completed=%d, failed=%d, "
+                    + "cancelled=%d]", activeWriters, maxWriters, waitingWriters, activeReads, completed, failed,
+                    cancelled);
+        }
+    }
+
+    /**
+     * A future whose cancel() reaches the task running the call.
+     */
+    private final class DaoFuture<T> extends CompletableFuture<T> {
+        private static final int QUEUED = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+
+        private final boolean isWrite;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private volatile Future<?> task;
+
+        DaoFuture(boolean isWrite) {
+            this.isWrite = isWrite;
+        }
+
+        /**
+         * @return false if the future was cancelled before the call started
+         */
+        boolean start() {
+            return state.compareAndSet(QUEUED, RUNNING);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean wasQueued = state.compareAndSet(QUEUED, CANCELLED);
+            if (!wasQueued && (isWrite || state.get() == CANCELLED)) {
+                return false; // a started write always finishes
+            }
+            boolean done = super.cancel(mayInterruptIfRunning);
+            if (done) {
+                cancelled.incrementAndGet();
+                Future<?> running = task;
+                if (running != null && (wasQueued || mayInterruptIfRunning)) {
+                    running.cancel(mayInterruptIfRunning || wasQueued);
+                }
+            }
+            return done;
+        }
+    }
+}
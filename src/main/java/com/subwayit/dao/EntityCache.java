@@ -0,0 +1,149 @@
+package com.subwayit.dao;
+
+import com.subwayit.database.UnitOfWork;
+import com.subwayit.model.Penanggung;
+import com.subwayit.model.Tanggungan;
+import com.subwayit.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Read-through caches for the lookups the GUI repeats most: users by ID, Penanggung and
+ * Tanggungan by ID, and the member IDs of each family.
+ *
+ * The DAOs invalidate entries whenever they write the rows behind them. Inside a
+ * {@link UnitOfWork} the caches are bypassed, because the transaction may see rows other
+ * threads must not, and writes invalidate again once the transaction completes.
+ */
+public final class EntityCache {
+
+    private EntityCache() {
+    }
+
+    static final LruCache<String, User> USERS = new LruCache<>("users", 1024, EntityCache::copyUser);
+    static final LruCache<String, Penanggung> PENANGGUNG =
+            new LruCache<>("penanggung", 256, EntityCache::copyPenanggung);
+    static final LruCache<String, Tanggungan> TANGGUNGAN =
+            new LruCache<>("tanggungan", 1024, EntityCache::copyTanggungan);
+    // penanggung_id -> IDs of the family's Tanggungan, in the order they were added
+    static final LruCache<String, List<String>> FAMILIES = new LruCache<>("families", 256, ArrayList::new);
+
+    /**
+     * @return hit/miss/eviction counters of every cache
+     */
+    public static List<LruCache.Stats> getStats() {
+        return List.of(USERS.getStats(), PENANGGUNG.getStats(), TANGGUNGAN.getStats(), FAMILIES.getStats());
+    }
+
+    /**
+     * Drops every cached entry, e.g. after switching to another database file.
+     */
+    public static void clear() {
+        USERS.clear();
+        PENANGGUNG.clear();
+        TANGGUNGAN.clear();
+        FAMILIES.clear();
+    }
+
+    /**
+     * Returns the cached value for the key, loading and caching it on a miss. Null results
+     * are not cached, and neither is anything when the loader throws, so loaders of lists
+     * must throw on a failed query instead of returning what they have. Inside a UnitOfWork
+     * the loader is always called and nothing is cached.
+     */
+    static <K, V> V read(LruCache<K, V> cache, K key, Supplier<V> loader) {
+        if (key == null || UnitOfWork.isActive()) {
+            return loader.get();
+        }
+        V cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = cache.generation();
+        V loaded = loader.get();
+        cache.put(key, loaded, generation);
+        return loaded;
+    }
+
+    /**
+     * Stores a value loaded outside {@link #read}, e.g. one row of a multi-row query.
+     */
+    static <V> void store(LruCache<String, V> cache, String key, V value, long loadedAtGeneration) {
+        if (!UnitOfWork.isActive()) {
+            cache.put(key, value, loadedAtGeneration);
+        }
+    }
+
+    /**
+     * A user's Pengguna row changed or was deleted: their User, Penanggung and Tanggungan
+     * entries all embed it.
+     */
+    static void invalidateUser(String userId) {
+        invalidate(() -> {
+            USERS.invalidate(userId);
+            PENANGGUNG.invalidate(userId);
+            TANGGUNGAN.invalidate(userId);
+        });
+        // Debt lists carry the owner's name
+        FamilyQueryCache.invalidateDebts(List.of(userId));
+    }
+
+    static void invalidatePenanggung(String penanggungId) {
+        invalidate(() -> PENANGGUNG.invalidate(penanggungId));
+    }
+
+    static void invalidateTanggungan(String tanggunganId) {
+        invalidate(() -> TANGGUNGAN.invalidate(tanggunganId));
+    }
+
+    /**
+     * A family gained or lost members: its member list and the Penanggung, which carries the
+     * same list, are dropped.
+     */
+    static void invalidateFamily(String penanggungId) {
+        invalidate(() -> {
+            FAMILIES.invalidate(penanggungId);
+            PENANGGUNG.invalidate(penanggungId);
+        });
+    }
+
+    /**
+     * Used when a write touches Tanggungan rows it cannot name, such as clearing
+     * penanggung_id for a whole family.
+     */
+    static void invalidateAllTanggungan() {
+        invalidate(TANGGUNGAN::clear);
+    }
+
+    /**
+     * Runs the invalidation now and, inside a UnitOfWork, again once the unit completes.
+     */
+    static void invalidate(Runnable invalidation) {
+        invalidation.run();
+        if (UnitOfWork.isActive()) {
+            UnitOfWork.afterCompletion(invalidation);
+        }
+    }
+
+    static User copyUser(User user) {
+        return new User(user.getUserId(), user.getNama(), user.getUmur(), user.getEmail(), user.getPassword(),
+                user.getRole());
+    }
+
+    static Penanggung copyPenanggung(Penanggung penanggung) {
+        Penanggung copy = new Penanggung(penanggung.getUserId(), penanggung.getNama(), penanggung.getUmur(),
+                penanggung.getEmail(), penanggung.getPassword(), penanggung.getPekerjaan());
+        copy.setAnggotaTanggunganIds(new ArrayList<>(penanggung.getAnggotaTanggunganIds()));
+        copy.setJumlahPemasukan(penanggung.getJumlahPemasukan());
+        copy.setJumlahPengeluaran(penanggung.getJumlahPengeluaran());
+        return copy;
+    }
+
+    static Tanggungan copyTanggungan(Tanggungan tanggungan) {
+        return new Tanggungan(tanggungan.getUserId(), tanggungan.getNama(), tanggungan.getUmur(),
+                tanggungan.getEmail(), tanggungan.getPassword(), tanggungan.getPosisiKeluarga(),
+                tanggungan.getPendidikan(), tanggungan.getPekerjaan(), tanggungan.getPenanggungId());
+    }
+}
@@ -0,0 +1,393 @@
+package com.subwayit.dao;
+
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.model.Penanggung;
+import com.subwayit.model.Tanggungan;
+import com.subwayit.model.User;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads and writes the FamilyMembership table, which links each Tanggungan to the
+ * Penanggung heading their family. Every change is a single-row write; members are
+ * listed in the order they were added.
+ */
+public class FamilyMembershipDAO {
+
+    /**
+     * Adds a dependent to a family.
+     *
+     * @param penanggungId The head of the family.
+     * @param tanggunganId The dependent to add.
+     * @return true if the link was written, false if the Penanggung does not exist or the
+     *         dependent already belongs to this family.
+     * @throws RuntimeException if the dependent already belongs to another family.
+     */
+    public boolean addMember(String penanggungId, String tanggunganId) {
+        String sql = "INSERT INTO FamilyMembership(penanggung_id, tanggungan_id) "
+                + "SELECT ?, ? WHERE EXISTS (SELECT 1 FROM Penanggung WHERE penanggung_id = ?) "
+                + "AND NOT EXISTS (SELECT 1 FROM FamilyMembership WHERE penanggung_id = ? AND tanggungan_id = ?)";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, penanggungId);
+            pstmt.setString(2, tanggunganId);
+            pstmt.setString(3, penanggungId);
+            pstmt.setString(4, penanggungId);
+            pstmt.setString(5, tanggunganId);
+            boolean added = pstmt.executeUpdate() > 0;
+            EntityCache.invalidateFamily(penanggungId);
+            return added;
+        } catch (SQLException e) {
+            System.err.println("Error menambahkan anggota keluarga: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Gagal menambahkan anggota keluarga: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes a dependent from a family.
+     *
+     * @return true if the dependent was a member of that family.
+     */
+    public boolean removeMember(String penanggungId, String tanggunganId) {
+        String sql = "DELETE FROM FamilyMembership WHERE penanggung_id = ? AND tanggungan_id = ?";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, penanggungId);
+            pstmt.setString(2, tanggunganId);
+            boolean removed = pstmt.executeUpdate() > 0;
+            EntityCache.invalidateFamily(penanggungId);
+            return removed;
+        } catch (SQLException e) {
+            System.err.println("Error menghapus anggota keluarga: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Gagal menghapus anggota keluarga: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes a dependent from whichever family they belong to, e.g. when the
+     * dependent is deleted.
+     */
+    public void removeMemberFromAllFamilies(String tanggunganId) {
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(
+                        "DELETE FROM FamilyMembership WHERE tanggungan_id = ? RETURNING penanggung_id")) {
+            pstmt.setString(1, tanggunganId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                EntityCache.invalidateFamily(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error menghapus anggota keluarga: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Gagal menghapus anggota keluarga: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes every membership of a family, e.g. when its Penanggung is deleted.
+     */
+    public void removeFamily(String penanggungId) {
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(
+                        "DELETE FROM FamilyMembership WHERE penanggung_id = ?")) {
+            pstmt.setString(1, penanggungId);
+            pstmt.executeUpdate();
+            EntityCache.invalidateFamily(penanggungId);
+        } catch (SQLException e) {
+            System.err.println("Error menghapus keluarga: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Gagal menghapus keluarga: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the IDs of every dependent in the family headed by {@code penanggungId},
+     *         in the order they were added. Served from {@link EntityCache} when possible.
+     */
+    public List<String> getMemberIds(String penanggungId) {
+        return EntityCache.read(EntityCache.FAMILIES, penanggungId, () -> loadMemberIds(penanggungId));
+    }
+
+    private List<String> loadMemberIds(String penanggungId) {
+        String sql = "SELECT tanggungan_id FROM FamilyMembership WHERE penanggung_id = ? ORDER BY rowid";
+        List<String> ids = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, penanggungId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error mengambil anggota keluarga: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return ids;
+    }
+
+    /**
+     * Finds the family a user belongs to.
+     *
+     * @param userId A Penanggung or Tanggungan ID.
+     * @return the Penanggung ID heading the user's family (the user's own ID if they are a
+     *         Penanggung), or null if the user belongs to no family.
+     */
+    public String getPenanggungIdOf(String userId) {
+        String sql = "SELECT penanggung_id FROM Penanggung WHERE penanggung_id = ? "
+                + "UNION ALL SELECT penanggung_id FROM FamilyMembership WHERE tanggungan_id = ? LIMIT 1";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, userId);
+            pstmt.setString(2, userId);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return rs.getString(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error mencari keluarga pengguna: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * @param userId A Penanggung or Tanggungan ID.
+     * @return the head of the user's family followed by its dependents, or just
+     *         {@code userId} if the user belongs to no family.
+     */
+    public List<String> getFamilyUserIds(String userId) {
+        String sql = "WITH keluarga(penanggung_id) AS ("
+                + "SELECT penanggung_id FROM Penanggung WHERE penanggung_id = ? "
+                + "UNION ALL SELECT penanggung_id FROM FamilyMembership WHERE tanggungan_id = ? LIMIT 1) "
+                + "SELECT penanggung_id, 0 AS urutan FROM keluarga "
+                + "UNION ALL SELECT tanggungan_id, rowid FROM FamilyMembership "
+                + "WHERE penanggung_id = (SELECT penanggung_id FROM keluarga) ORDER BY urutan";
+        List<String> ids = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, userId);
+            pstmt.setString(2, userId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error mengambil anggota keluarga pengguna: " + e.getMessage());
+            e.printStackTrace();
+        }
+        if (ids.isEmpty()) {
+            ids.add(userId);
+        }
+        return ids;
+    }
+
+    // One row for the head of the family and one per dependent, in the order they were added.
+    // A Tanggungan without a family gets a row of their own. Columns a role does not have are NULL.
+    private static final String FAMILY_SQL = "WITH keluarga(penanggung_id) AS ("
+            + "SELECT penanggung_id FROM Penanggung WHERE penanggung_id = ? "
+            + "UNION ALL SELECT penanggung_id FROM FamilyMembership WHERE tanggungan_id = ? LIMIT 1) "
+            + "SELECT 'P' AS jenis, 0 AS urutan, " + RowMappers.USER_COLUMNS + ", pg.pekerjaan, "
+            + "pg.jumlah_pemasukan, pg.jumlah_pengeluaran, NULL AS posisi, NULL AS pendidikan, "
+            + "NULL AS penanggung_id "
+            + "FROM Penanggung pg JOIN Pengguna p ON p.user_id = pg.penanggung_id "
+            + "WHERE pg.penanggung_id = (SELECT penanggung_id FROM keluarga) "
+            + "UNION ALL SELECT 'T', fm.rowid, " + RowMappers.USER_COLUMNS + ", t.pekerjaan, NULL, NULL, "
+            + "t.posisi, t.pendidikan, t.penanggung_id "
+            + "FROM FamilyMembership fm JOIN Tanggungan t ON t.tanggungan_id = fm.tanggungan_id "
+            + "JOIN Pengguna p ON p.user_id = t.tanggungan_id "
+            + "WHERE fm.penanggung_id = (SELECT penanggung_id FROM keluarga) "
+            + "UNION ALL SELECT 'T', 0, " + RowMappers.USER_COLUMNS + ", t.pekerjaan, NULL, NULL, "
+            + "t.posisi, t.pendidikan, t.penanggung_id "
+            + "FROM Tanggungan t JOIN Pengguna p ON p.user_id = t.tanggungan_id "
+            + "WHERE t.tanggungan_id = ? AND NOT EXISTS (SELECT 1 FROM keluarga) "
+            + "ORDER BY urutan";
+
+    /**
+     * Loads the whole family of a user in one query: the Penanggung heading it and every
+     * Tanggungan in it, with their Pengguna rows. The loaded entities are also put into
+     * {@link EntityCache}.
+     *
+     * @param userId A Penanggung or Tanggungan ID.
+     * @return the user's family; a Tanggungan without a family is returned as its only
+     *         member, and any other user gets an empty family.
+     */
+    public Family loadFamily(String userId) {
+        long penanggungGeneration = EntityCache.PENANGGUNG.generation();
+        long tanggunganGeneration = EntityCache.TANGGUNGAN.generation();
+        long familyGeneration = EntityCache.FAMILIES.generation();
+        Penanggung head = null;
+        List<Tanggungan> members = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(FAMILY_SQL)) {
+            pstmt.setString(1, userId);
+            pstmt.setString(2, userId);
+            pstmt.setString(3, userId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                if ("P".equals(rs.getString("jenis"))) {
+                    head = new Penanggung(rs.getString("user_id"), rs.getString("nama"), rs.getInt("umur"),
+                            rs.getString("e_mail"), rs.getString("password"), rs.getString("pekerjaan"));
+                    head.setJumlahPemasukan(rs.getInt("jumlah_pemasukan"));
+                    head.setJumlahPengeluaran(rs.getInt("jumlah_pengeluaran"));
+                } else {
+                    members.add(RowMappers.tanggungan(rs));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Error mengambil keluarga pengguna: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Gagal mengambil keluarga pengguna: " + e.getMessage(), e);
+        }
+
+        Family family = new Family(head, members);
+        if (head != null) {
+            EntityCache.store(EntityCache.PENANGGUNG, head.getUserId(), family.getHead(), penanggungGeneration);
+            EntityCache.store(EntityCache.FAMILIES, head.getUserId(), family.getMemberIds(), familyGeneration);
+        }
+        for (Tanggungan member : members) {
+            EntityCache.store(EntityCache.TANGGUNGAN, member.getUserId(), member, tanggunganGeneration);
+        }
+        return family;
+    }
+
+    /**
+     * An immutable snapshot of one family. The with/without methods return a changed copy
+     * and leave this one untouched, so a snapshot can be read from any thread.
+     */
+    public static final class Family {
+        private final Penanggung head;
+        private final List<Tanggungan> members;
+
+        public Family(Penanggung head, List<Tanggungan> members) {
+            this.members = Collections.unmodifiableList(new ArrayList<>(members));
+            if (head != null) {
+                // The head's member list always matches the members of this snapshot
+                head = EntityCache.copyPenanggung(head);
+                head.setAnggotaTanggunganIds(getMemberIds());
+            }
+            this.head = head;
+        }
+
+        /**
+         * @return the Penanggung heading the family, or null if there is none
+         */
+        public Penanggung getHead() {
+            return head;
+        }
+
+        /**
+         * @return the family's Tanggungan, in the order they were added
+         */
+        public List<Tanggungan> getMembers() {
+            return members;
+        }
+
+        public List<String> getMemberIds() {
+            List<String> ids = new ArrayList<>(members.size());
+            for (Tanggungan member : members) {
+                ids.add(member.getUserId());
+            }
+            return ids;
+        }
+
+        /**
+         * @return the head followed by the members
+         */
+        public List<User> getAllUsers() {
+            List<User> users = new ArrayList<>(members.size() + 1);
+            if (head != null) {
+                users.add(head);
+            }
+            users.addAll(members);
+            return users;
+        }
+
+        /**
+         * @return the IDs of {@link #getAllUsers()}
+         */
+        public List<String> getUserIds() {
+            List<String> ids = new ArrayList<>(members.size() + 1);
+            for (User user : getAllUsers()) {
+                ids.add(user.getUserId());
+            }
+            return ids;
+        }
+
+        /**
+         * @return a copy of the head or member with this ID that may be edited freely, or
+         *         null if they are not in the family
+         */
+        public User editableCopy(String userId) {
+            if (head != null && head.getUserId().equals(userId)) {
+                return EntityCache.copyPenanggung(head);
+            }
+            for (Tanggungan member : members) {
+                if (member.getUserId().equals(userId)) {
+                    return EntityCache.copyTanggungan(member);
+                }
+            }
+            return null;
+        }
+
+        public Family withMember(Tanggungan member) {
+            List<Tanggungan> changed = new ArrayList<>(members);
+            changed.removeIf(m -> m.getUserId().equals(member.getUserId()));
+            changed.add(member);
+            return new Family(head, changed);
+        }
+
+        /**
+         * @return a copy with the user replaced wherever they appear, as head or member
+         */
+        public Family withUpdated(User user) {
+            Penanggung changedHead = head;
+            if (head != null && head.getUserId().equals(user.getUserId())) {
+                changedHead = user instanceof Penanggung ? (Penanggung) user : withUserFields(head, user);
+            }
+            List<Tanggungan> changed = new ArrayList<>(members.size());
+            for (Tanggungan member : members) {
+                if (!member.getUserId().equals(user.getUserId())) {
+                    changed.add(member);
+                } else if (user instanceof Tanggungan) {
+                    changed.add((Tanggungan) user);
+                } else {
+                    changed.add(withUserFields(member, user));
+                }
+            }
+            return new Family(changedHead, changed);
+        }
+
+        public Family withoutMember(String tanggunganId) {
+            List<Tanggungan> changed = new ArrayList<>(members);
+            changed.removeIf(m -> m.getUserId().equals(tanggunganId));
+            return new Family(head, changed);
+        }
+
+        private static Penanggung withUserFields(Penanggung penanggung, User user) {
+            Penanggung copy = EntityCache.copyPenanggung(penanggung);
+            copyUserFields(user, copy);
+            return copy;
+        }
+
+        private static Tanggungan withUserFields(Tanggungan tanggungan, User user) {
+            Tanggungan copy = EntityCache.copyTanggungan(tanggungan);
+            copyUserFields(user, copy);
+            return copy;
+        }
+
+        private static void copyUserFields(User from, User to) {
+            to.setNama(from.getNama());
+            to.setUmur(from.getUmur());
+            to.setEmail(from.getEmail());
+            to.setPassword(from.getPassword());
+        }
+    }
+}
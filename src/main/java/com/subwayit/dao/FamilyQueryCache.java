@@ -0,0 +1,126 @@
+package com.subwayit.dao;
+
+import com.subwayit.dao.UtangDAO.UtangWithUserInfo;
+import com.subwayit.model.Transaksi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the transaction and debt lists of a family, keyed by the set of user IDs they
+ * were fetched for, so switching between pages does not re-run the same queries.
+ *
+ * The key is the sorted, de-duplicated ID list, so the same family hits the same entry
+ * whatever order its members are listed in. TransaksiDAO and UtangDAO drop every entry
+ * whose key contains a user whose rows they change; lookups inside a UnitOfWork bypass
+ * the cache like {@link EntityCache} does.
+ *
+ * Every invalidation also bumps a version counter, which pages compare to decide whether
+ * what they show is still current.
+ */
+public final class FamilyQueryCache {
+
+    private FamilyQueryCache() {
+    }
+
+    static final LruCache<List<String>, List<Transaksi>> TRANSACTIONS =
+            new LruCache<>("family-transactions", 64, FamilyQueryCache::copyTransactions);
+    static final LruCache<List<String>, List<UtangWithUserInfo>> DEBTS =
+            new LruCache<>("family-debts", 64, FamilyQueryCache::copyDebts);
+
+    private static final AtomicLong TRANSACTIONS_VERSION = new AtomicLong();
+    private static final AtomicLong DEBTS_VERSION = new AtomicLong();
+
+    /**
+     * @return hit/miss/eviction counters of both caches
+     */
+    public static List<LruCache.Stats> getStats() {
+        return List.of(TRANSACTIONS.getStats(), DEBTS.getStats());
+    }
+
+    public static void clear() {
+        TRANSACTIONS.clear();
+        DEBTS.clear();
+    }
+
+    /**
+     * @return a number that changes whenever any user's transactions change
+     */
+    public static long getTransactionsVersion() {
+        return TRANSACTIONS_VERSION.get();
+    }
+
+    /**
+     * @return a number that changes whenever any user's debts change
+     */
+    public static long getDebtsVersion() {
+        return DEBTS_VERSION.get();
+    }
+
+    static List<Transaksi> readTransactions(List<String> userIds, Supplier<List<Transaksi>> loader) {
+        return EntityCache.read(TRANSACTIONS, key(userIds), loader);
+    }
+
+    static List<UtangWithUserInfo> readDebts(List<String> userIds, Supplier<List<UtangWithUserInfo>> loader) {
+        return EntityCache.read(DEBTS, key(userIds), loader);
+    }
+
+    /**
+     * The transactions of these users were added, changed or deleted.
+     */
+    static void invalidateTransactions(Collection<String> userIds) {
+        List<String> changed = List.copyOf(userIds);
+        EntityCache.invalidate(() -> {
+            TRANSACTIONS.invalidateIf(key -> !Collections.disjoint(key, changed));
+            TRANSACTIONS_VERSION.incrementAndGet();
+        });
+    }
+
+    /**
+     * The debts of these users were added, changed, paid or deleted.
+     */
+    static void invalidateDebts(Collection<String> userIds) {
+        List<String> changed = List.copyOf(userIds);
+        EntityCache.invalidate(() -> {
+            DEBTS.invalidateIf(key -> !Collections.disjoint(key, changed));
+            DEBTS_VERSION.incrementAndGet();
+        });
+    }
+
+    /**
+     * Used when debts changed whose owners are not known, e.g. after a bulk recompute.
+     */
+    static void invalidateAllDebts() {
+        EntityCache.invalidate(() -> {
+            DEBTS.clear();
+            DEBTS_VERSION.incrementAndGet();
+        });
+    }
+
+    private static List<String> key(List<String> userIds) {
+        return userIds.stream().filter(Objects::nonNull).sorted().distinct().toList();
+    }
+
+    private static List<Transaksi> copyTransactions(List<Transaksi> transactions) {
+        List<Transaksi> copy = new ArrayList<>(transactions.size());
+        for (Transaksi t : transactions) {
+            copy.add(new Transaksi(t.getTransaksiId(), t.getUserId(), t.getJenis(), t.getKategori(), t.getNominal(),
+                    t.getTanggalTransaksi(), t.getBuktiTransaksi(), t.isRutin(), t.getDeskripsi()));
+        }
+        return copy;
+    }
+
+    private static List<UtangWithUserInfo> copyDebts(List<UtangWithUserInfo> debts) {
+        List<UtangWithUserInfo> copy = new ArrayList<>(debts.size());
+        for (UtangWithUserInfo u : debts) {
+            copy.add(new UtangWithUserInfo(u.getUtangId(), u.getUserId(), u.getJumlah(), u.getBunga(),
+                    u.getTanggalJatuhTempo(), u.getStatus(), u.getCreditor(), u.getSisaUtang(), u.getUserName()));
+        }
+        return copy;
+    }
+}
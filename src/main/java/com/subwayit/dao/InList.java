@@ -0,0 +1,129 @@
+package com.subwayit.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The values of an {@code IN (...)} filter, bound so that any number of IDs maps onto a
+ * handful of distinct SQL texts.
+ *
+ * Up to {@link #MAX_BUCKET} distinct IDs are bound as separate placeholders, padded to the
+ * next power of two by repeating the last ID: a family of three and one of four both use
+ * {@code IN (?,?,?,?)}, so each query has at most seven placeholder shapes that the
+ * driver and SQLite can reuse. Larger sets are sent as one JSON array parameter and
+ * unpacked with {@code json_each}, which keeps the statement text fixed and never runs
+ * into SQLite's limit on bound variables. Either way SQLite turns the list into an
+ * ephemeral index and probes the column's index once per ID.
+ */
+final class InList {
+
+    /** Largest set bound as individual placeholders; larger sets use json_each. */
+    static final int MAX_BUCKET = 64;
+
+    private static final String JSON_PLACEHOLDER = "SELECT value FROM json_each(?)";
+
+    private final String placeholders;
+    private final List<String> params;
+    private final int size;
+
+    private InList(String placeholders, List<String> params, int size) {
+        this.placeholders = placeholders;
+        this.params = params;
+        this.size = size;
+    }
+
+    /**
+     * @param ids the values to match; duplicates and nulls are dropped, since neither can
+     *            change which rows an IN filter matches
+     */
+    static InList of(Collection<String> ids) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.removeIf(Objects::isNull);
+        if (distinct.isEmpty()) {
+            // IN (NULL) matches nothing, like an empty list would
+            return new InList("NULL", List.of(), 0);
+        }
+        if (distinct.size() > MAX_BUCKET) {
+            return new InList(JSON_PLACEHOLDER, List.of(toJsonArray(distinct)), distinct.size());
+        }
+
+        int bucket = bucketSize(distinct.size());
+        List<String> padded = new ArrayList<>(distinct);
+        padded.addAll(Collections.nCopies(bucket - distinct.size(), distinct.get(distinct.size() - 1)));
+        return new InList(String.join(",", Collections.nCopies(bucket, "?")), List.copyOf(padded), distinct.size());
+    }
+
+    /**
+     * @return the smallest power of two that is at least {@code count}
+     */
+    static int bucketSize(int count) {
+        return count <= 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+    }
+
+    /**
+     * @return the text to put between the parentheses of {@code column IN (...)}
+     */
+    String placeholders() {
+        return placeholders;
+    }
+
+    /**
+     * @return the values to bind, in placeholder order
+     */
+    List<String> params() {
+        return params;
+    }
+
+    /**
+     * @return the number of distinct IDs, without padding
+     */
+    int size() {
+        return size;
+    }
+
+    boolean usesJson() {
+        return placeholders.equals(JSON_PLACEHOLDER);
+    }
+
+    /**
+     * Binds the values starting at parameter {@code firstIndex}.
+     *
+     * @return the index of the next parameter after the list
+     */
+    int bind(PreparedStatement pstmt, int firstIndex) throws SQLException {
+        int index = firstIndex;
+        for (String param : params) {
+            pstmt.setString(index++, param);
+        }
+        return index;
+    }
+
+    private static String toJsonArray(List<String> ids) {
+        StringBuilder json = new StringBuilder(ids.size() * 12).append('[');
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('"');
+            String id = ids.get(i);
+            for (int c = 0; c < id.length(); c++) {
+                char ch = id.charAt(c);
+                if (ch == '"' || ch == '\\') {
+                    json.append('\\').append(ch);
+                } else if (ch < 0x20) {
+                    json.append(String.format("\\u%04x", (int) ch));
+                } else {
+                    json.append(ch);
+                }
+            }
+            json.append('"');
+        }
+        return json.append(']').toString();
+    }
+}
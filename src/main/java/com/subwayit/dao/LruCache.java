@@ -0,0 +1,153 @@
+package com.subwayit.dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * A bounded, thread-safe least-recently-used cache with hit/miss/eviction counters.
+ *
+ * Values are copied on the way in and on the way out, so callers may modify what they
+ * get back without changing the cached entry. Every invalidation bumps a generation
+ * number; a loader that read the database before an invalidation passes the generation
+ * it saw to {@link #put(Object, Object, long)}, which then drops the possibly stale value
+ * instead of caching it.
+ */
+public class LruCache<K, V> {
+
+    private final String name;
+    private final int capacity;
+    private final UnaryOperator<V> copier;
+    private final LinkedHashMap<K, V> entries;
+
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * @param name     shown in {@link Stats#toString()}
+     * @param capacity maximum number of entries kept
+     * @param copier   makes an independent copy of a value
+     */
+    public LruCache(String name, int capacity, UnaryOperator<V> copier) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.copier = copier;
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return a copy of the cached value, or null on a miss
+     */
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return copier.apply(value);
+    }
+
+    /**
+     * @return the generation to pass to {@link #put(Object, Object, long)} for a value
+     *         about to be loaded
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Caches a copy of the value unless something was invalidated since
+     * {@code loadedAtGeneration} was read.
+     */
+    public synchronized void put(K key, V value, long loadedAtGeneration) {
+        if (value != null && loadedAtGeneration == generation) {
+            entries.put(key, copier.apply(value));
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        if (entries.remove(key) != null) {
+            invalidations++;
+        }
+    }
+
+    public synchronized void invalidateIf(Predicate<K> keyMatches) {
+        generation++;
+        int before = entries.size();
+        entries.keySet().removeIf(keyMatches);
+        invalidations += before - entries.size();
+    }
+
+    public synchronized void clear() {
+        generation++;
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    /**
+     * @return a snapshot of this cache's counters
+     */
+    public synchronized Stats getStats() {
+        return new Stats(name, capacity, entries.size(), hits, misses, evictions, invalidations);
+    }
+
+    /**
+     * Immutable snapshot of cache metrics.
+     */
+    public static class Stats {
+        private final String name;
+        private final int capacity;
+        private final int size;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+
+        Stats(String name, int capacity, int size, long hits, long misses, long evictions, long invalidations) {
+            this.name = name;
+            this.capacity = capacity;
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+        }
+
+        public String getName() { return name; }
+        public int getCapacity() { return capacity; }
+        public int getSize() { return size; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getEvictions() { return evictions; }
+        public long getInvalidations() { return invalidations; }
+
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s[size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, invalidations=%d]",
+                    name, size, capacity, hits, misses, getHitRate() * 100, evictions, invalidations);
+        }
+    }
+}
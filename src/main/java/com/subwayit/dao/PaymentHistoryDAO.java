@@ -0,0 +1,403 @@
+package com.subwayit.dao;
+
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.UnitOfWork;
+import com.subwayit.model.PaymentHistory;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * DAO for payment_history, the ledger of payments made against each Utang.
+ *
+ * Rows are written by {@link UtangDAO#payDebt} in the same transaction that decrements
+ * Utang.sisa_utang, so for every debt sisa_utang should equal its total with interest
+ * minus the sum of its payments. {@link #recomputeSisaUtang(int)} checks that and repairs
+ * any debt that has drifted. Payments made before the ledger existed are recorded as one
+ * opening row per debt by schema version 8.
+ */
+public class PaymentHistoryDAO {
+
+    private static final double TOLERANCE = 0.005;
+
+    private static final String COLUMNS = "id, utang_id, payment_amount, payment_date, notes";
+
+    // Debts per query when recomputing; each chunk is read and repaired as one task
+    static final int RECOMPUTE_CHUNK_SIZE = 200;
+
+    public static final int DEFAULT_PARALLELISM =
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /**
+     * Position after the last payment of a ledger page: payments are ordered by
+     * (payment_date, id), newest first.
+     */
+    public static class LedgerCursor {
+        private final LocalDate paymentDate;
+        private final long id;
+
+        public LedgerCursor(LocalDate paymentDate, long id) {
+            this.paymentDate = paymentDate;
+            this.id = id;
+        }
+
+        public LocalDate getPaymentDate() { return paymentDate; }
+        public long getId() { return id; }
+    }
+
+    /**
+     * One page of a debt's ledger, newest first, and the cursor to request the next one.
+     */
+    public static class LedgerPage {
+        private final List<PaymentHistory> items;
+        private final LedgerCursor nextCursor;
+
+        public LedgerPage(List<PaymentHistory> items, LedgerCursor nextCursor) {
+            this.items = items;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<PaymentHistory> getItems() { return items; }
+        public LedgerCursor getNextCursor() { return nextCursor; }
+        public boolean hasMore() { return nextCursor != null; }
+    }
+
+    /**
+     * Number and sum of payments made in one month.
+     */
+    public static class MonthlyPaymentTotal {
+        private final YearMonth month;
+        private final int count;
+        private final double total;
+
+        public MonthlyPaymentTotal(YearMonth month, int count, double total) {
+            this.month = month;
+            this.count = count;
+            this.total = total;
+        }
+
+        public YearMonth getMonth() { return month; }
+        public int getCount() { return count; }
+        public double getTotal() { return total; }
+    }
+
+    /**
+     * A debt whose stored sisa_utang does not match its ledger.
+     */
+    public static class Drift {
+        private final String utangId;
+        private final double storedSisaUtang;
+        private final double ledgerSisaUtang;
+        private final boolean repaired;
+
+        public Drift(String utangId, double storedSisaUtang, double ledgerSisaUtang, boolean repaired) {
+            this.utangId = utangId;
+            this.storedSisaUtang = storedSisaUtang;
+            this.ledgerSisaUtang = ledgerSisaUtang;
+            this.repaired = repaired;
+        }
+
+        public String getUtangId() { return utangId; }
+        public double getStoredSisaUtang() { return storedSisaUtang; }
+        public double getLedgerSisaUtang() { return ledgerSisaUtang; }
+        public boolean isRepaired() { return repaired; }
+
+        @Override
+        public String toString() {
+            return utangId + " stored=" + storedSisaUtang + " ledger=" + ledgerSisaUtang
+                    + (repaired ? " (repaired)" : "");
+        }
+    }
+
+    /**
+     * Outcome of {@link #verifySisaUtang(int)} or {@link #recomputeSisaUtang(int)}.
+     */
+    public static class RecomputeReport {
+        private final int debtsChecked;
+        private final List<Drift> drifts;
+
+        public RecomputeReport(int debtsChecked, List<Drift> drifts) {
+            this.debtsChecked = debtsChecked;
+            this.drifts = drifts;
+        }
+
+        public int getDebtsChecked() { return debtsChecked; }
+        public List<Drift> getDrifts() { return drifts; }
+        public boolean isConsistent() { return drifts.isEmpty(); }
+
+        @Override
+        public String toString() {
+            return debtsChecked + " utang diperiksa, " + drifts.size() + " tidak sesuai ledger";
+        }
+    }
+
+    /**
+     * Adds a ledger row. Must run inside the payer's UnitOfWork so the payment and the new
+     * sisa_utang commit together.
+     */
+    static void insert(String utangId, double paymentAmount, LocalDate paymentDate, String notes) throws SQLException {
+        String sql = "INSERT INTO payment_history(utang_id, payment_amount, payment_date, notes) VALUES(?,?,?,?)";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, utangId);
+            pstmt.setDouble(2, paymentAmount);
+            pstmt.setDate(3, Date.valueOf(paymentDate));
+            pstmt.setString(4, notes);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Returns one page of a debt's payments, newest first, starting after the cursor.
+     * Pages are read straight off the (utang_id, payment_date) index, so a page costs the
+     * same however long the ledger is.
+     *
+     * @param utangId The debt whose ledger is listed.
+     * @param after   The cursor returned with the previous page, or null for the first page.
+     * @param limit   Maximum number of payments in the page.
+     */
+    public LedgerPage getLedger(String utangId, LedgerCursor after, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        String sql = "SELECT " + COLUMNS + " FROM payment_history WHERE utang_id = ?"
+                + (after == null ? "" : " AND (payment_date, id) < (?, ?)")
+                + " ORDER BY payment_date DESC, id DESC LIMIT ?";
+        List<PaymentHistory> items = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            pstmt.setString(index++, utangId);
+            if (after != null) {
+                pstmt.setDate(index++, Date.valueOf(after.getPaymentDate()));
+                pstmt.setLong(index++, after.getId());
+            }
+            pstmt.setInt(index, limit + 1);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                items.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting payment ledger: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        // One extra row was fetched only to learn whether another page exists
+        LedgerCursor next = null;
+        if (items.size() > limit) {
+            items.remove(items.size() - 1);
+            PaymentHistory last = items.get(items.size() - 1);
+            next = new LedgerCursor(last.getPaymentDate(), last.getId());
+        }
+        return new LedgerPage(items, next);
+    }
+
+    /**
+     * @return the sum of all payments made against the debt
+     */
+    public double getTotalPaid(String utangId) {
+        String sql = "SELECT COALESCE(SUM(payment_amount), 0) FROM payment_history WHERE utang_id = ?";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, utangId);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return rs.getDouble(1);
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting total paid: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the number and sum of payments per month, from month {@code from} through
+     * {@code to}, over every debt owned by the given users (typically a whole family).
+     * Months without payments are omitted; results are ordered by month.
+     */
+    public List<MonthlyPaymentTotal> getMonthlyTotals(List<String> userIds, YearMonth from, YearMonth to) {
+        List<MonthlyPaymentTotal> totals = new ArrayList<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return totals;
+        }
+        InList ids = InList.of(userIds);
+        String sql = "SELECT strftime('%Y-%m', ph.payment_date / 1000, 'unixepoch', 'localtime') AS bulan, "
+                + "COUNT(*) AS jumlah, SUM(ph.payment_amount) AS total "
+                + "FROM Utang u JOIN payment_history ph ON ph.utang_id = u.utang_id "
+                + "WHERE u.user_id IN (" + ids.placeholders() + ") "
+                + "AND ph.payment_date >= ? AND ph.payment_date < ? "
+                + "GROUP BY bulan ORDER BY bulan";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = ids.bind(pstmt, 1);
+            pstmt.setDate(index++, Date.valueOf(from.atDay(1)));
+            pstmt.setDate(index, Date.valueOf(to.plusMonths(1).atDay(1)));
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                totals.add(new MonthlyPaymentTotal(YearMonth.parse(rs.getString("bulan")), rs.getInt("jumlah"),
+                        rs.getDouble("total")));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting monthly payment totals: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return totals;
+    }
+
+    /**
+     * Compares every debt's sisa_utang with its ledger without changing anything.
+     *
+     * @param parallelism number of worker threads reading chunks of debts
+     */
+    public RecomputeReport verifySisaUtang(int parallelism) {
+        return checkAllDebts(parallelism, false);
+    }
+
+    /**
+     * Rebuilds Utang.sisa_utang from the ledger: the debt's total with interest minus the
+     * sum of its payments, never below zero. Debts are split into chunks that worker
+     * threads read in parallel; each chunk's repairs are written in their own transaction.
+     * The status follows the new amount: 'Lunas' when nothing is left, 'Belum Lunas' when a
+     * debt marked 'Lunas' still has an amount outstanding.
+     *
+     * A debt is only repaired if its sisa_utang still holds the value that was read, so a
+     * payment made while the job runs is never overwritten; such a debt is reported but
+     * left for the next run. A debt without any ledger row is never checked: the ledger
+     * knows nothing about it, so its stored amount is taken as it is.
+     *
+     * @param parallelism number of worker threads
+     * @return every debt whose stored amount differed from its ledger
+     */
+    public RecomputeReport recomputeSisaUtang(int parallelism) {
+        return checkAllDebts(parallelism, true);
+    }
+
+    private RecomputeReport checkAllDebts(int parallelism, boolean repair) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        List<String> utangIds = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT utang_id FROM Utang ORDER BY utang_id")) {
+            while (rs.next()) {
+                utangIds.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error listing debts for recompute: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Gagal menghitung ulang sisa utang: " + e.getMessage(), e);
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "sisa-utang-recompute");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<List<Drift>>> chunks = new ArrayList<>();
+            for (int start = 0; start < utangIds.size(); start += RECOMPUTE_CHUNK_SIZE) {
+                List<String> chunk = utangIds.subList(start, Math.min(start + RECOMPUTE_CHUNK_SIZE, utangIds.size()));
+                chunks.add(workers.submit(() -> checkChunk(chunk, repair)));
+            }
+            List<Drift> drifts = new ArrayList<>();
+            for (Future<List<Drift>> chunk : chunks) {
+                drifts.addAll(chunk.get());
+            }
+            return new RecomputeReport(utangIds.size(), drifts);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Penghitungan ulang sisa utang dihentikan", e);
+        } catch (ExecutionException e) {
+            System.err.println("Error recomputing sisa utang: " + e.getCause().getMessage());
+            e.getCause().printStackTrace();
+            throw new RuntimeException("Gagal menghitung ulang sisa utang: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private static List<Drift> checkChunk(List<String> utangIds, boolean repair) throws SQLException {
+        // One statement reads the whole chunk, so amounts and ledger sums come from the same snapshot
+        InList ids = InList.of(utangIds);
+        // Only debts with a ledger; a legacy balance without one has nothing to be checked against
+        String sql = "SELECT u.utang_id, u.jumlah * (1 + u.bunga) AS total, u.sisa_utang, SUM(ph.payment_amount) AS dibayar "
+                + "FROM Utang u JOIN payment_history ph ON ph.utang_id = u.utang_id "
+                + "WHERE u.utang_id IN (" + ids.placeholders() + ") GROUP BY u.utang_id";
+        List<Drift> found = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            ids.bind(pstmt, 1);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                double stored = rs.getDouble("sisa_utang");
+                double expected = Math.max(rs.getDouble("total") - rs.getDouble("dibayar"), 0);
+                if (Math.abs(stored - expected) > TOLERANCE) {
+                    found.add(new Drift(rs.getString("utang_id"), stored, expected, false));
+                }
+            }
+        }
+        if (!repair || found.isEmpty()) {
+            return found;
+        }
+
+        return UnitOfWork.inTransaction(() -> {
+            String update = "UPDATE Utang SET sisa_utang = ?, status = CASE WHEN ? <= ? THEN 'Lunas' "
+                    + "WHEN status = 'Lunas' THEN 'Belum Lunas' ELSE status END "
+                    + "WHERE utang_id = ? AND sisa_utang = ?";
+            List<Drift> repaired = new ArrayList<>();
+            try (Connection conn = DatabaseManager.connect();
+                    PreparedStatement pstmt = conn.prepareStatement(update)) {
+                for (Drift drift : found) {
+                    pstmt.setDouble(1, drift.getLedgerSisaUtang());
+                    pstmt.setDouble(2, drift.getLedgerSisaUtang());
+                    pstmt.setDouble(3, TOLERANCE);
+                    pstmt.setString(4, drift.getUtangId());
+                    pstmt.setDouble(5, drift.getStoredSisaUtang());
+                    boolean updated = pstmt.executeUpdate() > 0;
+                    repaired.add(new Drift(drift.getUtangId(), drift.getStoredSisaUtang(),
+                            drift.getLedgerSisaUtang(), updated));
+                }
+            }
+            FamilyQueryCache.invalidateAllDebts();
+            return repaired;
+        });
+    }
+
+    private static PaymentHistory mapRow(ResultSet rs) throws SQLException {
+        return new PaymentHistory(
+                rs.getLong("id"),
+                rs.getString("utang_id"),
+                rs.getDouble("payment_amount"),
+                rs.getDate("payment_date").toLocalDate(),
+                rs.getString("notes"));
+    }
+
+    /**
+     * Recompute command: rebuilds sisa_utang from the ledger and prints any drift found.
+     * Usage: java com.subwayit.dao.PaymentHistoryDAO [parallelism]
+     */
+    public static void main(String[] args) {
+        int parallelism = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PARALLELISM;
+        DatabaseManager.initializeDatabase();
+        RecomputeReport report = new PaymentHistoryDAO().recomputeSisaUtang(parallelism);
+        System.out.println("Sisa utang dihitung ulang dari ledger: " + report);
+        for (Drift drift : report.getDrifts()) {
+            System.out.println("  " + drift);
+        }
+        DatabaseManager.shutdown();
+    }
+}
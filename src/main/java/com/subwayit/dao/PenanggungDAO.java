@@ -1,8 +1,8 @@
 package com.subwayit.dao;
 
 import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.UnitOfWork;
 import com.subwayit.model.Penanggung;
-import com.subwayit.model.User; // Important for managing the parent User attributes
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -15,6 +15,7 @@ import java.util.List;
 public class PenanggungDAO {
 
     private UserDAO userDAO; // To handle the User portion of Penanggung
+    private final FamilyMembershipDAO familyMembershipDAO = new FamilyMembershipDAO();
 
     public PenanggungDAO(UserDAO userDAO) {
         this.userDAO = userDAO;
@@ -28,27 +29,25 @@ public class PenanggungDAO {
      */
     public void addPenanggung(Penanggung penanggung) {
         try {
-            userDAO.addUser(penanggung); // Ini akan throw RuntimeException jika gagal
-
-            // Tambahkan kolom anggota_tanggungan_ids ke SQL INSERT
-            String sql = "INSERT INTO Penanggung(penanggung_id, jumlah_pemasukan, jumlah_pengeluaran, pekerjaan, anggota_tanggungan_ids) VALUES(?,?,?,?,?)";
-            try (Connection conn = DatabaseManager.connect();
-                    PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, penanggung.getUserId());
-                pstmt.setInt(2, penanggung.getJumlahPemasukan());
-                pstmt.setInt(3, penanggung.getJumlahPengeluaran());
-                pstmt.setString(4, penanggung.getPekerjaan());
-                pstmt.setString(5, penanggung.getAnggotaTanggunganIdsAsString()); // Simpan sebagai string koma
-                pstmt.executeUpdate();
-                System.out.println("Penanggung berhasil ditambahkan ke tabel Penanggung: " + penanggung.getNama());
-
-                // Hapus logika pembuatan Keluarga di sini
-                // String keluargaId = "KEL-" + UUID.randomUUID().toString().substring(0, 8);
-                // Keluarga newKeluarga = new Keluarga(keluargaId, penanggung.getNama(),
-                // penanggung.getUserId());
-                // keluargaDAO.addKeluarga(newKeluarga); // Hapus baris ini
-
-            }
+            // Pengguna dan Penanggung ditulis dalam satu transaksi: gagal di salah satu, keduanya batal
+            UnitOfWork.run(() -> {
+                userDAO.addUser(penanggung);
+
+                String sql = "INSERT INTO Penanggung(penanggung_id, jumlah_pemasukan, jumlah_pengeluaran, pekerjaan) VALUES(?,?,?,?)";
+                try (Connection conn = DatabaseManager.connect();
+                        PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, penanggung.getUserId());
+                    pstmt.setInt(2, penanggung.getJumlahPemasukan());
+                    pstmt.setInt(3, penanggung.getJumlahPengeluaran());
+                    pstmt.setString(4, penanggung.getPekerjaan());
+                    pstmt.executeUpdate();
+                }
+                // Anggota yang sudah ada di objek ikut dicatat di FamilyMembership
+                for (String tanggunganId : penanggung.getAnggotaTanggunganIds()) {
+                    familyMembershipDAO.addMember(penanggung.getUserId(), tanggunganId);
+                }
+            });
+            System.out.println("Penanggung berhasil ditambahkan ke tabel Penanggung: " + penanggung.getNama());
         } catch (SQLException e) {
             System.err.println("Error menambahkan Penanggung ke tabel Penanggung: " + e.getMessage());
             e.printStackTrace();
@@ -66,41 +65,30 @@ public class PenanggungDAO {
      * @return The Penanggung object if found, null otherwise.
      */
     public Penanggung getPenanggungById(String penanggungId) {
-        User user = userDAO.getUserByUserId(penanggungId);
-        if (user == null || !"Penanggung".equals(user.getRole())) {
-            return null;
-        }
+        return EntityCache.read(EntityCache.PENANGGUNG, penanggungId, () -> loadPenanggung(penanggungId));
+    }
 
-        // Ambil juga anggota_tanggungan_ids dari DB
-        String sql = "SELECT jumlah_pemasukan, jumlah_pengeluaran, pekerjaan, anggota_tanggungan_ids FROM Penanggung WHERE penanggung_id = ?";
-        Penanggung penanggung = null;
+    private Penanggung loadPenanggung(String penanggungId) {
+        // Pengguna dan Penanggung diambil sekaligus dengan satu JOIN
+        String sql = RowMappers.PENANGGUNG_SELECT + " WHERE pg.penanggung_id = ? AND p.role = 'Penanggung'";
         try (Connection conn = DatabaseManager.connect();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, penanggungId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                penanggung = new Penanggung(
-                        user.getUserId(),
-                        user.getNama(),
-                        user.getUmur(),
-                        user.getEmail(),
-                        user.getPassword(),
-                        rs.getString("pekerjaan"),
-                        rs.getString("anggota_tanggungan_ids") // Muat string ID anggota
-                );
-                penanggung.setJumlahPemasukan(rs.getInt("jumlah_pemasukan"));
-                penanggung.setJumlahPengeluaran(rs.getInt("jumlah_pengeluaran"));
+                return RowMappers.penanggung(rs);
             }
         } catch (SQLException e) {
             System.err.println("Error mengambil Penanggung berdasarkan ID: " + e.getMessage());
             e.printStackTrace();
         }
-        return penanggung;
+        return null;
     }
 
     /**
      * Updates an existing Penanggung's information in both Pengguna and Penanggung
-     * tables.
+     * tables. Family members are not written here; add or remove them with
+     * {@link FamilyMembershipDAO}.
      * 
      * @param penanggung The Penanggung object with updated information.
      */
@@ -108,16 +96,15 @@ public class PenanggungDAO {
         try {
             userDAO.updateUser(penanggung);
 
-            // Update juga kolom anggota_tanggungan_ids
-            String sql = "UPDATE Penanggung SET jumlah_pemasukan = ?, jumlah_pengeluaran = ?, pekerjaan = ?, anggota_tanggungan_ids = ? WHERE penanggung_id = ?";
+            String sql = "UPDATE Penanggung SET jumlah_pemasukan = ?, jumlah_pengeluaran = ?, pekerjaan = ? WHERE penanggung_id = ?";
             try (Connection conn = DatabaseManager.connect();
                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setInt(1, penanggung.getJumlahPemasukan());
                 pstmt.setInt(2, penanggung.getJumlahPengeluaran());
                 pstmt.setString(3, penanggung.getPekerjaan());
-                pstmt.setString(4, penanggung.getAnggotaTanggunganIdsAsString()); // Simpan sebagai string koma
-                pstmt.setString(5, penanggung.getUserId());
+                pstmt.setString(4, penanggung.getUserId());
                 int affectedRows = pstmt.executeUpdate();
+                EntityCache.invalidatePenanggung(penanggung.getUserId());
                 if (affectedRows > 0) {
                     System.out.println("Penanggung berhasil diupdate di tabel Penanggung: " + penanggung.getNama());
                 } else {
@@ -150,17 +137,21 @@ public class PenanggungDAO {
                     PreparedStatement pstmt = conn.prepareStatement(updateTanggunganSql)) {
                 pstmt.setString(1, penanggungId);
                 pstmt.executeUpdate();
+                EntityCache.invalidateAllTanggungan();
                 System.out.println("Tanggungan terkait diatur ke NULL penanggung_id.");
             } catch (SQLException e) {
                 System.err.println("Error mengupdate Tanggungan terkait saat menghapus Penanggung: " + e.getMessage());
             }
 
+            familyMembershipDAO.removeFamily(penanggungId);
+
             // Hapus dari tabel Penanggung
             String sql = "DELETE FROM Penanggung WHERE penanggung_id = ?";
             try (Connection conn = DatabaseManager.connect();
                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setString(1, penanggungId);
                 int affectedRows = pstmt.executeUpdate();
+                EntityCache.invalidatePenanggung(penanggungId);
                 if (affectedRows > 0) {
                     System.out.println("Penanggung berhasil dihapus dari tabel Penanggung: " + penanggungId);
                     userDAO.deleteUser(penanggungId);
@@ -185,27 +176,12 @@ public class PenanggungDAO {
      * @return A list of all Penanggung objects.
      */
     public List<Penanggung> getAllPenanggung() {
-        String sql = "SELECT penanggung_id, jumlah_pemasukan, jumlah_pengeluaran, pekerjaan, anggota_tanggungan_ids FROM Penanggung";
         List<Penanggung> penanggungList = new ArrayList<>();
         try (Connection conn = DatabaseManager.connect();
                 Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
+                ResultSet rs = stmt.executeQuery(RowMappers.PENANGGUNG_SELECT)) {
             while (rs.next()) {
-                User user = userDAO.getUserByUserId(rs.getString("penanggung_id"));
-                if (user != null) {
-                    Penanggung penanggung = new Penanggung(
-                            user.getUserId(),
-                            user.getNama(),
-                            user.getUmur(),
-                            user.getEmail(),
-                            user.getPassword(),
-                            rs.getString("pekerjaan"),
-                            rs.getString("anggota_tanggungan_ids") // Load string ID anggota
-                    );
-                    penanggung.setJumlahPemasukan(rs.getInt("jumlah_pemasukan"));
-                    penanggung.setJumlahPengeluaran(rs.getInt("jumlah_pengeluaran"));
-                    penanggungList.add(penanggung);
-                }
+                penanggungList.add(RowMappers.penanggung(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error getting all Penanggung: " + e.getMessage());
@@ -0,0 +1,85 @@
+package com.subwayit.dao;
+
+import com.subwayit.model.Admin;
+import com.subwayit.model.Penanggung;
+import com.subwayit.model.Tanggungan;
+import com.subwayit.model.User;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps rows of the role tables joined with Pengguna to model objects, so one query
+ * returns a complete Penanggung, Tanggungan or Admin instead of one query per user.
+ * Each SELECT constant lists exactly the columns its mapper reads.
+ */
+final class RowMappers {
+
+    private RowMappers() {
+    }
+
+    static final String USER_COLUMNS = "p.user_id, p.nama, p.umur, p.e_mail, p.password, p.role";
+
+    // anggota_tanggungan_ids is rebuilt from FamilyMembership in the order members were added
+    static final String PENANGGUNG_SELECT = "SELECT " + USER_COLUMNS + ", "
+            + "pg.jumlah_pemasukan, pg.jumlah_pengeluaran, pg.pekerjaan, "
+            + "(SELECT group_concat(fm.tanggungan_id, ',' ORDER BY fm.rowid) FROM FamilyMembership fm "
+            + "WHERE fm.penanggung_id = pg.penanggung_id) AS anggota_tanggungan_ids "
+            + "FROM Penanggung pg JOIN Pengguna p ON p.user_id = pg.penanggung_id";
+
+    // Tanggungan also stores nama/umur, but only updateTanggungan keeps them current; every
+    // mapper reads them from Pengguna, which all user updates write
+    static final String TANGGUNGAN_SELECT = "SELECT " + USER_COLUMNS + ", "
+            + "t.posisi, t.pendidikan, t.pekerjaan, t.penanggung_id "
+            + "FROM Tanggungan t JOIN Pengguna p ON p.user_id = t.tanggungan_id";
+
+    static final String ADMIN_SELECT = "SELECT " + USER_COLUMNS + ", a.admin_id "
+            + "FROM Admin a JOIN Pengguna p ON p.user_id = a.admin_id";
+
+    static User user(ResultSet rs) throws SQLException {
+        return new User(
+                rs.getString("user_id"),
+                rs.getString("nama"),
+                rs.getInt("umur"),
+                rs.getString("e_mail"),
+                rs.getString("password"),
+                rs.getString("role"));
+    }
+
+    static Penanggung penanggung(ResultSet rs) throws SQLException {
+        Penanggung penanggung = new Penanggung(
+                rs.getString("user_id"),
+                rs.getString("nama"),
+                rs.getInt("umur"),
+                rs.getString("e_mail"),
+                rs.getString("password"),
+                rs.getString("pekerjaan"),
+                rs.getString("anggota_tanggungan_ids")); // string ID anggota dipisahkan koma
+        penanggung.setJumlahPemasukan(rs.getInt("jumlah_pemasukan"));
+        penanggung.setJumlahPengeluaran(rs.getInt("jumlah_pengeluaran"));
+        return penanggung;
+    }
+
+    static Tanggungan tanggungan(ResultSet rs) throws SQLException {
+        return new Tanggungan(
+                rs.getString("user_id"),
+                rs.getString("nama"),
+                rs.getInt("umur"),
+                rs.getString("e_mail"),
+                rs.getString("password"),
+                rs.getString("posisi"),
+                rs.getString("pendidikan"),
+                rs.getString("pekerjaan"),
+                rs.getString("penanggung_id"));
+    }
+
+    static Admin admin(ResultSet rs) throws SQLException {
+        return new Admin(
+                rs.getString("user_id"),
+                rs.getString("nama"),
+                rs.getInt("umur"),
+                rs.getString("e_mail"),
+                rs.getString("password"),
+                rs.getString("admin_id"));
+    }
+}
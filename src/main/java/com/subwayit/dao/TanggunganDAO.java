@@ -1,8 +1,8 @@
 package com.subwayit.dao;
 
 import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.UnitOfWork;
 import com.subwayit.model.Tanggungan;
-import com.subwayit.model.User;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -10,49 +10,63 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class TanggunganDAO {
 
     private UserDAO userDAO;
+    private final FamilyMembershipDAO familyMembershipDAO = new FamilyMembershipDAO();
 
     public TanggunganDAO(UserDAO userDAO) { // Ubah parameter konstruktor
         this.userDAO = userDAO;
     }
 
     /**
-     * Inserts a new Tanggungan into the Pengguna and Tanggungan tables.
-     * 
-     * @param tanggungan The Tanggungan object to insert.
+     * Creates a new dependent and adds them to their head of household's family in one
+     * transaction: the Pengguna row, the Tanggungan row and the FamilyMembership row are
+     * either all written or, if any step fails (for example an unknown penanggungId),
+     * none of them are.
+     *
+     * @param tanggungan   The new dependent.
+     * @param penanggungId The ID of the Penanggung the dependent belongs to.
      */
-    public void addTanggungan(Tanggungan tanggungan, String penanggungId) { // Ubah parameter keluargaId ke penanggungId
+    public void addTanggunganToPenanggung(Tanggungan tanggungan, String penanggungId) {
         try {
-            userDAO.addUser(tanggungan);
-
-            // Tambahkan kolom penanggung_id ke SQL INSERT
-            String sql = "INSERT INTO Tanggungan(tanggungan_id, posisi, nama, umur, pendidikan, pekerjaan, penanggung_id) VALUES(?,?,?,?,?,?,?)";
-            try (Connection conn = DatabaseManager.connect();
-                    PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, tanggungan.getUserId());
-                pstmt.setString(2, tanggungan.getPosisiKeluarga());
-                pstmt.setString(3, tanggungan.getNama());
-                pstmt.setInt(4, tanggungan.getUmur());
-                pstmt.setString(5, tanggungan.getPendidikan());
-                pstmt.setString(6, tanggungan.getPekerjaan());
-                pstmt.setString(7, penanggungId); // Set penanggungId
-                pstmt.executeUpdate();
-                System.out.println("Tanggungan berhasil ditambahkan ke tabel Tanggungan: " + tanggungan.getNama());
-
-                // Tidak ada lagi logika addAnggotaToFamily dari KeluargaDAO di sini
-                // if (penanggungId != null && !penanggungId.trim().isEmpty()) { ... }
-            }
+            UnitOfWork.run(() -> {
+                insertTanggungan(tanggungan, penanggungId);
+                if (!familyMembershipDAO.addMember(penanggungId, tanggungan.getUserId())) {
+                    throw new SQLException("Penanggung tidak ditemukan: " + penanggungId);
+                }
+            });
+            System.out.println("Tanggungan " + tanggungan.getNama() + " ditambahkan ke keluarga " + penanggungId);
         } catch (SQLException e) {
-            System.err.println("Error menambahkan Tanggungan ke tabel Tanggungan: " + e.getMessage());
+            System.err.println("Error menambahkan Tanggungan ke keluarga: " + e.getMessage());
             e.printStackTrace();
             throw new RuntimeException("Gagal menambahkan Tanggungan: " + e.getMessage(), e);
-        } catch (RuntimeException e) {
-            System.err.println("Error saat menambahkan Tanggungan (masalah User dasar): " + e.getMessage());
-            throw e;
+        }
+    }
+
+    private void insertTanggungan(Tanggungan tanggungan, String penanggungId) throws SQLException {
+        userDAO.addUser(tanggungan);
+
+        // Tambahkan kolom penanggung_id ke SQL INSERT
+        String sql = "INSERT INTO Tanggungan(tanggungan_id, posisi, nama, umur, pendidikan, pekerjaan, penanggung_id) VALUES(?,?,?,?,?,?,?)";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, tanggungan.getUserId());
+            pstmt.setString(2, tanggungan.getPosisiKeluarga());
+            pstmt.setString(3, tanggungan.getNama());
+            pstmt.setInt(4, tanggungan.getUmur());
+            pstmt.setString(5, tanggungan.getPendidikan());
+            pstmt.setString(6, tanggungan.getPekerjaan());
+            pstmt.setString(7, penanggungId); // Set penanggungId
+            pstmt.executeUpdate();
         }
     }
 
@@ -63,38 +77,80 @@ public class TanggunganDAO {
      * @return The Tanggungan object if found, null otherwise.
      */
     public Tanggungan getTanggunganById(String tanggunganId) {
-        User user = userDAO.getUserByUserId(tanggunganId);
-        if (user == null || !"Tanggungan".equals(user.getRole())) {
-            return null;
-        }
+        return EntityCache.read(EntityCache.TANGGUNGAN, tanggunganId, () -> loadTanggungan(tanggunganId));
+    }
 
-        // Ambil juga penanggung_id dari DB
-        String sql = "SELECT posisi, nama, umur, pendidikan, pekerjaan, penanggung_id FROM Tanggungan WHERE tanggungan_id = ?";
-        Tanggungan tanggungan = null;
+    private Tanggungan loadTanggungan(String tanggunganId) {
+        // Pengguna dan Tanggungan diambil sekaligus dengan satu JOIN
+        String sql = RowMappers.TANGGUNGAN_SELECT + " WHERE t.tanggungan_id = ? AND p.role = 'Tanggungan'";
         try (Connection conn = DatabaseManager.connect();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, tanggunganId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                tanggungan = new Tanggungan(
-                        user.getUserId(),
-                        user.getNama(),
-                        user.getUmur(),
-                        user.getEmail(),
-                        user.getPassword(),
-                        rs.getString("posisi"),
-                        rs.getString("pendidikan"),
-                        rs.getString("pekerjaan"),
-                        rs.getString("penanggung_id") // Muat penanggungId
-                );
-                tanggungan.setNama(rs.getString("nama"));
-                tanggungan.setUmur(rs.getInt("umur"));
+                return RowMappers.tanggungan(rs);
             }
         } catch (SQLException e) {
             System.err.println("Error mengambil Tanggungan berdasarkan ID: " + e.getMessage());
             e.printStackTrace();
         }
-        return tanggungan;
+        return null;
+    }
+
+    /**
+     * Retrieves several Tanggungan with one joined query, e.g. every dependent of a family.
+     * The result follows the order of {@code tanggunganIds}; IDs that do not exist are
+     * skipped and duplicates are returned once. Dependents already in {@link EntityCache}
+     * are not queried again.
+     *
+     * @param tanggunganIds The IDs of the Tanggungan to retrieve.
+     * @return The Tanggungan objects that were found.
+     */
+    public List<Tanggungan> getTanggunganByIds(Collection<String> tanggunganIds) {
+        if (tanggunganIds == null || tanggunganIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<String> ids = new LinkedHashSet<>(tanggunganIds);
+        Map<String, Tanggungan> found = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String id : ids) {
+            Tanggungan cached = UnitOfWork.isActive() ? null : EntityCache.TANGGUNGAN.get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+
+        // Yang belum ada di cache diambil sekaligus dengan satu query
+        if (!missing.isEmpty()) {
+            long generation = EntityCache.TANGGUNGAN.generation();
+            InList missingIds = InList.of(missing);
+            String sql = RowMappers.TANGGUNGAN_SELECT + " WHERE t.tanggungan_id IN ("
+                    + missingIds.placeholders() + ") AND p.role = 'Tanggungan'";
+            try (Connection conn = DatabaseManager.connect();
+                    PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                missingIds.bind(pstmt, 1);
+                ResultSet rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    Tanggungan tanggungan = RowMappers.tanggungan(rs);
+                    found.put(tanggungan.getUserId(), tanggungan);
+                    EntityCache.store(EntityCache.TANGGUNGAN, tanggungan.getUserId(), tanggungan, generation);
+                }
+            } catch (SQLException e) {
+                System.err.println("Error mengambil Tanggungan berdasarkan daftar ID: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+
+        List<Tanggungan> tanggungans = new ArrayList<>(found.size());
+        for (String id : ids) {
+            Tanggungan tanggungan = found.get(id);
+            if (tanggungan != null) {
+                tanggungans.add(tanggungan);
+            }
+        }
+        return tanggungans;
     }
 
     /**
@@ -119,6 +175,7 @@ public class TanggunganDAO {
                 pstmt.setString(6, tanggungan.getPenanggungId()); // Set penanggungId
                 pstmt.setString(7, tanggungan.getUserId());
                 int affectedRows = pstmt.executeUpdate();
+                EntityCache.invalidateTanggungan(tanggungan.getUserId());
                 if (affectedRows > 0) {
                     System.out.println("Tanggungan berhasil diupdate di tabel Tanggungan: " + tanggungan.getNama());
                 } else {
@@ -143,14 +200,14 @@ public class TanggunganDAO {
      */
     public void deleteTanggungan(String tanggunganId) {
         try {
-            // Logika hapus dari Anggota_Keluarga dihapus
-            // if (keluargaDAO != null) { ... }
+            familyMembershipDAO.removeMemberFromAllFamilies(tanggunganId);
 
             String sql = "DELETE FROM Tanggungan WHERE tanggungan_id = ?";
             try (Connection conn = DatabaseManager.connect();
                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setString(1, tanggunganId);
                 int affectedRows = pstmt.executeUpdate();
+                EntityCache.invalidateTanggungan(tanggunganId);
                 if (affectedRows > 0) {
                     System.out.println("Tanggungan berhasil dihapus dari tabel Tanggungan: " + tanggunganId);
                     userDAO.deleteUser(tanggunganId);
@@ -175,26 +232,12 @@ public class TanggunganDAO {
      * @return A list of all Tanggungan objects.
      */
     public List<Tanggungan> getAllTanggungan() {
-        String sql = "SELECT tanggungan_id, posisi, nama, umur, pendidikan, pekerjaan, penanggung_id FROM Tanggungan";
         List<Tanggungan> tanggungans = new ArrayList<>();
         try (Connection conn = DatabaseManager.connect();
                 Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
+                ResultSet rs = stmt.executeQuery(RowMappers.TANGGUNGAN_SELECT)) {
             while (rs.next()) {
-                User user = userDAO.getUserByUserId(rs.getString("tanggungan_id"));
-                if (user != null) {
-                    Tanggungan tanggungan = new Tanggungan(
-                            user.getUserId(),
-                            user.getNama(),
-                            user.getUmur(),
-                            user.getEmail(),
-                            user.getPassword(),
-                            rs.getString("posisi"),
-                            rs.getString("pendidikan"),
-                            rs.getString("pekerjaan"),
-                            rs.getString("penanggung_id"));
-                    tanggungans.add(tanggungan);
-                }
+                tanggungans.add(RowMappers.tanggungan(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error getting all Tanggungan: " + e.getMessage());
@@ -204,27 +247,14 @@ public class TanggunganDAO {
     }
 
     public List<Tanggungan> getTanggunanByPenanggungId(String penanggungId) {
-        String sql = "SELECT tanggungan_id, posisi, nama, umur, pendidikan, pekerjaan, penanggung_id FROM Tanggungan WHERE penanggung_id = ?";
+        String sql = RowMappers.TANGGUNGAN_SELECT + " WHERE t.penanggung_id = ?";
         List<Tanggungan> tanggungans = new ArrayList<>();
         try (Connection conn = DatabaseManager.connect();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, penanggungId);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                User user = userDAO.getUserByUserId(rs.getString("tanggungan_id"));
-                if (user != null) {
-                    Tanggungan tanggungan = new Tanggungan(
-                            user.getUserId(),
-                            user.getNama(),
-                            user.getUmur(),
-                            user.getEmail(),
-                            user.getPassword(),
-                            rs.getString("posisi"),
-                            rs.getString("pendidikan"),
-                            rs.getString("pekerjaan"),
-                            rs.getString("penanggung_id"));
-                    tanggungans.add(tanggungan);
-                }
+                tanggungans.add(RowMappers.tanggungan(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error getting Tanggungan by Penanggung ID: " + e.getMessage());
@@ -1,6 +1,7 @@
 package com.subwayit.dao;
 
 import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.UnitOfWork;
 import com.subwayit.model.Transaksi;
 
 import java.sql.Connection;
@@ -10,8 +11,17 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement; // <--- IMPORTANT: Ensure this is imported
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * DAO untuk mengelola operasi CRUD terhadap tabel Transaksi.
@@ -19,53 +29,197 @@ import java.util.List;
 public class TransaksiDAO {
 
     /**
-     * Inserts a new transaction into the Transaksi table.
+     * Totals of one family member's transactions in one calendar month.
      */
-    public void addTransaksi(Transaksi transaksi) {
-        String sql = "INSERT INTO Transaksi(transaksi_id, user_id, jenis, kategori, nominal, tanggal_transaksi, bukti_transaksi, is_rutin, deskripsi) "
+    public static class MonthlySummary {
+        private final String userId;
+        private final YearMonth month;
+        private final int count;
+        private final double totalPemasukan;
+        private final double totalPengeluaran;
+
+        public MonthlySummary(String userId, YearMonth month, int count, double totalPemasukan,
+                double totalPengeluaran) {
+            this.userId = userId;
+            this.month = month;
+            this.count = count;
+            this.totalPemasukan = totalPemasukan;
+            this.totalPengeluaran = totalPengeluaran;
+        }
+
+        public String getUserId() { return userId; }
+        public YearMonth getMonth() { return month; }
+        public int getCount() { return count; }
+        public double getTotalPemasukan() { return totalPemasukan; }
+        public double getTotalPengeluaran() { return totalPengeluaran; }
+        public double getCashflow() { return totalPemasukan - totalPengeluaran; }
+    }
+
+    /**
+     * Position after the last row of a page: the (tanggal_transaksi, transaksi_id) of that row.
+     */
+    public static class PageCursor {
+        private final LocalDate tanggalTransaksi;
+        private final String transaksiId;
+
+        public PageCursor(LocalDate tanggalTransaksi, String transaksiId) {
+            this.tanggalTransaksi = tanggalTransaksi;
+            this.transaksiId = transaksiId;
+        }
+
+        public LocalDate getTanggalTransaksi() { return tanggalTransaksi; }
+        public String getTransaksiId() { return transaksiId; }
+    }
+
+    /**
+     * One page of transactions, newest first, and the cursor to request the next one.
+     */
+    public static class TransaksiPage {
+        private final List<Transaksi> items;
+        private final PageCursor nextCursor;
+
+        public TransaksiPage(List<Transaksi> items, PageCursor nextCursor) {
+            this.items = items;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<Transaksi> getItems() { return items; }
+
+        /** @return the cursor for the following page, or null if this was the last page */
+        public PageCursor getNextCursor() { return nextCursor; }
+
+        public boolean hasMore() { return nextCursor != null; }
+    }
+
+    /** Rows requested from the driver at a time by the streaming reads. */
+    public static final int DEFAULT_FETCH_SIZE = 256;
+
+    static final String COLUMNS = "transaksi_id, user_id, jenis, kategori, nominal, tanggal_transaksi, bukti_transaksi, is_rutin, deskripsi";
+
+    private int fetchSize = DEFAULT_FETCH_SIZE;
+
+    /** Rows sent to SQLite per executeBatch() call when no chunk size is given. */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "INSERT INTO Transaksi(transaksi_id, user_id, jenis, kategori, nominal, tanggal_transaksi, bukti_transaksi, is_rutin, deskripsi) "
                    + "VALUES(?,?,?,?,?,?,?,?,?)";
-        try (Connection conn = DatabaseManager.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, transaksi.getTransaksiId());
-            pstmt.setString(2, transaksi.getUserId());
-            pstmt.setString(3, transaksi.getJenis());
-            pstmt.setString(4, transaksi.getKategori());
-            pstmt.setDouble(5, transaksi.getNominal());
-            pstmt.setDate(6, Date.valueOf(transaksi.getTanggalTransaksi()));
-            pstmt.setString(7, transaksi.getBuktiTransaksi());
-            pstmt.setBoolean(8, transaksi.isRutin());
-            pstmt.setString(9, transaksi.getDeskripsi());
-            pstmt.executeUpdate();
+
+    /**
+     * Inserts a new transaction into the Transaksi table.
+     *
+     * @return the inserted transaction, or null if it could not be saved.
+     */
+    public Transaksi addTransaksi(Transaksi transaksi) {
+        try {
+            // The row and its monthly rollup delta commit together
+            UnitOfWork.run(() -> {
+                try (Connection conn = DatabaseManager.connect();
+                     PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                    bindInsert(pstmt, transaksi);
+                    pstmt.executeUpdate();
+                }
+                TransaksiRollupDAO.applyDelta(transaksi, transaksi.getUserId(), 1, transaksi.getNominal());
+                FamilyQueryCache.invalidateTransactions(List.of(transaksi.getUserId()));
+            });
             System.out.println("Transaction added successfully: " + transaksi.getDeskripsi());
+            return transaksi;
         } catch (SQLException e) {
             System.err.println("Error adding transaction: " + e.getMessage());
             e.printStackTrace();
+            return null;
         }
     }
 
+    /**
+     * Inserts many transactions in one database transaction, using {@link #DEFAULT_BATCH_SIZE}.
+     *
+     * @see #addTransaksiBatch(Collection, int)
+     */
+    public int addTransaksiBatch(Collection<Transaksi> transaksiList) {
+        return addTransaksiBatch(transaksiList, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Inserts many transactions with JDBC batching inside a single transaction, so the whole
+     * load costs one commit instead of one per row. Rows are sent to SQLite in chunks of
+     * chunkSize. Either every row is inserted or, if any row fails (for example a duplicate
+     * transaksi_id), none are.
+     *
+     * @param transaksiList The transactions to insert.
+     * @param chunkSize     Number of rows per executeBatch() call, at least 1.
+     * @return the number of rows inserted.
+     */
+    public int addTransaksiBatch(Collection<Transaksi> transaksiList, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        if (transaksiList == null || transaksiList.isEmpty()) {
+            return 0;
+        }
+        try {
+            int inserted = UnitOfWork.inTransaction(() -> {
+                int count = 0;
+                try (Connection conn = DatabaseManager.connect();
+                     PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                    int pending = 0;
+                    for (Transaksi transaksi : transaksiList) {
+                        bindInsert(pstmt, transaksi);
+                        pstmt.addBatch();
+                        if (++pending == chunkSize) {
+                            count += pstmt.executeBatch().length;
+                            pending = 0;
+                        }
+                    }
+                    if (pending > 0) {
+                        count += pstmt.executeBatch().length;
+                    }
+                }
+                // One rollup delta per (user, month, jenis, kategori) group instead of per row
+                Map<TransaksiRollupDAO.GroupKey, double[]> deltas = new HashMap<>();
+                for (Transaksi transaksi : transaksiList) {
+                    double[] delta = deltas.computeIfAbsent(
+                            new TransaksiRollupDAO.GroupKey(transaksi.getUserId(), transaksi), k -> new double[2]);
+                    delta[0] += 1;
+                    delta[1] += transaksi.getNominal();
+                }
+                TransaksiRollupDAO.applyDeltas(deltas);
+                FamilyQueryCache.invalidateTransactions(
+                        transaksiList.stream().map(Transaksi::getUserId).distinct().toList());
+                return count;
+            });
+            System.out.println("Batch transaksi berhasil ditambahkan: " + inserted + " baris");
+            return inserted;
+        } catch (SQLException e) {
+            System.err.println("Error adding transaction batch: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Gagal menambahkan batch transaksi: " + e.getMessage(), e);
+        }
+    }
+
+    private static void bindInsert(PreparedStatement pstmt, Transaksi transaksi) throws SQLException {
+        pstmt.setString(1, transaksi.getTransaksiId());
+        pstmt.setString(2, transaksi.getUserId());
+        pstmt.setString(3, transaksi.getJenis());
+        pstmt.setString(4, transaksi.getKategori());
+        pstmt.setDouble(5, transaksi.getNominal());
+        pstmt.setDate(6, Date.valueOf(transaksi.getTanggalTransaksi()));
+        pstmt.setString(7, transaksi.getBuktiTransaksi());
+        pstmt.setBoolean(8, transaksi.isRutin());
+        pstmt.setString(9, transaksi.getDeskripsi());
+    }
+
     /**
      * Retrieves all transactions for a specific user, ordered by date descending.
      */
     public List<Transaksi> getAllTransactionsForUser(String userId) {
-        String sql = "SELECT transaksi_id, user_id, jenis, kategori, nominal, tanggal_transaksi, bukti_transaksi, is_rutin, deskripsi "
-                   + "FROM Transaksi WHERE user_id = ? ORDER BY tanggal_transaksi DESC";
+        String sql = "SELECT " + COLUMNS + " FROM Transaksi WHERE user_id = ? ORDER BY tanggal_transaksi DESC";
         List<Transaksi> transactions = new ArrayList<>();
         try (Connection conn = DatabaseManager.connect();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, userId);
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
-                transactions.add(new Transaksi(
-                    rs.getString("transaksi_id"),
-                    rs.getString("user_id"),
-                    rs.getString("jenis"),
-                    rs.getString("kategori"),
-                    rs.getDouble("nominal"),
-                    rs.getDate("tanggal_transaksi").toLocalDate(),
-                    rs.getString("bukti_transaksi"),
-                    rs.getBoolean("is_rutin"),
-                    rs.getString("deskripsi")
-                ));
+                transactions.add(mapRow(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error getting transactions for user: " + e.getMessage());
@@ -80,24 +234,13 @@ public class TransaksiDAO {
      * @return A list of all Transaksi objects.
      */
     public List<Transaksi> getAllTransactions() { // <--- This is the method that was missing
-        String sql = "SELECT transaksi_id, user_id, jenis, kategori, nominal, tanggal_transaksi, bukti_transaksi, is_rutin, deskripsi "
-                   + "FROM Transaksi ORDER BY tanggal_transaksi DESC";
+        String sql = "SELECT " + COLUMNS + " FROM Transaksi ORDER BY tanggal_transaksi DESC";
         List<Transaksi> transactions = new ArrayList<>();
         try (Connection conn = DatabaseManager.connect();
              Statement stmt = conn.createStatement(); // Use Statement as there are no parameters
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                transactions.add(new Transaksi(
-                    rs.getString("transaksi_id"),
-                    rs.getString("user_id"),
-                    rs.getString("jenis"),
-                    rs.getString("kategori"),
-                    rs.getDouble("nominal"),
-                    rs.getDate("tanggal_transaksi").toLocalDate(),
-                    rs.getString("bukti_transaksi"),
-                    rs.getBoolean("is_rutin"),
-                    rs.getString("deskripsi")
-                ));
+                transactions.add(mapRow(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error getting all transactions: " + e.getMessage());
@@ -106,98 +249,420 @@ public class TransaksiDAO {
         return transactions;
     }
 
+    /**
+     * Retrieves the transactions of several users, newest first. Results are cached per set
+     * of user IDs in {@link FamilyQueryCache} until one of those users' transactions changes.
+     *
+     * @throws RuntimeException if the query fails; nothing is cached then
+     */
     public List<Transaksi> getTransactionsForMultipleUsers(List<String> userIds) {
-    List<Transaksi> transactions = new ArrayList<>();
-    if (userIds == null || userIds.isEmpty()) {
-        return transactions; // Return empty list if no users are provided
+        if (userIds == null || userIds.isEmpty()) {
+            return new ArrayList<>(); // Return empty list if no users are provided
+        }
+        return FamilyQueryCache.readTransactions(userIds, () -> loadTransactionsForMultipleUsers(userIds));
     }
 
-    // Build a dynamic query with the correct number of placeholders for the IN clause
-    StringBuilder placeholders = new StringBuilder();
-    for (int i = 0; i < userIds.size(); i++) {
-        placeholders.append("?");
-        if (i < userIds.size() - 1) {
-            placeholders.append(",");
+    private List<Transaksi> loadTransactionsForMultipleUsers(List<String> userIds) {
+        List<Transaksi> transactions = new ArrayList<>();
+        InList ids = InList.of(userIds);
+
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement pstmt = conn.prepareStatement(multipleUsersSql(ids))) {
+
+            // Set the user IDs as parameters for the PreparedStatement
+            ids.bind(pstmt, 1);
+
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                transactions.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            // Thrown rather than returning what was read, so a failed query is never cached
+            System.err.println("Error getting transactions for multiple users: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Gagal membaca transaksi keluarga: " + e.getMessage(), e);
         }
+        return transactions;
     }
 
-    String sql = "SELECT * FROM Transaksi WHERE user_id IN (" + placeholders.toString() + ") ORDER BY tanggal_transaksi DESC";
+    /**
+     * Returns one page of the given users' transactions ordered by (tanggal_transaksi,
+     * transaksi_id) descending, starting after the cursor.
+     *
+     * Uses keyset pagination instead of OFFSET: each user's rows are read from the
+     * (user_id, tanggal_transaksi, transaksi_id) index starting at the cursor, at most
+     * limit + 1 per user, and the per-user runs are merged by a UNION ALL. The cost of a page
+     * therefore depends on the page size and the number of users, not on how much history
+     * there is or how deep the page is.
+     *
+     * Sets of more than {@link InList#MAX_BUCKET} users would need too many UNION ALL arms,
+     * so they are read with one IN filter over json_each and sorted by SQLite instead.
+     *
+     * @param userIds The users whose transactions are listed.
+     * @param after   The cursor returned with the previous page, or null for the first page.
+     * @param limit   Maximum number of rows in the page.
+     */
+    public TransaksiPage getTransactionsPage(List<String> userIds, PageCursor after, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        List<Transaksi> items = new ArrayList<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return new TransaksiPage(items, null);
+        }
+
+        String keyset = after == null ? "" : " AND (tanggal_transaksi, transaksi_id) < (?, ?)";
+        String order = " ORDER BY tanggal_transaksi DESC, transaksi_id DESC LIMIT ?";
+        InList ids = InList.of(userIds);
+        StringBuilder sql = new StringBuilder();
+        if (ids.usesJson()) {
+            sql.append("SELECT ").append(COLUMNS).append(" FROM Transaksi WHERE user_id IN (")
+                    .append(ids.placeholders()).append(")").append(keyset).append(order);
+        } else {
+            // Padding would repeat a user's rows here, so each distinct user gets one arm
+            String arm = "SELECT * FROM (SELECT " + COLUMNS + " FROM Transaksi WHERE user_id = ?" + keyset
+                    + order + ")";
+            for (int i = 0; i < ids.size(); i++) {
+                if (i > 0) {
+                    sql.append(" UNION ALL ");
+                }
+                sql.append(arm);
+            }
+            sql.append(order);
+        }
 
-    try (Connection conn = DatabaseManager.connect();
-         PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            if (ids.usesJson()) {
+                index = ids.bind(pstmt, index);
+                if (after != null) {
+                    pstmt.setDate(index++, Date.valueOf(after.getTanggalTransaksi()));
+                    pstmt.setString(index++, after.getTransaksiId());
+                }
+            } else {
+                for (String userId : ids.params().subList(0, ids.size())) {
+                    pstmt.setString(index++, userId);
+                    if (after != null) {
+                        pstmt.setDate(index++, Date.valueOf(after.getTanggalTransaksi()));
+                        pstmt.setString(index++, after.getTransaksiId());
+                    }
+                    pstmt.setInt(index++, limit + 1);
+                }
+            }
+            pstmt.setInt(index, limit + 1);
 
-        // Set the user IDs as parameters for the PreparedStatement
-        for (int i = 0; i < userIds.size(); i++) {
-            pstmt.setString(i + 1, userIds.get(i));
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                items.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting transaction page: " + e.getMessage());
+            e.printStackTrace();
         }
 
-        ResultSet rs = pstmt.executeQuery();
-        while (rs.next()) {
-            transactions.add(new Transaksi(
-                rs.getString("transaksi_id"),
-                rs.getString("user_id"),
-                rs.getString("jenis"),
-                rs.getString("kategori"),
-                rs.getDouble("nominal"),
-                rs.getDate("tanggal_transaksi").toLocalDate(),
-                rs.getString("bukti_transaksi"),
-                rs.getBoolean("is_rutin"),
-                rs.getString("deskripsi")
-            ));
+        // One extra row was fetched only to learn whether another page exists
+        PageCursor next = null;
+        if (items.size() > limit) {
+            items.remove(items.size() - 1);
+            Transaksi last = items.get(items.size() - 1);
+            next = new PageCursor(last.getTanggalTransaksi(), last.getTransaksiId());
+        }
+        return new TransaksiPage(items, next);
+    }
+
+    /**
+     * Returns count, income and spending per month and per user for transactions dated in
+     * [from, toExclusive). Grouping and summing happen in SQLite over the
+     * (user_id, tanggal_transaksi) index range, so only one row per user and month is
+     * returned. Transactions whose jenis is not Pemasukan count as spending, as in the
+     * dashboard. Results are ordered by month, then user.
+     */
+    public List<MonthlySummary> getMonthlySummaries(List<String> userIds, LocalDate from, LocalDate toExclusive) {
+        List<MonthlySummary> summaries = new ArrayList<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return summaries;
+        }
+        InList ids = InList.of(userIds);
+        // tanggal_transaksi is stored as epoch milliseconds by the JDBC driver
+        String sql = "SELECT user_id, strftime('%Y-%m', tanggal_transaksi / 1000, 'unixepoch', 'localtime') AS bulan, "
+                   + "COUNT(*) AS jumlah, "
+                   + "SUM(CASE WHEN jenis = 'Pemasukan' COLLATE NOCASE THEN nominal ELSE 0 END) AS pemasukan, "
+                   + "SUM(CASE WHEN jenis = 'Pemasukan' COLLATE NOCASE THEN 0 ELSE nominal END) AS pengeluaran "
+                   + "FROM Transaksi WHERE user_id IN (" + ids.placeholders() + ") "
+                   + "AND tanggal_transaksi >= ? AND tanggal_transaksi < ? "
+                   + "GROUP BY user_id, bulan ORDER BY bulan, user_id";
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = ids.bind(pstmt, 1);
+            pstmt.setDate(index++, Date.valueOf(from));
+            pstmt.setDate(index, Date.valueOf(toExclusive));
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                summaries.add(new MonthlySummary(
+                    rs.getString("user_id"),
+                    YearMonth.parse(rs.getString("bulan")),
+                    rs.getInt("jumlah"),
+                    rs.getDouble("pemasukan"),
+                    rs.getDouble("pengeluaran")
+                ));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error getting monthly transaction summary: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return summaries;
+    }
+
+    /**
+     * Counts the given users' transactions using only the index.
+     */
+    public int countTransactionsForUsers(List<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return 0;
+        }
+        InList ids = InList.of(userIds);
+        String sql = "SELECT COUNT(*) FROM Transaksi WHERE user_id IN (" + ids.placeholders() + ")";
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            ids.bind(pstmt, 1);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Error counting transactions: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Sets the JDBC fetch size used by the streaming reads (rows requested from the driver
+     * at a time). Defaults to {@link #DEFAULT_FETCH_SIZE}.
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Fetch size must be at least 1");
+        }
+        this.fetchSize = fetchSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Streams a user's transactions, newest first, reading rows from the database as the
+     * stream is consumed instead of loading them all into a list.
+     * The stream holds a pooled connection until it is closed, so always use it in a
+     * try-with-resources block.
+     */
+    public Stream<Transaksi> streamTransactionsForUser(String userId) {
+        return streamTransactionsForMultipleUsers(List.of(userId));
+    }
+
+    /**
+     * Streams every transaction, newest first. Close the stream when done.
+     */
+    public Stream<Transaksi> streamAllTransactions() {
+        return stream("SELECT " + COLUMNS + " FROM Transaksi ORDER BY tanggal_transaksi DESC", List.of());
+    }
+
+    /**
+     * Streams the transactions of several users, newest first. Close the stream when done.
+     */
+    public Stream<Transaksi> streamTransactionsForMultipleUsers(List<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Stream.empty();
+        }
+        InList ids = InList.of(userIds);
+        return stream(multipleUsersSql(ids), ids.params());
+    }
+
+    /**
+     * Visits the transactions of several users one row at a time, newest first, in constant
+     * memory. The connection is released when this method returns.
+     *
+     * @return the number of rows visited
+     */
+    public long forEachTransactionForUsers(List<String> userIds, Consumer<? super Transaksi> action) {
+        try (Stream<Transaksi> rows = streamTransactionsForMultipleUsers(userIds)) {
+            long[] count = { 0 };
+            rows.forEach(t -> {
+                action.accept(t);
+                count[0]++;
+            });
+            return count[0];
+        }
+    }
+
+    private Stream<Transaksi> stream(String sql, List<String> params) {
+        Connection conn = DatabaseManager.connect();
+        if (conn == null) {
+            throw new RuntimeException("Gagal membaca transaksi: tidak ada koneksi database");
+        }
+        PreparedStatement pstmt = null;
+        ResultSet rs;
+        try {
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setFetchSize(fetchSize);
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setString(i + 1, params.get(i));
+            }
+            rs = pstmt.executeQuery();
+        } catch (SQLException e) {
+            closeQuietly(pstmt, conn);
+            System.err.println("Error opening transaction stream: " + e.getMessage());
+            throw new RuntimeException("Gagal membaca transaksi: " + e.getMessage(), e);
+        }
+
+        PreparedStatement statement = pstmt;
+        Spliterator<Transaksi> rows = new Spliterators.AbstractSpliterator<Transaksi>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Transaksi> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+                    action.accept(mapRow(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new RuntimeException("Gagal membaca transaksi: " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(rows, false).onClose(() -> closeQuietly(statement, conn));
+    }
+
+    private static String multipleUsersSql(InList userIds) {
+        return "SELECT " + COLUMNS + " FROM Transaksi WHERE user_id IN (" + userIds.placeholders() + ") ORDER BY tanggal_transaksi DESC";
+    }
+
+    /**
+     * Maps the current row of a result set selected with {@link #COLUMNS} to a Transaksi.
+     */
+    static Transaksi mapRow(ResultSet rs) throws SQLException {
+        return new Transaksi(
+            rs.getString("transaksi_id"),
+            rs.getString("user_id"),
+            rs.getString("jenis"),
+            rs.getString("kategori"),
+            rs.getDouble("nominal"),
+            rs.getDate("tanggal_transaksi").toLocalDate(),
+            rs.getString("bukti_transaksi"),
+            rs.getBoolean("is_rutin"),
+            rs.getString("deskripsi")
+        );
+    }
+
+    private static void closeQuietly(Statement stmt, Connection conn) {
+        try {
+            if (stmt != null) {
+                stmt.close(); // also closes its ResultSet
+            }
+        } catch (SQLException e) {
+            System.err.println("Error closing transaction stream: " + e.getMessage());
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.err.println("Error closing transaction stream: " + e.getMessage());
+            }
         }
-    } catch (SQLException e) {
-        System.err.println("Error getting transactions for multiple users: " + e.getMessage());
-        e.printStackTrace();
     }
-    return transactions;
-}
 
     /**
      * Updates an existing transaction in the Transaksi table.
      * Matches by transaksi_id.
+     *
+     * @return the transaction as it was before the update, so callers can take its old
+     *         amount out of their totals; null if there is no such transaction or the
+     *         update failed.
      */
-    public void updateTransaksi(Transaksi transaksi) {
+    public Transaksi updateTransaksi(Transaksi transaksi) {
         String sql = "UPDATE Transaksi SET jenis = ?, kategori = ?, nominal = ?, tanggal_transaksi = ?, "
                    + "bukti_transaksi = ?, is_rutin = ?, deskripsi = ? WHERE transaksi_id = ?";
-        try (Connection conn = DatabaseManager.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, transaksi.getJenis());
-            pstmt.setString(2, transaksi.getKategori());
-            pstmt.setDouble(3, transaksi.getNominal());
-            pstmt.setDate(4, Date.valueOf(transaksi.getTanggalTransaksi()));
-            pstmt.setString(5, transaksi.getBuktiTransaksi());
-            pstmt.setBoolean(6, transaksi.isRutin());
-            pstmt.setString(7, transaksi.getDeskripsi());
-            pstmt.setString(8, transaksi.getTransaksiId());
-            int affected = pstmt.executeUpdate();
-            if (affected > 0) {
+        try {
+            Transaksi replaced = UnitOfWork.inTransaction(() -> {
+                // The old values are needed to move the amount out of its previous rollup group
+                Transaksi previous = findById(transaksi.getTransaksiId());
+                if (previous == null) {
+                    return null;
+                }
+                try (Connection conn = DatabaseManager.connect();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, transaksi.getJenis());
+                    pstmt.setString(2, transaksi.getKategori());
+                    pstmt.setDouble(3, transaksi.getNominal());
+                    pstmt.setDate(4, Date.valueOf(transaksi.getTanggalTransaksi()));
+                    pstmt.setString(5, transaksi.getBuktiTransaksi());
+                    pstmt.setBoolean(6, transaksi.isRutin());
+                    pstmt.setString(7, transaksi.getDeskripsi());
+                    pstmt.setString(8, transaksi.getTransaksiId());
+                    pstmt.executeUpdate();
+                }
+                // user_id is not updatable, so both deltas belong to the stored owner
+                String ownerId = previous.getUserId();
+                TransaksiRollupDAO.applyDelta(previous, ownerId, -1, -previous.getNominal());
+                TransaksiRollupDAO.applyDelta(transaksi, ownerId, 1, transaksi.getNominal());
+                FamilyQueryCache.invalidateTransactions(List.of(ownerId));
+                return previous;
+            });
+            if (replaced != null) {
                 System.out.println("Transaction updated successfully: " + transaksi.getTransaksiId());
             } else {
                 System.out.println("No transaction found with ID: " + transaksi.getTransaksiId());
             }
+            return replaced;
         } catch (SQLException e) {
             System.err.println("Error updating transaction: " + e.getMessage());
             e.printStackTrace();
+            return null;
         }
     }
 
     /**
      * Deletes a transaction from the Transaksi table by its ID.
+     *
+     * @return the deleted transaction, or null if there was none or the delete failed.
      */
-    public void deleteTransaksi(String transaksiId) {
+    public Transaksi deleteTransaksi(String transaksiId) {
         String sql = "DELETE FROM Transaksi WHERE transaksi_id = ?";
-        try (Connection conn = DatabaseManager.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, transaksiId);
-            int affected = pstmt.executeUpdate();
-            if (affected > 0) {
+        try {
+            Transaksi deleted = UnitOfWork.inTransaction(() -> {
+                Transaksi previous = findById(transaksiId);
+                if (previous == null) {
+                    return null;
+                }
+                try (Connection conn = DatabaseManager.connect();
+                     PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    pstmt.setString(1, transaksiId);
+                    pstmt.executeUpdate();
+                }
+                TransaksiRollupDAO.applyDelta(previous, previous.getUserId(), -1, -previous.getNominal());
+                FamilyQueryCache.invalidateTransactions(List.of(previous.getUserId()));
+                return previous;
+            });
+            if (deleted != null) {
                 System.out.println("Transaction deleted successfully: " + transaksiId);
             } else {
                 System.out.println("No transaction found with ID: " + transaksiId);
             }
+            return deleted;
         } catch (SQLException e) {
             System.err.println("Error deleting transaction: " + e.getMessage());
             e.printStackTrace();
+            return null;
+        }
+    }
+
+    private Transaksi findById(String transaksiId) throws SQLException {
+        String sql = "SELECT " + COLUMNS + " FROM Transaksi WHERE transaksi_id = ?";
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, transaksiId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? mapRow(rs) : null;
         }
     }
-}
\ No newline at end of file
+}
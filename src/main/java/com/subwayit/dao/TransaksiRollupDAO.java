@@ -0,0 +1,367 @@
+package com.subwayit.dao;
+
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.UnitOfWork;
+import com.subwayit.model.Transaksi;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * DAO for the TransaksiBulanan rollup: count and sum of transactions per
+ * (user_id, tahun_bulan, jenis, kategori).
+ *
+ * TransaksiDAO applies a delta here in the same transaction as every insert, update and
+ * delete, so reads over any month range cost one row per group rather than one per
+ * transaction. {@link #rebuild()} recomputes the table from Transaksi and reports any
+ * group that had drifted.
+ */
+public class TransaksiRollupDAO {
+
+    private static final double TOLERANCE = 0.005;
+
+    private static final String MONTH_OF_TANGGAL =
+            "strftime('%Y-%m', tanggal_transaksi / 1000, 'unixepoch', 'localtime')";
+
+    /**
+     * One rollup row.
+     */
+    public static class RollupRow {
+        private final String userId;
+        private final YearMonth month;
+        private final String jenis;
+        private final String kategori;
+        private final int count;
+        private final double total;
+
+        public RollupRow(String userId, YearMonth month, String jenis, String kategori, int count, double total) {
+            this.userId = userId;
+            this.month = month;
+            this.jenis = jenis;
+            this.kategori = kategori;
+            this.count = count;
+            this.total = total;
+        }
+
+        public String getUserId() { return userId; }
+        public YearMonth getMonth() { return month; }
+        public String getJenis() { return jenis; }
+        public String getKategori() { return kategori; }
+        public int getCount() { return count; }
+        public double getTotal() { return total; }
+
+        String key() {
+            return userId + "|" + month + "|" + jenis + "|" + kategori;
+        }
+
+        @Override
+        public String toString() {
+            return key() + " count=" + count + " total=" + total;
+        }
+    }
+
+    /**
+     * Outcome of {@link #rebuild()} or {@link #verify()}: groups whose stored values did not
+     * match the raw Transaksi table.
+     */
+    public static class VerifyReport {
+        private final int groupsChecked;
+        private final List<String> mismatches;
+
+        public VerifyReport(int groupsChecked, List<String> mismatches) {
+            this.groupsChecked = groupsChecked;
+            this.mismatches = mismatches;
+        }
+
+        public int getGroupsChecked() { return groupsChecked; }
+        public List<String> getMismatches() { return mismatches; }
+        public boolean isConsistent() { return mismatches.isEmpty(); }
+
+        @Override
+        public String toString() {
+            return groupsChecked + " groups checked, " + mismatches.size() + " mismatches";
+        }
+    }
+
+    /**
+     * Returns the rollup rows of the given users for months from..to (inclusive), ordered
+     * by month, user, jenis and kategori.
+     */
+    public List<RollupRow> getRollup(List<String> userIds, YearMonth from, YearMonth to) {
+        List<RollupRow> rows = new ArrayList<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return rows;
+        }
+        InList ids = InList.of(userIds);
+        String sql = "SELECT user_id, tahun_bulan, jenis, kategori, jumlah, total FROM TransaksiBulanan "
+                + "WHERE user_id IN (" + ids.placeholders() + ") AND tahun_bulan BETWEEN ? AND ? "
+                + "ORDER BY tahun_bulan, user_id, jenis, kategori";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = ids.bind(pstmt, 1);
+            pstmt.setString(index++, from.toString());
+            pstmt.setString(index, to.toString());
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                rows.add(mapRow(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading transaction rollup: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return rows;
+    }
+
+    /**
+     * Same result as {@link TransaksiDAO#getMonthlySummaries} for whole months, read from the
+     * rollup instead of the raw transactions.
+     */
+    public List<TransaksiDAO.MonthlySummary> getMonthlySummaries(List<String> userIds, YearMonth from, YearMonth to) {
+        List<TransaksiDAO.MonthlySummary> summaries = new ArrayList<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return summaries;
+        }
+        InList ids = InList.of(userIds);
+        String sql = "SELECT user_id, tahun_bulan, SUM(jumlah) AS jumlah, "
+                + "SUM(CASE WHEN jenis = 'Pemasukan' COLLATE NOCASE THEN total ELSE 0 END) AS pemasukan, "
+                + "SUM(CASE WHEN jenis = 'Pemasukan' COLLATE NOCASE THEN 0 ELSE total END) AS pengeluaran "
+                + "FROM TransaksiBulanan WHERE user_id IN (" + ids.placeholders() + ") "
+                + "AND tahun_bulan BETWEEN ? AND ? GROUP BY user_id, tahun_bulan ORDER BY tahun_bulan, user_id";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = ids.bind(pstmt, 1);
+            pstmt.setString(index++, from.toString());
+            pstmt.setString(index, to.toString());
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                summaries.add(new TransaksiDAO.MonthlySummary(
+                        rs.getString("user_id"),
+                        YearMonth.parse(rs.getString("tahun_bulan")),
+                        rs.getInt("jumlah"),
+                        rs.getDouble("pemasukan"),
+                        rs.getDouble("pengeluaran")));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error reading monthly summary from rollup: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return summaries;
+    }
+
+    /**
+     * @return the total number of transactions of the given users, summed from the rollup
+     */
+    public int countTransactions(List<String> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return 0;
+        }
+        InList ids = InList.of(userIds);
+        String sql = "SELECT COALESCE(SUM(jumlah), 0) FROM TransaksiBulanan WHERE user_id IN ("
+                + ids.placeholders() + ")";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            ids.bind(pstmt, 1);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("Error counting transactions from rollup: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    /**
+     * Compares the rollup with a fresh aggregation of Transaksi without changing anything.
+     */
+    public VerifyReport verify() {
+        try (Connection conn = DatabaseManager.connect()) {
+            return compare(conn);
+        } catch (SQLException e) {
+            System.err.println("Error verifying transaction rollup: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Gagal memverifikasi rollup transaksi: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Recomputes the rollup from the Transaksi table in one transaction.
+     *
+     * @return the differences found between the old rollup and the raw data
+     */
+    public VerifyReport rebuild() {
+        try {
+            return UnitOfWork.inTransaction(() -> {
+                try (Connection conn = DatabaseManager.connect();
+                        Statement stmt = conn.createStatement()) {
+                    VerifyReport report = compare(conn);
+                    stmt.executeUpdate("DELETE FROM TransaksiBulanan");
+                    stmt.executeUpdate("INSERT INTO TransaksiBulanan(user_id, tahun_bulan, jenis, kategori, jumlah, total) "
+                            + "SELECT user_id, " + MONTH_OF_TANGGAL + ", jenis, kategori, COUNT(*), SUM(nominal) "
+                            + "FROM Transaksi GROUP BY 1, 2, 3, 4");
+                    return report;
+                }
+            });
+        } catch (SQLException e) {
+            System.err.println("Error rebuilding transaction rollup: " + e.getMessage());
+            e.printStackTrace();
+            throw new RuntimeException("Gagal membangun ulang rollup transaksi: " + e.getMessage(), e);
+        }
+    }
+
+    private VerifyReport compare(Connection conn) throws SQLException {
+        Map<String, RollupRow> expected = new LinkedHashMap<>();
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT user_id, " + MONTH_OF_TANGGAL + " AS tahun_bulan, jenis, "
+                        + "kategori, COUNT(*) AS jumlah, SUM(nominal) AS total FROM Transaksi GROUP BY 1, 2, 3, 4")) {
+            while (rs.next()) {
+                RollupRow row = mapRow(rs);
+                expected.put(row.key(), row);
+            }
+        }
+        Map<String, RollupRow> actual = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(
+                        "SELECT user_id, tahun_bulan, jenis, kategori, jumlah, total FROM TransaksiBulanan")) {
+            while (rs.next()) {
+                RollupRow row = mapRow(rs);
+                actual.put(row.key(), row);
+            }
+        }
+
+        List<String> mismatches = new ArrayList<>();
+        Set<String> keys = new HashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+        for (String key : keys) {
+            RollupRow want = expected.get(key);
+            RollupRow have = actual.get(key);
+            if (want == null) {
+                mismatches.add("extra " + have);
+            } else if (have == null) {
+                mismatches.add("missing " + want);
+            } else if (want.getCount() != have.getCount() || Math.abs(want.getTotal() - have.getTotal()) > TOLERANCE) {
+                mismatches.add("expected " + want + " but was count=" + have.getCount() + " total=" + have.getTotal());
+            }
+        }
+        return new VerifyReport(keys.size(), mismatches);
+    }
+
+    /**
+     * Adds countDelta/sumDelta to the group of the given transaction, creating the group if
+     * needed and removing it when its count drops to zero. Must run inside the writer's
+     * UnitOfWork so the rollup and Transaksi commit together.
+     */
+    static void applyDelta(Transaksi transaksi, String userId, int countDelta, double sumDelta) throws SQLException {
+        applyDeltas(Map.of(new GroupKey(userId, transaksi), new double[] { countDelta, sumDelta }));
+    }
+
+    /**
+     * Applies several group deltas with two batched statements.
+     */
+    static void applyDeltas(Map<GroupKey, double[]> deltas) throws SQLException {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        String upsert = "INSERT INTO TransaksiBulanan(user_id, tahun_bulan, jenis, kategori, jumlah, total) "
+                + "VALUES(?,?,?,?,?,?) ON CONFLICT(user_id, tahun_bulan, jenis, kategori) DO UPDATE SET "
+                + "jumlah = jumlah + excluded.jumlah, total = total + excluded.total";
+        String prune = "DELETE FROM TransaksiBulanan WHERE user_id = ? AND tahun_bulan = ? AND jenis = ? "
+                + "AND kategori = ? AND jumlah <= 0";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement upsertStmt = conn.prepareStatement(upsert);
+                PreparedStatement pruneStmt = conn.prepareStatement(prune)) {
+            boolean anyNegative = false;
+            for (Map.Entry<GroupKey, double[]> entry : deltas.entrySet()) {
+                GroupKey key = entry.getKey();
+                key.bind(upsertStmt);
+                upsertStmt.setInt(5, (int) entry.getValue()[0]);
+                upsertStmt.setDouble(6, entry.getValue()[1]);
+                upsertStmt.addBatch();
+                if (entry.getValue()[0] < 0) {
+                    key.bind(pruneStmt);
+                    pruneStmt.addBatch();
+                    anyNegative = true;
+                }
+            }
+            upsertStmt.executeBatch();
+            if (anyNegative) {
+                pruneStmt.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Identifies one rollup group.
+     */
+    static final class GroupKey {
+        private final String userId;
+        private final String month;
+        private final String jenis;
+        private final String kategori;
+
+        GroupKey(String userId, Transaksi transaksi) {
+            this.userId = userId;
+            this.month = YearMonth.from(transaksi.getTanggalTransaksi()).toString();
+            this.jenis = transaksi.getJenis();
+            this.kategori = transaksi.getKategori();
+        }
+
+        void bind(PreparedStatement pstmt) throws SQLException {
+            pstmt.setString(1, userId);
+            pstmt.setString(2, month);
+            pstmt.setString(3, jenis);
+            pstmt.setString(4, kategori);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GroupKey)) {
+                return false;
+            }
+            GroupKey other = (GroupKey) o;
+            return userId.equals(other.userId) && month.equals(other.month) && jenis.equals(other.jenis)
+                    && kategori.equals(other.kategori);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, month, jenis, kategori);
+        }
+    }
+
+    private static RollupRow mapRow(ResultSet rs) throws SQLException {
+        return new RollupRow(
+                rs.getString("user_id"),
+                YearMonth.parse(rs.getString("tahun_bulan")),
+                rs.getString("jenis"),
+                rs.getString("kategori"),
+                rs.getInt("jumlah"),
+                rs.getDouble("total"));
+    }
+
+
+    /**
+     * Rebuild command: recomputes the rollup and prints any drift that was found.
+     * Usage: java com.subwayit.dao.TransaksiRollupDAO
+     */
+    public static void main(String[] args) {
+        DatabaseManager.initializeDatabase();
+        VerifyReport report = new TransaksiRollupDAO().rebuild();
+        System.out.println("Rollup TransaksiBulanan dibangun ulang: " + report);
+        for (String mismatch : report.getMismatches()) {
+            System.out.println("  " + mismatch);
+        }
+        DatabaseManager.shutdown();
+    }
+}
@@ -38,23 +38,21 @@ public class UserDAO {
     /**
      * Retrieves a user from the Pengguna table by their user_id.
      * @param userId The ID of the user to retrieve.
+     * Served from {@link EntityCache} when the user was looked up recently.
      * @return The User object if found, null otherwise.
      */
     public User getUserByUserId(String userId) {
+        return EntityCache.read(EntityCache.USERS, userId, () -> loadUser(userId));
+    }
+
+    private User loadUser(String userId) {
         String sql = "SELECT user_id, nama, umur, e_mail, password, role FROM Pengguna WHERE user_id = ?";
         try (Connection conn = DatabaseManager.connect();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, userId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
-                return new User(
-                    rs.getString("user_id"),
-                    rs.getString("nama"),
-                    rs.getInt("umur"),
-                    rs.getString("e_mail"),
-                    rs.getString("password"),
-                    rs.getString("role")
-                );
+                return RowMappers.user(rs);
             }
         } catch (SQLException e) {
             System.err.println("Error getting user: " + e.getMessage());
@@ -63,6 +61,31 @@ public class UserDAO {
         return null;
     }
 
+    /**
+     * Loads up to {@code limit} users into {@link EntityCache} in one query, so the first
+     * logins after startup are served from memory. Called once while the app boots.
+     * @return The number of users cached.
+     */
+    public int warmCache(int limit) {
+        String sql = "SELECT user_id, nama, umur, e_mail, password, role FROM Pengguna LIMIT ?";
+        long generation = EntityCache.USERS.generation();
+        int cached = 0;
+        try (Connection conn = DatabaseManager.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                User user = RowMappers.user(rs);
+                EntityCache.store(EntityCache.USERS, user.getUserId(), user, generation);
+                cached++;
+            }
+        } catch (SQLException e) {
+            System.err.println("Error warming user cache: " + e.getMessage());
+            e.printStackTrace();
+        }
+        return cached;
+    }
+
     /**
      * Updates an existing user's information in the Pengguna table.
      * @param user The User object with updated information.
@@ -78,6 +101,7 @@ public class UserDAO {
             pstmt.setString(5, user.getRole());
             pstmt.setString(6, user.getUserId());
             int affectedRows = pstmt.executeUpdate();
+            EntityCache.invalidateUser(user.getUserId());
             if (affectedRows > 0) {
                 System.out.println("User updated successfully: " + user.getNama());
             } else {
@@ -99,6 +123,7 @@ public class UserDAO {
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, userId);
             int affectedRows = pstmt.executeUpdate();
+            EntityCache.invalidateUser(userId);
             if (affectedRows > 0) {
                 System.out.println("User deleted successfully: " + userId);
             } else {
@@ -121,15 +146,7 @@ public class UserDAO {
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                User user = new User(
-                        rs.getString("user_id"),
-                        rs.getString("nama"),
-                        rs.getInt("umur"),
-                        rs.getString("e_mail"),
-                        rs.getString("password"),
-                        rs.getString("role")
-                );
-                users.add(user);
+                users.add(RowMappers.user(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error getting all users: " + e.getMessage());
@@ -1,10 +1,12 @@
 package com.subwayit.dao;
 
 import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.UnitOfWork;
 import com.subwayit.model.Utang;
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class UtangDAO {
@@ -24,71 +26,283 @@ public class UtangDAO {
         public void setUserName(String userName) { this.userName = userName; }
     }
 
-    public void addUtang(Utang utang) {
-        String sql = "INSERT INTO Utang(utang_id, user_id, jumlah, bunga, tanggal_jatuh_tempo, status, creditor, sisa_utang) VALUES(?,?,?,?,?,?,?,?)";
+    public enum PaymentOutcome {
+        /** Payment recorded, some of the debt remains. */
+        PAID,
+        /** Payment recorded and the debt is now 'Lunas'. */
+        PAID_OFF,
+        /** Rejected because it exceeds the remaining amount; nothing was written. */
+        OVERPAYMENT,
+        /** Rejected because the debt does not exist; nothing was written. */
+        NOT_FOUND
+    }
+
+    // Result of a payDebt call
+    public static class PaymentResult {
+        private final PaymentOutcome outcome;
+        private final double sisaUtang;
+
+        public PaymentResult(PaymentOutcome outcome, double sisaUtang) {
+            this.outcome = outcome;
+            this.sisaUtang = sisaUtang;
+        }
+
+        public PaymentOutcome getOutcome() { return outcome; }
+        public double getSisaUtang() { return sisaUtang; }
+
+        public boolean isAccepted() {
+            return outcome == PaymentOutcome.PAID || outcome == PaymentOutcome.PAID_OFF;
+        }
+    }
+
+    /** Rows sent to SQLite per executeBatch() call when no chunk size is given. */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    // Remaining amounts are REAL; anything within half a cent of zero counts as paid off
+    private static final double PAID_OFF_TOLERANCE = 0.005;
+
+    // Decrements only if the payment fits in what is left, and settles the status in the same write
+    private static final String PAY_SQL = "UPDATE Utang SET "
+            + "sisa_utang = MAX(sisa_utang - ?, 0), "
+            + "status = CASE WHEN sisa_utang - ? <= ? THEN 'Lunas' ELSE status END "
+            + "WHERE utang_id = ? AND sisa_utang - ? >= -? "
+            + "RETURNING sisa_utang, status, user_id";
+
+    private static final String INSERT_SQL = "INSERT INTO Utang(utang_id, user_id, jumlah, bunga, tanggal_jatuh_tempo, status, creditor, sisa_utang) VALUES(?,?,?,?,?,?,?,?)";
+
+    /**
+     * Inserts a new debt; its remaining amount starts at the total with interest.
+     *
+     * @return the debt as stored, or null if it could not be saved.
+     */
+    public Utang addUtang(Utang utang) {
         try (Connection conn = DatabaseManager.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, utang.getUtangId());
-            pstmt.setString(2, utang.getUserId());
-            pstmt.setDouble(3, utang.getJumlah());
-            pstmt.setDouble(4, utang.getBunga());
-            pstmt.setDate(5, Date.valueOf(utang.getTanggalJatuhTempo()));
-            pstmt.setString(6, utang.getStatus());
-            pstmt.setString(7, utang.getCreditor());
-            pstmt.setDouble(8, utang.getTotalWithInterest()); // Initial remaining amount includes interest
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+            bindInsert(pstmt, utang);
             pstmt.executeUpdate();
+            FamilyQueryCache.invalidateDebts(List.of(utang.getUserId()));
+            return new Utang(utang.getUtangId(), utang.getUserId(), utang.getJumlah(), utang.getBunga(),
+                    utang.getTanggalJatuhTempo(), utang.getStatus(), utang.getCreditor(),
+                    utang.getTotalWithInterest());
         } catch (SQLException e) {
             System.err.println("Error adding debt: " + e.getMessage());
             e.printStackTrace();
+            return null;
         }
     }
 
-    public boolean updateUtang(Utang utang) {
-        String sql = "UPDATE Utang SET jumlah = ?, bunga = ?, tanggal_jatuh_tempo = ?, status = ?, creditor = ?, sisa_utang = ? WHERE utang_id = ?";
-        try (Connection conn = DatabaseManager.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setDouble(1, utang.getJumlah());
-            pstmt.setDouble(2, utang.getBunga());
-            pstmt.setDate(3, Date.valueOf(utang.getTanggalJatuhTempo()));
-            pstmt.setString(4, utang.getStatus());
-            pstmt.setString(5, utang.getCreditor());
-            pstmt.setDouble(6, utang.getSisaUtang());
-            pstmt.setString(7, utang.getUtangId());
-            return pstmt.executeUpdate() > 0;
+    public int addUtangBatch(Collection<Utang> utangList) {
+        return addUtangBatch(utangList, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Inserts many debts with JDBC batching inside a single transaction, in chunks of
+     * chunkSize rows. All rows are inserted or, if any of them fails, none are.
+     *
+     * @return the number of rows inserted.
+     */
+    public int addUtangBatch(Collection<Utang> utangList, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1");
+        }
+        if (utangList == null || utangList.isEmpty()) {
+            return 0;
+        }
+        try {
+            return UnitOfWork.inTransaction(() -> {
+                int count = 0;
+                try (Connection conn = DatabaseManager.connect();
+                     PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                    int pending = 0;
+                    for (Utang utang : utangList) {
+                        bindInsert(pstmt, utang);
+                        pstmt.addBatch();
+                        if (++pending == chunkSize) {
+                            count += pstmt.executeBatch().length;
+                            pending = 0;
+                        }
+                    }
+                    if (pending > 0) {
+                        count += pstmt.executeBatch().length;
+                    }
+                }
+                FamilyQueryCache.invalidateDebts(utangList.stream().map(Utang::getUserId).distinct().toList());
+                return count;
+            });
         } catch (SQLException e) {
+            System.err.println("Error adding debt batch: " + e.getMessage());
             e.printStackTrace();
-            return false;
+            throw new RuntimeException("Gagal menambahkan batch utang: " + e.getMessage(), e);
         }
     }
 
-    public boolean updatePayment(String utangId, double paymentAmount) {
-        String sql = "UPDATE Utang SET sisa_utang = sisa_utang - ? WHERE utang_id = ?";
-        try (Connection conn = DatabaseManager.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setDouble(1, paymentAmount);
-            pstmt.setString(2, utangId);
-            int rowsUpdated = pstmt.executeUpdate();
-            if (rowsUpdated > 0) {
-                // After payment, check if the debt is now fully paid and update status
-                String checkSql = "UPDATE Utang SET status = 'Lunas' WHERE utang_id = ? AND sisa_utang <= 0";
-                try(PreparedStatement checkPstmt = conn.prepareStatement(checkSql)){
-                    checkPstmt.setString(1, utangId);
-                    checkPstmt.executeUpdate();
+    private static void bindInsert(PreparedStatement pstmt, Utang utang) throws SQLException {
+        pstmt.setString(1, utang.getUtangId());
+        pstmt.setString(2, utang.getUserId());
+        pstmt.setDouble(3, utang.getJumlah());
+        pstmt.setDouble(4, utang.getBunga());
+        pstmt.setDate(5, Date.valueOf(utang.getTanggalJatuhTempo()));
+        pstmt.setString(6, utang.getStatus());
+        pstmt.setString(7, utang.getCreditor());
+        pstmt.setDouble(8, utang.getTotalWithInterest()); // Initial remaining amount includes interest
+    }
+
+    // Remaining amount and status are rebuilt from the ledger, the same way the recompute job
+    // does; the caller's copies of them may be stale. x binds the new principal and interest.
+    private static final String UPDATE_SQL = "UPDATE Utang SET "
+            + "jumlah = x.jumlah, bunga = x.bunga, tanggal_jatuh_tempo = ?, creditor = ?, "
+            + "sisa_utang = MAX(x.jumlah * (1 + x.bunga) - x.dibayar, 0), "
+            + "status = CASE WHEN x.jumlah * (1 + x.bunga) - x.dibayar <= ? THEN 'Lunas' "
+            + "WHEN status = 'Lunas' THEN 'Belum Lunas' ELSE status END "
+            + "FROM (SELECT ? AS jumlah, ? AS bunga, (SELECT COALESCE(SUM(payment_amount), 0) "
+            + "FROM payment_history WHERE utang_id = ?) AS dibayar) AS x "
+            + "WHERE Utang.utang_id = ? "
+            + "RETURNING utang_id, user_id, jumlah, bunga, tanggal_jatuh_tempo, status, creditor, sisa_utang";
+
+    /**
+     * Changes the editable fields of a debt. The remaining amount is recomputed in the same
+     * transaction as the new total with interest minus every payment in payment_history,
+     * and the status follows it, so an edit never undoes a payment. Payments made before
+     * the ledger existed are covered by the opening rows of schema version 8.
+     *
+     * @return the debt as stored, or null if it does not exist or could not be saved.
+     */
+    public Utang updateUtang(String utangId, double jumlah, double bunga, LocalDate tanggalJatuhTempo,
+            String creditor) {
+        try {
+            return UnitOfWork.inTransaction(() -> {
+                try (Connection conn = DatabaseManager.connect();
+                     PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL)) {
+                    pstmt.setDate(1, Date.valueOf(tanggalJatuhTempo));
+                    pstmt.setString(2, creditor);
+                    pstmt.setDouble(3, PAID_OFF_TOLERANCE);
+                    pstmt.setDouble(4, jumlah);
+                    pstmt.setDouble(5, bunga);
+                    pstmt.setString(6, utangId);
+                    pstmt.setString(7, utangId);
+                    ResultSet rs = pstmt.executeQuery();
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    Utang stored = new Utang(rs.getString("utang_id"), rs.getString("user_id"),
+                            rs.getDouble("jumlah"), rs.getDouble("bunga"),
+                            rs.getDate("tanggal_jatuh_tempo").toLocalDate(), rs.getString("status"),
+                            rs.getString("creditor"), rs.getDouble("sisa_utang"));
+                    FamilyQueryCache.invalidateDebts(List.of(stored.getUserId()));
+                    return stored;
                 }
-                return true;
-            }
+            });
+        } catch (SQLException e) {
+            System.err.println("Error updating debt: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Records a payment against a debt. In one transaction the remaining amount is
+     * decremented, the status becomes 'Lunas' once nothing is left, and the payment is
+     * added to payment_history. The decrement only applies while the payment does not
+     * exceed the remaining amount, so concurrent payments can never push a debt below zero.
+     *
+     * @param utangId       The debt to pay.
+     * @param paymentAmount The amount paid; must be positive.
+     * @param paymentDate   The date recorded in payment_history.
+     * @param notes         Optional note stored with the payment.
+     * @return the outcome and the remaining amount after the payment.
+     * @throws IllegalArgumentException if paymentAmount is not a positive number.
+     */
+    public PaymentResult payDebt(String utangId, double paymentAmount, LocalDate paymentDate, String notes) {
+        if (!(paymentAmount > 0) || Double.isInfinite(paymentAmount)) {
+            throw new IllegalArgumentException("Jumlah pembayaran harus lebih dari 0: " + paymentAmount);
+        }
+        try {
+            return UnitOfWork.inTransaction(() -> {
+                try (Connection conn = DatabaseManager.connect()) {
+                    // The write comes first so the transaction takes SQLite's write lock
+                    // before it reads anything; concurrent payments queue on busy_timeout.
+                    Double remaining = null;
+                    String status = null;
+                    try (PreparedStatement pstmt = conn.prepareStatement(PAY_SQL)) {
+                        pstmt.setDouble(1, paymentAmount);
+                        pstmt.setDouble(2, paymentAmount);
+                        pstmt.setDouble(3, PAID_OFF_TOLERANCE);
+                        pstmt.setString(4, utangId);
+                        pstmt.setDouble(5, paymentAmount);
+                        pstmt.setDouble(6, PAID_OFF_TOLERANCE);
+                        ResultSet rs = pstmt.executeQuery();
+                        if (rs.next()) {
+                            remaining = rs.getDouble("sisa_utang");
+                            status = rs.getString("status");
+                            FamilyQueryCache.invalidateDebts(List.of(rs.getString("user_id")));
+                        }
+                    }
+
+                    if (remaining == null) {
+                        try (PreparedStatement pstmt = conn.prepareStatement(
+                                "SELECT sisa_utang FROM Utang WHERE utang_id = ?")) {
+                            pstmt.setString(1, utangId);
+                            ResultSet rs = pstmt.executeQuery();
+                            if (!rs.next()) {
+                                return new PaymentResult(PaymentOutcome.NOT_FOUND, 0);
+                            }
+                            return new PaymentResult(PaymentOutcome.OVERPAYMENT, rs.getDouble(1));
+                        }
+                    }
+
+                    PaymentHistoryDAO.insert(utangId, paymentAmount, paymentDate, notes);
+                    return new PaymentResult("Lunas".equals(status) ? PaymentOutcome.PAID_OFF : PaymentOutcome.PAID,
+                            remaining);
+                }
+            });
         } catch (SQLException e) {
+            System.err.println("Error memproses pembayaran utang: " + e.getMessage());
             e.printStackTrace();
+            throw new RuntimeException("Gagal memproses pembayaran utang: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pays a debt today without a note.
+     *
+     * @return true if the payment was recorded, false if it was rejected or failed.
+     * @see #payDebt(String, double, LocalDate, String)
+     */
+    public boolean updatePayment(String utangId, double paymentAmount) {
+        try {
+            return payDebt(utangId, paymentAmount, LocalDate.now(), null).isAccepted();
+        } catch (RuntimeException e) {
+            return false;
         }
-        return false;
     }
     
+    /**
+     * Deletes a debt together with its payment_history rows, in one transaction.
+     *
+     * @return true if the debt existed and was deleted.
+     */
     public boolean deleteUtang(String utangId) {
-        String sql = "DELETE FROM Utang WHERE utang_id = ?";
-        try (Connection conn = DatabaseManager.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, utangId);
-            return pstmt.executeUpdate() > 0;
+        try {
+            return UnitOfWork.inTransaction(() -> {
+                try (Connection conn = DatabaseManager.connect()) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(
+                            "DELETE FROM Utang WHERE utang_id = ? RETURNING user_id")) {
+                        pstmt.setString(1, utangId);
+                        ResultSet rs = pstmt.executeQuery();
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        FamilyQueryCache.invalidateDebts(List.of(rs.getString("user_id")));
+                    }
+                    // Foreign keys are not enforced, so the ledger rows are removed explicitly
+                    try (PreparedStatement pstmt = conn.prepareStatement(
+                            "DELETE FROM payment_history WHERE utang_id = ?")) {
+                        pstmt.setString(1, utangId);
+                        pstmt.executeUpdate();
+                    }
+                    return true;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -97,25 +311,30 @@ public class UtangDAO {
     
     /**
      * Retrieves all debts for a list of user IDs, joining with the Pengguna table to get user names.
-     * This is the primary method used by the DebtPage.
+     * This is the primary method used by the DebtPage. Results are cached per set of user IDs
+     * in {@link FamilyQueryCache} until one of those users' debts changes.
+     *
+     * @throws RuntimeException if the query fails; nothing is cached then
      */
     public List<UtangWithUserInfo> getDebtsWithUserInfo(List<String> userIds) {
-        List<UtangWithUserInfo> debts = new ArrayList<>();
         if (userIds == null || userIds.isEmpty()) {
-            return debts;
+            return new ArrayList<>();
         }
+        return FamilyQueryCache.readDebts(userIds, () -> loadDebtsWithUserInfo(userIds));
+    }
 
-        String placeholders = String.join(",", java.util.Collections.nCopies(userIds.size(), "?"));
+    private List<UtangWithUserInfo> loadDebtsWithUserInfo(List<String> userIds) {
+        List<UtangWithUserInfo> debts = new ArrayList<>();
+
+        InList ids = InList.of(userIds);
         String sql = "SELECT u.*, p.nama as user_name FROM Utang u " +
                      "JOIN Pengguna p ON u.user_id = p.user_id " +
-                     "WHERE u.user_id IN (" + placeholders + ") ORDER BY u.tanggal_jatuh_tempo ASC";
+                     "WHERE u.user_id IN (" + ids.placeholders() + ") ORDER BY u.tanggal_jatuh_tempo ASC";
 
         try (Connection conn = DatabaseManager.connect();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            for (int i = 0; i < userIds.size(); i++) {
-                pstmt.setString(i + 1, userIds.get(i));
-            }
+            ids.bind(pstmt, 1);
 
             ResultSet rs = pstmt.executeQuery();
             while (rs.next()) {
@@ -132,7 +351,10 @@ public class UtangDAO {
                 ));
             }
         } catch (SQLException e) {
+            // Thrown rather than returning what was read, so a failed query is never cached
+            System.err.println("Error getting debts with user info: " + e.getMessage());
             e.printStackTrace();
+            throw new RuntimeException("Gagal membaca utang keluarga: " + e.getMessage(), e);
         }
         return debts;
     }
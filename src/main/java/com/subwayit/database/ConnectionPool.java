@@ -0,0 +1,420 @@
+package com.subwayit.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A small bounded pool of SQLite connections.
+ * Connections handed out by {@link #borrow()} are proxies: calling close() on them
+ * returns the physical connection to the pool instead of closing it, so DAOs can keep
+ * using try-with-resources exactly as before. Each physical connection also keeps a
+ * {@link StatementCache}, so prepareStatement(sql) reuses statements compiled by earlier
+ * borrowers of the same connection.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final List<String> initStatements;
+    private final int statementCacheSize;
+
+    private final LinkedBlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> inUse = ConcurrentHashMap.newKeySet();
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+    private final Semaphore permits;
+    private final ScheduledExecutorService leakDetector;
+    private volatile boolean closed;
+    private volatile boolean traceBorrows;
+    private volatile StatementListener statementListener;
+
+    // Metrics
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    /**
+     * @param url                 JDBC URL of the database
+     * @param maxSize             maximum number of physical connections
+     * @param borrowTimeoutMillis how long borrow() waits for a free connection
+     * @param leakThresholdMillis a connection held longer than this is reported as a leak (0 disables)
+     * @param initStatements      statements (typically PRAGMAs) run once on every new physical connection
+     * @param statementCacheSize  prepared statements kept open per physical connection (0 disables the cache)
+     */
+    public ConnectionPool(String url, int maxSize, long borrowTimeoutMillis, long leakThresholdMillis,
+            List<String> initStatements, int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("Statement cache size must not be negative");
+        }
+        this.statementCacheSize = statementCacheSize;
+        this.url = url;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.initStatements = List.copyOf(initStatements);
+        this.permits = new Semaphore(maxSize, true);
+
+        if (leakThresholdMillis > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "db-pool-leak-detector");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(1000, leakThresholdMillis / 2);
+            leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            leakDetector = null;
+        }
+    }
+
+    /**
+     * Borrows a connection, waiting up to the configured timeout if all connections are in use.
+     *
+     * @return a pooled connection; close() returns it to the pool
+     * @throws SQLException if the pool is closed, the wait timed out or a new connection could not be opened
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool has been shut down");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis
+                        + " ms waiting for a database connection (pool size " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            Connection physical = idle.pollFirst();
+            while (physical != null && physical.isClosed()) {
+                statementCaches.remove(physical);
+                physical = idle.pollFirst();
+            }
+            if (physical == null) {
+                physical = openConnection();
+            }
+            PooledConnection pooled = new PooledConnection(physical, traceBorrows);
+            inUse.add(pooled);
+            return pooled.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Connection openConnection() throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : initStatements) {
+                stmt.execute(sql);
+            }
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+        createdCount.incrementAndGet();
+        if (statementCacheSize > 0) {
+            statementCaches.put(conn, new StatementCache(conn, statementCacheSize, statementCounters));
+        }
+        return conn;
+    }
+
+    private void recordWait(long waitNanos) {
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private void release(PooledConnection pooled) {
+        if (!inUse.remove(pooled)) {
+            return;
+        }
+        Connection physical = pooled.physical;
+        StatementCache statements = statementCaches.get(physical);
+        try {
+            if (statements != null) {
+                statements.release();
+            }
+            if (!physical.getAutoCommit()) {
+                // A caller forgot to commit; never leak a half-finished transaction to the next borrower.
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (closed) {
+                closePhysical(physical);
+            } else {
+                idle.offerFirst(physical);
+            }
+        } catch (SQLException e) {
+            System.err.println("Discarding broken pooled connection: " + e.getMessage());
+            try {
+                closePhysical(physical);
+            } catch (SQLException ignored) {
+                // already broken
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Package-private so tests can run a check without waiting for the detector thread
+    void detectLeaks() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : inUse) {
+            if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                pooled.leakReported = true;
+                leakCount.incrementAndGet();
+                reportLeak(pooled, now - pooled.borrowedAt);
+            }
+        }
+    }
+
+    private void reportLeak(PooledConnection pooled, long heldMillis) {
+        if (pooled.borrowSite != null) {
+            System.err.println("Possible connection leak: connection held for " + heldMillis + " ms by thread "
+                    + pooled.borrower.getName() + ". Borrowed at:");
+            pooled.borrowSite.printStackTrace();
+            return;
+        }
+        // Without borrow tracing, where the borrower is now usually points at the holder
+        System.err.println("Possible connection leak: connection held for " + heldMillis + " ms by thread "
+                + pooled.borrower.getName() + ", currently at:");
+        for (StackTraceElement frame : pooled.borrower.getStackTrace()) {
+            System.err.println("\tat " + frame);
+        }
+    }
+
+    /**
+     * Closes all idle connections and rejects further borrows.
+     * Connections still in use are closed as soon as they are returned.
+     */
+    public void shutdown() {
+        closed = true;
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+        Connection conn;
+        while ((conn = idle.pollFirst()) != null) {
+            try {
+                closePhysical(conn);
+            } catch (SQLException e) {
+                System.err.println("Error closing pooled connection: " + e.getMessage());
+            }
+        }
+    }
+
+    private void closePhysical(Connection physical) throws SQLException {
+        StatementCache statements = statementCaches.remove(physical);
+        if (statements != null) {
+            statements.close();
+        }
+        physical.close();
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Records the stack trace of every borrow, so a leak report shows where the connection
+     * was borrowed. Off by default: capturing a stack trace costs more than the borrow
+     * itself. Without it a leak report shows where the borrowing thread is when the leak
+     * is detected.
+     */
+    public void setTraceBorrows(boolean traceBorrows) {
+        this.traceBorrows = traceBorrows;
+    }
+
+    /**
+     * Registers a listener that sees the SQL of every statement run through this pool.
+     * Pass null to remove it.
+     */
+    public void setStatementListener(StatementListener listener) {
+        this.statementListener = listener;
+    }
+
+    private void notifyStatement(String sql) {
+        StatementListener listener = statementListener;
+        if (listener != null) {
+            listener.onStatement(sql);
+        }
+    }
+
+    /**
+     * @return a snapshot of the pool's usage and wait-time metrics
+     */
+    public Stats getStats() {
+        return new Stats(maxSize, inUse.size(), idle.size(), createdCount.get(), borrowCount.get(),
+                totalWaitNanos.get(), maxWaitNanos.get(), timeoutCount.get(), leakCount.get());
+    }
+
+    /**
+     * @return hit/miss/eviction counters of the prepared statement caches of all connections
+     */
+    public StatementCache.Stats getStatementCacheStats() {
+        return statementCounters.snapshot(statementCacheSize);
+    }
+
+    /**
+     * Immutable snapshot of pool metrics.
+     */
+    public static class Stats {
+        private final int maxSize;
+        private final int active;
+        private final int idle;
+        private final long created;
+        private final long borrows;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final long timeouts;
+        private final long leaks;
+
+        Stats(int maxSize, int active, int idle, long created, long borrows, long totalWaitNanos,
+                long maxWaitNanos, long timeouts, long leaks) {
+            this.maxSize = maxSize;
+            this.active = active;
+            this.idle = idle;
+            this.created = created;
+            this.borrows = borrows;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.timeouts = timeouts;
+            this.leaks = leaks;
+        }
+
+        public int getMaxSize() { return maxSize; }
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public long getCreated() { return created; }
+        public long getBorrows() { return borrows; }
+        public long getTimeouts() { return timeouts; }
+        public long getLeaks() { return leaks; }
+        public long getMaxWaitNanos() { return maxWaitNanos; }
+
+        public double getAverageWaitMillis() {
+            return borrows == 0 ? 0.0 : totalWaitNanos / 1_000_000.0 / borrows;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("pool[size=%d, active=%d, idle=%d, created=%d, borrows=%d, avgWait=%.3f ms, "
+                    + "maxWait=%.3f ms, timeouts=%d, leaks=%d]", maxSize, active, idle, created, borrows,
+                    getAverageWaitMillis(), maxWaitNanos / 1_000_000.0, timeouts, leaks);
+        }
+    }
+
+    /**
+     * Tracks one borrow of a physical connection and backs the proxy handed to callers.
+     */
+    private class PooledConnection implements InvocationHandler {
+        private final Connection physical;
+        private final Connection proxy;
+        private final long borrowedAt = System.currentTimeMillis();
+        private final Thread borrower = Thread.currentThread();
+        private final Throwable borrowSite;
+        private volatile boolean returned;
+        private volatile boolean leakReported;
+
+        PooledConnection(Connection physical, boolean traceBorrow) {
+            this.physical = physical;
+            this.borrowSite = traceBorrow ? new Throwable("Connection borrowed here") : null;
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if ((method.getName().equals("prepareStatement") || method.getName().equals("prepareCall"))
+                    && args != null && args[0] instanceof String) {
+                notifyStatement((String) args[0]);
+            }
+            if (method.getName().equals("prepareStatement") && args.length == 1) {
+                StatementCache statements = statementCaches.get(physical);
+                if (statements != null) {
+                    return statements.prepare((String) args[0]);
+                }
+            }
+            Object result;
+            try {
+                result = method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (method.getName().equals("createStatement") && statementListener != null) {
+                return observe((Statement) result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Wraps a plain Statement so SQL passed to execute/executeQuery/executeUpdate/addBatch
+     * reaches the statement listener.
+     */
+    private Statement observe(Statement statement) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[] { Statement.class }, (proxy, method, args) -> {
+                    if ((method.getName().startsWith("execute") || method.getName().equals("addBatch"))
+                            && args != null && args.length > 0 && args[0] instanceof String) {
+                        notifyStatement((String) args[0]);
+                    }
+                    try {
+                        return method.invoke(statement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
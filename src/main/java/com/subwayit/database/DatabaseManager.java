@@ -1,24 +1,42 @@
 package com.subwayit.database;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 public class DatabaseManager {
-    private static final String DATABASE_URL = "jdbc:sqlite:subwayit.db";
+    private static final String DEFAULT_DATABASE_URL = "jdbc:sqlite:subwayit.db";
+
+    // Pool settings. SQLite allows a single writer, so a handful of connections is plenty.
+    private static final int POOL_SIZE = 8;
+    private static final long BORROW_TIMEOUT_MILLIS = 30_000;
+    private static final long LEAK_THRESHOLD_MILLIS = 60_000;
+    // Enough for every distinct statement the DAOs issue on a hot path, per connection
+    private static final int STATEMENT_CACHE_SIZE = 64;
+    // Capture a stack trace on every borrow for leak reports; for debugging only
+    private static final boolean TRACE_BORROWS = Boolean.getBoolean("subwayit.db.traceBorrows");
+
+    private static String databaseUrl = System.getProperty("subwayit.db.url", DEFAULT_DATABASE_URL);
+    private static PragmaProfile pragmaProfile = PragmaProfile.named(
+            System.getProperty("subwayit.db.profile", PragmaProfile.BALANCED.getName()));
+    private static ConnectionPool pool;
+    private static StatementListener statementListener;
 
     /**
-     * Connect to the SQLite database
+     * Connect to the SQLite database.
+     * The returned connection comes from a shared pool; closing it hands it back to the pool.
+     * Inside a {@link UnitOfWork} the transaction's connection is returned instead.
      * 
      * @return Connection object or null if connection failed
      */
     public static Connection connect() {
-        Connection conn = null;
+        Connection conn = UnitOfWork.currentConnection();
+        if (conn != null) {
+            return conn;
+        }
         try {
-            conn = DriverManager.getConnection(DATABASE_URL);
-            System.out.println("Connection to SQLite has been established.");
+            conn = borrowConnection();
         } catch (SQLException e) {
             System.err.println("Database connection error: " + e.getMessage());
         }
@@ -26,225 +44,144 @@ public class DatabaseManager {
     }
 
     /**
-     * Initialize database by creating all necessary tables
+     * Borrow a connection straight from the pool, ignoring any active UnitOfWork.
      */
-    public static void initializeDatabase() {
-        System.out.println("Initializing database...");
-
-        // Create all tables
-        createPenggunaTable();
-        createPenanggungTable();
-        createTanggunganTable();
-        createAdminTable(); // Add this line
-        createTransaksiTable();
-        createUtangTable();
-        createPaymentHistoryTable();
+    static Connection borrowConnection() throws SQLException {
+        return getPool().borrow();
+    }
 
-        System.out.println("Database initialization completed.");
+    private static synchronized ConnectionPool getPool() {
+        if (pool == null) {
+            pool = new ConnectionPool(databaseUrl, POOL_SIZE, BORROW_TIMEOUT_MILLIS, LEAK_THRESHOLD_MILLIS,
+                    pragmaProfile.toPragmaStatements(), STATEMENT_CACHE_SIZE);
+            pool.setStatementListener(statementListener);
+            pool.setTraceBorrows(TRACE_BORROWS);
+        }
+        return pool;
     }
 
     /**
-     * Update database schema for new features
+     * Points the application at a different database file (e.g. a scratch database in tests).
+     * Any existing pool is shut down and a new one is created lazily on the next connect().
      */
-    public static void updateDatabaseSchema() {
-        System.out.println("Updating database schema...");
-
-        try (Connection conn = connect()) {
-            if (conn != null) {
-                // Add sisa_utang column to Utang table if it doesn't exist
-                addSisaUtangColumn(conn);
-
-                // Update existing records to set sisa_utang = jumlah where sisa_utang is null
-                updateExistingUtangRecords(conn);
+    public static synchronized void setDatabaseUrl(String url) {
+        shutdown();
+        databaseUrl = url;
+    }
 
-                System.out.println("Database schema update completed.");
-            }
-        } catch (SQLException e) {
-            System.err.println("Error updating database schema: " + e.getMessage());
-        }
+    public static synchronized String getDatabaseUrl() {
+        return databaseUrl;
     }
 
     /**
-     * Create Pengguna table
+     * Switches the PRAGMA profile applied to new connections, e.g. to
+     * {@link PragmaProfile#BULK_IMPORT} around a large data load.
+     * The pool is recycled so every connection picks up the new settings.
      */
-    // Metode createPenggunaTable() tetap sama
-    private static void createPenggunaTable() {
-        String sql = "CREATE TABLE IF NOT EXISTS Pengguna (" +
-                "user_id TEXT PRIMARY KEY," +
-                "nama TEXT NOT NULL," +
-                "umur INTEGER NOT NULL," +
-                "e_mail TEXT NOT NULL," +
-                "password TEXT NOT NULL," +
-                "role TEXT NOT NULL" +
-                ");";
+    public static synchronized void setPragmaProfile(PragmaProfile profile) {
+        shutdown();
+        pragmaProfile = profile;
+    }
 
-        try (Connection conn = connect();
-                Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            System.out.println("Pengguna table created successfully.");
-        } catch (SQLException e) {
-            System.err.println("Error creating Pengguna table: " + e.getMessage());
-        }
+    public static synchronized PragmaProfile getPragmaProfile() {
+        return pragmaProfile;
     }
 
     /**
-     * Create Transaksi table
+     * Observe the SQL text of every statement the DAOs run (used by query-plan and
+     * statement-count tests). Pass null to stop observing.
      */
-    private static void createTransaksiTable() {
-        String sql = "CREATE TABLE IF NOT EXISTS Transaksi (" +
-                "transaksi_id TEXT PRIMARY KEY," +
-                "user_id TEXT NOT NULL," +
-                "jenis TEXT NOT NULL," + // Add jenis
-                "kategori TEXT NOT NULL," + // Add kategori
-                "nominal REAL NOT NULL," +
-                "tanggal_transaksi DATE NOT NULL," + // Renamed from 'tanggal'
-                "bukti_transaksi TEXT," + // Add bukti_transaksi
-                "is_rutin BOOLEAN NOT NULL," + // Add is_rutin
-                "deskripsi TEXT," +
-                "FOREIGN KEY (user_id) REFERENCES Pengguna(user_id)" +
-                ");";
-
-        try (Connection conn = connect();
-                Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            System.out.println("Transaksi table created successfully.");
-        } catch (SQLException e) {
-            System.err.println("Error creating Transaksi table: " + e.getMessage());
+    public static synchronized void setStatementListener(StatementListener listener) {
+        statementListener = listener;
+        if (pool != null) {
+            pool.setStatementListener(listener);
         }
     }
 
     /**
-     * Create Utang table
+     * @return wait-time and usage metrics of the connection pool
      */
-    private static void createUtangTable() {
-        String sql = "CREATE TABLE IF NOT EXISTS Utang (" +
-                "utang_id TEXT PRIMARY KEY," +
-                "user_id TEXT NOT NULL," +
-                "jumlah REAL NOT NULL," +
-                "bunga REAL NOT NULL," +
-                "tanggal_jatuh_tempo DATE NOT NULL," +
-                "status TEXT NOT NULL," +
-                "creditor TEXT NOT NULL," +
-                "sisa_utang REAL," +
-                "FOREIGN KEY (user_id) REFERENCES Pengguna(user_id)" +
-                ");";
-
-        try (Connection conn = connect();
-                Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            System.out.println("Utang table created successfully.");
-        } catch (SQLException e) {
-            System.err.println("Error creating Utang table: " + e.getMessage());
-        }
+    public static ConnectionPool.Stats getPoolStats() {
+        return getPool().getStats();
     }
 
-    private static void createPenanggungTable() {
-        // Kolom 'anggota_tanggungan_ids' akan menyimpan daftar ID Tanggungan yang
-        // dipisahkan koma.
-        // Jika Anda ingin mengelola anggota secara lebih terstruktur, mungkin perlu
-        // tabel join Anggota_Keluarga
-        // yang hanya menghubungkan Penanggung dengan Tanggungan, tetapi tanpa model
-        // Keluarga.
-        // Untuk saat ini, mari kita pakai string dipisahkan koma untuk kesederhanaan
-        // ekstrem.
-        String sql = "CREATE TABLE IF NOT EXISTS Penanggung (" +
-                "penanggung_id TEXT PRIMARY KEY," +
-                "jumlah_pemasukan INTEGER NOT NULL DEFAULT 0," +
-                "jumlah_pengeluaran INTEGER NOT NULL DEFAULT 0," +
-                "pekerjaan TEXT," + // Tambahkan kolom pekerjaan
-                "anggota_tanggungan_ids TEXT," + // Menyimpan ID Tanggungan yang dipisahkan koma
-                "FOREIGN KEY (penanggung_id) REFERENCES Pengguna(user_id)" +
-                ");";
-
-        try (Connection conn = connect();
-                Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            System.out.println("Penanggung table created successfully.");
-        } catch (SQLException e) {
-            System.err.println("Error creating Penanggung table: " + e.getMessage());
-        }
+    /**
+     * @return hit-rate metrics of the per-connection prepared statement caches
+     */
+    public static StatementCache.Stats getStatementCacheStats() {
+        return getPool().getStatementCacheStats();
     }
 
-    private static void createTanggunganTable() {
-        // Kolom 'penanggung_id' akan mengaitkan Tanggungan ke Penanggung-nya
-        String sql = "CREATE TABLE IF NOT EXISTS Tanggungan (" +
-                "tanggungan_id TEXT PRIMARY KEY," +
-                "posisi TEXT," +
-                "nama TEXT NOT NULL," + // Diulang dari Pengguna, tapi sesuai doc
-                "umur INTEGER NOT NULL," + // Diulang dari Pengguna, tapi sesuai doc
-                "pendidikan TEXT," +
-                "pekerjaan TEXT," +
-                "penanggung_id TEXT," + // Tambahkan kolom penanggung_id
-                "FOREIGN KEY (tanggungan_id) REFERENCES Pengguna(user_id)," +
-                "FOREIGN KEY (penanggung_id) REFERENCES Penanggung(penanggung_id)" + // FK ke Penanggung
-                ");";
-
-        try (Connection conn = connect();
-                Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            System.out.println("Tanggungan table created successfully.");
-        } catch (SQLException e) {
-            System.err.println("Error creating Tanggungan table: " + e.getMessage());
+    /**
+     * Close all pooled connections. Called when the application exits.
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            System.out.println("Shutting down connection pool: " + pool.getStats() + ", "
+                    + pool.getStatementCacheStats());
+            pool.shutdown();
+            pool = null;
         }
     }
 
     /**
-     * Create payment_history table
+     * Initialize database by applying any pending schema migrations.
+     * Uses a single connection; when the schema is already current no DDL is run.
+     *
+     * @throws RuntimeException if a migration fails (the failed migration is rolled back)
      */
-    private static void createPaymentHistoryTable() {
-        String sql = "CREATE TABLE IF NOT EXISTS payment_history (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "utang_id TEXT NOT NULL," +
-                "payment_amount REAL NOT NULL," +
-                "payment_date DATE NOT NULL," +
-                "notes TEXT," +
-                "FOREIGN KEY (utang_id) REFERENCES Utang(utang_id)" +
-                ");";
-
-        try (Connection conn = connect();
-                Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            System.out.println("payment_history table created successfully.");
+    public static void initializeDatabase() {
+        try (Connection conn = connect()) {
+            if (conn == null) {
+                throw new SQLException("No database connection available");
+            }
+            new SchemaMigrator(SchemaMigrations.all()).migrate(conn);
         } catch (SQLException e) {
-            System.err.println("Error creating payment_history table: " + e.getMessage());
+            System.err.println("Error migrating database schema: " + e.getMessage());
+            throw new RuntimeException("Gagal menginisialisasi database: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Add sisa_utang column to existing Utang table
+     * Opens up to {@code count} pooled connections ahead of time, so the first pages do not
+     * pay for opening the file and applying the PRAGMA profile. The connections stay idle
+     * in the pool.
+     *
+     * @return the number of connections that were opened or already idle
      */
-    private static void addSisaUtangColumn(Connection conn) {
-        // Check if column already exists by trying to add it
-        String sql = "ALTER TABLE Utang ADD COLUMN sisa_utang REAL";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.executeUpdate();
-            System.out.println("Added sisa_utang column to Utang table");
+    public static int warmUp(int count) {
+        List<Connection> borrowed = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                borrowed.add(borrowConnection());
+            }
         } catch (SQLException e) {
-            // Column might already exist, that's okay
-            if (e.getMessage().contains("duplicate column name")) {
-                System.out.println("sisa_utang column already exists");
-            } else {
-                System.err.println("Error adding sisa_utang column: " + e.getMessage());
+            System.err.println("Error warming up connection pool: " + e.getMessage());
+        } finally {
+            for (Connection conn : borrowed) {
+                closeConnectionQuietly(conn);
             }
         }
+        return borrowed.size();
     }
 
-    /**
-     * Update existing Utang records to set sisa_utang = jumlah where sisa_utang is
-     * null
-     */
-    private static void updateExistingUtangRecords(Connection conn) {
-        String sql = "UPDATE Utang SET sisa_utang = jumlah WHERE sisa_utang IS NULL";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            int updated = pstmt.executeUpdate();
-            if (updated > 0) {
-                System.out.println("Updated " + updated + " existing Utang records with sisa_utang");
-            }
+    private static void closeConnectionQuietly(Connection conn) {
+        try {
+            conn.close();
         } catch (SQLException e) {
-            System.err.println("Error updating existing Utang records: " + e.getMessage());
+            System.err.println("Error returning connection to the pool: " + e.getMessage());
         }
     }
 
+    /**
+     * Update database schema for new features.
+     * Schema changes are now versioned migrations, so this is the same as
+     * {@link #initializeDatabase()} and is a cheap no-op once the schema is current.
+     */
+    public static void updateDatabaseSchema() {
+        initializeDatabase();
+    }
+
     /**
      * Test database connection
      */
@@ -271,25 +208,6 @@ public class DatabaseManager {
         }
     }
 
-    /**
-     * Create Admin table
-     */
-    private static void createAdminTable() {
-        String sql = "CREATE TABLE IF NOT EXISTS Admin (" +
-                "admin_id TEXT PRIMARY KEY," +
-                "FOREIGN KEY (admin_id) REFERENCES Pengguna(user_id)" +
-                ");";
-
-        try (Connection conn = connect();
-                Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            System.out.println("Admin table created successfully.");
-        } catch (SQLException e) {
-            System.err.println("Error creating Admin table: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
-
     // A main method to easily run this class and create the database
     public static void main(String[] args) {
         initializeDatabase();
@@ -0,0 +1,51 @@
+package com.subwayit.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * One versioned schema change. Migrations are applied in ascending version order by
+ * {@link SchemaMigrator}; after a migration succeeds the database's PRAGMA user_version
+ * is moved to its version.
+ */
+public class Migration {
+
+    /**
+     * The work done by a migration. It runs inside the migrator's transaction, so it must
+     * not commit or change auto-commit itself.
+     */
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private final int version;
+    private final String description;
+    private final Step step;
+
+    public Migration(int version, String description, Step step) {
+        if (version < 1) {
+            throw new IllegalArgumentException("Migration versions start at 1");
+        }
+        this.version = version;
+        this.description = description;
+        this.step = step;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    void apply(Connection conn) throws SQLException {
+        step.apply(conn);
+    }
+
+    @Override
+    public String toString() {
+        return "v" + version + " (" + description + ")";
+    }
+}
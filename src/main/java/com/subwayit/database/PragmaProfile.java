@@ -0,0 +1,108 @@
+package com.subwayit.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A set of SQLite PRAGMA settings applied to every pooled connection when it is opened.
+ * Three presets are provided:
+ * <ul>
+ * <li>{@link #DURABLE} - WAL with synchronous=FULL, every commit survives a power loss</li>
+ * <li>{@link #BALANCED} - WAL with synchronous=NORMAL, the default for the desktop app</li>
+ * <li>{@link #BULK_IMPORT} - WAL with synchronous=OFF and large caches, for one-off data loads</li>
+ * </ul>
+ */
+public class PragmaProfile {
+
+    public enum JournalMode { DELETE, TRUNCATE, PERSIST, MEMORY, WAL, OFF }
+
+    public enum Synchronous { OFF, NORMAL, FULL, EXTRA }
+
+    public enum TempStore { DEFAULT, FILE, MEMORY }
+
+    public static final PragmaProfile DURABLE = new PragmaProfile("durable",
+            JournalMode.WAL, Synchronous.FULL, 2_000, TempStore.DEFAULT, 0L, 5_000);
+
+    public static final PragmaProfile BALANCED = new PragmaProfile("balanced",
+            JournalMode.WAL, Synchronous.NORMAL, 16_000, TempStore.MEMORY, 64L * 1024 * 1024, 5_000);
+
+    public static final PragmaProfile BULK_IMPORT = new PragmaProfile("bulk-import",
+            JournalMode.WAL, Synchronous.OFF, 64_000, TempStore.MEMORY, 256L * 1024 * 1024, 30_000);
+
+    private final String name;
+    private final JournalMode journalMode;
+    private final Synchronous synchronous;
+    private final int cacheSizeKib;
+    private final TempStore tempStore;
+    private final long mmapSizeBytes;
+    private final int busyTimeoutMillis;
+
+    /**
+     * @param name              label used in logs and benchmark output
+     * @param journalMode       PRAGMA journal_mode
+     * @param synchronous       PRAGMA synchronous
+     * @param cacheSizeKib      page cache size in KiB (written as a negative cache_size)
+     * @param tempStore         PRAGMA temp_store
+     * @param mmapSizeBytes     PRAGMA mmap_size, 0 disables memory-mapped I/O
+     * @param busyTimeoutMillis PRAGMA busy_timeout
+     */
+    public PragmaProfile(String name, JournalMode journalMode, Synchronous synchronous, int cacheSizeKib,
+            TempStore tempStore, long mmapSizeBytes, int busyTimeoutMillis) {
+        this.name = name;
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.cacheSizeKib = cacheSizeKib;
+        this.tempStore = tempStore;
+        this.mmapSizeBytes = mmapSizeBytes;
+        this.busyTimeoutMillis = busyTimeoutMillis;
+    }
+
+    /**
+     * Looks up a preset by name ("durable", "balanced" or "bulk-import").
+     *
+     * @throws IllegalArgumentException if no preset has that name
+     */
+    public static PragmaProfile named(String name) {
+        for (PragmaProfile preset : presets()) {
+            if (preset.name.equalsIgnoreCase(name.trim())) {
+                return preset;
+            }
+        }
+        throw new IllegalArgumentException("Unknown pragma profile: " + name);
+    }
+
+    public static List<PragmaProfile> presets() {
+        return List.of(DURABLE, BALANCED, BULK_IMPORT);
+    }
+
+    /**
+     * @return the PRAGMA statements for this profile, busy_timeout first so that switching the
+     *         journal mode can wait for other connections instead of failing
+     */
+    public List<String> toPragmaStatements() {
+        List<String> statements = new ArrayList<>();
+        statements.add("PRAGMA busy_timeout = " + busyTimeoutMillis);
+        statements.add("PRAGMA journal_mode = " + journalMode.name().toLowerCase(Locale.ROOT));
+        statements.add("PRAGMA synchronous = " + synchronous.name());
+        statements.add("PRAGMA cache_size = " + (-cacheSizeKib));
+        statements.add("PRAGMA temp_store = " + tempStore.name());
+        statements.add("PRAGMA mmap_size = " + mmapSizeBytes);
+        return statements;
+    }
+
+    public String getName() { return name; }
+    public JournalMode getJournalMode() { return journalMode; }
+    public Synchronous getSynchronous() { return synchronous; }
+    public int getCacheSizeKib() { return cacheSizeKib; }
+    public TempStore getTempStore() { return tempStore; }
+    public long getMmapSizeBytes() { return mmapSizeBytes; }
+    public int getBusyTimeoutMillis() { return busyTimeoutMillis; }
+
+    @Override
+    public String toString() {
+        return name + " (journal_mode=" + journalMode + ", synchronous=" + synchronous + ", cache_size=-"
+                + cacheSizeKib + ", temp_store=" + tempStore + ", mmap_size=" + mmapSizeBytes
+                + ", busy_timeout=" + busyTimeoutMillis + ")";
+    }
+}
@@ -0,0 +1,292 @@
+package com.subwayit.database;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The ordered list of schema migrations for the SubwayIT database.
+ * Never edit a migration that has shipped; add a new one with the next version instead.
+ */
+public final class SchemaMigrations {
+
+    private SchemaMigrations() {
+    }
+
+    public static List<Migration> all() {
+        return List.of(
+                new Migration(1, "create base tables", SchemaMigrations::createBaseTables),
+                new Migration(2, "add and backfill Utang.sisa_utang", SchemaMigrations::addSisaUtang),
+                new Migration(3, "add secondary indexes for DAO lookups", SchemaMigrations::addLookupIndexes),
+                new Migration(4, "add transaksi_id to the per-user Transaksi index", SchemaMigrations::addTransaksiKeysetIndex),
+                new Migration(5, "create and backfill TransaksiBulanan rollup", SchemaMigrations::createMonthlyRollup),
+                new Migration(6, "move anggota_tanggungan_ids into FamilyMembership", SchemaMigrations::normalizeFamilyMembership),
+                new Migration(7, "add payment_date to the payment_history index", SchemaMigrations::addPaymentLedgerIndex),
+                new Migration(8, "record opening balances of debts paid before payment_history", SchemaMigrations::addOpeningBalances));
+    }
+
+    /**
+     * Version 1: the tables that used to be created one by one at startup.
+     * Uses IF NOT EXISTS so databases created before versioning are adopted as-is.
+     */
+    private static void createBaseTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS Pengguna (" +
+                    "user_id TEXT PRIMARY KEY," +
+                    "nama TEXT NOT NULL," +
+                    "umur INTEGER NOT NULL," +
+                    "e_mail TEXT NOT NULL," +
+                    "password TEXT NOT NULL," +
+                    "role TEXT NOT NULL" +
+                    ");");
+
+            // Kolom 'anggota_tanggungan_ids' menyimpan daftar ID Tanggungan yang dipisahkan koma.
+            stmt.execute("CREATE TABLE IF NOT EXISTS Penanggung (" +
+                    "penanggung_id TEXT PRIMARY KEY," +
+                    "jumlah_pemasukan INTEGER NOT NULL DEFAULT 0," +
+                    "jumlah_pengeluaran INTEGER NOT NULL DEFAULT 0," +
+                    "pekerjaan TEXT," +
+                    "anggota_tanggungan_ids TEXT," +
+                    "FOREIGN KEY (penanggung_id) REFERENCES Pengguna(user_id)" +
+                    ");");
+
+            // Kolom 'penanggung_id' mengaitkan Tanggungan ke Penanggung-nya
+            stmt.execute("CREATE TABLE IF NOT EXISTS Tanggungan (" +
+                    "tanggungan_id TEXT PRIMARY KEY," +
+                    "posisi TEXT," +
+                    "nama TEXT NOT NULL," + // Diulang dari Pengguna, tapi sesuai doc
+                    "umur INTEGER NOT NULL," + // Diulang dari Pengguna, tapi sesuai doc
+                    "pendidikan TEXT," +
+                    "pekerjaan TEXT," +
+                    "penanggung_id TEXT," +
+                    "FOREIGN KEY (tanggungan_id) REFERENCES Pengguna(user_id)," +
+                    "FOREIGN KEY (penanggung_id) REFERENCES Penanggung(penanggung_id)" +
+                    ");");
+
+            stmt.execute("CREATE TABLE IF NOT EXISTS Admin (" +
+                    "admin_id TEXT PRIMARY KEY," +
+                    "FOREIGN KEY (admin_id) REFERENCES Pengguna(user_id)" +
+                    ");");
+
+            stmt.execute("CREATE TABLE IF NOT EXISTS Transaksi (" +
+                    "transaksi_id TEXT PRIMARY KEY," +
+                    "user_id TEXT NOT NULL," +
+                    "jenis TEXT NOT NULL," +
+                    "kategori TEXT NOT NULL," +
+                    "nominal REAL NOT NULL," +
+                    "tanggal_transaksi DATE NOT NULL," +
+                    "bukti_transaksi TEXT," +
+                    "is_rutin BOOLEAN NOT NULL," +
+                    "deskripsi TEXT," +
+                    "FOREIGN KEY (user_id) REFERENCES Pengguna(user_id)" +
+                    ");");
+
+            stmt.execute("CREATE TABLE IF NOT EXISTS Utang (" +
+                    "utang_id TEXT PRIMARY KEY," +
+                    "user_id TEXT NOT NULL," +
+                    "jumlah REAL NOT NULL," +
+                    "bunga REAL NOT NULL," +
+                    "tanggal_jatuh_tempo DATE NOT NULL," +
+                    "status TEXT NOT NULL," +
+                    "creditor TEXT NOT NULL," +
+                    "sisa_utang REAL," +
+                    "FOREIGN KEY (user_id) REFERENCES Pengguna(user_id)" +
+                    ");");
+
+            stmt.execute("CREATE TABLE IF NOT EXISTS payment_history (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    "utang_id TEXT NOT NULL," +
+                    "payment_amount REAL NOT NULL," +
+                    "payment_date DATE NOT NULL," +
+                    "notes TEXT," +
+                    "FOREIGN KEY (utang_id) REFERENCES Utang(utang_id)" +
+                    ");");
+        }
+    }
+
+    /**
+     * Version 2: databases created before sisa_utang existed get the column, and rows
+     * without a remaining amount start from the principal.
+     */
+    private static void addSisaUtang(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (!columnExists(conn, "Utang", "sisa_utang")) {
+                stmt.execute("ALTER TABLE Utang ADD COLUMN sisa_utang REAL");
+            }
+            int updated = stmt.executeUpdate("UPDATE Utang SET sisa_utang = jumlah WHERE sisa_utang IS NULL");
+            if (updated > 0) {
+                System.out.println("Updated " + updated + " existing Utang records with sisa_utang");
+            }
+        }
+    }
+
+    /**
+     * Version 3: every DAO lookup filters on user_id, penanggung_id or utang_id, none of which
+     * had an index, so each one scanned the whole table. The (user_id, date) pairs also
+     * serve the ORDER BY of the per-user transaction and debt listings without a sort.
+     */
+    private static void addLookupIndexes(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transaksi_user_tanggal "
+                    + "ON Transaksi(user_id, tanggal_transaksi)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_utang_user_jatuh_tempo "
+                    + "ON Utang(user_id, tanggal_jatuh_tempo)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_tanggungan_penanggung "
+                    + "ON Tanggungan(penanggung_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_payment_history_utang "
+                    + "ON payment_history(utang_id)");
+        }
+    }
+
+    /**
+     * Version 4: keyset pagination orders by (tanggal_transaksi, transaksi_id). With the id in
+     * the index a page is read straight off the index, including ties on the same day.
+     * The new index covers every lookup the v3 index served, so that one is dropped.
+     */
+    private static void addTransaksiKeysetIndex(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_transaksi_user_tanggal_id "
+                    + "ON Transaksi(user_id, tanggal_transaksi, transaksi_id)");
+            stmt.execute("DROP INDEX IF EXISTS idx_transaksi_user_tanggal");
+        }
+    }
+
+    /**
+     * Version 5: count and sum of transactions per (user, month, jenis, kategori), kept up to
+     * date by TransaksiDAO so summaries over a month range read one row per group instead of
+     * every transaction. tahun_bulan is "YYYY-MM" of the stored date in local time.
+     */
+    private static void createMonthlyRollup(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS TransaksiBulanan (" +
+                    "user_id TEXT NOT NULL," +
+                    "tahun_bulan TEXT NOT NULL," +
+                    "jenis TEXT NOT NULL," +
+                    "kategori TEXT NOT NULL," +
+                    "jumlah INTEGER NOT NULL," +
+                    "total REAL NOT NULL," +
+                    "PRIMARY KEY (user_id, tahun_bulan, jenis, kategori)" +
+                    ") WITHOUT ROWID;");
+            stmt.execute("DELETE FROM TransaksiBulanan");
+            stmt.execute("INSERT INTO TransaksiBulanan(user_id, tahun_bulan, jenis, kategori, jumlah, total) " +
+                    "SELECT user_id, strftime('%Y-%m', tanggal_transaksi / 1000, 'unixepoch', 'localtime'), " +
+                    "jenis, kategori, COUNT(*), SUM(nominal) FROM Transaksi GROUP BY 1, 2, 3, 4");
+        }
+    }
+
+    /**
+     * Version 6: one row per (Penanggung, Tanggungan) pair instead of a comma-separated list
+     * in Penanggung.anggota_tanggungan_ids, so adding or removing a member writes one row.
+     * The primary key serves "members of a family" and the unique index on tanggungan_id
+     * serves "family of a member"; a dependent belongs to at most one family, as
+     * Tanggungan.penanggung_id already implies. Rows are listed in rowid order, which is the
+     * order members were added, matching the order of the old list.
+     *
+     * Existing lists are copied in their stored order, skipping IDs that no longer have a
+     * Tanggungan row. Dependents whose penanggung_id points at a family but were missing from
+     * its list are added after the listed ones. The old column is then dropped.
+     */
+    private static void normalizeFamilyMembership(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS FamilyMembership (" +
+                    "penanggung_id TEXT NOT NULL," +
+                    "tanggungan_id TEXT NOT NULL," +
+                    "PRIMARY KEY (penanggung_id, tanggungan_id)," +
+                    "FOREIGN KEY (penanggung_id) REFERENCES Penanggung(penanggung_id)," +
+                    "FOREIGN KEY (tanggungan_id) REFERENCES Tanggungan(tanggungan_id)" +
+                    ");");
+            stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_family_membership_tanggungan "
+                    + "ON FamilyMembership(tanggungan_id)");
+
+            if (columnExists(conn, "Penanggung", "anggota_tanggungan_ids")) {
+                String insertSql = "INSERT OR IGNORE INTO FamilyMembership(penanggung_id, tanggungan_id) "
+                        + "SELECT ?, ? WHERE EXISTS (SELECT 1 FROM Tanggungan WHERE tanggungan_id = ?)";
+                try (ResultSet rs = stmt.executeQuery("SELECT penanggung_id, anggota_tanggungan_ids FROM Penanggung "
+                        + "WHERE anggota_tanggungan_ids IS NOT NULL AND anggota_tanggungan_ids <> ''");
+                        PreparedStatement insert = conn.prepareStatement(insertSql)) {
+                    while (rs.next()) {
+                        String penanggungId = rs.getString(1);
+                        for (String tanggunganId : rs.getString(2).split(",")) {
+                            tanggunganId = tanggunganId.trim();
+                            if (tanggunganId.isEmpty()) {
+                                continue;
+                            }
+                            insert.setString(1, penanggungId);
+                            insert.setString(2, tanggunganId);
+                            insert.setString(3, tanggunganId);
+                            insert.addBatch();
+                        }
+                    }
+                    insert.executeBatch();
+                }
+            }
+            stmt.execute("INSERT OR IGNORE INTO FamilyMembership(penanggung_id, tanggungan_id) "
+                    + "SELECT t.penanggung_id, t.tanggungan_id FROM Tanggungan t "
+                    + "JOIN Penanggung pg ON pg.penanggung_id = t.penanggung_id ORDER BY t.rowid");
+
+            if (columnExists(conn, "Penanggung", "anggota_tanggungan_ids")) {
+                stmt.execute("ALTER TABLE Penanggung DROP COLUMN anggota_tanggungan_ids");
+            }
+        }
+    }
+
+    /**
+     * Version 7: the ledger lists one debt's payments by date and the monthly totals filter
+     * on a date range per debt. (utang_id, payment_date) serves both without a sort; the
+     * rowid id is part of every index, so it also breaks ties between payments on the same
+     * day. It covers every lookup the v3 index served, so that one is dropped.
+     */
+    private static void addPaymentLedgerIndex(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_payment_history_utang_tanggal "
+                    + "ON payment_history(utang_id, payment_date)");
+            stmt.execute("DROP INDEX IF EXISTS idx_payment_history_utang");
+        }
+    }
+
+    /**
+     * Version 8: payments used to decrement Utang.sisa_utang without writing payment_history,
+     * and the v2 backfill started old rows from the principal without interest. Either way
+     * the stored amount is what the user has seen, but the ledger cannot account for it.
+     * Each such debt gets one opening row for the difference between its total with interest
+     * and its sisa_utang, less the payments already in the ledger, so that the ledger-derived
+     * amount used by UtangDAO.updateUtang and the recompute job equals the stored one.
+     *
+     * The row is dated at the debt's first recorded payment, or at the migration if it has
+     * none, since the payments it stands for were made before either. Debts whose stored
+     * amount is higher than the ledger says are left alone; the recompute job reports them.
+     */
+    private static void addOpeningBalances(Connection conn) throws SQLException {
+        String sql = "INSERT INTO payment_history(utang_id, payment_amount, payment_date, notes) "
+                + "SELECT utang_id, selisih, tanggal, 'Saldo awal sebelum riwayat pembayaran' FROM ("
+                + "SELECT u.utang_id, u.jumlah * (1 + u.bunga) - u.sisa_utang - COALESCE(SUM(ph.payment_amount), 0) "
+                + "AS selisih, COALESCE(MIN(ph.payment_date), ?) AS tanggal FROM Utang u "
+                + "LEFT JOIN payment_history ph ON ph.utang_id = u.utang_id "
+                + "WHERE u.sisa_utang IS NOT NULL GROUP BY u.utang_id) "
+                + "WHERE selisih > 0.005 ORDER BY utang_id";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setDate(1, Date.valueOf(LocalDate.now()));
+            int inserted = pstmt.executeUpdate();
+            if (inserted > 0) {
+                System.out.println("Recorded opening balances for " + inserted + " existing Utang records");
+            }
+        }
+    }
+
+    static boolean columnExists(Connection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
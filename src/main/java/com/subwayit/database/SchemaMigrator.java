@@ -0,0 +1,94 @@
+package com.subwayit.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Brings a database up to the latest schema version.
+ * The current version is read from PRAGMA user_version. When it is already current the
+ * migrator returns after that single read; otherwise all pending migrations and the
+ * user_version bump run in one transaction, so a failure leaves the schema untouched.
+ */
+public class SchemaMigrator {
+
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(List<Migration> migrations) {
+        List<Migration> sorted = new ArrayList<>(migrations);
+        sorted.sort(Comparator.comparingInt(Migration::getVersion));
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).getVersion() == sorted.get(i - 1).getVersion()) {
+                throw new IllegalArgumentException("Duplicate migration version " + sorted.get(i).getVersion());
+            }
+        }
+        this.migrations = sorted;
+    }
+
+    /**
+     * @return the highest version known to this migrator, 0 if there are no migrations
+     */
+    public int getLatestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+    }
+
+    /**
+     * Applies every migration newer than the database's user_version.
+     *
+     * @param conn an open connection in auto-commit mode
+     * @return the schema version after migrating
+     * @throws SQLException if a migration fails; the transaction is rolled back
+     */
+    public int migrate(Connection conn) throws SQLException {
+        long start = System.nanoTime();
+        int current = readUserVersion(conn);
+        int latest = getLatestVersion();
+
+        if (current >= latest) {
+            System.out.printf("Database schema is up to date (version %d), checked in %.1f ms%n",
+                    current, elapsedMillis(start));
+            return current;
+        }
+
+        StringBuilder report = new StringBuilder();
+        conn.setAutoCommit(false);
+        try {
+            for (Migration migration : migrations) {
+                if (migration.getVersion() <= current) {
+                    continue;
+                }
+                long stepStart = System.nanoTime();
+                migration.apply(conn);
+                report.append(String.format("%n  applied %s in %.1f ms", migration, elapsedMillis(stepStart)));
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA user_version = " + latest);
+            }
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+
+        System.out.printf("Migrated database schema from version %d to %d in %.1f ms%s%n",
+                current, latest, elapsedMillis(start), report);
+        return latest;
+    }
+
+    static int readUserVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static double elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+}
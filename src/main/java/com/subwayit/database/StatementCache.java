@@ -0,0 +1,249 @@
+package com.subwayit.database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prepared statements kept open on one physical connection, keyed by SQL text, so a DAO
+ * that prepares the same SQL again gets the already compiled statement back.
+ *
+ * Callers receive a proxy: close() closes any open ResultSet, clears parameters and
+ * batches, and returns the statement to the cache instead of finalizing it. If the same
+ * SQL is prepared again while the cached statement is still open (nested queries inside
+ * a UnitOfWork), the second caller gets an ordinary uncached statement. The least
+ * recently used statement is finalized once the cache holds more than its capacity.
+ *
+ * A cache belongs to exactly one physical connection and is only used by the thread
+ * that has borrowed it, so it needs no locking.
+ */
+public final class StatementCache {
+
+    private final Connection physical;
+    private final int capacity;
+    private final Counters counters;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int capacity, Counters counters) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.counters = counters;
+    }
+
+    /**
+     * @return a cached statement for the SQL, or a newly prepared one that is cached
+     *         once the caller closes it
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        Entry entry = entries.get(sql);
+        if (entry != null) {
+            if (entry.inUse) {
+                counters.bypasses.incrementAndGet();
+                return physical.prepareStatement(sql);
+            }
+            counters.hits.incrementAndGet();
+            entry.inUse = true;
+            return entry.proxy;
+        }
+
+        counters.misses.incrementAndGet();
+        entry = new Entry(sql, physical.prepareStatement(sql));
+        entry.inUse = true;
+        entries.put(sql, entry);
+        counters.cached.incrementAndGet();
+        evictOverflow();
+        return entry.proxy;
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> oldestFirst = entries.values().iterator();
+        while (entries.size() > capacity && oldestFirst.hasNext()) {
+            Entry eldest = oldestFirst.next();
+            if (eldest.inUse) {
+                continue; // finalized by its holder's close()
+            }
+            oldestFirst.remove();
+            counters.cached.decrementAndGet();
+            counters.evictions.incrementAndGet();
+            closeQuietly(eldest.statement);
+        }
+    }
+
+    /**
+     * Called when the connection goes back to the pool. Statements a caller forgot to
+     * close are finalized rather than handed to the next borrower half-used.
+     */
+    void release() {
+        List<Entry> leaked = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.inUse) {
+                leaked.add(entry);
+            }
+        }
+        for (Entry entry : leaked) {
+            discard(entry);
+        }
+    }
+
+    /**
+     * Finalizes every cached statement; called before the physical connection closes.
+     */
+    void close() {
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            discard(entry);
+        }
+    }
+
+    private void discard(Entry entry) {
+        if (entries.remove(entry.sql, entry)) {
+            counters.cached.decrementAndGet();
+        }
+        entry.inUse = false;
+        closeQuietly(entry.statement);
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * One cached statement and the proxy handed to callers.
+     */
+    private final class Entry {
+        private final String sql;
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private final List<ResultSet> openResults = new ArrayList<>();
+        private boolean inUse;
+
+        Entry(String sql, PreparedStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, (p, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                checkIn();
+                                return null;
+                            case "isClosed":
+                                return !inUse || statement.isClosed();
+                            case "equals":
+                                return p == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(p);
+                            default:
+                                break;
+                        }
+                        if (!inUse) {
+                            throw new SQLException("Statement has already been closed");
+                        }
+                        Object result;
+                        try {
+                            result = method.invoke(statement, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        if (result instanceof ResultSet) {
+                            openResults.add((ResultSet) result);
+                        }
+                        return result;
+                    });
+        }
+
+        /**
+         * Resets the statement for its next user, or finalizes it if it was evicted or
+         * cannot be reset.
+         */
+        private void checkIn() {
+            if (!inUse) {
+                return;
+            }
+            inUse = false;
+            try {
+                for (ResultSet rs : openResults) {
+                    rs.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException e) {
+                discard(this);
+                return;
+            } finally {
+                openResults.clear();
+            }
+            if (entries.get(sql) != this) {
+                closeQuietly(statement);
+            } else {
+                evictOverflow();
+            }
+        }
+    }
+
+    /**
+     * Pool-wide counters shared by the caches of all connections.
+     */
+    static final class Counters {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong bypasses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+        final AtomicLong cached = new AtomicLong();
+
+        Stats snapshot(int capacityPerConnection) {
+            return new Stats(capacityPerConnection, cached.get(), hits.get(), misses.get(), bypasses.get(),
+                    evictions.get());
+        }
+    }
+
+    /**
+     * Immutable snapshot of statement cache metrics, summed over every connection.
+     */
+    public static class Stats {
+        private final int capacityPerConnection;
+        private final long cached;
+        private final long hits;
+        private final long misses;
+        private final long bypasses;
+        private final long evictions;
+
+        Stats(int capacityPerConnection, long cached, long hits, long misses, long bypasses, long evictions) {
+            this.capacityPerConnection = capacityPerConnection;
+            this.cached = cached;
+            this.hits = hits;
+            this.misses = misses;
+            this.bypasses = bypasses;
+            this.evictions = evictions;
+        }
+
+        public int getCapacityPerConnection() { return capacityPerConnection; }
+        public long getCached() { return cached; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getBypasses() { return bypasses; }
+        public long getEvictions() { return evictions; }
+
+        public double getHitRate() {
+            long lookups = hits + misses + bypasses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("statements[cached=%d, perConnection=%d, hits=%d, misses=%d, bypasses=%d, "
+                    + "hitRate=%.1f%%, evictions=%d]", cached, capacityPerConnection, hits, misses, bypasses,
+                    getHitRate() * 100, evictions);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.subwayit.database;
+
+/**
+ * Receives the SQL text of every statement prepared or executed on a pooled connection.
+ * Intended for diagnostics and tests (query-plan checks, statement counting); keep
+ * implementations cheap because they run on the caller's thread.
+ */
+@FunctionalInterface
+public interface StatementListener {
+    void onStatement(String sql);
+}
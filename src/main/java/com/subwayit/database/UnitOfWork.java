@@ -0,0 +1,235 @@
+package com.subwayit.database;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs several DAO calls as one database transaction on one pooled connection.
+ *
+ * While a unit of work is active on the current thread, {@link DatabaseManager#connect()}
+ * hands out the transaction's connection instead of borrowing a new one, so existing DAO
+ * code joins the transaction without changes. Closing that connection is a no-op; the
+ * unit of work commits once when the outermost call returns, or rolls back if it throws.
+ *
+ * Nested calls join the outer transaction. Because several DAOs log and swallow their
+ * SQLExceptions, any SQLException raised on the transaction's connection also marks the
+ * unit of work rollback-only: the outer call then rolls back and throws instead of
+ * committing a half-done change.
+ *
+ * <pre>
+ * UnitOfWork.run(() -> {
+ *     userDAO.addUser(user);
+ *     penanggungDAO.updatePenanggung(head);
+ * });
+ * </pre>
+ */
+public final class UnitOfWork {
+
+    @FunctionalInterface
+    public interface Work<T> {
+        T execute() throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface VoidWork {
+        void execute() throws SQLException;
+    }
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final Connection connection;
+    private final Connection joined;
+    private SQLException rollbackCause;
+    private boolean rollbackOnly;
+    private final List<Runnable> completionCallbacks = new ArrayList<>();
+
+    private UnitOfWork(Connection connection) {
+        this.connection = connection;
+        this.joined = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                        case "commit":
+                            return null;
+                        case "setAutoCommit":
+                            if (Boolean.TRUE.equals(args[0])) {
+                                throw new SQLException("Auto-commit cannot be enabled inside a UnitOfWork");
+                            }
+                            return null;
+                        case "rollback":
+                            markRollbackOnly(null);
+                            return null;
+                        case "isClosed":
+                            return connection.isClosed();
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    Object result = invoke(method, connection, args);
+                    if (result instanceof Statement) {
+                        return watch((Statement) result);
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Runs the work in a transaction, joining the current one if there is one.
+     *
+     * @return the value produced by the work
+     * @throws SQLException if the work, the commit or a swallowed statement failed; the
+     *                      transaction has been rolled back
+     */
+    public static <T> T inTransaction(Work<T> work) throws SQLException {
+        UnitOfWork current = CURRENT.get();
+        if (current != null) {
+            try {
+                return work.execute();
+            } catch (SQLException e) {
+                current.markRollbackOnly(e);
+                throw e;
+            } catch (RuntimeException | Error e) {
+                current.markRollbackOnly(null);
+                throw e;
+            }
+        }
+
+        Connection conn = DatabaseManager.borrowConnection();
+        UnitOfWork unit = new UnitOfWork(conn);
+        CURRENT.set(unit);
+        try {
+            conn.setAutoCommit(false);
+            T result = work.execute();
+            if (unit.rollbackOnly) {
+                throw new SQLException("Transaksi dibatalkan karena ada perintah SQL yang gagal"
+                        + (unit.rollbackCause != null ? ": " + unit.rollbackCause.getMessage() : ""),
+                        unit.rollbackCause);
+            }
+            conn.commit();
+            return result;
+        } catch (Throwable e) {
+            // Errors too: re-enabling auto-commit below would otherwise commit the pending statements
+            try {
+                if (!conn.getAutoCommit()) {
+                    conn.rollback();
+                }
+            } catch (SQLException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            throw e;
+        } finally {
+            CURRENT.remove();
+            try {
+                conn.setAutoCommit(true);
+            } finally {
+                conn.close();
+                unit.runCompletionCallbacks();
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #inTransaction(Work)} for work that produces no value.
+     */
+    public static void run(VoidWork work) throws SQLException {
+        inTransaction(() -> {
+            work.execute();
+            return null;
+        });
+    }
+
+    /**
+     * Runs the callback once the current unit of work has committed or rolled back, or
+     * straight away if none is active. Used to drop cached rows a transaction has written,
+     * so readers on other threads cannot cache the old values again before the commit.
+     */
+    public static void afterCompletion(Runnable callback) {
+        UnitOfWork current = CURRENT.get();
+        if (current == null) {
+            callback.run();
+        } else {
+            current.completionCallbacks.add(callback);
+        }
+    }
+
+    /**
+     * @return true if the current thread is inside a unit of work
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Forces the current unit of work to roll back when it finishes.
+     *
+     * @throws IllegalStateException if no unit of work is active
+     */
+    public static void setRollbackOnly() {
+        UnitOfWork current = CURRENT.get();
+        if (current == null) {
+            throw new IllegalStateException("No active UnitOfWork on this thread");
+        }
+        current.markRollbackOnly(null);
+    }
+
+    /**
+     * @return the connection of the active unit of work, or null if there is none
+     */
+    static Connection currentConnection() {
+        UnitOfWork current = CURRENT.get();
+        return current == null ? null : current.joined;
+    }
+
+    private void runCompletionCallbacks() {
+        for (Runnable callback : completionCallbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error in UnitOfWork completion callback: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void markRollbackOnly(SQLException cause) {
+        rollbackOnly = true;
+        if (rollbackCause == null && cause != null) {
+            rollbackCause = cause;
+        }
+    }
+
+    private Statement watch(Statement statement) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getConnection")) {
+                        return joined;
+                    }
+                    return invoke(method, statement, args);
+                });
+    }
+
+    private Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                markRollbackOnly((SQLException) cause);
+            }
+            throw cause;
+        }
+    }
+}
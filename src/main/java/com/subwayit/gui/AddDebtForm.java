@@ -1,8 +1,7 @@
 package com.subwayit.gui;
 
-import com.subwayit.dao.TanggunganDAO;
+import com.subwayit.dao.DaoExecutor;
 import com.subwayit.dao.UtangDAO;
-import com.subwayit.model.Penanggung;
 import com.subwayit.model.Tanggungan;
 import com.subwayit.model.Utang;
 import javafx.collections.FXCollections;
@@ -15,14 +14,12 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 import java.time.LocalDate;
 import java.util.UUID;
-import java.util.stream.Collectors;
-import java.util.List;
+import java.util.function.Supplier;
 
 public class AddDebtForm {
 
     private Stage dialogStage;
-    private Penanggung currentPenanggung;
-    private TanggunganDAO tanggunganDAO;
+    private FamilyContext context;
     private UtangDAO utangDAO;
     private Utang editingUtang;
     private boolean isEditMode;
@@ -30,11 +27,12 @@ public class AddDebtForm {
     private ComboBox<Tanggungan> userComboBox;
     private TextField creditorField, amountField, bungaField;
     private DatePicker dueDateField;
+    private Button saveButton;
+    private Utang saved; // The debt as stored, once the write has committed
 
-    public AddDebtForm(Penanggung penanggung, TanggunganDAO tanggunganDAO, UtangDAO utangDAO, Utang utangToEdit) {
-        this.currentPenanggung = penanggung;
-        this.tanggunganDAO = tanggunganDAO;
-        this.utangDAO = utangDAO;
+    public AddDebtForm(FamilyContext context, Utang utangToEdit) {
+        this.context = context;
+        this.utangDAO = context.getUtangDAO();
         this.editingUtang = utangToEdit;
         this.isEditMode = (utangToEdit != null);
     }
@@ -53,11 +51,8 @@ public class AddDebtForm {
         dueDateField = new DatePicker(LocalDate.now().plusMonths(1));
         userComboBox = new ComboBox<>();
         
-        // Populate ComboBox with family members
-        List<Tanggungan> dependents = currentPenanggung.getAnggotaTanggunganIds().stream()
-                .map(id -> tanggunganDAO.getTanggunganById(id))
-                .collect(Collectors.toList());
-        userComboBox.setItems(FXCollections.observableArrayList(dependents));
+        // Populate ComboBox with family members, from the session's family snapshot
+        userComboBox.setItems(FXCollections.observableArrayList(context.getDependents()));
         userComboBox.setPromptText("Pilih Anggota Keluarga");
 
         layout.getChildren().addAll(
@@ -68,7 +63,7 @@ public class AddDebtForm {
             new Label("Tanggal Jatuh Tempo:"), dueDateField
         );
 
-        Button saveButton = new Button(isEditMode ? "Update Utang" : "Tambah Utang");
+        saveButton = new Button(isEditMode ? "Update Utang" : "Tambah Utang");
         saveButton.setOnAction(e -> handleSubmit());
         layout.getChildren().add(saveButton);
         
@@ -84,8 +79,10 @@ public class AddDebtForm {
         bungaField.setText(String.valueOf(editingUtang.getBunga() * 100));
         dueDateField.setValue(editingUtang.getTanggalJatuhTempo());
         // Find and select the user in the combo box
-        tanggunganDAO.getTanggunganById(editingUtang.getUserId());
-        userComboBox.getSelectionModel().select(tanggunganDAO.getTanggunganById(editingUtang.getUserId()));
+        userComboBox.getItems().stream()
+                .filter(t -> t.getUserId().equals(editingUtang.getUserId()))
+                .findFirst()
+                .ifPresent(t -> userComboBox.getSelectionModel().select(t));
         userComboBox.setDisable(true); // Cannot change owner when editing
     }
 
@@ -100,21 +97,50 @@ public class AddDebtForm {
             double jumlah = Double.parseDouble(amountField.getText());
             double bunga = Double.parseDouble(bungaField.getText()) / 100.0;
             
+            Supplier<Utang> write;
             if (isEditMode) {
-                editingUtang.setJumlah(jumlah);
-                editingUtang.setBunga(bunga);
-                editingUtang.setCreditor(creditorField.getText());
-                editingUtang.setTanggalJatuhTempo(dueDateField.getValue());
-                utangDAO.updateUtang(editingUtang);
+                // Only the editable fields; the DAO works out sisa_utang and status from the payments made
+                String utangId = editingUtang.getUtangId();
+                LocalDate dueDate = dueDateField.getValue();
+                String creditor = creditorField.getText();
+                write = () -> utangDAO.updateUtang(utangId, jumlah, bunga, dueDate, creditor);
             } else {
                 Utang newUtang = new Utang(UUID.randomUUID().toString(), userId, jumlah, bunga, dueDateField.getValue(), "Belum Lunas", creditorField.getText());
-                utangDAO.addUtang(newUtang);
+                write = () -> utangDAO.addUtang(newUtang);
             }
-            dialogStage.close();
+            // Simpan di background; dialog ditutup setelah write selesai
+            saveButton.setDisable(true);
+            FxAsync.onFx(DaoExecutor.shared().write(write), result -> {
+                saveButton.setDisable(false);
+                if (result == null) {
+                    showAlert(Alert.AlertType.ERROR, "Error", "Gagal menyimpan utang.");
+                    return;
+                }
+                saved = result;
+                dialogStage.close();
+            }, error -> {
+                saveButton.setDisable(false);
+                showAlert(Alert.AlertType.ERROR, "Error", "Gagal menyimpan utang: " + error.getMessage());
+            });
         } catch (NumberFormatException e) {
             showAlert(Alert.AlertType.ERROR, "Input Error", "Jumlah dan Bunga harus angka.");
         }
     }
 
-    private void showAlert(Alert.AlertType type, String title, String msg) { /* ... */ }
+    /**
+     * @return the debt as stored, with the balance and status the DAO computed, or null if
+     *         the dialog was closed without saving
+     */
+    public Utang getSaved() {
+        return saved;
+    }
+
+    private void showAlert(Alert.AlertType type, String title, String msg) {
+        Alert alert = new Alert(type);
+        alert.initOwner(dialogStage);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(msg);
+        alert.showAndWait();
+    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.subwayit.gui;
 
 import com.subwayit.dao.AdminDAO;
+import com.subwayit.dao.DaoExecutor;
 import com.subwayit.dao.PenanggungDAO;
 import com.subwayit.dao.TanggunganDAO;
 import com.subwayit.model.Admin;
@@ -35,6 +36,7 @@ public class AddMemberForm {
     private UserDAO userDAO;
 
     private User currentUser; // The user who is currently logged in
+    private Tanggungan addedTanggungan; // Set once a Tanggungan has been saved
 
     // Form fields
     private TextField userIdField, namaField, umurField, emailField;
@@ -42,6 +44,7 @@ public class AddMemberForm {
     private ComboBox<String> roleComboBox;
     private TextField posisiKeluargaField, pendidikanField, pekerjaanField, penanggungIdField;
     private Label penanggungIdLabel;
+    private Button submitButton;
 
     public AddMemberForm(User currentUser, UserDAO userDAO, PenanggungDAO penanggungDAO, TanggunganDAO tanggunganDAO, AdminDAO adminDAO) {
         this.currentUser = currentUser;
@@ -63,7 +66,7 @@ public class AddMemberForm {
         Button cancelButton = new Button("Batal");
         cancelButton.setOnAction(e -> dialogStage.close());
 
-        Button submitButton = new Button("Tambah Anggota");
+        submitButton = new Button("Tambah Anggota");
         submitButton.setOnAction(e -> handleSubmit());
         
         HBox buttonLayout = new HBox(15, cancelButton, submitButton);
@@ -187,61 +190,83 @@ public class AddMemberForm {
             return;
         }
 
-        // Check for unique user ID before proceeding
-        if (userDAO.getUserByUserId(userId) != null) {
-            showAlert(Alert.AlertType.ERROR, "Kesalahan Sistem", "User ID yang digenerate sudah ada, silakan coba lagi.");
-            return;
+        User newUser;
+        switch (role) {
+            case "Penanggung":
+                newUser = new Penanggung(userId, nama, umur, email, password, pekerjaanField.getText().trim());
+                break;
+
+            case "Tanggungan":
+                String penanggungId = penanggungIdField.getText().trim();
+                if (penanggungId.isEmpty()) {
+                    showAlert(Alert.AlertType.ERROR, "Input Salah", "ID Penanggung untuk Tanggungan tidak valid atau kosong.");
+                    return;
+                }
+                newUser = new Tanggungan(userId, nama, umur, email, password,
+                        posisiKeluargaField.getText().trim(),
+                        pendidikanField.getText().trim(),
+                        pekerjaanField.getText().trim(),
+                        penanggungId);
+                break;
+
+            default:
+                newUser = new Admin(userId, nama, umur, email, password, userId);
+                break;
         }
 
-        try {
-            User newUser = new User(userId, nama, umur, email, password, role);
-            userDAO.addUser(newUser);
-
-            switch (role) {
-                case "Penanggung":
-                    Penanggung newPenanggung = new Penanggung(userId, nama, umur, email, password, pekerjaanField.getText().trim());
-                    penanggungDAO.addPenanggung(newPenanggung);
-                    break;
-
-                case "Tanggungan":
-                    String penanggungId = penanggungIdField.getText().trim();
-                    // --- FIX: Fetch the Penanggung object before trying to use it ---
-                    Penanggung penanggungToUpdate = penanggungDAO.getPenanggungById(penanggungId);
-
-                    if (penanggungToUpdate == null) {
-                        userDAO.deleteUser(userId); // Rollback user creation
-                        showAlert(Alert.AlertType.ERROR, "Input Salah", "ID Penanggung untuk Tanggungan tidak valid atau kosong.");
-                        return;
-                    }
-
-                    // Create and add the new Tanggungan
-                    Tanggungan newTanggungan = new Tanggungan(userId, nama, umur, email, password,
-                            posisiKeluargaField.getText().trim(),
-                            pendidikanField.getText().trim(),
-                            pekerjaanField.getText().trim(),
-                            penanggungId);
-                    tanggunganDAO.addTanggungan(newTanggungan, penanggungId);
-
-                    // Now, update the fetched Penanggung object
-                    penanggungToUpdate.addAnggotaTanggunganId(newTanggungan.getUserId());
-                    penanggungDAO.updatePenanggung(penanggungToUpdate);
-                    break;
-
-                case "Admin":
-                    Admin newAdmin = new Admin(userId, nama, umur, email, password, userId);
-                    adminDAO.addAdmin(newAdmin);
-                    break;
+        // Pemeriksaan dan penyimpanan berjalan di background; dialog ditutup setelah write selesai
+        submitButton.setDisable(true);
+        FxAsync.onFx(DaoExecutor.shared().write(() -> save(newUser)), rejection -> {
+            submitButton.setDisable(false);
+            if (rejection != null) {
+                showAlert(Alert.AlertType.ERROR, "Input Salah", rejection);
+                return;
+            }
+            if (newUser instanceof Tanggungan) {
+                addedTanggungan = (Tanggungan) newUser;
             }
-
             showAlert(Alert.AlertType.INFORMATION, "Sukses", "Anggota baru '" + nama + "' berhasil ditambahkan.");
             dialogStage.close();
+        }, error -> {
+            submitButton.setDisable(false);
+            // Transaksi sudah di-rollback, tidak ada data setengah jadi yang perlu dihapus
+            showAlert(Alert.AlertType.ERROR, "Kesalahan Database", "Gagal menambahkan anggota: " + error.getMessage());
+            error.printStackTrace();
+        });
+    }
 
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Kesalahan Database", "Gagal menambahkan anggota: " + e.getMessage());
-            e.printStackTrace();
-            // Consider rolling back user creation if subsequent steps fail
-            userDAO.deleteUser(userId);
+    /**
+     * Runs on the DAO writer thread.
+     *
+     * @return why the member was not added, or null once it has been saved
+     */
+    private String save(User newUser) {
+        // Check for unique user ID before proceeding
+        if (userDAO.getUserByUserId(newUser.getUserId()) != null) {
+            return "User ID yang digenerate sudah ada, silakan coba lagi.";
         }
+        // Setiap DAO di bawah menulis Pengguna sendiri dalam satu transaksi, jadi tidak perlu addUser di sini
+        if (newUser instanceof Penanggung) {
+            penanggungDAO.addPenanggung((Penanggung) newUser);
+        } else if (newUser instanceof Tanggungan) {
+            Tanggungan newTanggungan = (Tanggungan) newUser;
+            if (penanggungDAO.getPenanggungById(newTanggungan.getPenanggungId()) == null) {
+                return "ID Penanggung untuk Tanggungan tidak valid atau kosong.";
+            }
+            // Tanggungan dibuat dan dihubungkan ke Penanggung-nya dalam satu transaksi
+            tanggunganDAO.addTanggunganToPenanggung(newTanggungan, newTanggungan.getPenanggungId());
+        } else {
+            adminDAO.addAdmin((Admin) newUser);
+        }
+        return null;
+    }
+
+    /**
+     * @return the Tanggungan saved by this form, or null if none was added; lets the caller
+     *         update its FamilyContext without reading the family again
+     */
+    public Tanggungan getAddedTanggungan() {
+        return addedTanggungan;
     }
 
     private void showAlert(Alert.AlertType type, String title, String message) {
@@ -1,8 +1,11 @@
 package com.subwayit.gui;
 
+import com.subwayit.dao.DaoExecutor;
+import com.subwayit.dao.PaymentHistoryDAO;
 import com.subwayit.dao.UtangDAO;
 import com.subwayit.dao.UtangDAO.UtangWithUserInfo;
-import com.subwayit.model.Penanggung;
+import com.subwayit.model.PaymentHistory;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -10,19 +13,30 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
 public class AddPayDebtForm {
 
     private Stage dialogStage;
-    private Penanggung currentPenanggung;
     private UtangDAO utangDAO;
     private UtangWithUserInfo debtToPay;
     
     private TextField paymentAmountField;
+    private Button payButton;
+    private UtangDAO.PaymentResult paymentResult; // Set once a payment has been recorded
+
+    // Riwayat pembayaran dimuat per halaman, terbaru dulu
+    private static final int LEDGER_PAGE_SIZE = 20;
+    private final PaymentHistoryDAO paymentHistoryDAO;
+    private final TableView<PaymentHistory> ledgerTable = new TableView<>();
+    private final Button loadMoreButton = new Button("Muat Lebih Banyak");
+    private PaymentHistoryDAO.LedgerCursor ledgerCursor;
 
-    public AddPayDebtForm(Penanggung penanggung, UtangWithUserInfo debtToPay, UtangDAO utangDAO) {
-        this.currentPenanggung = penanggung;
+    public AddPayDebtForm(FamilyContext context, UtangWithUserInfo debtToPay) {
         this.debtToPay = debtToPay;
-        this.utangDAO = utangDAO;
+        this.utangDAO = context.getUtangDAO();
+        this.paymentHistoryDAO = context.getPaymentHistoryDAO();
     }
 
     public void display() {
@@ -42,31 +56,108 @@ public class AddPayDebtForm {
             paymentAmountField
         );
         
-        Button payButton = new Button("Proses Pembayaran");
+        payButton = new Button("Proses Pembayaran");
         payButton.setOnAction(e -> handlePayment());
         layout.getChildren().add(payButton);
+
+        setupLedgerTable();
+        loadMoreButton.setOnAction(e -> loadLedgerPage());
+        loadMoreButton.setVisible(false);
+        layout.getChildren().addAll(new Label("Riwayat Pembayaran:"), ledgerTable, loadMoreButton);
+        loadLedgerPage();
         
         dialogStage.setScene(new Scene(layout));
         dialogStage.showAndWait();
     }
     
+    private void setupLedgerTable() {
+        TableColumn<PaymentHistory, String> dateCol = new TableColumn<>("Tanggal");
+        dateCol.setCellValueFactory(data -> new SimpleStringProperty(
+                data.getValue().getPaymentDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"))));
+        TableColumn<PaymentHistory, String> amountCol = new TableColumn<>("Jumlah");
+        amountCol.setCellValueFactory(data -> new SimpleStringProperty(
+                "Rp " + String.format("%,.0f", data.getValue().getPaymentAmount()).replace(',', '.')));
+        TableColumn<PaymentHistory, String> notesCol = new TableColumn<>("Catatan");
+        notesCol.setCellValueFactory(data -> new SimpleStringProperty(
+                data.getValue().getNotes() != null ? data.getValue().getNotes() : ""));
+        ledgerTable.getColumns().add(dateCol);
+        ledgerTable.getColumns().add(amountCol);
+        ledgerTable.getColumns().add(notesCol);
+        ledgerTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        ledgerTable.setPlaceholder(PageLoader.spinner("Memuat riwayat pembayaran..."));
+        ledgerTable.setPrefHeight(200);
+    }
+
+    // Halaman dibaca di background; tombol dimatikan sampai halaman tiba
+    private void loadLedgerPage() {
+        PaymentHistoryDAO.LedgerCursor after = ledgerCursor;
+        loadMoreButton.setDisable(true);
+        FxAsync.onFx(DaoExecutor.shared().read(
+                () -> paymentHistoryDAO.getLedger(debtToPay.getUtangId(), after, LEDGER_PAGE_SIZE)), page -> {
+            ledgerTable.getItems().addAll(page.getItems());
+            ledgerTable.setPlaceholder(new Label("Belum ada pembayaran."));
+            ledgerCursor = page.getNextCursor();
+            loadMoreButton.setDisable(false);
+            loadMoreButton.setVisible(page.hasMore());
+        }, error -> {
+            ledgerTable.setPlaceholder(new Label("Gagal memuat riwayat pembayaran."));
+            loadMoreButton.setDisable(false);
+        });
+    }
+
     private void handlePayment() {
+        double amount;
         try {
-            double amount = Double.parseDouble(paymentAmountField.getText());
-            if (amount <= 0 || amount > debtToPay.getSisaUtang()) {
-                showAlert(Alert.AlertType.ERROR, "Input Error", "Jumlah pembayaran tidak valid.");
-                return;
-            }
-            if (utangDAO.updatePayment(debtToPay.getUtangId(), amount)) {
-                showAlert(Alert.AlertType.INFORMATION, "Success", "Pembayaran berhasil diproses.");
-                dialogStage.close();
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Error", "Gagal memproses pembayaran.");
-            }
+            amount = Double.parseDouble(paymentAmountField.getText());
         } catch(NumberFormatException e) {
             showAlert(Alert.AlertType.ERROR, "Input Error", "Jumlah harus berupa angka.");
+            return;
         }
+        if (amount <= 0 || amount > debtToPay.getSisaUtang()) {
+            showAlert(Alert.AlertType.ERROR, "Input Error", "Jumlah pembayaran tidak valid.");
+            return;
+        }
+        // The DAO re-checks the remaining amount inside the transaction, so a payment made
+        // elsewhere since this dialog opened cannot push the debt below zero
+        payButton.setDisable(true);
+        FxAsync.onFx(DaoExecutor.shared().write(
+                () -> utangDAO.payDebt(debtToPay.getUtangId(), amount, LocalDate.now(), null)), result -> {
+            payButton.setDisable(false);
+            switch (result.getOutcome()) {
+                case PAID:
+                case PAID_OFF:
+                    paymentResult = result;
+                    showAlert(Alert.AlertType.INFORMATION, "Success", "Pembayaran berhasil diproses.");
+                    dialogStage.close();
+                    break;
+                case OVERPAYMENT:
+                    showAlert(Alert.AlertType.ERROR, "Input Error", "Jumlah melebihi sisa tagihan saat ini: Rp "
+                            + String.format("%,.0f", result.getSisaUtang()).replace(',', '.'));
+                    break;
+                default:
+                    showAlert(Alert.AlertType.ERROR, "Error", "Utang tidak ditemukan.");
+                    break;
+            }
+        }, error -> {
+            payButton.setDisable(false);
+            showAlert(Alert.AlertType.ERROR, "Error", "Gagal memproses pembayaran.");
+        });
     }
     
-    private void showAlert(Alert.AlertType type, String title, String msg) { /* ... */ }
+    /**
+     * @return the outcome and remaining amount of the recorded payment, or null if none
+     *         was recorded
+     */
+    public UtangDAO.PaymentResult getPaymentResult() {
+        return paymentResult;
+    }
+
+    private void showAlert(Alert.AlertType type, String title, String msg) {
+        Alert alert = new Alert(type);
+        alert.initOwner(dialogStage);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(msg);
+        alert.showAndWait();
+    }
 }
@@ -1,5 +1,6 @@
 package com.subwayit.gui;
 
+import com.subwayit.dao.DaoExecutor;
 import com.subwayit.dao.TransaksiDAO;
 import com.subwayit.model.Transaksi;
 import com.subwayit.model.User;
@@ -20,6 +21,7 @@ import javafx.scene.shape.Rectangle;
 
 import java.time.LocalDate;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 public class AddTransactionForm {
 
@@ -27,6 +29,8 @@ public class AddTransactionForm {
     private User currentUser;
     private TransaksiDAO transaksiDAO; // Will be injected
     private Transaksi editingTransaksi; // If not null, we are in "edit" mode
+    private Transaksi saved; // The transaction as written, once the write has committed
+    private Transaksi replaced; // In edit mode: the stored row before the update
 
     // Form components
     private DatePicker datePicker;
@@ -321,21 +325,51 @@ public class AddTransactionForm {
                 "SubwayIT App", // Payee/From placeholder
                 isRutin, desc
             );
-            transaksiDAO.addTransaksi(t);
-            showModernAlert(Alert.AlertType.INFORMATION, "Success", "🎉 Transaction added successfully!");
+            saveInBackground(t, () -> transaksiDAO.addTransaksi(t), "🎉 Transaction added successfully!");
         } else {
-            // EDIT mode
-            editingTransaksi.setTanggalTransaksi(date);
-            editingTransaksi.setDeskripsi(desc);
-            editingTransaksi.setNominal(nominal);
-            editingTransaksi.setJenis(jenis);
-            editingTransaksi.setRutin(isRutin);
-            editingTransaksi.setKategori(kategori);
-            transaksiDAO.updateTransaksi(editingTransaksi);
-            showModernAlert(Alert.AlertType.INFORMATION, "Success", "💾 Transaction updated successfully!");
+            // EDIT mode: the row shown in the table is left alone until the update has committed
+            Transaksi edited = new Transaksi(editingTransaksi.getTransaksiId(), editingTransaksi.getUserId(),
+                    jenis, kategori, nominal, date, editingTransaksi.getBuktiTransaksi(), isRutin, desc);
+            saveInBackground(edited, () -> transaksiDAO.updateTransaksi(edited),
+                    "💾 Transaction updated successfully!");
         }
+    }
+
+    /**
+     * Runs the write off the FX thread and closes the dialog once it has committed. The
+     * write returns the added row, or the replaced one for an edit; null means nothing
+     * was saved.
+     */
+    private void saveInBackground(Transaksi toSave, Supplier<Transaksi> write, String successMessage) {
+        dialogStage.getScene().getRoot().setDisable(true);
+        FxAsync.onFx(DaoExecutor.shared().write(write), result -> {
+            if (result == null) {
+                dialogStage.getScene().getRoot().setDisable(false);
+                showModernAlert(Alert.AlertType.ERROR, "Error", "Gagal menyimpan transaksi.");
+                return;
+            }
+            saved = toSave;
+            replaced = editingTransaksi != null ? result : null;
+            showModernAlert(Alert.AlertType.INFORMATION, "Success", successMessage);
+            dialogStage.close();
+        }, error -> {
+            dialogStage.getScene().getRoot().setDisable(false);
+            showModernAlert(Alert.AlertType.ERROR, "Error", "Gagal menyimpan transaksi: " + error.getMessage());
+        });
+    }
 
-        dialogStage.close();
+    /**
+     * @return the transaction as saved, or null if the dialog was closed without saving
+     */
+    public Transaksi getSaved() {
+        return saved;
+    }
+
+    /**
+     * @return for an edit, the transaction as it was stored before; null otherwise
+     */
+    public Transaksi getReplaced() {
+        return replaced;
     }
 
     private void showModernAlert(Alert.AlertType type, String title, String msg) {
@@ -5,6 +5,7 @@ import com.subwayit.model.User;
 
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
@@ -16,6 +17,7 @@ import javafx.stage.Stage;
 public class AdminDashboard {
 
     private Stage primaryStage;
+    private Runnable showLogin;
     private User loggedInAdmin;
 
     // DAOs
@@ -26,32 +28,35 @@ public class AdminDashboard {
     private TransaksiDAO transaksiDAO;
     private UtangDAO utangDAO;
 
+    private final PageLoader loader = new PageLoader("AdminDashboard");
+
     // Theme colors
     private static final String ADMIN_BLUE = "#3B82F6";
     private static final String LIGHT_BLUE = "#EBF8FF";
     private static final String TEXT_DARK = "#2D3748";
     private static final String TEXT_GRAY = "#64748B";
 
-    public AdminDashboard(Stage primaryStage, User admin, UserDAO userDAO,
-            PenanggungDAO penanggungDAO, TanggunganDAO tanggunganDAO,
-            AdminDAO adminDAO, TransaksiDAO transaksiDAO, UtangDAO utangDAO) {
+    public AdminDashboard(Stage primaryStage, FamilyContext context, Runnable showLogin) {
         this.primaryStage = primaryStage;
-        this.loggedInAdmin = admin;
-        this.userDAO = userDAO;
-        this.penanggungDAO = penanggungDAO;
-        this.tanggunganDAO = tanggunganDAO;
-        this.adminDAO = adminDAO;
-        this.transaksiDAO = transaksiDAO;
-        this.utangDAO = utangDAO;
+        this.showLogin = showLogin;
+        this.loggedInAdmin = context.getUser();
+        this.userDAO = context.getUserDAO();
+        this.penanggungDAO = context.getPenanggungDAO();
+        this.tanggunganDAO = context.getTanggunganDAO();
+        this.adminDAO = context.getAdminDAO();
+        this.transaksiDAO = context.getTransaksiDAO();
+        this.utangDAO = context.getUtangDAO();
     }
 
     public Scene createScene() {
-        BorderPane root = new BorderPane();
-        root.setTop(createTopNavigationBar());
-        root.setCenter(createMainContentArea());
-        root.setStyle("-fx-background-color: white;");
-
-        return new Scene(root, 1200, 800);
+        return loader.track(loader.timed(() -> {
+            BorderPane root = new BorderPane();
+            root.setTop(createTopNavigationBar());
+            root.setCenter(createMainContentArea());
+            root.setStyle("-fx-background-color: white;");
+
+            return new Scene(root, 1200, 800);
+        }));
     }
 
     private HBox createTopNavigationBar() {
@@ -80,12 +85,8 @@ public class AdminDashboard {
             confirmAlert.setContentText("Are you sure you want to sign out?");
             confirmAlert.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.OK) {
-                    com.subwayit.App app = new com.subwayit.App();
-                    try {
-                        app.start(primaryStage);
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                    }
+                    loader.cancel();
+                    showLogin.run();
                 }
             });
         });
@@ -228,38 +229,48 @@ public class AdminDashboard {
         HBox statsRow = new HBox(40);
         statsRow.setAlignment(Pos.CENTER);
 
-        // Get actual counts from database
-        int totalPenanggung = 0;
-        int totalTanggungan = 0;
-        int totalAdmins = 0;
-
-        try {
-            // Get all Penanggung
-            totalPenanggung = penanggungDAO.getAllPenanggung().size();
-
-            // Get all Tanggungan
-            totalTanggungan = tanggunganDAO.getAllTanggungan().size();
+        // Placeholders until the counts arrive from the database
+        Label totalUsersValue = new Label("…");
+        Label totalFamiliesValue = new Label("…");
+        Label totalAdminsValue = new Label("…");
 
-            // Get all Admins
-            totalAdmins = adminDAO.getAllAdmins().size();
-        } catch (Exception e) {
-            System.err.println("Error loading statistics: " + e.getMessage());
-            e.printStackTrace();
-        }
-
-        int totalUsers = totalPenanggung + totalTanggungan + totalAdmins;
-
-        VBox totalUsersCard = createStatCard("Total Users", String.valueOf(totalUsers), "👥");
-        VBox totalFamiliesCard = createStatCard("Total Families", String.valueOf(totalPenanggung), "👨‍👩‍👧‍👦");
-        VBox totalAdminsCard = createStatCard("Total Admins", String.valueOf(totalAdmins), "🛠️");
+        VBox totalUsersCard = createStatCard("Total Users", totalUsersValue, "👥");
+        VBox totalFamiliesCard = createStatCard("Total Families", totalFamiliesValue, "👨‍👩‍👧‍👦");
+        VBox totalAdminsCard = createStatCard("Total Admins", totalAdminsValue, "🛠️");
 
         statsRow.getChildren().addAll(totalUsersCard, totalFamiliesCard, totalAdminsCard);
 
-        statsSection.getChildren().addAll(statsTitle, statsRow);
+        Node loading = PageLoader.spinner("Memuat statistik...");
+        statsSection.getChildren().addAll(statsTitle, statsRow, loading);
+
+        // Get actual counts from database, off the FX thread
+        loader.load("stats", () -> {
+            int[] counts = new int[3];
+            try {
+                // Get all Penanggung
+                counts[0] = penanggungDAO.getAllPenanggung().size();
+
+                // Get all Tanggungan
+                counts[1] = tanggunganDAO.getAllTanggungan().size();
+
+                // Get all Admins
+                counts[2] = adminDAO.getAllAdmins().size();
+            } catch (Exception e) {
+                System.err.println("Error loading statistics: " + e.getMessage());
+                e.printStackTrace();
+            }
+            return counts;
+        }, counts -> {
+            int totalUsers = counts[0] + counts[1] + counts[2];
+            totalUsersValue.setText(String.valueOf(totalUsers));
+            totalFamiliesValue.setText(String.valueOf(counts[0]));
+            totalAdminsValue.setText(String.valueOf(counts[2]));
+            statsSection.getChildren().remove(loading);
+        });
         return statsSection;
     }
 
-    private VBox createStatCard(String title, String value, String icon) {
+    private VBox createStatCard(String title, Label valueLabel, String icon) {
         VBox card = new VBox(10);
         card.setAlignment(Pos.CENTER);
         card.setPadding(new Insets(20, 30, 20, 30));
@@ -269,7 +280,6 @@ public class AdminDashboard {
         Label iconLabel = new Label(icon);
         iconLabel.setFont(Font.font("Segoe UI", 24));
 
-        Label valueLabel = new Label(value);
         valueLabel.setFont(Font.font("Segoe UI", FontWeight.BOLD, 18));
         valueLabel.setTextFill(Color.web(ADMIN_BLUE));
 
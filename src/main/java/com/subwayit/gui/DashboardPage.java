@@ -7,7 +7,6 @@ import com.subwayit.model.Transaksi;
 import com.subwayit.model.User;
 // import com.subwayit.gui.DebtPage;
 
-import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -23,12 +22,15 @@ import javafx.scene.shape.Rectangle;
 
 import java.text.NumberFormat;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Locale;
 
-public class DashboardPage {
+public class DashboardPage implements ManagedPage {
 
+    private final NavigationController navigation;
     private Stage primaryStage;
+    private final FamilyContext context;
     private User loggedInUser;
 
     // --- FIX 1: Declare all necessary DAO attributes ---
@@ -39,10 +41,21 @@ public class DashboardPage {
     private TransaksiDAO transaksiDAO;
     private UtangDAO utangDAO;
     private TableView<Transaksi> transactionTable;
-    private Label totalTransactionValue = new Label("0");
-    private Label thisMonthSpendingValue = new Label("Rp 0");
-    private Label thisMonthEarningValue = new Label("Rp 0");
-    private Label cashflowValue = new Label("Rp 0");
+    private PagedTransactionSource transactionSource;
+    // Data version the shown rows and cards were loaded at, -1 until the first load lands
+    private long loadedVersion = -1;
+    private final TransaksiRollupDAO rollupDAO = new TransaksiRollupDAO();
+    private final PageLoader loader = new PageLoader("Dashboard");
+    // Placeholders until the first load has been applied
+    private Label totalTransactionValue = new Label("…");
+    private Label thisMonthSpendingValue = new Label("…");
+    private Label thisMonthEarningValue = new Label("…");
+    private Label cashflowValue = new Label("…");
+
+    // Totals behind the summary cards; after a write only that write's delta is applied
+    private long transactionCount;
+    private double monthEarn;
+    private double monthSpend;
 
     // Green Theme Color Palette
     private static final String PRIMARY_GREEN = "#86DA71";
@@ -52,25 +65,30 @@ public class DashboardPage {
     private static final String TEXT_GRAY = "#64748B";
     private static final String RED = "#E53E3E";
 
-    public DashboardPage(Stage primaryStage, User user, UserDAO userDAO, PenanggungDAO penanggungDAO,
-            TanggunganDAO tanggunganDAO, AdminDAO adminDAO, TransaksiDAO transaksiDAO, UtangDAO utangDAO) {
-        this.primaryStage = primaryStage;
-        this.loggedInUser = user;
-        this.userDAO = userDAO;
-        this.penanggungDAO = penanggungDAO;
-        this.tanggunganDAO = tanggunganDAO;
-        this.adminDAO = adminDAO;
-        this.transaksiDAO = transaksiDAO;
-        this.utangDAO = utangDAO;
+    public DashboardPage(NavigationController navigation) {
+        this.navigation = navigation;
+        this.primaryStage = navigation.getStage();
+        this.context = navigation.getContext();
+        this.loggedInUser = context.getUser();
+        this.userDAO = context.getUserDAO();
+        this.penanggungDAO = context.getPenanggungDAO();
+        this.tanggunganDAO = context.getTanggunganDAO();
+        this.adminDAO = context.getAdminDAO();
+        this.transaksiDAO = context.getTransaksiDAO();
+        this.utangDAO = context.getUtangDAO();
     }
 
+    @Override
     public Scene createScene() {
-        BorderPane root = new BorderPane();
-        root.setTop(createTopNavigationBar());
-        root.setCenter(createMainContentArea());
-        root.setStyle("-fx-background-color: white;");
-
-        return new Scene(root, 1200, 800);
+        // The data is loaded in the background once the scene is built, see refreshDashboard()
+        return loader.track(loader.timed(() -> {
+            BorderPane root = new BorderPane();
+            root.setTop(createTopNavigationBar());
+            root.setCenter(createMainContentArea());
+            root.setStyle("-fx-background-color: white;");
+
+            return new Scene(root, 1200, 800);
+        }));
     }
 
     private HBox createTopNavigationBar() {
@@ -90,25 +108,10 @@ public class DashboardPage {
         dashboardsBtn.setStyle(dashboardsBtn.getStyle() + "-fx-background-color: rgba(255,255,255,0.2);");
 
         Button membersBtn = createNavLink("Members", "👥");
-        membersBtn.setOnAction(e -> {
-            MembersPage mp = new MembersPage(primaryStage, loggedInUser, userDAO, penanggungDAO, tanggunganDAO,
-                    adminDAO, transaksiDAO, utangDAO);
-            primaryStage.setScene(mp.createScene());
-        });
+        membersBtn.setOnAction(e -> navigation.show(NavigationController.Destination.MEMBERS));
 
         Button debtBtn = createNavLink("Debt", "💰");
-        debtBtn.setOnAction(e -> {
-            DebtPage debtPage = new DebtPage(
-                    primaryStage,
-                    loggedInUser,
-                    userDAO,
-                    penanggungDAO,
-                    tanggunganDAO,
-                    adminDAO,
-                    transaksiDAO,
-                    utangDAO);
-            primaryStage.setScene(debtPage.createScene());
-        });
+        debtBtn.setOnAction(e -> navigation.show(NavigationController.Destination.DEBT));
 
         // Add profile button
         Button profileBtn = createProfileButton();
@@ -122,12 +125,8 @@ public class DashboardPage {
             confirmAlert.setContentText("Are you sure you want to sign out?");
             confirmAlert.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.OK) {
-                    com.subwayit.App app = new com.subwayit.App();
-                    try {
-                        app.start(primaryStage);
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                    }
+                    // Disposes the session's pages before going back to the login screen
+                    navigation.signOut();
                 }
             });
         });
@@ -179,11 +178,13 @@ public class DashboardPage {
         addTransactionBtn.setTextFill(Color.WHITE);
         addTransactionBtn.setOnAction(e -> {
             // Pass the TransaksiDAO to the form
+            long version = dataVersion();
             AddTransactionForm form = new AddTransactionForm(loggedInUser, transaksiDAO, null); // Pass null for
                                                                                                 // existing transaction
             form.display();
-            refreshTransactionTable();
-            updateFinancialSummary();
+            if (form.getSaved() != null) {
+                applyWrite(version, null, form.getSaved());
+            }
         });
 
         HBox buttonGroup = new HBox(15, viewReportsBtn, addTransactionBtn);
@@ -264,8 +265,9 @@ public class DashboardPage {
         sectionHeader.getChildren().addAll(accentBar, titleSection, spacer, allTransactionsBtn);
 
         transactionTable = createTransactionTable();
-        refreshTransactionTable();
-        updateFinancialSummary();
+        transactionSource = new PagedTransactionSource(transaksiDAO, loader);
+        transactionSource.attachTo(transactionTable);
+        refreshDashboard();
 
         tableSection.getChildren().addAll(sectionHeader, transactionTable);
         return tableSection;
@@ -274,6 +276,7 @@ public class DashboardPage {
     private TableView<Transaksi> createTransactionTable() {
         TableView<Transaksi> table = new TableView<>();
         table.setPrefHeight(400);
+        table.setPlaceholder(PageLoader.spinner("Memuat transaksi..."));
         table.setStyle(
                 "-fx-background-color: white; -fx-background-radius: 8; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.06), 8, 0, 0, 2); -fx-border-color: #E2E8F0; -fx-border-width: 1; -fx-border-radius: 8;");
 
@@ -323,18 +326,25 @@ public class DashboardPage {
                             "Are you sure you want to delete this transaction?", ButtonType.YES, ButtonType.NO);
                     alert.showAndWait().ifPresent(response -> {
                         if (response == ButtonType.YES) {
-                            transaksiDAO.deleteTransaksi(t.getTransaksiId());
-                            refreshTransactionTable();
-                            updateFinancialSummary();
+                            delBtn.setDisable(true);
+                            long version = dataVersion();
+                            FxAsync.onFx(DaoExecutor.shared().write(() -> transaksiDAO.deleteTransaksi(t.getTransaksiId())), deleted -> {
+                                delBtn.setDisable(false);
+                                if (deleted != null) {
+                                    applyWrite(version, deleted, null);
+                                }
+                            });
                         }
                     });
                 });
                 editBtn.setOnAction(event -> {
                     Transaksi t = getTableView().getItems().get(getIndex());
+                    long version = dataVersion();
                     AddTransactionForm form = new AddTransactionForm(loggedInUser, transaksiDAO, t);
                     form.display();
-                    refreshTransactionTable();
-                    updateFinancialSummary();
+                    if (form.getSaved() != null) {
+                        applyWrite(version, form.getReplaced(), form.getSaved());
+                    }
                 });
             }
 
@@ -361,67 +371,132 @@ public class DashboardPage {
         return btn;
     }
 
-    private void refreshTransactionTable() {
+    /**
+     * Reloads the transaction table and the summary cards off the FX thread and applies
+     * both together once everything has been read.
+     */
+    private void refreshDashboard() {
         if (loggedInUser == null || transaksiDAO == null)
             return;
 
-        List<Transaksi> transactionsToShow = getTransactionsBasedOnRole();
-        transactionTable.setItems(FXCollections.observableArrayList(transactionsToShow));
+        long version = dataVersion();
+        loader.load("dashboard", this::loadDashboardData, data -> {
+            loadedVersion = version;
+            // Only the newest page is loaded here; older rows are fetched as the table scrolls
+            transactionSource.show(data.userIds, data.firstPage);
+            transactionTable.setPlaceholder(new Label("Belum ada transaksi."));
+            applyFinancialSummary(data);
+        });
     }
 
-    private void updateFinancialSummary() {
-        if (loggedInUser == null || transaksiDAO == null)
-            return;
+    // Changes whenever a family member's transactions or the family itself change
+    private long dataVersion() {
+        return FamilyQueryCache.getTransactionsVersion() + context.getVersion();
+    }
 
-        List<Transaksi> relevantTransactions = getTransactionsBasedOnRole();
+    @Override
+    public boolean refreshIfChanged() {
+        if (loader.isLoading("dashboard") || dataVersion() == loadedVersion) {
+            return false;
+        }
+        refreshDashboard();
+        return true;
+    }
 
-        int total = relevantTransactions.size();
-        double spend = 0, earn = 0;
-        LocalDate now = LocalDate.now();
+    @Override
+    public void dispose() {
+        loader.cancel();
+        transactionSource.detachFrom(transactionTable);
+    }
 
-        for (Transaksi t : relevantTransactions) {
-            LocalDate trxDate = t.getTanggalTransaksi();
-            if (trxDate.getMonth() == now.getMonth() && trxDate.getYear() == now.getYear()) {
-                if (t.getJenis().equalsIgnoreCase("Pemasukan")) {
-                    earn += t.getNominal();
-                } else {
-                    spend += t.getNominal();
-                }
-            }
+    // Runs on the DAO executor
+    private DashboardData loadDashboardData() {
+        // The family was loaded at login; no lookup is needed before the transactions
+        List<String> userIds = context.getVisibleUserIds();
+        DashboardData data = new DashboardData(userIds, transactionSource.loadFirstPage(userIds));
+
+        // Read from the monthly rollup: one row per family member and month, no transactions are scanned
+        YearMonth thisMonth = YearMonth.now();
+        for (TransaksiDAO.MonthlySummary summary : rollupDAO.getMonthlySummaries(userIds, thisMonth, thisMonth)) {
+            data.earn += summary.getTotalPemasukan();
+            data.spend += summary.getTotalPengeluaran();
         }
+        data.transactionCount = rollupDAO.countTransactions(userIds);
+        return data;
+    }
 
-        totalTransactionValue.setText(String.valueOf(total));
-        thisMonthSpendingValue.setText(formatRupiah(spend));
-        thisMonthEarningValue.setText(formatRupiah(earn));
+    private void applyFinancialSummary(DashboardData data) {
+        transactionCount = data.transactionCount;
+        monthEarn = data.earn;
+        monthSpend = data.spend;
+        showFinancialSummary();
+    }
+
+    private void showFinancialSummary() {
+        totalTransactionValue.setText(String.valueOf(transactionCount));
+        thisMonthSpendingValue.setText(formatRupiah(monthSpend));
+        thisMonthEarningValue.setText(formatRupiah(monthEarn));
 
-        double cashflow = earn - spend;
+        double cashflow = monthEarn - monthSpend;
         cashflowValue.setText(formatRupiah(cashflow));
         cashflowValue.setTextFill(cashflow >= 0 ? Color.web(DARK_GREEN) : Color.web(RED));
     }
 
-    private List<Transaksi> getTransactionsBasedOnRole() {
-        String role = loggedInUser.getRole();
-
-        if ("Penanggung".equals(role)) {
-            // Penanggung sees their own transactions + all their dependents' transactions.
+    /**
+     * Applies one committed write to the table and the cards without reading anything
+     * back: the old row leaves the totals, the new row enters them and takes its place in
+     * the table. If the page was already behind before the write, it is reloaded instead.
+     *
+     * @param versionBefore the data version when the write was started
+     * @param before        the row as it was, null for an add
+     * @param after         the row as saved, null for a delete
+     */
+    private void applyWrite(long versionBefore, Transaksi before, Transaksi after) {
+        if (loadedVersion != versionBefore || loader.isLoading("dashboard")) {
+            refreshDashboard();
+            return;
+        }
+        if (before != null) {
+            applyDelta(before, -1);
+        }
+        if (after != null) {
+            applyDelta(after, 1);
+            transactionSource.upsert(after);
+        } else {
+            transactionSource.remove(before.getTransaksiId());
+        }
+        showFinancialSummary();
+        loadedVersion = dataVersion();
+    }
 
-            // 1. Get the full Penanggung object to access their list of dependents
-            Penanggung penanggung = penanggungDAO.getPenanggungById(loggedInUser.getUserId());
-            if (penanggung == null) {
-                return FXCollections.observableArrayList(); // Should not happen, but safe check
+    private void applyDelta(Transaksi transaksi, int sign) {
+        if (!context.getVisibleUserIds().contains(transaksi.getUserId())) {
+            return;
+        }
+        transactionCount += sign;
+        // Same split as the monthly rollup: anything that is not Pemasukan is spending
+        if (YearMonth.from(transaksi.getTanggalTransaksi()).equals(YearMonth.now())) {
+            if ("Pemasukan".equalsIgnoreCase(transaksi.getJenis())) {
+                monthEarn += sign * transaksi.getNominal();
+            } else {
+                monthSpend += sign * transaksi.getNominal();
             }
+        }
+    }
 
-            // 2. Create a list of all user IDs in the family
-            List<String> familyUserIds = new java.util.ArrayList<>();
-            familyUserIds.add(penanggung.getUserId()); // Add the Penanggung's own ID
-            familyUserIds.addAll(penanggung.getAnggotaTanggunganIds()); // Add all dependent IDs
-
-            // 3. Fetch transactions for all users in the family
-            return transaksiDAO.getTransactionsForMultipleUsers(familyUserIds);
-
-        } else {
-            // Tanggungan and Admin (for now) only see their own transactions.
-            return transaksiDAO.getAllTransactionsForUser(loggedInUser.getUserId());
+    /**
+     * Everything the dashboard shows, read in one background task.
+     */
+    private static class DashboardData {
+        private final List<String> userIds;
+        private final TransaksiDAO.TransaksiPage firstPage;
+        private double spend;
+        private double earn;
+        private long transactionCount;
+
+        DashboardData(List<String> userIds, TransaksiDAO.TransaksiPage firstPage) {
+            this.userIds = userIds;
+            this.firstPage = firstPage;
         }
     }
 
@@ -463,7 +538,7 @@ public class DashboardPage {
 
         // Add role-specific information
         if ("Penanggung".equals(loggedInUser.getRole())) {
-            Penanggung penanggung = penanggungDAO.getPenanggungById(loggedInUser.getUserId());
+            Penanggung penanggung = context.getHead();
             if (penanggung != null) {
                 profileInfo.append("💼 Pekerjaan: ")
                         .append(penanggung.getPekerjaan() != null ? penanggung.getPekerjaan() : "Not specified")
@@ -481,98 +556,96 @@ public class DashboardPage {
                     VBox dependentsContainer = new VBox(15);
 
                     int tanggunganCount = 1;
-                    for (String tanggunganId : penanggung.getAnggotaTanggunganIds()) {
-                        Tanggungan tanggungan = tanggunganDAO.getTanggunganById(tanggunganId);
-                        if (tanggungan != null) {
-                            // Create a container for each dependent
-                            VBox tanggunganBox = new VBox(8);
-                            tanggunganBox.setStyle(
-                                    "-fx-background-color: #F7FAFC; -fx-padding: 15; -fx-background-radius: 8; -fx-border-color: #E2E8F0; -fx-border-radius: 8;");
-
-                            // Header for this tanggungan
-                            Label tanggunganHeader = new Label(
-                                    "👤 Tanggungan " + tanggunganCount + ": " + tanggungan.getNama());
-                            tanggunganHeader.setFont(Font.font("Segoe UI", FontWeight.BOLD, 14));
-                            tanggunganHeader.setTextFill(Color.web(TEXT_DARK));
-
-                            // Create info grid
-                            GridPane infoGrid = new GridPane();
-                            infoGrid.setHgap(10);
-                            infoGrid.setVgap(8);
-
-                            // User ID row
-                            Label userIdLabel = new Label("🆔 User ID:");
-                            userIdLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
-                            TextField userIdField = new TextField(tanggungan.getUserId());
-                            userIdField.setEditable(false);
-                            userIdField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
-
-                            // Password row with copy button
-                            Label passwordLabel = new Label("🔒 Password:");
-                            passwordLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
-
-                            HBox passwordRow = new HBox(10);
-                            TextField passwordField = new TextField(tanggungan.getPassword());
-                            passwordField.setEditable(false);
-                            passwordField.setPrefWidth(150);
-                            passwordField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
-
-                            // Copy button next to password
-                            Button copyBtn = new Button("📋 Copy");
-                            copyBtn.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 11));
-                            copyBtn.setStyle("-fx-background-color: " + PRIMARY_GREEN + "; -fx-text-fill: white; " +
-                                    "-fx-background-radius: 6; -fx-cursor: hand; -fx-padding: 5 10 5 10;");
-
-                            copyBtn.setOnAction(e -> {
-                                String credentialsToCopy = "User ID: " + tanggungan.getUserId() + "\nPassword: "
-                                        + tanggungan.getPassword();
-                                copyToClipboard(credentialsToCopy);
-                                showModernAlert(Alert.AlertType.INFORMATION, "Copied!",
-                                        "User ID dan Password " + tanggungan.getNama() + " telah disalin!");
-                            });
-
-                            passwordRow.getChildren().addAll(passwordField, copyBtn);
-                            passwordRow.setAlignment(Pos.CENTER_LEFT);
-
-                            // Other info
-                            Label positionLabel = new Label("🏠 Position:");
-                            positionLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
-                            TextField positionField = new TextField(
-                                    tanggungan.getPosisiKeluarga() != null ? tanggungan.getPosisiKeluarga()
-                                            : "Not specified");
-                            positionField.setEditable(false);
-                            positionField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
-
-                            Label emailLabel = new Label("📧 Email:");
-                            emailLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
-                            TextField emailField = new TextField(tanggungan.getEmail());
-                            emailField.setEditable(false);
-                            emailField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
-
-                            // Add to grid
-                            infoGrid.add(userIdLabel, 0, 0);
-                            infoGrid.add(userIdField, 1, 0);
-                            infoGrid.add(passwordLabel, 0, 1);
-                            infoGrid.add(passwordRow, 1, 1);
-                            infoGrid.add(positionLabel, 0, 2);
-                            infoGrid.add(positionField, 1, 2);
-                            infoGrid.add(emailLabel, 0, 3);
-                            infoGrid.add(emailField, 1, 3);
-
-                            tanggunganBox.getChildren().addAll(tanggunganHeader, infoGrid);
-                            dependentsContainer.getChildren().add(tanggunganBox);
-
-                            // Add to text info (simplified version)
-                            profileInfo.append("👤 Tanggungan ").append(tanggunganCount).append(": ")
-                                    .append(tanggungan.getNama()).append("\n");
-                            profileInfo.append("   • User ID: ").append(tanggungan.getUserId()).append("\n");
-                            profileInfo.append("   • Password: ").append(tanggungan.getPassword())
-                                    .append(" [Copy button available]\n");
-                            if (tanggunganCount < penanggung.getAnggotaTanggunganIds().size()) {
-                                profileInfo.append("   ─".repeat(20)).append("\n");
-                            }
-                            tanggunganCount++;
+                    // Tanggungan sudah dimuat bersama keluarga saat login
+                    for (Tanggungan tanggungan : context.getDependents()) {
+                        // Create a container for each dependent
+                        VBox tanggunganBox = new VBox(8);
+                        tanggunganBox.setStyle(
+                                "-fx-background-color: #F7FAFC; -fx-padding: 15; -fx-background-radius: 8; -fx-border-color: #E2E8F0; -fx-border-radius: 8;");
+
+                        // Header for this tanggungan
+                        Label tanggunganHeader = new Label(
+                                "👤 Tanggungan " + tanggunganCount + ": " + tanggungan.getNama());
+                        tanggunganHeader.setFont(Font.font("Segoe UI", FontWeight.BOLD, 14));
+                        tanggunganHeader.setTextFill(Color.web(TEXT_DARK));
+
+                        // Create info grid
+                        GridPane infoGrid = new GridPane();
+                        infoGrid.setHgap(10);
+                        infoGrid.setVgap(8);
+
+                        // User ID row
+                        Label userIdLabel = new Label("🆔 User ID:");
+                        userIdLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
+                        TextField userIdField = new TextField(tanggungan.getUserId());
+                        userIdField.setEditable(false);
+                        userIdField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
+
+                        // Password row with copy button
+                        Label passwordLabel = new Label("🔒 Password:");
+                        passwordLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
+
+                        HBox passwordRow = new HBox(10);
+                        TextField passwordField = new TextField(tanggungan.getPassword());
+                        passwordField.setEditable(false);
+                        passwordField.setPrefWidth(150);
+                        passwordField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
+
+                        // Copy button next to password
+                        Button copyBtn = new Button("📋 Copy");
+                        copyBtn.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 11));
+                        copyBtn.setStyle("-fx-background-color: " + PRIMARY_GREEN + "; -fx-text-fill: white; " +
+                                "-fx-background-radius: 6; -fx-cursor: hand; -fx-padding: 5 10 5 10;");
+
+                        copyBtn.setOnAction(e -> {
+                            String credentialsToCopy = "User ID: " + tanggungan.getUserId() + "\nPassword: "
+                                    + tanggungan.getPassword();
+                            copyToClipboard(credentialsToCopy);
+                            showModernAlert(Alert.AlertType.INFORMATION, "Copied!",
+                                    "User ID dan Password " + tanggungan.getNama() + " telah disalin!");
+                        });
+
+                        passwordRow.getChildren().addAll(passwordField, copyBtn);
+                        passwordRow.setAlignment(Pos.CENTER_LEFT);
+
+                        // Other info
+                        Label positionLabel = new Label("🏠 Position:");
+                        positionLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
+                        TextField positionField = new TextField(
+                                tanggungan.getPosisiKeluarga() != null ? tanggungan.getPosisiKeluarga()
+                                        : "Not specified");
+                        positionField.setEditable(false);
+                        positionField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
+
+                        Label emailLabel = new Label("📧 Email:");
+                        emailLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
+                        TextField emailField = new TextField(tanggungan.getEmail());
+                        emailField.setEditable(false);
+                        emailField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
+
+                        // Add to grid
+                        infoGrid.add(userIdLabel, 0, 0);
+                        infoGrid.add(userIdField, 1, 0);
+                        infoGrid.add(passwordLabel, 0, 1);
+                        infoGrid.add(passwordRow, 1, 1);
+                        infoGrid.add(positionLabel, 0, 2);
+                        infoGrid.add(positionField, 1, 2);
+                        infoGrid.add(emailLabel, 0, 3);
+                        infoGrid.add(emailField, 1, 3);
+
+                        tanggunganBox.getChildren().addAll(tanggunganHeader, infoGrid);
+                        dependentsContainer.getChildren().add(tanggunganBox);
+
+                        // Add to text info (simplified version)
+                        profileInfo.append("👤 Tanggungan ").append(tanggunganCount).append(": ")
+                                .append(tanggungan.getNama()).append("\n");
+                        profileInfo.append("   • User ID: ").append(tanggungan.getUserId()).append("\n");
+                        profileInfo.append("   • Password: ").append(tanggungan.getPassword())
+                                .append(" [Copy button available]\n");
+                        if (tanggunganCount < penanggung.getAnggotaTanggunganIds().size()) {
+                            profileInfo.append("   ─".repeat(20)).append("\n");
                         }
+                        tanggunganCount++;
                     }
 
                     // Add scroll pane for the dependents container
@@ -587,7 +660,7 @@ public class DashboardPage {
                 }
             }
         } else if ("Tanggungan".equals(loggedInUser.getRole())) {
-            Tanggungan tanggungan = tanggunganDAO.getTanggunganById(loggedInUser.getUserId());
+            Tanggungan tanggungan = context.getSelfAsTanggungan();
             if (tanggungan != null) {
                 profileInfo.append("💼 Pekerjaan: ")
                         .append(tanggungan.getPekerjaan() != null ? tanggungan.getPekerjaan() : "Not specified")
@@ -599,7 +672,7 @@ public class DashboardPage {
                         .append(tanggungan.getPendidikan() != null ? tanggungan.getPendidikan() : "Not specified");
 
                 if (tanggungan.getPenanggungId() != null && !tanggungan.getPenanggungId().isEmpty()) {
-                    Penanggung penanggung = penanggungDAO.getPenanggungById(tanggungan.getPenanggungId());
+                    Penanggung penanggung = context.getHead();
                     if (penanggung != null) {
                         profileInfo.append("\n👨‍👩‍👧‍👦 Head of Family: ").append(penanggung.getNama());
                     }
@@ -5,6 +5,7 @@ import com.subwayit.dao.UtangDAO.UtangWithUserInfo;
 import com.subwayit.model.Penanggung;
 import com.subwayit.model.Tanggungan;
 import com.subwayit.model.User;
+import com.subwayit.model.Utang;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -22,7 +23,6 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import java.text.NumberFormat;
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import javafx.stage.Modality;
@@ -31,26 +31,35 @@ import javafx.scene.layout.GridPane;
 import javafx.scene.control.TextField;
 import javafx.scene.control.ScrollPane;
 
-public class DebtPage {
+public class DebtPage implements ManagedPage {
 
+    private final NavigationController navigation;
     private Stage primaryStage;
+    private final FamilyContext context;
     private User loggedInUser;
 
-    // --- All DAOs are now injected via the constructor ---
+    // --- All DAOs are now taken from the FamilyContext ---
     private UserDAO userDAO;
     private PenanggungDAO penanggungDAO;
-    private TanggunganDAO tanggunganDAO;
     private AdminDAO adminDAO;
     private TransaksiDAO transaksiDAO;
     private UtangDAO utangDAO;
 
     private TableView<UtangWithUserInfo> debtTable;
     private ObservableList<UtangWithUserInfo> debtList;
+    private final PageLoader loader = new PageLoader("Debt");
+    // Data version the shown debts were loaded at, -1 until the first load lands
+    private long loadedVersion = -1;
 
-    // Summary Labels
-    private Label totalDebtValue = new Label("Rp 0");
-    private Label remainingDebtValue = new Label("Rp 0");
-    private Label overdueDebtValue = new Label("0");
+    // Summary Labels, placeholders until the debts have been loaded
+    private Label totalDebtValue = new Label("…");
+    private Label remainingDebtValue = new Label("…");
+    private Label overdueDebtValue = new Label("…");
+
+    // Totals behind the summary cards; after a write only that write's delta is applied
+    private double totalAmount;
+    private double remainingAmount;
+    private long overdueCount;
 
     // Theme Colors
     private static final String PRIMARY_GREEN = "#86DA71";
@@ -58,26 +67,29 @@ public class DebtPage {
     private static final String TEXT_DARK = "#2D3748";
     private static final String RED = "#E53E3E";
 
-    // --- Constructor now accepts all dependencies ---
-    public DebtPage(Stage primaryStage, User user, UserDAO userDAO, PenanggungDAO penanggungDAO,
-            TanggunganDAO tanggunganDAO, AdminDAO adminDAO, TransaksiDAO transaksiDAO, UtangDAO utangDAO) {
-        this.primaryStage = primaryStage;
-        this.loggedInUser = user;
-        this.userDAO = userDAO;
-        this.penanggungDAO = penanggungDAO;
-        this.tanggunganDAO = tanggunganDAO;
-        this.adminDAO = adminDAO;
-        this.transaksiDAO = transaksiDAO;
-        this.utangDAO = utangDAO; // Use injected DAO
+    // --- The stage, the user and all DAOs come from the session's NavigationController ---
+    public DebtPage(NavigationController navigation) {
+        this.navigation = navigation;
+        this.primaryStage = navigation.getStage();
+        this.context = navigation.getContext();
+        this.loggedInUser = context.getUser();
+        this.userDAO = context.getUserDAO();
+        this.penanggungDAO = context.getPenanggungDAO();
+        this.adminDAO = context.getAdminDAO();
+        this.transaksiDAO = context.getTransaksiDAO();
+        this.utangDAO = context.getUtangDAO();
         this.debtList = FXCollections.observableArrayList();
     }
 
+    @Override
     public Scene createScene() {
-        BorderPane root = new BorderPane();
-        root.setTop(createTopNavigationBar());
-        root.setCenter(new ScrollPane(createMainContentArea()));
-        root.setStyle("-fx-background-color: #F7FAFC;");
-        return new Scene(root, 1200, 800);
+        return loader.track(loader.timed(() -> {
+            BorderPane root = new BorderPane();
+            root.setTop(createTopNavigationBar());
+            root.setCenter(new ScrollPane(createMainContentArea()));
+            root.setStyle("-fx-background-color: #F7FAFC;");
+            return new Scene(root, 1200, 800);
+        }));
     }
 
     private HBox createTopNavigationBar() {
@@ -94,18 +106,10 @@ public class DebtPage {
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
         Button dashboardsBtn = createNavLink("Dashboard", "📊");
-        dashboardsBtn.setOnAction(e -> {
-            DashboardPage dp = new DashboardPage(primaryStage, loggedInUser, userDAO, penanggungDAO, tanggunganDAO,
-                    adminDAO, transaksiDAO, utangDAO);
-            primaryStage.setScene(dp.createScene());
-        });
+        dashboardsBtn.setOnAction(e -> navigation.show(NavigationController.Destination.DASHBOARD));
 
         Button membersBtn = createNavLink("Members", "👥");
-        membersBtn.setOnAction(e -> {
-            MembersPage mp = new MembersPage(primaryStage, loggedInUser, userDAO, penanggungDAO, tanggunganDAO,
-                    adminDAO, transaksiDAO, utangDAO);
-            primaryStage.setScene(mp.createScene());
-        });
+        membersBtn.setOnAction(e -> navigation.show(NavigationController.Destination.MEMBERS));
 
         Button debtBtn = createNavLink("Debt", "💰");
         debtBtn.setStyle(debtBtn.getStyle() + "-fx-background-color: rgba(255,255,255,0.2);");
@@ -122,12 +126,8 @@ public class DebtPage {
             confirmAlert.setContentText("Are you sure you want to sign out?");
             confirmAlert.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.OK) {
-                    com.subwayit.App app = new com.subwayit.App();
-                    try {
-                        app.start(primaryStage);
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                    }
+                    // Disposes the session's pages before going back to the login screen
+                    navigation.signOut();
                 }
             });
         });
@@ -167,7 +167,7 @@ public class DebtPage {
         profileInfo.append("🆔 User ID: ").append(loggedInUser.getUserId()).append("\n");
 
         if ("Penanggung".equals(loggedInUser.getRole())) {
-            Penanggung penanggung = penanggungDAO.getPenanggungById(loggedInUser.getUserId());
+            Penanggung penanggung = context.getHead();
             if (penanggung != null) {
                 profileInfo.append("💼 Pekerjaan: ")
                         .append(penanggung.getPekerjaan() != null ? penanggung.getPekerjaan() : "Not specified")
@@ -185,98 +185,96 @@ public class DebtPage {
                     VBox dependentsContainer = new VBox(15);
 
                     int tanggunganCount = 1;
-                    for (String tanggunganId : penanggung.getAnggotaTanggunganIds()) {
-                        Tanggungan tanggungan = tanggunganDAO.getTanggunganById(tanggunganId);
-                        if (tanggungan != null) {
-                            // Create a container for each dependent
-                            VBox tanggunganBox = new VBox(8);
-                            tanggunganBox.setStyle(
-                                    "-fx-background-color: #F7FAFC; -fx-padding: 15; -fx-background-radius: 8; -fx-border-color: #E2E8F0; -fx-border-radius: 8;");
-
-                            // Header for this tanggungan
-                            Label tanggunganHeader = new Label(
-                                    "👤 Tanggungan " + tanggunganCount + ": " + tanggungan.getNama());
-                            tanggunganHeader.setFont(Font.font("Segoe UI", FontWeight.BOLD, 14));
-                            tanggunganHeader.setTextFill(Color.web(TEXT_DARK));
-
-                            // Create info grid
-                            GridPane infoGrid = new GridPane();
-                            infoGrid.setHgap(10);
-                            infoGrid.setVgap(8);
-
-                            // User ID row
-                            Label userIdLabel = new Label("🆔 User ID:");
-                            userIdLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
-                            TextField userIdField = new TextField(tanggungan.getUserId());
-                            userIdField.setEditable(false);
-                            userIdField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
-
-                            // Password row with copy button
-                            Label passwordLabel = new Label("🔒 Password:");
-                            passwordLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
-
-                            HBox passwordRow = new HBox(10);
-                            TextField passwordField = new TextField(tanggungan.getPassword());
-                            passwordField.setEditable(false);
-                            passwordField.setPrefWidth(150);
-                            passwordField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
-
-                            // Copy button next to password
-                            Button copyBtn = new Button("📋 Copy");
-                            copyBtn.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 11));
-                            copyBtn.setStyle("-fx-background-color: " + PRIMARY_GREEN + "; -fx-text-fill: white; " +
-                                    "-fx-background-radius: 6; -fx-cursor: hand; -fx-padding: 5 10 5 10;");
-
-                            copyBtn.setOnAction(e -> {
-                                String credentialsToCopy = "User ID: " + tanggungan.getUserId() + "\nPassword: "
-                                        + tanggungan.getPassword();
-                                copyToClipboard(credentialsToCopy);
-                                showModernAlert(Alert.AlertType.INFORMATION, "Copied!",
-                                        "User ID dan Password " + tanggungan.getNama() + " telah disalin!");
-                            });
-
-                            passwordRow.getChildren().addAll(passwordField, copyBtn);
-                            passwordRow.setAlignment(Pos.CENTER_LEFT);
-
-                            // Other info
-                            Label positionLabel = new Label("🏠 Position:");
-                            positionLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
-                            TextField positionField = new TextField(
-                                    tanggungan.getPosisiKeluarga() != null ? tanggungan.getPosisiKeluarga()
-                                            : "Not specified");
-                            positionField.setEditable(false);
-                            positionField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
-
-                            Label emailLabel = new Label("📧 Email:");
-                            emailLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
-                            TextField emailField = new TextField(tanggungan.getEmail());
-                            emailField.setEditable(false);
-                            emailField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
-
-                            // Add to grid
-                            infoGrid.add(userIdLabel, 0, 0);
-                            infoGrid.add(userIdField, 1, 0);
-                            infoGrid.add(passwordLabel, 0, 1);
-                            infoGrid.add(passwordRow, 1, 1);
-                            infoGrid.add(positionLabel, 0, 2);
-                            infoGrid.add(positionField, 1, 2);
-                            infoGrid.add(emailLabel, 0, 3);
-                            infoGrid.add(emailField, 1, 3);
-
-                            tanggunganBox.getChildren().addAll(tanggunganHeader, infoGrid);
-                            dependentsContainer.getChildren().add(tanggunganBox);
-
-                            // Add to text info (simplified version)
-                            profileInfo.append("👤 Tanggungan ").append(tanggunganCount).append(": ")
-                                    .append(tanggungan.getNama()).append("\n");
-                            profileInfo.append("   • User ID: ").append(tanggungan.getUserId()).append("\n");
-                            profileInfo.append("   • Password: ").append(tanggungan.getPassword())
-                                    .append(" [Copy button available]\n");
-                            if (tanggunganCount < penanggung.getAnggotaTanggunganIds().size()) {
-                                profileInfo.append("   ─".repeat(20)).append("\n");
-                            }
-                            tanggunganCount++;
+                    // Tanggungan sudah dimuat bersama keluarga saat login
+                    for (Tanggungan tanggungan : context.getDependents()) {
+                        // Create a container for each dependent
+                        VBox tanggunganBox = new VBox(8);
+                        tanggunganBox.setStyle(
+                                "-fx-background-color: #F7FAFC; -fx-padding: 15; -fx-background-radius: 8; -fx-border-color: #E2E8F0; -fx-border-radius: 8;");
+
+                        // Header for this tanggungan
+                        Label tanggunganHeader = new Label(
+                                "👤 Tanggungan " + tanggunganCount + ": " + tanggungan.getNama());
+                        tanggunganHeader.setFont(Font.font("Segoe UI", FontWeight.BOLD, 14));
+                        tanggunganHeader.setTextFill(Color.web(TEXT_DARK));
+
+                        // Create info grid
+                        GridPane infoGrid = new GridPane();
+                        infoGrid.setHgap(10);
+                        infoGrid.setVgap(8);
+
+                        // User ID row
+                        Label userIdLabel = new Label("🆔 User ID:");
+                        userIdLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
+                        TextField userIdField = new TextField(tanggungan.getUserId());
+                        userIdField.setEditable(false);
+                        userIdField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
+
+                        // Password row with copy button
+                        Label passwordLabel = new Label("🔒 Password:");
+                        passwordLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
+
+                        HBox passwordRow = new HBox(10);
+                        TextField passwordField = new TextField(tanggungan.getPassword());
+                        passwordField.setEditable(false);
+                        passwordField.setPrefWidth(150);
+                        passwordField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
+
+                        // Copy button next to password
+                        Button copyBtn = new Button("📋 Copy");
+                        copyBtn.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 11));
+                        copyBtn.setStyle("-fx-background-color: " + PRIMARY_GREEN + "; -fx-text-fill: white; " +
+                                "-fx-background-radius: 6; -fx-cursor: hand; -fx-padding: 5 10 5 10;");
+
+                        copyBtn.setOnAction(e -> {
+                            String credentialsToCopy = "User ID: " + tanggungan.getUserId() + "\nPassword: "
+                                    + tanggungan.getPassword();
+                            copyToClipboard(credentialsToCopy);
+                            showModernAlert(Alert.AlertType.INFORMATION, "Copied!",
+                                    "User ID dan Password " + tanggungan.getNama() + " telah disalin!");
+                        });
+
+                        passwordRow.getChildren().addAll(passwordField, copyBtn);
+                        passwordRow.setAlignment(Pos.CENTER_LEFT);
+
+                        // Other info
+                        Label positionLabel = new Label("🏠 Position:");
+                        positionLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
+                        TextField positionField = new TextField(
+                                tanggungan.getPosisiKeluarga() != null ? tanggungan.getPosisiKeluarga()
+                                        : "Not specified");
+                        positionField.setEditable(false);
+                        positionField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
+
+                        Label emailLabel = new Label("📧 Email:");
+                        emailLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
+                        TextField emailField = new TextField(tanggungan.getEmail());
+                        emailField.setEditable(false);
+                        emailField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
+
+                        // Add to grid
+                        infoGrid.add(userIdLabel, 0, 0);
+                        infoGrid.add(userIdField, 1, 0);
+                        infoGrid.add(passwordLabel, 0, 1);
+                        infoGrid.add(passwordRow, 1, 1);
+                        infoGrid.add(positionLabel, 0, 2);
+                        infoGrid.add(positionField, 1, 2);
+                        infoGrid.add(emailLabel, 0, 3);
+                        infoGrid.add(emailField, 1, 3);
+
+                        tanggunganBox.getChildren().addAll(tanggunganHeader, infoGrid);
+                        dependentsContainer.getChildren().add(tanggunganBox);
+
+                        // Add to text info (simplified version)
+                        profileInfo.append("👤 Tanggungan ").append(tanggunganCount).append(": ")
+                                .append(tanggungan.getNama()).append("\n");
+                        profileInfo.append("   • User ID: ").append(tanggungan.getUserId()).append("\n");
+                        profileInfo.append("   • Password: ").append(tanggungan.getPassword())
+                                .append(" [Copy button available]\n");
+                        if (tanggunganCount < penanggung.getAnggotaTanggunganIds().size()) {
+                            profileInfo.append("   ─".repeat(20)).append("\n");
                         }
+                        tanggunganCount++;
                     }
 
                     // Add scroll pane for the dependents container
@@ -291,7 +289,7 @@ public class DebtPage {
                 }
             }
         } else if ("Tanggungan".equals(loggedInUser.getRole())) {
-            Tanggungan tanggungan = tanggunganDAO.getTanggunganById(loggedInUser.getUserId());
+            Tanggungan tanggungan = context.getSelfAsTanggungan();
             if (tanggungan != null) {
                 profileInfo.append("💼 Pekerjaan: ")
                         .append(tanggungan.getPekerjaan() != null ? tanggungan.getPekerjaan() : "Not specified")
@@ -303,7 +301,7 @@ public class DebtPage {
                         .append(tanggungan.getPendidikan() != null ? tanggungan.getPendidikan() : "Not specified");
 
                 if (tanggungan.getPenanggungId() != null && !tanggungan.getPenanggungId().isEmpty()) {
-                    Penanggung penanggung = penanggungDAO.getPenanggungById(tanggungan.getPenanggungId());
+                    Penanggung penanggung = context.getHead();
                     if (penanggung != null) {
                         profileInfo.append("\n👨‍👩‍👧‍👦 Kepala Keluarga: ").append(penanggung.getNama());
                     }
@@ -360,12 +358,14 @@ public class DebtPage {
                     + "; -fx-text-fill: white; -fx-font-weight: bold; -fx-background-radius: 8;");
 
             addDebtBtn.setOnAction(e -> {
-                // Because we've already checked the role, this cast is now safe.
-                Penanggung penanggung = penanggungDAO.getPenanggungById(loggedInUser.getUserId());
-                if (penanggung != null) {
-                    AddDebtForm form = new AddDebtForm(penanggung, tanggunganDAO, utangDAO, null);
+                // The role was checked above, so the family head is the user themselves
+                if (context.getHead() != null) {
+                    long version = dataVersion();
+                    AddDebtForm form = new AddDebtForm(context, null);
                     form.display();
-                    refreshDebtTable();
+                    if (form.getSaved() != null) {
+                        applyWrite(version, null, withUserInfo(form.getSaved()));
+                    }
                 } else {
                     // Handle rare case where Penanggung data might be inconsistent
                     // showAlert(Alert.AlertType.ERROR, "Data Error", "Could not load Penanggung
@@ -398,7 +398,8 @@ public class DebtPage {
 
     private TableView<UtangWithUserInfo> createDebtTable() {
         TableView<UtangWithUserInfo> table = new TableView<>();
-        table.setPlaceholder(new Label("Tidak ada data utang ditemukan."));
+        table.setItems(debtList);
+        table.setPlaceholder(PageLoader.spinner("Memuat data utang..."));
 
         TableColumn<UtangWithUserInfo, String> ownerCol = new TableColumn<>("Pemilik");
         ownerCol.setCellValueFactory(new PropertyValueFactory<>("userName"));
@@ -427,35 +428,145 @@ public class DebtPage {
         return table;
     }
 
+    /**
+     * Reads the family's debts off the FX thread, then swaps in the rows and summary together.
+     */
     private void refreshDebtTable() {
-        List<String> userIdsToFetch = new ArrayList<>();
-        if ("Penanggung".equals(loggedInUser.getRole())) {
-            Penanggung p = penanggungDAO.getPenanggungById(loggedInUser.getUserId());
-            userIdsToFetch.add(p.getUserId());
-            if (p.getAnggotaTanggunganIds() != null) {
-                userIdsToFetch.addAll(p.getAnggotaTanggunganIds());
-            }
-        } else {
-            userIdsToFetch.add(loggedInUser.getUserId());
+        long version = dataVersion();
+        loader.load("debts", this::loadDebts, debts -> {
+            loadedVersion = version;
+            debtList.setAll(debts);
+            debtTable.setPlaceholder(new Label("Tidak ada data utang ditemukan."));
+            updateDebtSummary();
+        });
+    }
+
+    // Changes whenever a family member's debts or the family itself change
+    private long dataVersion() {
+        return FamilyQueryCache.getDebtsVersion() + context.getVersion();
+    }
+
+    @Override
+    public boolean refreshIfChanged() {
+        if (loader.isLoading("debts") || dataVersion() == loadedVersion) {
+            return false;
         }
+        refreshDebtTable();
+        return true;
+    }
 
-        List<UtangWithUserInfo> debts = utangDAO.getDebtsWithUserInfo(userIdsToFetch);
-        debtList.setAll(debts);
-        debtTable.setItems(debtList);
-        updateDebtSummary();
+    @Override
+    public void dispose() {
+        loader.cancel();
+        debtTable.setItems(null);
+        debtList.clear();
+    }
+
+    // Runs on the DAO executor
+    private List<UtangWithUserInfo> loadDebts() {
+        return utangDAO.getDebtsWithUserInfo(context.getVisibleUserIds());
     }
 
     private void updateDebtSummary() {
-        double totalAmount = debtList.stream().mapToDouble(UtangWithUserInfo::getJumlah).sum();
-        double remainingAmount = debtList.stream().mapToDouble(UtangWithUserInfo::getSisaUtang).sum();
-        long overdueCount = debtList.stream()
-                .filter(u -> u.getSisaUtang() > 0 && u.getTanggalJatuhTempo().isBefore(LocalDate.now())).count();
+        totalAmount = 0;
+        remainingAmount = 0;
+        overdueCount = 0;
+        for (UtangWithUserInfo utang : debtList) {
+            applyDelta(utang, 1);
+        }
+        showDebtSummary();
+    }
 
+    private void showDebtSummary() {
         totalDebtValue.setText(formatRupiah(totalAmount));
         remainingDebtValue.setText(formatRupiah(remainingAmount));
         overdueDebtValue.setText(String.valueOf(overdueCount));
     }
 
+    private void applyDelta(UtangWithUserInfo utang, int sign) {
+        totalAmount += sign * utang.getJumlah();
+        remainingAmount += sign * utang.getSisaUtang();
+        if (utang.getSisaUtang() > 0 && utang.getTanggalJatuhTempo().isBefore(LocalDate.now())) {
+            overdueCount += sign;
+        }
+    }
+
+    /**
+     * Applies one committed write to the table and the cards without reading the debts
+     * again. The row is replaced in place when its due date keeps it where it is, so the
+     * table keeps its scroll position and selection. If the page was already behind
+     * before the write, it is reloaded instead.
+     *
+     * @param versionBefore the data version when the write was started
+     * @param before        the row the write replaced, null for an add; only its ID is used
+     * @param after         the row as saved
+     */
+    private void applyWrite(long versionBefore, UtangWithUserInfo before, UtangWithUserInfo after) {
+        if (loadedVersion != versionBefore || loader.isLoading("debts")) {
+            refreshDebtTable();
+            return;
+        }
+        int index = -1;
+        if (before != null) {
+            // Take the totals off the row as it is listed now, not as it was when the dialog opened
+            index = indexOf(before.getUtangId());
+            if (index >= 0) {
+                applyDelta(debtList.get(index), -1);
+            }
+        }
+        applyDelta(after, 1);
+
+        if (index >= 0 && fitsAt(index, after)) {
+            debtList.set(index, after);
+        } else {
+            if (index >= 0) {
+                debtList.remove(index);
+            }
+            // Same order as getDebtsWithUserInfo: earliest due date first
+            int position = 0;
+            while (position < debtList.size()
+                    && !debtList.get(position).getTanggalJatuhTempo().isAfter(after.getTanggalJatuhTempo())) {
+                position++;
+            }
+            debtList.add(position, after);
+        }
+        showDebtSummary();
+        loadedVersion = dataVersion();
+    }
+
+    private int indexOf(String utangId) {
+        for (int i = 0; i < debtList.size(); i++) {
+            if (debtList.get(i).getUtangId().equals(utangId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean fitsAt(int index, UtangWithUserInfo utang) {
+        LocalDate due = utang.getTanggalJatuhTempo();
+        return (index == 0 || !debtList.get(index - 1).getTanggalJatuhTempo().isAfter(due))
+                && (index == debtList.size() - 1 || !due.isAfter(debtList.get(index + 1).getTanggalJatuhTempo()));
+    }
+
+    // The owner's name comes from the family loaded at login
+    private UtangWithUserInfo withUserInfo(Utang utang) {
+        String userName = "";
+        for (User member : context.getFamilyMembers()) {
+            if (member.getUserId().equals(utang.getUserId())) {
+                userName = member.getNama();
+            }
+        }
+        return new UtangWithUserInfo(utang.getUtangId(), utang.getUserId(), utang.getJumlah(), utang.getBunga(),
+                utang.getTanggalJatuhTempo(), utang.getStatus(), utang.getCreditor(), utang.getSisaUtang(), userName);
+    }
+
+    private static UtangWithUserInfo paid(UtangWithUserInfo utang, UtangDAO.PaymentResult result) {
+        String status = result.getOutcome() == UtangDAO.PaymentOutcome.PAID_OFF ? "Lunas" : utang.getStatus();
+        return new UtangWithUserInfo(utang.getUtangId(), utang.getUserId(), utang.getJumlah(), utang.getBunga(),
+                utang.getTanggalJatuhTempo(), status, utang.getCreditor(), result.getSisaUtang(), utang.getUserName());
+    }
+
     private TableColumn<UtangWithUserInfo, Void> createActionColumn() {
         TableColumn<UtangWithUserInfo, Void> actionCol = new TableColumn<>("Tindakan");
         actionCol.setCellFactory(param -> new TableCell<>() {
@@ -470,12 +581,15 @@ public class DebtPage {
 
                 payBtn.setOnAction(event -> {
                     UtangWithUserInfo utang = getTableView().getItems().get(getIndex());
-                    // FIX: First, get the full Penanggung object from the database
-                    Penanggung penanggung = penanggungDAO.getPenanggungById(loggedInUser.getUserId());
+                    Penanggung penanggung = context.getHead();
                     if (penanggung != null) {
-                        AddPayDebtForm form = new AddPayDebtForm(penanggung, utang, utangDAO);
+                        long version = dataVersion();
+                        AddPayDebtForm form = new AddPayDebtForm(context, utang);
                         form.display();
-                        refreshDebtTable();
+                        UtangDAO.PaymentResult result = form.getPaymentResult();
+                        if (result != null) {
+                            applyWrite(version, utang, paid(utang, result));
+                        }
                     } else {
                         // showAlert(Alert.AlertType.ERROR, "Error", "Tidak dapat memuat detail
                         // Penanggung.");
@@ -484,13 +598,13 @@ public class DebtPage {
 
                 editBtn.setOnAction(event -> {
                     UtangWithUserInfo utang = getTableView().getItems().get(getIndex());
-                    // FIX: First, get the full Penanggung object from the database
-                    Penanggung penanggung = penanggungDAO.getPenanggungById(loggedInUser.getUserId());
-                    if (penanggung != null) {
-                        // Pass the fetched Penanggung object to the form
-                        AddDebtForm form = new AddDebtForm(penanggung, tanggunganDAO, utangDAO, utang);
+                    if (context.getHead() != null) {
+                        long version = dataVersion();
+                        AddDebtForm form = new AddDebtForm(context, utang);
                         form.display();
-                        refreshDebtTable();
+                        if (form.getSaved() != null) {
+                            applyWrite(version, utang, withUserInfo(form.getSaved()));
+                        }
                     } else {
                         // showAlert(Alert.AlertType.ERROR, "Error", "Tidak dapat memuat detail
                         // Penanggung.");
@@ -1,8 +1,10 @@
 package com.subwayit.gui;
 
+import com.subwayit.dao.DaoExecutor;
 import com.subwayit.dao.PenanggungDAO;
 import com.subwayit.dao.TanggunganDAO;
 import com.subwayit.dao.UserDAO;
+import com.subwayit.database.UnitOfWork;
 import com.subwayit.model.Penanggung;
 import com.subwayit.model.Tanggungan;
 import com.subwayit.model.User;
@@ -16,10 +18,13 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
+import java.sql.SQLException;
+
 public class EditMemberForm {
 
     private Stage dialogStage;
     private User userToEdit;
+    private boolean saved;
 
     // DAOs for saving data
     private UserDAO userDAO;
@@ -136,31 +141,54 @@ public class EditMemberForm {
                 userToEdit.setPassword(passwordField.getText());
             }
 
-            // Update the base User table
-            userDAO.updateUser(userToEdit);
-
-            // Update role-specific tables
+            // Update role-specific fields
             if (userToEdit instanceof Penanggung) {
                 Penanggung p = (Penanggung) userToEdit;
                 p.setPekerjaan(pekerjaanField.getText().trim());
-                penanggungDAO.updatePenanggung(p);
             } else if (userToEdit instanceof Tanggungan) {
                 Tanggungan t = (Tanggungan) userToEdit;
                 t.setPekerjaan(pekerjaanField.getText().trim());
                 t.setPosisiKeluarga(posisiKeluargaField.getText().trim());
                 t.setPendidikan(pendidikanField.getText().trim());
-                tanggunganDAO.updateTanggungan(t);
             }
+        } catch (NumberFormatException e) {
+            showAlert(Alert.AlertType.ERROR, "Invalid Input", "Umur must be a valid number.");
+            return;
+        }
 
+        // Pengguna and the role table are updated in one transaction, off the FX thread
+        dialogStage.getScene().getRoot().setDisable(true);
+        FxAsync.onFx(DaoExecutor.shared().write(() -> {
+            try {
+                UnitOfWork.run(() -> {
+                    // updatePenanggung and updateTanggungan write the Pengguna row as well
+                    if (userToEdit instanceof Penanggung) {
+                        penanggungDAO.updatePenanggung((Penanggung) userToEdit);
+                    } else if (userToEdit instanceof Tanggungan) {
+                        tanggunganDAO.updateTanggungan((Tanggungan) userToEdit);
+                    } else {
+                        userDAO.updateUser(userToEdit);
+                    }
+                });
+            } catch (SQLException e) {
+                throw new RuntimeException("Gagal memperbarui profil: " + e.getMessage(), e);
+            }
+        }), done -> {
+            saved = true;
             showAlert(Alert.AlertType.INFORMATION, "Success", "Profile updated successfully!");
             dialogStage.close();
+        }, error -> {
+            dialogStage.getScene().getRoot().setDisable(false);
+            showAlert(Alert.AlertType.ERROR, "Database Error", "Failed to update profile: " + error.getMessage());
+            error.printStackTrace();
+        });
+    }
 
-        } catch (NumberFormatException e) {
-            showAlert(Alert.AlertType.ERROR, "Invalid Input", "Umur must be a valid number.");
-        } catch (Exception e) {
-            showAlert(Alert.AlertType.ERROR, "Database Error", "Failed to update profile: " + e.getMessage());
-            e.printStackTrace();
-        }
+    /**
+     * @return true once the edited profile has been written to the database
+     */
+    public boolean isSaved() {
+        return saved;
     }
 
     private void showAlert(Alert.AlertType type, String title, String message) {
@@ -0,0 +1,209 @@
+package com.subwayit.gui;
+
+import com.subwayit.dao.AdminDAO;
+import com.subwayit.dao.FamilyMembershipDAO;
+import com.subwayit.dao.FamilyMembershipDAO.Family;
+import com.subwayit.dao.PaymentHistoryDAO;
+import com.subwayit.dao.PenanggungDAO;
+import com.subwayit.dao.TanggunganDAO;
+import com.subwayit.dao.TransaksiDAO;
+import com.subwayit.dao.UserDAO;
+import com.subwayit.dao.UtangDAO;
+import com.subwayit.model.Penanggung;
+import com.subwayit.model.Tanggungan;
+import com.subwayit.model.User;
+
+import java.util.List;
+
+/**
+ * Everything the pages need about the logged-in user's session: the user, their family
+ * and the DAOs. Pages take a FamilyContext instead of the user and six DAOs.
+ *
+ * The family (head, dependents and their IDs) is read with one query when the user logs
+ * in, see {@link #load}. After that the pages keep it current themselves: a form that
+ * adds, edits or removes a member reports the change through {@link #memberAdded},
+ * {@link #memberUpdated} or {@link #memberRemoved}, which patch the snapshot without going
+ * back to the database. {@link #reload()} reads the family again from scratch.
+ *
+ * The family is held as an immutable snapshot, so background loaders may read it while
+ * the FX thread replaces it.
+ */
+public class FamilyContext {
+
+    private final User user;
+    private final UserDAO userDAO;
+    private final PenanggungDAO penanggungDAO;
+    private final TanggunganDAO tanggunganDAO;
+    private final AdminDAO adminDAO;
+    private final TransaksiDAO transaksiDAO;
+    private final UtangDAO utangDAO;
+    private final FamilyMembershipDAO membershipDAO = new FamilyMembershipDAO();
+    private final PaymentHistoryDAO paymentHistoryDAO = new PaymentHistoryDAO();
+
+    private volatile Family family = new Family(null, List.of());
+    // Incremented whenever the family snapshot changes
+    private volatile long version;
+
+    public FamilyContext(User user, UserDAO userDAO, PenanggungDAO penanggungDAO, TanggunganDAO tanggunganDAO,
+            AdminDAO adminDAO, TransaksiDAO transaksiDAO, UtangDAO utangDAO) {
+        this.user = user;
+        this.userDAO = userDAO;
+        this.penanggungDAO = penanggungDAO;
+        this.tanggunganDAO = tanggunganDAO;
+        this.adminDAO = adminDAO;
+        this.transaksiDAO = transaksiDAO;
+        this.utangDAO = utangDAO;
+    }
+
+    /**
+     * Creates the context and reads the user's family. Runs a query, so call it off the
+     * FX thread.
+     */
+    public static FamilyContext load(User user, UserDAO userDAO, PenanggungDAO penanggungDAO,
+            TanggunganDAO tanggunganDAO, AdminDAO adminDAO, TransaksiDAO transaksiDAO, UtangDAO utangDAO) {
+        FamilyContext context = new FamilyContext(user, userDAO, penanggungDAO, tanggunganDAO, adminDAO,
+                transaksiDAO, utangDAO);
+        context.reload();
+        return context;
+    }
+
+    /**
+     * Reads the family again in one query. Admins have no family, so nothing is read.
+     */
+    public void reload() {
+        if (isPenanggung() || isTanggungan()) {
+            replace(membershipDAO.loadFamily(user.getUserId()));
+        }
+    }
+
+    // --- Pengguna & keluarga ---
+
+    public User getUser() {
+        return user;
+    }
+
+    public boolean isPenanggung() {
+        return "Penanggung".equals(user.getRole());
+    }
+
+    public boolean isTanggungan() {
+        return "Tanggungan".equals(user.getRole());
+    }
+
+    /**
+     * @return the Penanggung heading the user's family (the user themselves if they are a
+     *         Penanggung), or null if the user has no family
+     */
+    public Penanggung getHead() {
+        return family.getHead();
+    }
+
+    /**
+     * @return the user as a Tanggungan with their dependent details, or null if they are
+     *         not a Tanggungan
+     */
+    public Tanggungan getSelfAsTanggungan() {
+        for (Tanggungan member : family.getMembers()) {
+            if (member.getUserId().equals(user.getUserId())) {
+                return member;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the family's dependents, in the order they were added
+     */
+    public List<Tanggungan> getDependents() {
+        return family.getMembers();
+    }
+
+    /**
+     * @return the head followed by the dependents, as shown on the members page
+     */
+    public List<User> getFamilyMembers() {
+        return family.getAllUsers();
+    }
+
+    /**
+     * Penanggung see their own records plus all their dependents'; Tanggungan and Admin
+     * only see their own.
+     */
+    public List<String> getVisibleUserIds() {
+        return isPenanggung() ? family.getUserIds() : List.of(user.getUserId());
+    }
+
+    /**
+     * @return a number that changes every time the family snapshot does
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return a copy of a family member for a form to edit, so the snapshot only changes
+     *         once the edit is saved and reported through {@link #memberUpdated}
+     */
+    public User editableCopy(User member) {
+        User copy = family.editableCopy(member.getUserId());
+        return copy != null ? copy : member;
+    }
+
+    // --- Incremental updates, called on the FX thread after a successful write ---
+
+    /**
+     * A dependent was added; ignored unless they joined this user's family.
+     */
+    public void memberAdded(Tanggungan member) {
+        Penanggung head = family.getHead();
+        if (head != null && head.getUserId().equals(member.getPenanggungId())) {
+            replace(family.withMember(member));
+        }
+    }
+
+    /**
+     * A member's profile was edited.
+     */
+    public void memberUpdated(User member) {
+        replace(family.withUpdated(member));
+    }
+
+    public void memberRemoved(String tanggunganId) {
+        replace(family.withoutMember(tanggunganId));
+    }
+
+    private void replace(Family changed) {
+        family = changed;
+        version++;
+    }
+
+    // --- DAOs ---
+
+    public UserDAO getUserDAO() {
+        return userDAO;
+    }
+
+    public PenanggungDAO getPenanggungDAO() {
+        return penanggungDAO;
+    }
+
+    public TanggunganDAO getTanggunganDAO() {
+        return tanggunganDAO;
+    }
+
+    public AdminDAO getAdminDAO() {
+        return adminDAO;
+    }
+
+    public TransaksiDAO getTransaksiDAO() {
+        return transaksiDAO;
+    }
+
+    public UtangDAO getUtangDAO() {
+        return utangDAO;
+    }
+
+    public PaymentHistoryDAO getPaymentHistoryDAO() {
+        return paymentHistoryDAO;
+    }
+}
@@ -0,0 +1,62 @@
+package com.subwayit.gui;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Hands the results of background DAO calls back to the JavaFX Application Thread.
+ */
+public final class FxAsync {
+
+    /** Runs tasks on the JavaFX Application Thread. */
+    public static final Executor FX_THREAD = Platform::runLater;
+
+    private FxAsync() {
+    }
+
+    /**
+     * Calls onSuccess or onError on the FX thread once the future completes. Nothing is
+     * called if the future was cancelled, e.g. because the user left the page.
+     *
+     * @param onError receives the DAO's own exception, not the CompletionException
+     *                wrapping it
+     */
+    public static <T> void onFx(CompletableFuture<T> future, Consumer<? super T> onSuccess,
+            Consumer<Throwable> onError) {
+        future.whenCompleteAsync((result, error) -> {
+            if (error == null) {
+                onSuccess.accept(result);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            if (!(cause instanceof CancellationException)) {
+                onError.accept(cause);
+            }
+        }, FX_THREAD);
+    }
+
+    /**
+     * Like {@link #onFx(CompletableFuture, Consumer, Consumer)}, logging failures to stderr.
+     */
+    public static <T> void onFx(CompletableFuture<T> future, Consumer<? super T> onSuccess) {
+        onFx(future, onSuccess, error -> {
+            System.err.println("Background database call failed: " + error.getMessage());
+            error.printStackTrace();
+        });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
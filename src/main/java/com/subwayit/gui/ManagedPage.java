@@ -0,0 +1,28 @@
+package com.subwayit.gui;
+
+import javafx.scene.Scene;
+
+/**
+ * A page that {@link NavigationController} builds once and shows again on later visits.
+ */
+interface ManagedPage {
+
+    /**
+     * Builds the page; called once per page object.
+     */
+    Scene createScene();
+
+    /**
+     * Reloads the page's data if it changed since the page last loaded it. Called on the
+     * FX thread each time a built page is shown again.
+     *
+     * @return true if a reload was started
+     */
+    boolean refreshIfChanged();
+
+    /**
+     * Stops the page's loads and releases the listeners and rows it holds, so the page and
+     * its scene can be garbage collected.
+     */
+    void dispose();
+}
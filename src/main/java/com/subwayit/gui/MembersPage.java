@@ -30,9 +30,11 @@ import javafx.scene.shape.Rectangle;
 import javafx.scene.shape.Circle;
 import javafx.stage.Stage;
 
-public class MembersPage {
+public class MembersPage implements ManagedPage {
 
+    private final NavigationController navigation;
     private Stage primaryStage;
+    private final FamilyContext context;
     private User loggedInUser;
 
     private UserDAO userDAO;
@@ -44,6 +46,9 @@ public class MembersPage {
 
     private ObservableList<User> familyMembers;
     private GridPane memberCardsGrid;
+    private final PageLoader loader = new PageLoader("Members");
+    // FamilyContext version the cards were built from
+    private long shownVersion = -1;
 
     // Theme colors
     private static final String PRIMARY_GREEN = "#86DA71";
@@ -52,32 +57,36 @@ public class MembersPage {
     private static final String TEXT_DARK = "#2D3748";
     private static final String TEXT_GRAY = "#64748B";
 
-    public MembersPage(Stage primaryStage, User user, UserDAO userDAO, PenanggungDAO penanggungDAO,
-            TanggunganDAO tanggunganDAO, AdminDAO adminDAO, TransaksiDAO transaksiDAO, UtangDAO utangDAO) {
-        this.primaryStage = primaryStage;
-        this.loggedInUser = user;
-        this.userDAO = userDAO;
-        this.penanggungDAO = penanggungDAO;
-        this.tanggunganDAO = tanggunganDAO;
-        this.adminDAO = adminDAO;
-        this.transaksiDAO = transaksiDAO;
-        this.utangDAO = utangDAO; // Store the injected DAO
+    public MembersPage(NavigationController navigation) {
+        this.navigation = navigation;
+        this.primaryStage = navigation.getStage();
+        this.context = navigation.getContext();
+        this.loggedInUser = context.getUser();
+        this.userDAO = context.getUserDAO();
+        this.penanggungDAO = context.getPenanggungDAO();
+        this.tanggunganDAO = context.getTanggunganDAO();
+        this.adminDAO = context.getAdminDAO();
+        this.transaksiDAO = context.getTransaksiDAO();
+        this.utangDAO = context.getUtangDAO();
         this.familyMembers = FXCollections.observableArrayList();
     }
 
+    @Override
     public Scene createScene() {
-        BorderPane root = new BorderPane();
-        root.setTop(createModernNavigationBar());
+        return loader.track(loader.timed(() -> {
+            BorderPane root = new BorderPane();
+            root.setTop(createModernNavigationBar());
 
-        ScrollPane scrollPane = new ScrollPane(createModernContentArea());
-        scrollPane.setFitToWidth(true);
-        scrollPane.setStyle("-fx-background-color: white; -fx-background: white;");
+            ScrollPane scrollPane = new ScrollPane(createModernContentArea());
+            scrollPane.setFitToWidth(true);
+            scrollPane.setStyle("-fx-background-color: white; -fx-background: white;");
 
-        root.setCenter(scrollPane);
-        root.setStyle("-fx-background-color: linear-gradient(135deg, " + LIGHT_GREEN + " 0%, #ffffff 50%, "
-                + LIGHT_GREEN + " 100%);");
+            root.setCenter(scrollPane);
+            root.setStyle("-fx-background-color: linear-gradient(135deg, " + LIGHT_GREEN + " 0%, #ffffff 50%, "
+                    + LIGHT_GREEN + " 100%);");
 
-        return new Scene(root, 1200, 800);
+            return new Scene(root, 1200, 800);
+        }));
     }
 
     private HBox createModernNavigationBar() {
@@ -94,21 +103,13 @@ public class MembersPage {
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
         Button dashboardsBtn = createModernNavLink("Dashboard", "📊");
-        dashboardsBtn.setOnAction(e -> {
-            DashboardPage dp = new DashboardPage(primaryStage, loggedInUser, userDAO, penanggungDAO, tanggunganDAO,
-                    adminDAO, transaksiDAO, utangDAO);
-            primaryStage.setScene(dp.createScene());
-        });
+        dashboardsBtn.setOnAction(e -> navigation.show(NavigationController.Destination.DASHBOARD));
 
         Button membersBtn = createModernNavLink("Members", "👥");
         membersBtn.setStyle(membersBtn.getStyle() + "-fx-background-color: rgba(255,255,255,0.2);");
 
         Button debtBtn = createModernNavLink("Debt", "💰");
-        debtBtn.setOnAction(e -> {
-            DebtPage debtPage = new DebtPage(primaryStage, loggedInUser, userDAO, penanggungDAO, tanggunganDAO,
-                    adminDAO, transaksiDAO, utangDAO);
-            primaryStage.setScene(debtPage.createScene());
-        });
+        debtBtn.setOnAction(e -> navigation.show(NavigationController.Destination.DEBT));
 
         // Add profile button
         Button profileBtn = createProfileButton();
@@ -122,12 +123,8 @@ public class MembersPage {
             confirmAlert.setContentText("Are you sure you want to sign out?");
             confirmAlert.showAndWait().ifPresent(response -> {
                 if (response == ButtonType.OK) {
-                    com.subwayit.App app = new com.subwayit.App();
-                    try {
-                        app.start(primaryStage);
-                    } catch (Exception ex) {
-                        ex.printStackTrace();
-                    }
+                    // Disposes the session's pages before going back to the login screen
+                    navigation.signOut();
                 }
             });
         });
@@ -167,7 +164,7 @@ public class MembersPage {
         profileInfo.append("🆔 User ID: ").append(loggedInUser.getUserId()).append("\n");
 
         if ("Penanggung".equals(loggedInUser.getRole())) {
-            Penanggung penanggung = penanggungDAO.getPenanggungById(loggedInUser.getUserId());
+            Penanggung penanggung = context.getHead();
             if (penanggung != null) {
                 profileInfo.append("💼 Pekerjaan: ")
                         .append(penanggung.getPekerjaan() != null ? penanggung.getPekerjaan() : "Not specified")
@@ -185,98 +182,96 @@ public class MembersPage {
                     VBox dependentsContainer = new VBox(15);
 
                     int tanggunganCount = 1;
-                    for (String tanggunganId : penanggung.getAnggotaTanggunganIds()) {
-                        Tanggungan tanggungan = tanggunganDAO.getTanggunganById(tanggunganId);
-                        if (tanggungan != null) {
-                            // Create a container for each dependent
-                            VBox tanggunganBox = new VBox(8);
-                            tanggunganBox.setStyle(
-                                    "-fx-background-color: #F7FAFC; -fx-padding: 15; -fx-background-radius: 8; -fx-border-color: #E2E8F0; -fx-border-radius: 8;");
-
-                            // Header for this tanggungan
-                            Label tanggunganHeader = new Label(
-                                    "👤 Tanggungan " + tanggunganCount + ": " + tanggungan.getNama());
-                            tanggunganHeader.setFont(Font.font("Segoe UI", FontWeight.BOLD, 14));
-                            tanggunganHeader.setTextFill(Color.web(TEXT_DARK));
-
-                            // Create info grid
-                            GridPane infoGrid = new GridPane();
-                            infoGrid.setHgap(10);
-                            infoGrid.setVgap(8);
-
-                            // User ID row
-                            Label userIdLabel = new Label("🆔 User ID:");
-                            userIdLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
-                            TextField userIdField = new TextField(tanggungan.getUserId());
-                            userIdField.setEditable(false);
-                            userIdField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
-
-                            // Password row with copy button
-                            Label passwordLabel = new Label("🔒 Password:");
-                            passwordLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
-
-                            HBox passwordRow = new HBox(10);
-                            TextField passwordField = new TextField(tanggungan.getPassword());
-                            passwordField.setEditable(false);
-                            passwordField.setPrefWidth(150);
-                            passwordField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
-
-                            // Copy button next to password
-                            Button copyBtn = new Button("📋 Copy");
-                            copyBtn.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 11));
-                            copyBtn.setStyle("-fx-background-color: " + PRIMARY_GREEN + "; -fx-text-fill: white; " +
-                                    "-fx-background-radius: 6; -fx-cursor: hand; -fx-padding: 5 10 5 10;");
-
-                            copyBtn.setOnAction(e -> {
-                                String credentialsToCopy = "User ID: " + tanggungan.getUserId() + "\nPassword: "
-                                        + tanggungan.getPassword();
-                                copyToClipboard(credentialsToCopy);
-                                showModernAlert(Alert.AlertType.INFORMATION, "Copied!",
-                                        "User ID dan Password " + tanggungan.getNama() + " telah disalin!");
-                            });
-
-                            passwordRow.getChildren().addAll(passwordField, copyBtn);
-                            passwordRow.setAlignment(Pos.CENTER_LEFT);
-
-                            // Other info
-                            Label positionLabel = new Label("🏠 Position:");
-                            positionLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
-                            TextField positionField = new TextField(
-                                    tanggungan.getPosisiKeluarga() != null ? tanggungan.getPosisiKeluarga()
-                                            : "Not specified");
-                            positionField.setEditable(false);
-                            positionField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
-
-                            Label emailLabel = new Label("📧 Email:");
-                            emailLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
-                            TextField emailField = new TextField(tanggungan.getEmail());
-                            emailField.setEditable(false);
-                            emailField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
-
-                            // Add to grid
-                            infoGrid.add(userIdLabel, 0, 0);
-                            infoGrid.add(userIdField, 1, 0);
-                            infoGrid.add(passwordLabel, 0, 1);
-                            infoGrid.add(passwordRow, 1, 1);
-                            infoGrid.add(positionLabel, 0, 2);
-                            infoGrid.add(positionField, 1, 2);
-                            infoGrid.add(emailLabel, 0, 3);
-                            infoGrid.add(emailField, 1, 3);
-
-                            tanggunganBox.getChildren().addAll(tanggunganHeader, infoGrid);
-                            dependentsContainer.getChildren().add(tanggunganBox);
-
-                            // Add to text info (simplified version)
-                            profileInfo.append("👤 Tanggungan ").append(tanggunganCount).append(": ")
-                                    .append(tanggungan.getNama()).append("\n");
-                            profileInfo.append("   • User ID: ").append(tanggungan.getUserId()).append("\n");
-                            profileInfo.append("   • Password: ").append(tanggungan.getPassword())
-                                    .append(" [Copy button available]\n");
-                            if (tanggunganCount < penanggung.getAnggotaTanggunganIds().size()) {
-                                profileInfo.append("   ─".repeat(20)).append("\n");
-                            }
-                            tanggunganCount++;
+                    // Tanggungan sudah dimuat bersama keluarga saat login
+                    for (Tanggungan tanggungan : context.getDependents()) {
+                        // Create a container for each dependent
+                        VBox tanggunganBox = new VBox(8);
+                        tanggunganBox.setStyle(
+                                "-fx-background-color: #F7FAFC; -fx-padding: 15; -fx-background-radius: 8; -fx-border-color: #E2E8F0; -fx-border-radius: 8;");
+
+                        // Header for this tanggungan
+                        Label tanggunganHeader = new Label(
+                                "👤 Tanggungan " + tanggunganCount + ": " + tanggungan.getNama());
+                        tanggunganHeader.setFont(Font.font("Segoe UI", FontWeight.BOLD, 14));
+                        tanggunganHeader.setTextFill(Color.web(TEXT_DARK));
+
+                        // Create info grid
+                        GridPane infoGrid = new GridPane();
+                        infoGrid.setHgap(10);
+                        infoGrid.setVgap(8);
+
+                        // User ID row
+                        Label userIdLabel = new Label("🆔 User ID:");
+                        userIdLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
+                        TextField userIdField = new TextField(tanggungan.getUserId());
+                        userIdField.setEditable(false);
+                        userIdField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
+
+                        // Password row with copy button
+                        Label passwordLabel = new Label("🔒 Password:");
+                        passwordLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
+
+                        HBox passwordRow = new HBox(10);
+                        TextField passwordField = new TextField(tanggungan.getPassword());
+                        passwordField.setEditable(false);
+                        passwordField.setPrefWidth(150);
+                        passwordField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
+
+                        // Copy button next to password
+                        Button copyBtn = new Button("📋 Copy");
+                        copyBtn.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 11));
+                        copyBtn.setStyle("-fx-background-color: " + PRIMARY_GREEN + "; -fx-text-fill: white; " +
+                                "-fx-background-radius: 6; -fx-cursor: hand; -fx-padding: 5 10 5 10;");
+
+                        copyBtn.setOnAction(e -> {
+                            String credentialsToCopy = "User ID: " + tanggungan.getUserId() + "\nPassword: "
+                                    + tanggungan.getPassword();
+                            copyToClipboard(credentialsToCopy);
+                            showModernAlert(Alert.AlertType.INFORMATION, "Copied!",
+                                    "User ID dan Password " + tanggungan.getNama() + " telah disalin!");
+                        });
+
+                        passwordRow.getChildren().addAll(passwordField, copyBtn);
+                        passwordRow.setAlignment(Pos.CENTER_LEFT);
+
+                        // Other info
+                        Label positionLabel = new Label("🏠 Position:");
+                        positionLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
+                        TextField positionField = new TextField(
+                                tanggungan.getPosisiKeluarga() != null ? tanggungan.getPosisiKeluarga()
+                                        : "Not specified");
+                        positionField.setEditable(false);
+                        positionField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
+
+                        Label emailLabel = new Label("📧 Email:");
+                        emailLabel.setFont(Font.font("Segoe UI", FontWeight.MEDIUM, 12));
+                        TextField emailField = new TextField(tanggungan.getEmail());
+                        emailField.setEditable(false);
+                        emailField.setStyle("-fx-background-color: white; -fx-border-color: #E2E8F0;");
+
+                        // Add to grid
+                        infoGrid.add(userIdLabel, 0, 0);
+                        infoGrid.add(userIdField, 1, 0);
+                        infoGrid.add(passwordLabel, 0, 1);
+                        infoGrid.add(passwordRow, 1, 1);
+                        infoGrid.add(positionLabel, 0, 2);
+                        infoGrid.add(positionField, 1, 2);
+                        infoGrid.add(emailLabel, 0, 3);
+                        infoGrid.add(emailField, 1, 3);
+
+                        tanggunganBox.getChildren().addAll(tanggunganHeader, infoGrid);
+                        dependentsContainer.getChildren().add(tanggunganBox);
+
+                        // Add to text info (simplified version)
+                        profileInfo.append("👤 Tanggungan ").append(tanggunganCount).append(": ")
+                                .append(tanggungan.getNama()).append("\n");
+                        profileInfo.append("   • User ID: ").append(tanggungan.getUserId()).append("\n");
+                        profileInfo.append("   • Password: ").append(tanggungan.getPassword())
+                                .append(" [Copy button available]\n");
+                        if (tanggunganCount < penanggung.getAnggotaTanggunganIds().size()) {
+                            profileInfo.append("   ─".repeat(20)).append("\n");
                         }
+                        tanggunganCount++;
                     }
 
                     // Add scroll pane for the dependents container
@@ -291,7 +286,7 @@ public class MembersPage {
                 }
             }
         } else if ("Tanggungan".equals(loggedInUser.getRole())) {
-            Tanggungan tanggungan = tanggunganDAO.getTanggunganById(loggedInUser.getUserId());
+            Tanggungan tanggungan = context.getSelfAsTanggungan();
             if (tanggungan != null) {
                 profileInfo.append("💼 Pekerjaan: ")
                         .append(tanggungan.getPekerjaan() != null ? tanggungan.getPekerjaan() : "Not specified")
@@ -303,7 +298,7 @@ public class MembersPage {
                         .append(tanggungan.getPendidikan() != null ? tanggungan.getPendidikan() : "Not specified");
 
                 if (tanggungan.getPenanggungId() != null && !tanggungan.getPenanggungId().isEmpty()) {
-                    Penanggung penanggung = penanggungDAO.getPenanggungById(tanggungan.getPenanggungId());
+                    Penanggung penanggung = context.getHead();
                     if (penanggung != null) {
                         profileInfo.append("\n👨‍👩‍👧‍👦 Kepala Keluarga: ").append(penanggung.getNama());
                     }
@@ -413,7 +408,7 @@ public class MembersPage {
                 AddMemberForm addMemberForm = new AddMemberForm(loggedInUser, userDAO, penanggungDAO, tanggunganDAO,
                         adminDAO);
                 addMemberForm.display();
-                loadAndDisplayMembers();
+                memberAdded(addMemberForm.getAddedTanggungan());
             });
             sectionHeader.getChildren().add(addMemberBtn);
         }
@@ -423,49 +418,44 @@ public class MembersPage {
         memberCardsGrid.setVgap(25);
         memberCardsGrid.setAlignment(Pos.CENTER);
 
-        loadAndDisplayMembers();
+        showMembers();
 
         membersSection.getChildren().addAll(sectionHeader, memberCardsGrid);
         return membersSection;
     }
 
-    private void loadAndDisplayMembers() {
+    /**
+     * Shows the family from the session's FamilyContext, which was loaded at login. No
+     * query runs here; changes made on this page are applied to the context directly.
+     */
+    private void showMembers() {
+        shownVersion = context.getVersion();
+        memberCardsGrid.getChildren().clear();
+        familyMembers.setAll(context.getFamilyMembers());
+        populateGrid();
+    }
+
+    @Override
+    public boolean refreshIfChanged() {
+        if (context.getVersion() == shownVersion) {
+            return false;
+        }
+        showMembers();
+        return true;
+    }
+
+    @Override
+    public void dispose() {
+        loader.cancel();
         memberCardsGrid.getChildren().clear();
         familyMembers.clear();
+    }
 
-        if ("Penanggung".equals(loggedInUser.getRole())) {
-            Penanggung penanggung = penanggungDAO.getPenanggungById(loggedInUser.getUserId());
-            if (penanggung != null) {
-                familyMembers.add(penanggung);
-                if (penanggung.getAnggotaTanggunganIds() != null) {
-                    for (String tanggunganId : penanggung.getAnggotaTanggunganIds()) {
-                        Tanggungan tanggungan = tanggunganDAO.getTanggunganById(tanggunganId);
-                        if (tanggungan != null) {
-                            familyMembers.add(tanggungan);
-                        }
-                    }
-                }
-            }
-        } else if ("Tanggungan".equals(loggedInUser.getRole())) {
-            Tanggungan tanggungan = tanggunganDAO.getTanggunganById(loggedInUser.getUserId());
-            if (tanggungan != null && tanggungan.getPenanggungId() != null && !tanggungan.getPenanggungId().isEmpty()) {
-                String penanggungId = tanggungan.getPenanggungId();
-                Penanggung headOfFamily = penanggungDAO.getPenanggungById(penanggungId);
-                if (headOfFamily != null) {
-                    familyMembers.add(headOfFamily);
-                    if (headOfFamily.getAnggotaTanggunganIds() != null) {
-                        for (String memberId : headOfFamily.getAnggotaTanggunganIds()) {
-                            Tanggungan member = tanggunganDAO.getTanggunganById(memberId);
-                            if (member != null)
-                                familyMembers.add(member);
-                        }
-                    }
-                }
-            } else if (tanggungan != null) {
-                familyMembers.add(tanggungan);
-            }
+    private void memberAdded(Tanggungan added) {
+        if (added != null) {
+            context.memberAdded(added);
+            showMembers();
         }
-        populateGrid();
     }
 
     private void populateGrid() {
@@ -540,11 +530,14 @@ public class MembersPage {
         editBtn.setDisable(!canEdit);
 
         editBtn.setOnAction(e -> {
-            // Open a new form for editing
-            EditMemberForm editForm = new EditMemberForm(member, userDAO, penanggungDAO, tanggunganDAO);
+            // The form edits a copy, the family snapshot only changes once the edit is saved
+            User editable = context.editableCopy(member);
+            EditMemberForm editForm = new EditMemberForm(editable, userDAO, penanggungDAO, tanggunganDAO);
             editForm.display();
-            // Refresh the view after the form is closed
-            loadAndDisplayMembers();
+            if (editForm.isSaved()) {
+                context.memberUpdated(editable);
+                showMembers();
+            }
         });
 
         VBox.setVgrow(infoContainer, Priority.ALWAYS); // Make info container grow
@@ -578,7 +571,7 @@ public class MembersPage {
             AddMemberForm addMemberForm = new AddMemberForm(loggedInUser, userDAO, penanggungDAO, tanggunganDAO,
                     adminDAO);
             addMemberForm.display();
-            loadAndDisplayMembers();
+            memberAdded(addMemberForm.getAddedTanggungan());
         });
 
         card.setOnMouseEntered(e -> card.setStyle(card.getStyle() + "-fx-background-color: " + LIGHT_GREEN + ";"));
@@ -0,0 +1,237 @@
+package com.subwayit.gui;
+
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Switches between the pages of a logged-in session and keeps every page it has built.
+ *
+ * The first visit to a page builds it and its scene; later visits put the same scene
+ * back on the stage, with the page's rows, scroll position and selection intact, and only
+ * reload the page if its data changed in the meantime (see
+ * {@link ManagedPage#refreshIfChanged()}). On sign out every page is disposed: its loads
+ * are cancelled and its listeners removed, so the session's scenes and tables can be
+ * collected. The login screen is then shown again by the application, which keeps its
+ * database setup and DAOs for the next session.
+ *
+ * Each navigation is timed, together with the number of pages kept, the disposed pages
+ * that are still reachable and the heap in use. The figures are read through
+ * {@link #getStats()} or reported to the diagnostics listener after every navigation.
+ */
+public class NavigationController {
+
+    public enum Destination { DASHBOARD, MEMBERS, DEBT }
+
+    private final Stage stage;
+    private final FamilyContext context;
+    private final Consumer<Scene> sceneSetter;
+    private final Function<Destination, ManagedPage> pageFactory;
+    private final Runnable showLogin;
+
+    // Only touched on the FX thread
+    private final Map<Destination, Entry> pages = new EnumMap<>(Destination.class);
+    private final List<WeakReference<ManagedPage>> disposed = new ArrayList<>();
+    private Consumer<Stats> diagnosticsListener;
+    private long navigations;
+    private long pagesBuilt;
+    private long refreshes;
+    private long totalNavigationNanos;
+    private long maxNavigationNanos;
+    private long lastNavigationNanos;
+
+    /**
+     * @param showLogin puts the login screen back on the stage after {@link #signOut()}
+     */
+    public NavigationController(Stage stage, FamilyContext context, Runnable showLogin) {
+        this(stage, context, stage::setScene, null, showLogin);
+    }
+
+    NavigationController(Stage stage, FamilyContext context, Consumer<Scene> sceneSetter,
+            Function<Destination, ManagedPage> pageFactory, Runnable showLogin) {
+        this.stage = stage;
+        this.context = context;
+        this.sceneSetter = sceneSetter;
+        this.pageFactory = pageFactory != null ? pageFactory : this::createPage;
+        this.showLogin = showLogin;
+    }
+
+    private ManagedPage createPage(Destination destination) {
+        switch (destination) {
+            case MEMBERS:
+                return new MembersPage(this);
+            case DEBT:
+                return new DebtPage(this);
+            default:
+                return new DashboardPage(this);
+        }
+    }
+
+    /**
+     * Shows a page, building it on the first visit and refreshing it only if its data
+     * changed since it was last shown.
+     */
+    public void show(Destination destination) {
+        long start = System.nanoTime();
+        Entry entry = pages.get(destination);
+        if (entry == null) {
+            ManagedPage page = pageFactory.apply(destination);
+            entry = new Entry(page, page.createScene());
+            pages.put(destination, entry);
+            pagesBuilt++;
+            sceneSetter.accept(entry.scene);
+        } else {
+            sceneSetter.accept(entry.scene);
+            // The scene is back on the stage before its load starts, see PageLoader.track
+            if (entry.page.refreshIfChanged()) {
+                refreshes++;
+            }
+        }
+        recordNavigation(System.nanoTime() - start);
+    }
+
+    /**
+     * Disposes every page and returns to the login screen.
+     */
+    public void signOut() {
+        dispose();
+        showLogin.run();
+    }
+
+    /**
+     * Disposes every page built so far. The controller may still be used afterwards, it
+     * then builds the pages again.
+     */
+    public void dispose() {
+        for (Entry entry : pages.values()) {
+            entry.page.dispose();
+            disposed.add(new WeakReference<>(entry.page));
+        }
+        pages.clear();
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public FamilyContext getContext() {
+        return context;
+    }
+
+    // --- Diagnostics ---
+
+    /**
+     * Receives the stats after every navigation.
+     */
+    public void setDiagnosticsListener(Consumer<Stats> listener) {
+        this.diagnosticsListener = listener;
+    }
+
+    private void recordNavigation(long nanos) {
+        navigations++;
+        totalNavigationNanos += nanos;
+        maxNavigationNanos = Math.max(maxNavigationNanos, nanos);
+        lastNavigationNanos = nanos;
+
+        if (diagnosticsListener != null) {
+            diagnosticsListener.accept(getStats());
+        }
+    }
+
+    /**
+     * @return navigation latency and retention figures of this session so far
+     */
+    public Stats getStats() {
+        return new Stats(navigations, pagesBuilt, refreshes, lastNavigationNanos / 1_000_000.0,
+                maxNavigationNanos / 1_000_000.0,
+                navigations == 0 ? 0.0 : totalNavigationNanos / 1_000_000.0 / navigations, pages.size(),
+                countUncollected(), ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+    }
+
+    // Disposed pages that are still reachable after a GC point to a leaked listener
+    private int countUncollected() {
+        int count = 0;
+        for (Iterator<WeakReference<ManagedPage>> it = disposed.iterator(); it.hasNext();) {
+            if (it.next().get() == null) {
+                it.remove();
+            } else {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A built page and the scene it is shown in.
+     */
+    private static final class Entry {
+        private final ManagedPage page;
+        private final Scene scene;
+
+        Entry(ManagedPage page, Scene scene) {
+            this.page = page;
+            this.scene = scene;
+        }
+    }
+
+    /**
+     * Immutable snapshot of the navigation metrics; times in milliseconds.
+     */
+    public static class Stats {
+        private final long navigations;
+        private final long pagesBuilt;
+        private final long refreshes;
+        private final double lastNavigationMs;
+        private final double maxNavigationMs;
+        private final double avgNavigationMs;
+        private final int retainedPages;
+        private final int disposedUncollected;
+        private final long usedHeapBytes;
+
+        Stats(long navigations, long pagesBuilt, long refreshes, double lastNavigationMs, double maxNavigationMs,
+                double avgNavigationMs, int retainedPages, int disposedUncollected, long usedHeapBytes) {
+            this.navigations = navigations;
+            this.pagesBuilt = pagesBuilt;
+            this.refreshes = refreshes;
+            this.lastNavigationMs = lastNavigationMs;
+            this.maxNavigationMs = maxNavigationMs;
+            this.avgNavigationMs = avgNavigationMs;
+            this.retainedPages = retainedPages;
+            this.disposedUncollected = disposedUncollected;
+            this.usedHeapBytes = usedHeapBytes;
+        }
+
+        public long getNavigations() { return navigations; }
+        /** Pages built from scratch; every other navigation reused a built page. */
+        public long getPagesBuilt() { return pagesBuilt; }
+        /** Revisits that reloaded the page because its data had changed. */
+        public long getRefreshes() { return refreshes; }
+        /** FX-thread time of the most recent navigation, until its scene was on the stage. */
+        public double getLastNavigationMs() { return lastNavigationMs; }
+        public double getMaxNavigationMs() { return maxNavigationMs; }
+        public double getAvgNavigationMs() { return avgNavigationMs; }
+        /** Pages currently kept for reuse. */
+        public int getRetainedPages() { return retainedPages; }
+        /** Disposed pages the garbage collector has not reclaimed yet. */
+        public int getDisposedUncollected() { return disposedUncollected; }
+        /** Heap in use when the snapshot was taken. */
+        public long getUsedHeapBytes() { return usedHeapBytes; }
+
+        @Override
+        public String toString() {
+            return String.format("last=%.1fms (avg=%.1fms, max=%.1fms, navigations=%d, built=%d, refreshed=%d), "
+                    + "retainedPages=%d, disposedUncollected=%d, heapUsed=%dKB", lastNavigationMs, avgNavigationMs,
+                    maxNavigationMs, navigations, pagesBuilt, refreshes, retainedPages, disposedUncollected,
+                    usedHeapBytes / 1024);
+        }
+    }
+}
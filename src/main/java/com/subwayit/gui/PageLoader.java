@@ -0,0 +1,262 @@
+package com.subwayit.gui;
+
+import com.subwayit.dao.DaoExecutor;
+
+import javafx.beans.value.ChangeListener;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.layout.HBox;
+import javafx.stage.Window;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Loads a page's data in the background and applies it on the FX thread.
+ *
+ * A page builds its scene with placeholders, then calls {@link #load} once per section:
+ * the query runs on the {@link DaoExecutor}, and the apply callback gets the whole
+ * result in a single FX task, so a section changes in one pulse instead of row by row.
+ * Starting a load under a key that is still loading cancels the older one, and every
+ * load is cancelled once the page's scene leaves its window, so a page the user has
+ * navigated away from does not touch the database or its nodes until it is shown again.
+ * {@link #cancel()} stops the loader for good when the page is discarded.
+ *
+ * Each page load also records how long it held the FX thread: the time spent building
+ * the scene (see {@link #timed}) plus every apply callback, from the first call until no
+ * load is pending. The totals are kept per page name and read through {@link #getStats}.
+ */
+public class PageLoader {
+
+    private static final Map<String, Totals> TOTALS = new ConcurrentHashMap<>();
+
+    private final String pageName;
+    private final DaoExecutor executor;
+    private final Executor fxThread;
+    private final Map<String, CompletableFuture<?>> pending = new HashMap<>();
+    private Scene trackedScene;
+    private ChangeListener<Window> windowListener;
+
+    // Current page load, only touched on the FX thread
+    private long loadStartedNanos;
+    private long blockedNanos;
+    private boolean closed;
+
+    public PageLoader(String pageName) {
+        this(pageName, DaoExecutor.shared(), FxAsync.FX_THREAD);
+    }
+
+    PageLoader(String pageName, DaoExecutor executor, Executor fxThread) {
+        this.pageName = pageName;
+        this.executor = executor;
+        this.fxThread = fxThread;
+    }
+
+    /**
+     * Cancels the page's loads as soon as the scene is replaced on its stage. The loader
+     * stays usable, so a page that is shown again can load anew.
+     *
+     * @return the scene, for chaining in createScene()
+     */
+    public Scene track(Scene scene) {
+        untrack();
+        windowListener = (obs, oldWindow, newWindow) -> {
+            if (oldWindow != null && newWindow == null) {
+                cancelPending();
+            }
+        };
+        scene.windowProperty().addListener(windowListener);
+        trackedScene = scene;
+        return scene;
+    }
+
+    /**
+     * Runs work that has to happen on the FX thread, such as building the scene, and
+     * counts its duration towards the current page load.
+     */
+    public <T> T timed(Supplier<T> fxWork) {
+        begin();
+        long start = System.nanoTime();
+        try {
+            return fxWork.get();
+        } finally {
+            blockedNanos += System.nanoTime() - start;
+            finishIfIdle();
+        }
+    }
+
+    /**
+     * Runs the query off the FX thread and passes its result to apply on the FX thread.
+     * Must be called on the FX thread.
+     *
+     * @param key   the page section being loaded; a newer load of the same key replaces
+     *              one still in flight
+     * @param query DAO calls only, no scene graph access
+     * @param apply updates the nodes; not called if the load was cancelled or failed
+     */
+    public <T> void load(String key, Supplier<T> query, Consumer<? super T> apply) {
+        if (closed) {
+            return;
+        }
+        begin();
+        CompletableFuture<?> previous = pending.remove(key);
+        if (previous != null) {
+            previous.cancel(true);
+        }
+
+        CompletableFuture<T> future = executor.read(query);
+        pending.put(key, future);
+        future.whenCompleteAsync((result, error) -> {
+            if (pending.get(key) != future) {
+                return; // cancelled or replaced by a newer load
+            }
+            pending.remove(key);
+            long start = System.nanoTime();
+            try {
+                if (error == null) {
+                    apply.accept(result);
+                } else {
+                    System.err.println("Error loading " + pageName + " (" + key + "): " + error.getMessage());
+                    error.printStackTrace();
+                }
+            } finally {
+                blockedNanos += System.nanoTime() - start;
+                finishIfIdle();
+            }
+        }, fxThread);
+    }
+
+    /**
+     * @return true while a load under this key has not been applied yet
+     */
+    public boolean isLoading(String key) {
+        return pending.containsKey(key);
+    }
+
+    /**
+     * Cancels every load in flight, ignores later calls to {@link #load} and stops
+     * listening to the tracked scene. Called when the page is discarded.
+     */
+    public void cancel() {
+        closed = true;
+        cancelPending();
+        untrack();
+    }
+
+    private void cancelPending() {
+        for (CompletableFuture<?> future : pending.values()) {
+            future.cancel(true);
+        }
+        pending.clear();
+        loadStartedNanos = 0;
+    }
+
+    private void untrack() {
+        if (trackedScene != null) {
+            trackedScene.windowProperty().removeListener(windowListener);
+            trackedScene = null;
+            windowListener = null;
+        }
+    }
+
+    private void begin() {
+        if (loadStartedNanos == 0) {
+            loadStartedNanos = System.nanoTime();
+            blockedNanos = 0;
+        }
+    }
+
+    private void finishIfIdle() {
+        if (!pending.isEmpty() || loadStartedNanos == 0) {
+            return;
+        }
+        long readyNanos = System.nanoTime() - loadStartedNanos;
+        loadStartedNanos = 0;
+        TOTALS.computeIfAbsent(pageName, name -> new Totals()).record(blockedNanos, readyNanos);
+    }
+
+    /**
+     * @return FX-thread metrics for every page load of this page so far, or null if it
+     *         has not finished loading yet
+     */
+    public static Stats getStats(String pageName) {
+        Totals totals = TOTALS.get(pageName);
+        return totals == null ? null : totals.snapshot();
+    }
+
+    /**
+     * A small spinner with a caption, used as a placeholder while a section loads.
+     */
+    public static Node spinner(String caption) {
+        ProgressIndicator indicator = new ProgressIndicator();
+        indicator.setPrefSize(24, 24);
+        HBox box = new HBox(10, indicator, new Label(caption));
+        box.setAlignment(Pos.CENTER);
+        return box;
+    }
+
+    /**
+     * Running totals for one page name.
+     */
+    private static final class Totals {
+        private long loads;
+        private long totalBlockedNanos;
+        private long maxBlockedNanos;
+        private long lastBlockedNanos;
+        private long lastReadyNanos;
+
+        synchronized void record(long blockedNanos, long readyNanos) {
+            loads++;
+            totalBlockedNanos += blockedNanos;
+            maxBlockedNanos = Math.max(maxBlockedNanos, blockedNanos);
+            lastBlockedNanos = blockedNanos;
+            lastReadyNanos = readyNanos;
+        }
+
+        synchronized Stats snapshot() {
+            return new Stats(loads, lastBlockedNanos / 1_000_000.0, maxBlockedNanos / 1_000_000.0,
+                    loads == 0 ? 0.0 : totalBlockedNanos / 1_000_000.0 / loads, lastReadyNanos / 1_000_000.0);
+        }
+    }
+
+    /**
+     * Immutable snapshot of one page's load metrics, in milliseconds.
+     */
+    public static class Stats {
+        private final long loads;
+        private final double lastBlockedMs;
+        private final double maxBlockedMs;
+        private final double avgBlockedMs;
+        private final double lastReadyMs;
+
+        Stats(long loads, double lastBlockedMs, double maxBlockedMs, double avgBlockedMs, double lastReadyMs) {
+            this.loads = loads;
+            this.lastBlockedMs = lastBlockedMs;
+            this.maxBlockedMs = maxBlockedMs;
+            this.avgBlockedMs = avgBlockedMs;
+            this.lastReadyMs = lastReadyMs;
+        }
+
+        public long getLoads() { return loads; }
+        /** FX-thread time of the most recent load. */
+        public double getLastBlockedMs() { return lastBlockedMs; }
+        public double getMaxBlockedMs() { return maxBlockedMs; }
+        public double getAvgBlockedMs() { return avgBlockedMs; }
+        /** Wall time from the start of the most recent load until its last section was applied. */
+        public double getLastReadyMs() { return lastReadyMs; }
+
+        @Override
+        public String toString() {
+            return String.format("fxBlocked=%.1fms (avg=%.1fms, max=%.1fms, loads=%d), ready=%.1fms",
+                    lastBlockedMs, avgBlockedMs, maxBlockedMs, loads, lastReadyMs);
+        }
+    }
+}
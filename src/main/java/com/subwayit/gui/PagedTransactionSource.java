@@ -0,0 +1,246 @@
+package com.subwayit.gui;
+
+import com.subwayit.dao.TransaksiDAO;
+import com.subwayit.model.Transaksi;
+
+import javafx.beans.value.ChangeListener;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.Skin;
+import javafx.scene.control.TableView;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Feeds a TableView one page of transactions at a time, newest first.
+ * The first page is loaded by {@link #reset(List)}, or handed over by {@link #show} when the
+ * page loaded it together with other data; further pages are appended when the table is
+ * scrolled close to the bottom, so opening the dashboard costs one page regardless of how
+ * long the family's history is. Pages are read through the {@link PageLoader}, off the FX
+ * thread.
+ */
+public class PagedTransactionSource {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    // Load the next page once the scroll bar is this close to the end
+    private static final double LOAD_THRESHOLD = 0.9;
+
+    private static final String NEXT_PAGE = "nextPage";
+
+    // The order getTransactionsPage returns rows in: newest first, ties by ID descending
+    private static final Comparator<Transaksi> NEWEST_FIRST = Comparator
+            .comparing(Transaksi::getTanggalTransaksi)
+            .thenComparing(Transaksi::getTransaksiId)
+            .reversed();
+
+    private final TransaksiDAO transaksiDAO;
+    private final PageLoader loader;
+    private final int pageSize;
+    private final ObservableList<Transaksi> items = FXCollections.observableArrayList();
+
+    // Installed by attachTo, removed again by detachFrom
+    private ChangeListener<Skin<?>> skinListener;
+    private ScrollBar scrollBar;
+    private ChangeListener<Number> scrollListener;
+
+    private List<String> userIds = new ArrayList<>();
+    private TransaksiDAO.PageCursor cursor;
+    private boolean exhausted = true;
+
+    public PagedTransactionSource(TransaksiDAO transaksiDAO, PageLoader loader) {
+        this(transaksiDAO, loader, DEFAULT_PAGE_SIZE);
+    }
+
+    public PagedTransactionSource(TransaksiDAO transaksiDAO, PageLoader loader, int pageSize) {
+        this.transaksiDAO = transaksiDAO;
+        this.loader = loader;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * @return the rows loaded so far; bind this to the table
+     */
+    public ObservableList<Transaksi> getItems() {
+        return items;
+    }
+
+    /**
+     * Drops the loaded rows and loads the first page for the given users.
+     */
+    public void reset(List<String> userIds) {
+        this.userIds = new ArrayList<>(userIds);
+        this.cursor = null;
+        this.exhausted = false;
+        items.clear();
+        requestPage();
+    }
+
+    /**
+     * Reads the first page on the calling thread; meant for a {@link PageLoader} query whose
+     * result is then passed to {@link #show}.
+     */
+    public TransaksiDAO.TransaksiPage loadFirstPage(List<String> userIds) {
+        return transaksiDAO.getTransactionsPage(userIds, null, pageSize);
+    }
+
+    /**
+     * Replaces the rows with a first page that was loaded elsewhere.
+     */
+    public void show(List<String> userIds, TransaksiDAO.TransaksiPage firstPage) {
+        this.userIds = new ArrayList<>(userIds);
+        this.cursor = null;
+        this.exhausted = false;
+        items.clear();
+        append(firstPage);
+    }
+
+    /**
+     * Starts loading the next page, if there is one and none is loading already. The rows
+     * are appended once the page arrives.
+     */
+    public void loadNextPage() {
+        if (!exhausted && !loader.isLoading(NEXT_PAGE)) {
+            requestPage();
+        }
+    }
+
+    // Replaces a page load still in flight, e.g. one for the users before a reset
+    private void requestPage() {
+        List<String> ids = userIds;
+        TransaksiDAO.PageCursor after = cursor;
+        loader.load(NEXT_PAGE, () -> transaksiDAO.getTransactionsPage(ids, after, pageSize), page -> {
+            if (ids == userIds && after == cursor) {
+                append(page);
+            }
+        });
+    }
+
+    private void append(TransaksiDAO.TransaksiPage page) {
+        items.addAll(page.getItems());
+        cursor = page.getNextCursor();
+        exhausted = !page.hasMore();
+    }
+
+    /**
+     * Puts a transaction that was added or edited where the newest-first order places it.
+     * An edit that keeps its place replaces the row in place, so the table keeps its scroll
+     * position and selection. A row that sorts after the last loaded row is left out
+     * while more pages remain, since scrolling will load it.
+     *
+     * @return true if a row was added, replaced or removed
+     */
+    public boolean upsert(Transaksi transaksi) {
+        int index = indexOf(transaksi.getTransaksiId());
+        boolean visible = userIds.contains(transaksi.getUserId());
+        if (index >= 0 && visible && fitsAt(index, transaksi)) {
+            items.set(index, transaksi);
+            return true;
+        }
+        boolean changed = index >= 0;
+        if (changed) {
+            items.remove(index);
+        }
+        if (!visible) {
+            return changed;
+        }
+        int position = 0;
+        while (position < items.size() && NEWEST_FIRST.compare(items.get(position), transaksi) < 0) {
+            position++;
+        }
+        if (position == items.size() && !exhausted) {
+            return changed;
+        }
+        items.add(position, transaksi);
+        return true;
+    }
+
+    /**
+     * Removes a deleted transaction's row, if it is loaded.
+     */
+    public boolean remove(String transaksiId) {
+        int index = indexOf(transaksiId);
+        if (index < 0) {
+            return false;
+        }
+        items.remove(index);
+        return true;
+    }
+
+    private int indexOf(String transaksiId) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getTransaksiId().equals(transaksiId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean fitsAt(int index, Transaksi transaksi) {
+        return (index == 0 || NEWEST_FIRST.compare(items.get(index - 1), transaksi) < 0)
+                && (index == items.size() - 1 || NEWEST_FIRST.compare(transaksi, items.get(index + 1)) < 0);
+    }
+
+    public boolean hasMore() {
+        return !exhausted;
+    }
+
+    /**
+     * Shows the loaded rows in the table and loads more whenever its vertical scroll bar
+     * nears the bottom. The scroll bar only exists once the table has a skin, so the
+     * listener is installed when the skin is created.
+     */
+    public void attachTo(TableView<Transaksi> table) {
+        table.setItems(items);
+        if (table.getSkin() != null) {
+            listenToScrollBar(table);
+        } else {
+            skinListener = (obs, oldSkin, newSkin) -> {
+                if (newSkin != null && scrollBar == null) {
+                    listenToScrollBar(table);
+                }
+            };
+            table.skinProperty().addListener(skinListener);
+        }
+    }
+
+    /**
+     * Removes the listeners installed by {@link #attachTo} and drops the loaded rows, so
+     * a discarded table and this source can be collected.
+     */
+    public void detachFrom(TableView<Transaksi> table) {
+        if (skinListener != null) {
+            table.skinProperty().removeListener(skinListener);
+            skinListener = null;
+        }
+        if (scrollBar != null) {
+            scrollBar.valueProperty().removeListener(scrollListener);
+            scrollBar = null;
+            scrollListener = null;
+        }
+        table.setItems(null);
+        items.clear();
+        exhausted = true;
+    }
+
+    private void listenToScrollBar(TableView<Transaksi> table) {
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                ScrollBar bar = (ScrollBar) node;
+                scrollListener = (obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= bar.getMax() * LOAD_THRESHOLD) {
+                        loadNextPage();
+                    }
+                };
+                bar.valueProperty().addListener(scrollListener);
+                scrollBar = bar;
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.subwayit.model;
+
+import java.time.LocalDate;
+
+/**
+ * One payment made against a debt.
+ * Maps to the 'payment_history' table.
+ */
+public class PaymentHistory {
+    private long id;              // From 'id', assigned by the database
+    private String utangId;       // The debt this payment belongs to
+    private double paymentAmount;
+    private LocalDate paymentDate;
+    private String notes;
+
+    public PaymentHistory(long id, String utangId, double paymentAmount, LocalDate paymentDate, String notes) {
+        this.id = id;
+        this.utangId = utangId;
+        this.paymentAmount = paymentAmount;
+        this.paymentDate = paymentDate;
+        this.notes = notes;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getUtangId() {
+        return utangId;
+    }
+
+    public double getPaymentAmount() {
+        return paymentAmount;
+    }
+
+    public LocalDate getPaymentDate() {
+        return paymentDate;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentHistory{" +
+                "id=" + id +
+                ", utangId='" + utangId + '\'' +
+                ", paymentAmount=" + paymentAmount +
+                ", paymentDate=" + paymentDate +
+                '}';
+    }
+}
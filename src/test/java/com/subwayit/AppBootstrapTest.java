@@ -0,0 +1,80 @@
+package com.subwayit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.subwayit.dao.DaoExecutor;
+import com.subwayit.dao.EntityCache;
+import com.subwayit.dao.LruCache;
+import com.subwayit.dao.UserDAO;
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.TestDatabase;
+import com.subwayit.model.User;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AppBootstrapTest {
+
+    private TestDatabase db;
+    private DaoExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        new UserDAO().addUser(new User("P-1", "Budi", 45, "budi@example.com", "x", "Penanggung"));
+        // Start from a cold pool and cache, as on a fresh launch
+        DatabaseManager.shutdown();
+        EntityCache.clear();
+        executor = new DaoExecutor(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        db.close();
+    }
+
+    @Test
+    void startPreparesDaosPoolAndUserCache() throws Exception {
+        AppBootstrap bootstrap = new AppBootstrap(executor);
+
+        AppBootstrap.Services services = bootstrap.start().get(10, TimeUnit.SECONDS);
+
+        assertNotNull(services.utangDAO);
+        assertTrue(DatabaseManager.getPoolStats().getCreated() >= 4);
+        LruCache.Stats users = userCacheStats();
+        assertEquals(1, users.getSize());
+
+        // The first login lookup is a cache hit
+        long hitsBefore = users.getHits();
+        assertEquals("Budi", services.userDAO.getUserByUserId("P-1").getNama());
+        assertEquals(hitsBefore + 1, userCacheStats().getHits());
+    }
+
+    @Test
+    void recordsFirstFrameAndInteractiveOnce() throws Exception {
+        AppBootstrap bootstrap = new AppBootstrap(executor);
+        bootstrap.start().get(10, TimeUnit.SECONDS);
+
+        bootstrap.markFirstFrame();
+        bootstrap.markInteractive();
+        AppBootstrap.Stats stats = bootstrap.getStats();
+        bootstrap.markInteractive();
+
+        assertTrue(stats.getFirstFrameMillis() >= 0);
+        assertTrue(stats.getInteractiveMillis() >= stats.getFirstFrameMillis());
+        assertEquals(stats.getInteractiveMillis(), bootstrap.getStats().getInteractiveMillis());
+        assertTrue(stats.getPhaseMillis().keySet().containsAll(List.of("schema", "pool", "daos",
+                "userCache")));
+    }
+
+    private static LruCache.Stats userCacheStats() {
+        return EntityCache.getStats().get(0);
+    }
+}
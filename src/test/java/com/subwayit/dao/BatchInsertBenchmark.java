@@ -0,0 +1,93 @@
+package com.subwayit.dao;
+
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.PragmaProfile;
+import com.subwayit.database.TestDatabase;
+import com.subwayit.model.Transaksi;
+import com.subwayit.model.User;
+import com.subwayit.model.Utang;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares rows per second of the per-row addTransaksi/addUtang path with
+ * addTransaksiBatch/addUtangBatch at several chunk sizes. Every run uses a fresh database.
+ *
+ * Run after "mvn test-compile" with the test classpath, for example:
+ * java -cp target/classes:target/test-classes:&lt;sqlite-jdbc jar&gt; com.subwayit.dao.BatchInsertBenchmark [rows] [profile]
+ */
+public class BatchInsertBenchmark {
+
+    private static final int USERS = 5;
+    private static final int[] CHUNK_SIZES = { 50, 500, 5_000 };
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        PragmaProfile profile = PragmaProfile.named(args.length > 1 ? args[1] : PragmaProfile.BALANCED.getName());
+        DatabaseManager.setPragmaProfile(profile);
+
+        System.out.printf("%d rows, profile %s%n", rows, profile.getName());
+        System.out.printf("%-16s %14s %14s%n", "path", "trx rows/s", "utang rows/s");
+        print("per-row", measure(rows, 0));
+        for (int chunk : CHUNK_SIZES) {
+            print("batch/" + chunk, measure(rows, chunk));
+        }
+    }
+
+    /**
+     * @param chunkSize 0 for the per-row path
+     */
+    private static double[] measure(int rows, int chunkSize) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        TestDatabase db = TestDatabase.create();
+        try {
+            UserDAO userDAO = new UserDAO();
+            for (int u = 0; u < USERS; u++) {
+                userDAO.addUser(new User("BENCH-" + u, "Bench " + u, 30, "bench@example.com", "x", "Tanggungan"));
+            }
+            List<Transaksi> transaksi = new ArrayList<>(rows);
+            List<Utang> utang = new ArrayList<>(rows);
+            LocalDate start = LocalDate.of(2020, 1, 1);
+            for (int i = 0; i < rows; i++) {
+                String userId = "BENCH-" + (i % USERS);
+                transaksi.add(new Transaksi("TRX-" + i, userId, i % 3 == 0 ? "Pemasukan" : "Pengeluaran", "Makanan",
+                        10_000 + i, start.plusDays(i % 1500), null, false, "bench " + i));
+                utang.add(new Utang("UTG-" + i, userId, 1_000_000, 0.05, start.plusDays(i % 1500), "Belum Lunas",
+                        "Bank"));
+            }
+
+            TransaksiDAO transaksiDAO = new TransaksiDAO();
+            UtangDAO utangDAO = new UtangDAO();
+            double[] result = new double[2];
+
+            long t0 = System.nanoTime();
+            if (chunkSize == 0) {
+                transaksi.forEach(transaksiDAO::addTransaksi);
+            } else {
+                transaksiDAO.addTransaksiBatch(transaksi, chunkSize);
+            }
+            result[0] = rows / ((System.nanoTime() - t0) / 1_000_000_000.0);
+
+            t0 = System.nanoTime();
+            if (chunkSize == 0) {
+                utang.forEach(utangDAO::addUtang);
+            } else {
+                utangDAO.addUtangBatch(utang, chunkSize);
+            }
+            result[1] = rows / ((System.nanoTime() - t0) / 1_000_000_000.0);
+            return result;
+        } finally {
+            db.close();
+            System.setOut(original);
+        }
+    }
+
+    private static void print(String label, double[] result) {
+        System.out.printf("%-16s %14.0f %14.0f%n", label, result[0], result[1]);
+    }
+}
@@ -0,0 +1,80 @@
+package com.subwayit.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.TestDatabase;
+import com.subwayit.model.Transaksi;
+import com.subwayit.model.User;
+import com.subwayit.model.Utang;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BatchInsertTest {
+
+    private TestDatabase db;
+    private final TransaksiDAO transaksiDAO = new TransaksiDAO();
+    private final UtangDAO utangDAO = new UtangDAO();
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        new UserDAO().addUser(new User("U-1", "Budi", 40, "budi@example.com", "x", "Penanggung"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void insertsAllRowsAcrossChunksOnOneConnection() {
+        List<Transaksi> rows = transaksi(1, 25);
+        long borrowsBefore = DatabaseManager.getPoolStats().getBorrows();
+
+        assertEquals(25, transaksiDAO.addTransaksiBatch(rows, 10));
+
+        assertEquals(1, DatabaseManager.getPoolStats().getBorrows() - borrowsBefore);
+        assertEquals(25, transaksiDAO.getAllTransactionsForUser("U-1").size());
+    }
+
+    @Test
+    void duplicateRowRollsBackWholeBatch() {
+        transaksiDAO.addTransaksi(transaksi(7, 1).get(0));
+        List<Transaksi> rows = transaksi(1, 10); // contains TRX-7 again
+
+        assertThrows(RuntimeException.class, () -> transaksiDAO.addTransaksiBatch(rows, 3));
+
+        assertEquals(1, transaksiDAO.getAllTransactionsForUser("U-1").size());
+    }
+
+    @Test
+    void utangBatchStoresRemainingWithInterest() {
+        List<Utang> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            rows.add(new Utang("UTG-" + i, "U-1", 1_000_000, 0.1, LocalDate.of(2025, 1, 1 + i), "Belum Lunas", "Bank"));
+        }
+
+        assertEquals(5, utangDAO.addUtangBatch(rows, 2));
+
+        List<UtangDAO.UtangWithUserInfo> stored = utangDAO.getDebtsWithUserInfo(List.of("U-1"));
+        assertEquals(5, stored.size());
+        assertEquals(rows.get(0).getTotalWithInterest(), stored.get(0).getSisaUtang(), 0.001);
+    }
+
+    private static List<Transaksi> transaksi(int firstId, int count) {
+        List<Transaksi> rows = new ArrayList<>();
+        for (int i = firstId; i < firstId + count; i++) {
+            rows.add(new Transaksi("TRX-" + i, "U-1", "Pengeluaran", "Makanan", 1_000 * i,
+                    LocalDate.of(2024, 1, 1).plusDays(i), null, false, "item " + i));
+        }
+        return rows;
+    }
+}
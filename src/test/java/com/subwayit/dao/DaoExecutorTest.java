@@ -0,0 +1,152 @@
+package com.subwayit.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DaoExecutorTest {
+
+    private DaoExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new DaoExecutor(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void writesRunOneAtATime() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            writes.add(executor.write(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(10);
+                running.decrementAndGet();
+            }));
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, maxRunning.get());
+        assertEquals(8, executor.getStats().getCompleted());
+    }
+
+    @Test
+    void readsRunWhileAWriteHoldsThePermit() throws Exception {
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch releaseWrite = new CountDownLatch(1);
+        CompletableFuture<Void> write = executor.write(() -> {
+            writeStarted.countDown();
+            await(releaseWrite);
+        });
+        assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch bothReading = new CountDownLatch(2);
+        CompletableFuture<Boolean> first = executor.read(() -> awaitAll(bothReading));
+        CompletableFuture<Boolean> second = executor.read(() -> awaitAll(bothReading));
+
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+        assertFalse(write.isDone());
+        releaseWrite.countDown();
+        write.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void cancelledQueuedWriteNeverRuns() throws Exception {
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch releaseWrite = new CountDownLatch(1);
+        CompletableFuture<Void> first = executor.write(() -> {
+            writeStarted.countDown();
+            await(releaseWrite);
+        });
+        assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<Void> queued = executor.write(() -> ran.set(true));
+        assertTrue(queued.cancel(true));
+
+        releaseWrite.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        // A later write gets the permit, so the cancelled one did not keep it
+        executor.write(() -> { }).get(5, TimeUnit.SECONDS);
+
+        assertFalse(ran.get());
+        assertTrue(queued.isCancelled());
+        assertEquals(1, executor.getStats().getCancelled());
+    }
+
+    @Test
+    void startedWriteCannotBeCancelled() throws Exception {
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch releaseWrite = new CountDownLatch(1);
+        CompletableFuture<String> write = executor.write(() -> {
+            writeStarted.countDown();
+            await(releaseWrite);
+            return "committed";
+        });
+        assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+
+        assertFalse(write.cancel(true));
+        releaseWrite.countDown();
+        assertEquals("committed", write.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void daoExceptionReachesTheFuture() {
+        RuntimeException failure = new RuntimeException("Gagal menyimpan");
+        CompletableFuture<Object> read = executor.read(() -> {
+            throw failure;
+        });
+
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> read.get(5, TimeUnit.SECONDS));
+        assertSame(failure, thrown.getCause());
+        assertEquals(1, executor.getStats().getFailed());
+    }
+
+    private static boolean awaitAll(CountDownLatch latch) {
+        latch.countDown();
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.subwayit.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.TestDatabase;
+import com.subwayit.model.Utang;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Fires more payments at one debt, from many threads at once, than the debt can absorb
+ * and checks that the accepted ones add up exactly to the principal and that every
+ * accepted payment, and only those, is in payment_history.
+ */
+public class DebtPaymentConcurrencyTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 1);
+
+    private TestDatabase db;
+    private final UtangDAO utangDAO = new UtangDAO();
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void paymentsUpdateBalanceStatusAndLedgerTogether() throws SQLException {
+        utangDAO.addUtang(new Utang("UTG-1", "P-1", 100_000, 0, TODAY.plusMonths(3), "Belum Lunas", "Bank"));
+
+        UtangDAO.PaymentResult first = utangDAO.payDebt("UTG-1", 40_000, TODAY, "cicilan 1");
+        assertEquals(UtangDAO.PaymentOutcome.PAID, first.getOutcome());
+        assertEquals(60_000, first.getSisaUtang(), 0.001);
+
+        UtangDAO.PaymentResult tooMuch = utangDAO.payDebt("UTG-1", 60_001, TODAY, null);
+        assertEquals(UtangDAO.PaymentOutcome.OVERPAYMENT, tooMuch.getOutcome());
+        assertEquals(60_000, tooMuch.getSisaUtang(), 0.001);
+
+        assertEquals(UtangDAO.PaymentOutcome.PAID_OFF, utangDAO.payDebt("UTG-1", 60_000, TODAY, null).getOutcome());
+        assertEquals(UtangDAO.PaymentOutcome.NOT_FOUND, utangDAO.payDebt("UTG-404", 1, TODAY, null).getOutcome());
+        assertFalse(utangDAO.updatePayment("UTG-1", 1));
+        assertThrows(IllegalArgumentException.class, () -> utangDAO.payDebt("UTG-1", -5, TODAY, null));
+
+        assertEquals(0, remaining("UTG-1"), 0.001);
+        assertEquals("Lunas", status("UTG-1"));
+        assertEquals(2, ledgerCount("UTG-1"));
+        assertEquals(100_000, ledgerSum("UTG-1"), 0.001);
+    }
+
+    @Test
+    void editingADebtKeepsItsPaymentsAndTheLedgerBalanced() throws SQLException {
+        utangDAO.addUtang(new Utang("UTG-1", "P-1", 100_000, 0, TODAY.plusMonths(3), "Belum Lunas", "Bank"));
+        utangDAO.payDebt("UTG-1", 40_000, TODAY, null);
+
+        // The principal grows by half and interest is added; the payment still counts
+        Utang edited = utangDAO.updateUtang("UTG-1", 150_000, 0.1, TODAY.plusMonths(6), "Koperasi");
+        assertEquals(125_000, edited.getSisaUtang(), 0.001);
+        assertEquals("Belum Lunas", edited.getStatus());
+        assertEquals("Koperasi", edited.getCreditor());
+        assertEquals(TODAY.plusMonths(6), edited.getTanggalJatuhTempo());
+        assertEquals(edited.getTotalWithInterest(), ledgerSum("UTG-1") + remaining("UTG-1"), 0.001);
+        assertTrue(new PaymentHistoryDAO().verifySisaUtang(1).isConsistent());
+
+        // Lowering the principal below what was paid settles the debt, raising it reopens it
+        assertEquals("Lunas", utangDAO.updateUtang("UTG-1", 30_000, 0, TODAY, "Koperasi").getStatus());
+        assertEquals(0, remaining("UTG-1"), 0.001);
+        Utang reopened = utangDAO.updateUtang("UTG-1", 50_000, 0, TODAY, "Koperasi");
+        assertEquals("Belum Lunas", reopened.getStatus());
+        assertEquals(10_000, reopened.getSisaUtang(), 0.001);
+        assertTrue(new PaymentHistoryDAO().verifySisaUtang(1).isConsistent());
+
+        assertNull(utangDAO.updateUtang("UTG-404", 1, 0, TODAY, "Bank"));
+    }
+
+    @Test
+    void concurrentPaymentsNeverOverdrawAndTheLedgerBalances() throws Exception {
+        double principal = 1_000_000;
+        double payment = 5_000;
+        int threads = 8;
+        int paymentsPerThread = 40; // 1.6 million attempted against 1 million owed
+        utangDAO.addUtang(new Utang("UTG-1", "P-1", principal, 0, TODAY.plusMonths(3), "Belum Lunas", "Bank"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                int accepted = 0;
+                for (int i = 0; i < paymentsPerThread; i++) {
+                    if (utangDAO.payDebt("UTG-1", payment, TODAY, null).isAccepted()) {
+                        accepted++;
+                    }
+                }
+                return accepted;
+            }));
+        }
+        start.countDown();
+        int accepted = 0;
+        for (Future<Integer> future : futures) {
+            accepted += future.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertEquals((int) (principal / payment), accepted);
+        assertEquals(accepted, ledgerCount("UTG-1"));
+        assertEquals(principal, ledgerSum("UTG-1") + remaining("UTG-1"), 0.001);
+        assertEquals(0, remaining("UTG-1"), 0.001);
+        assertEquals("Lunas", status("UTG-1"));
+        assertTrue(DatabaseManager.getPoolStats().getBorrows() > accepted);
+    }
+
+    private static double remaining(String utangId) throws SQLException {
+        return queryDouble("SELECT sisa_utang FROM Utang WHERE utang_id = ?", utangId);
+    }
+
+    private static double ledgerSum(String utangId) throws SQLException {
+        return queryDouble("SELECT COALESCE(SUM(payment_amount), 0) FROM payment_history WHERE utang_id = ?", utangId);
+    }
+
+    private static int ledgerCount(String utangId) throws SQLException {
+        return (int) queryDouble("SELECT COUNT(*) FROM payment_history WHERE utang_id = ?", utangId);
+    }
+
+    private static String status(String utangId) throws SQLException {
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement("SELECT status FROM Utang WHERE utang_id = ?")) {
+            pstmt.setString(1, utangId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    private static double queryDouble(String sql, String utangId) throws SQLException {
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, utangId);
+            ResultSet rs = pstmt.executeQuery();
+            rs.next();
+            return rs.getDouble(1);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.subwayit.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.TestDatabase;
+import com.subwayit.database.UnitOfWork;
+import com.subwayit.model.Penanggung;
+import com.subwayit.model.Tanggungan;
+import com.subwayit.model.User;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class EntityCacheTest {
+
+    private TestDatabase db;
+    private final AtomicInteger statements = new AtomicInteger();
+    private final UserDAO userDAO = new UserDAO();
+    private final PenanggungDAO penanggungDAO = new PenanggungDAO(userDAO);
+    private final TanggunganDAO tanggunganDAO = new TanggunganDAO(userDAO);
+    private final FamilyMembershipDAO membershipDAO = new FamilyMembershipDAO();
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        penanggungDAO.addPenanggung(new Penanggung("P-1", "Budi", 45, "budi@example.com", "x", "Guru"));
+        tanggunganDAO.addTanggunganToPenanggung(new Tanggungan("T-1", "Sari", 15, "sari@example.com", "x", "Anak",
+                "SMP", "Pelajar", "P-1"), "P-1");
+        DatabaseManager.setStatementListener(sql -> statements.incrementAndGet());
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void repeatedLookupsAreServedFromMemory() {
+        userDAO.getUserByUserId("P-1");
+        penanggungDAO.getPenanggungById("P-1");
+        tanggunganDAO.getTanggunganById("T-1");
+        membershipDAO.getMemberIds("P-1");
+        int afterFirst = statements.get();
+        long hitsBefore = EntityCache.USERS.getStats().getHits();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Budi", userDAO.getUserByUserId("P-1").getNama());
+            assertEquals(List.of("T-1"), penanggungDAO.getPenanggungById("P-1").getAnggotaTanggunganIds());
+            assertEquals("Sari", tanggunganDAO.getTanggunganById("T-1").getNama());
+            assertEquals(List.of("T-1"), membershipDAO.getMemberIds("P-1"));
+            assertEquals(1, tanggunganDAO.getTanggunganByIds(List.of("T-1")).size());
+        }
+
+        assertEquals(4, afterFirst);
+        assertEquals(afterFirst, statements.get());
+        assertEquals(hitsBefore + 5, EntityCache.USERS.getStats().getHits());
+    }
+
+    @Test
+    void callersGetCopies() {
+        User first = userDAO.getUserByUserId("P-1");
+        first.setNama("Diubah di GUI");
+        User second = userDAO.getUserByUserId("P-1");
+
+        assertNotSame(first, second);
+        assertEquals("Budi", second.getNama());
+    }
+
+    @Test
+    void writesInvalidateTheEntriesTheyChange() {
+        penanggungDAO.getPenanggungById("P-1");
+        tanggunganDAO.getTanggunganById("T-1");
+
+        Tanggungan child = tanggunganDAO.getTanggunganById("T-1");
+        child.setPekerjaan("Mahasiswa");
+        tanggunganDAO.updateTanggungan(child);
+        assertEquals("Mahasiswa", tanggunganDAO.getTanggunganById("T-1").getPekerjaan());
+
+        Penanggung head = penanggungDAO.getPenanggungById("P-1");
+        head.setPekerjaan("Dosen");
+        penanggungDAO.updatePenanggung(head);
+        assertEquals("Dosen", penanggungDAO.getPenanggungById("P-1").getPekerjaan());
+
+        userDAO.updateUser(new User("P-1", "Budi S", 46, "budi@example.com", "x", "Penanggung"));
+        assertEquals("Budi S", userDAO.getUserByUserId("P-1").getNama());
+        assertEquals("Budi S", penanggungDAO.getPenanggungById("P-1").getNama());
+    }
+
+    @Test
+    void membershipChangesInvalidateTheFamily() {
+        assertEquals(List.of("T-1"), penanggungDAO.getPenanggungById("P-1").getAnggotaTanggunganIds());
+        assertEquals(List.of("T-1"), membershipDAO.getMemberIds("P-1"));
+
+        tanggunganDAO.addTanggunganToPenanggung(new Tanggungan("T-2", "Adi", 12, "adi@example.com", "x", "Anak",
+                "SD", "Pelajar", "P-1"), "P-1");
+        assertEquals(List.of("T-1", "T-2"), penanggungDAO.getPenanggungById("P-1").getAnggotaTanggunganIds());
+        assertEquals(List.of("T-1", "T-2"), membershipDAO.getMemberIds("P-1"));
+
+        tanggunganDAO.deleteTanggungan("T-1");
+        assertNull(tanggunganDAO.getTanggunganById("T-1"));
+        assertNull(userDAO.getUserByUserId("T-1"));
+        assertEquals(List.of("T-2"), membershipDAO.getMemberIds("P-1"));
+    }
+
+    @Test
+    void transactionsBypassTheCache() throws SQLException {
+        userDAO.getUserByUserId("P-1");
+        UnitOfWork.run(() -> {
+            userDAO.updateUser(new User("P-1", "Budi T", 45, "budi@example.com", "x", "Penanggung"));
+            assertEquals("Budi T", userDAO.getUserByUserId("P-1").getNama());
+        });
+        assertEquals(0, EntityCache.USERS.getStats().getSize());
+        assertEquals("Budi T", userDAO.getUserByUserId("P-1").getNama());
+    }
+
+    @Test
+    void lruEvictsTheLeastRecentlyUsedEntryAndDropsStaleLoads() {
+        LruCache<String, String> cache = new LruCache<>("test", 2, String::new);
+        cache.put("a", "1", cache.generation());
+        cache.put("b", "2", cache.generation());
+        cache.get("a");
+        cache.put("c", "3", cache.generation());
+
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals(1, cache.getStats().getEvictions());
+
+        long loadedAt = cache.generation();
+        cache.invalidate("a");
+        cache.put("a", "stale", loadedAt);
+        assertNull(cache.get("a"));
+    }
+}
@@ -0,0 +1,155 @@
+package com.subwayit.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.TestDatabase;
+import com.subwayit.model.Penanggung;
+import com.subwayit.model.Tanggungan;
+import com.subwayit.model.User;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FamilyMembershipDAOTest {
+
+    private TestDatabase db;
+    private final UserDAO userDAO = new UserDAO();
+    private final PenanggungDAO penanggungDAO = new PenanggungDAO(userDAO);
+    private final TanggunganDAO tanggunganDAO = new TanggunganDAO(userDAO);
+    private final FamilyMembershipDAO membershipDAO = new FamilyMembershipDAO();
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        penanggungDAO.addPenanggung(new Penanggung("P-1", "Budi", 45, "budi@example.com", "x", "Guru"));
+        penanggungDAO.addPenanggung(new Penanggung("P-2", "Ani", 40, "ani@example.com", "x", "Dokter"));
+        tanggunganDAO.addTanggunganToPenanggung(dependent("T-2", "P-1"), "P-1");
+        tanggunganDAO.addTanggunganToPenanggung(dependent("T-1", "P-1"), "P-1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void listsMembersInTheOrderTheyWereAdded() {
+        assertEquals(List.of("T-2", "T-1"), membershipDAO.getMemberIds("P-1"));
+        assertEquals(List.of("T-2", "T-1"), penanggungDAO.getPenanggungById("P-1").getAnggotaTanggunganIds());
+        assertTrue(membershipDAO.getMemberIds("P-2").isEmpty());
+    }
+
+    @Test
+    void findsTheFamilyOfAUser() {
+        assertEquals("P-1", membershipDAO.getPenanggungIdOf("T-1"));
+        assertEquals("P-1", membershipDAO.getPenanggungIdOf("P-1"));
+        assertNull(membershipDAO.getPenanggungIdOf("T-404"));
+        assertEquals(List.of("P-1", "T-2", "T-1"), membershipDAO.getFamilyUserIds("T-1"));
+        assertEquals(List.of("P-2"), membershipDAO.getFamilyUserIds("P-2"));
+        assertEquals(List.of("X-1"), membershipDAO.getFamilyUserIds("X-1"));
+    }
+
+    @Test
+    void loadsTheWholeFamilyInOneStatement() {
+        AtomicInteger statements = new AtomicInteger();
+        DatabaseManager.setStatementListener(sql -> statements.incrementAndGet());
+
+        FamilyMembershipDAO.Family family = membershipDAO.loadFamily("T-1");
+        assertEquals(1, statements.get());
+        assertEquals("P-1", family.getHead().getUserId());
+        assertEquals("Guru", family.getHead().getPekerjaan());
+        assertEquals(List.of("T-2", "T-1"), family.getHead().getAnggotaTanggunganIds());
+        assertEquals(List.of("P-1", "T-2", "T-1"), family.getUserIds());
+        assertEquals("Anak", family.getMembers().get(0).getPosisiKeluarga());
+
+        // The loaded entities are cached, the page's later lookups run no query
+        penanggungDAO.getPenanggungById("P-1");
+        tanggunganDAO.getTanggunganByIds(List.of("T-2", "T-1"));
+        assertEquals(1, statements.get());
+
+        assertEquals(List.of("P-2"), membershipDAO.loadFamily("P-2").getUserIds());
+    }
+
+    @Test
+    void everyLookupReadsTheDependentsNameFromPengguna() {
+        // A plain user update changes Pengguna only, Tanggungan.nama/umur keep the old values
+        userDAO.updateUser(new User("T-1", "Citra", 11, "T-1@example.com", "x", "Tanggungan"));
+
+        assertEquals("Citra", tanggunganDAO.getTanggunganById("T-1").getNama());
+        assertEquals(11, tanggunganDAO.getTanggunganById("T-1").getUmur());
+        EntityCache.clear();
+        assertEquals("Citra", tanggunganDAO.getTanggunganByIds(List.of("T-1")).get(0).getNama());
+        assertEquals("Citra", tanggunganDAO.getTanggunanByPenanggungId("P-1").get(1).getNama());
+        assertEquals("Citra", tanggunganDAO.getAllTanggungan().get(1).getNama());
+        assertEquals("Citra", membershipDAO.loadFamily("P-1").getMembers().get(1).getNama());
+    }
+
+    @Test
+    void aTanggunganWithoutAFamilyIsTheirOwnFamily() {
+        membershipDAO.removeMember("P-1", "T-1");
+
+        FamilyMembershipDAO.Family family = membershipDAO.loadFamily("T-1");
+        assertNull(family.getHead());
+        assertEquals(List.of("T-1"), family.getUserIds());
+        assertTrue(membershipDAO.loadFamily("X-404").getUserIds().isEmpty());
+    }
+
+    @Test
+    void familySnapshotsChangeByCopy() {
+        FamilyMembershipDAO.Family family = membershipDAO.loadFamily("P-1");
+
+        FamilyMembershipDAO.Family added = family.withMember(dependent("T-3", "P-1"));
+        assertEquals(List.of("T-2", "T-1", "T-3"), added.getHead().getAnggotaTanggunganIds());
+        assertEquals(List.of("T-2", "T-1"), family.getMemberIds());
+
+        Tanggungan renamed = (Tanggungan) added.editableCopy("T-1");
+        renamed.setNama("Citra");
+        assertEquals("Anak T-1", added.getMembers().get(1).getNama());
+        assertEquals("Citra", added.withUpdated(renamed).getMembers().get(1).getNama());
+
+        assertEquals(List.of("P-1", "T-1", "T-3"), added.withoutMember("T-2").getUserIds());
+    }
+
+    @Test
+    void addingAndRemovingIsOneStatement() {
+        AtomicInteger statements = new AtomicInteger();
+        DatabaseManager.setStatementListener(sql -> statements.incrementAndGet());
+
+        assertTrue(membershipDAO.removeMember("P-1", "T-2"));
+        assertTrue(membershipDAO.addMember("P-2", "T-2"));
+        assertEquals(2, statements.get());
+
+        assertFalse(membershipDAO.addMember("P-2", "T-2"));
+        assertFalse(membershipDAO.addMember("P-404", "T-9"));
+        assertEquals(List.of("T-1"), membershipDAO.getMemberIds("P-1"));
+        assertEquals(List.of("T-2"), membershipDAO.getMemberIds("P-2"));
+    }
+
+    @Test
+    void aDependentBelongsToOneFamily() {
+        assertThrows(RuntimeException.class, () -> membershipDAO.addMember("P-2", "T-1"));
+        assertEquals("P-1", membershipDAO.getPenanggungIdOf("T-1"));
+    }
+
+    @Test
+    void deletingUsersRemovesTheirMemberships() {
+        tanggunganDAO.deleteTanggungan("T-2");
+        assertEquals(List.of("T-1"), membershipDAO.getMemberIds("P-1"));
+
+        penanggungDAO.deletePenanggung("P-1");
+        assertNull(membershipDAO.getPenanggungIdOf("T-1"));
+    }
+
+    private static Tanggungan dependent(String id, String penanggungId) {
+        return new Tanggungan(id, "Anak " + id, 10, id + "@example.com", "x", "Anak", "SD", "Pelajar", penanggungId);
+    }
+}
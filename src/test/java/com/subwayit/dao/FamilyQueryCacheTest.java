@@ -0,0 +1,167 @@
+package com.subwayit.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.subwayit.dao.UtangDAO.UtangWithUserInfo;
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.TestDatabase;
+import com.subwayit.model.Transaksi;
+import com.subwayit.model.User;
+import com.subwayit.model.Utang;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FamilyQueryCacheTest {
+
+    private static final List<String> FAMILY = List.of("P-1", "T-1");
+    private static final LocalDate DATE = LocalDate.of(2024, 3, 10);
+
+    private TestDatabase db;
+    private final AtomicInteger statements = new AtomicInteger();
+    private final UserDAO userDAO = new UserDAO();
+    private final TransaksiDAO transaksiDAO = new TransaksiDAO();
+    private final UtangDAO utangDAO = new UtangDAO();
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        userDAO.addUser(new User("P-1", "Budi", 45, "budi@example.com", "x", "Penanggung"));
+        userDAO.addUser(new User("T-1", "Sari", 15, "sari@example.com", "x", "Tanggungan"));
+        userDAO.addUser(new User("P-2", "Andi", 40, "andi@example.com", "x", "Penanggung"));
+        transaksiDAO.addTransaksi(transaksi("TR-1", "P-1", 100_000));
+        utangDAO.addUtang(new Utang("U-1", "T-1", 500_000, 0, DATE, "Belum Lunas", "Bank"));
+        DatabaseManager.setStatementListener(sql -> statements.incrementAndGet());
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void repeatedFamilyQueriesAreServedFromMemoryInAnyMemberOrder() {
+        transaksiDAO.getTransactionsForMultipleUsers(FAMILY);
+        utangDAO.getDebtsWithUserInfo(FAMILY);
+        int afterFirst = statements.get();
+
+        assertEquals(1, transaksiDAO.getTransactionsForMultipleUsers(List.of("T-1", "P-1", "T-1")).size());
+        assertEquals(1, utangDAO.getDebtsWithUserInfo(List.of("T-1", "P-1")).size());
+        assertEquals(afterFirst, statements.get());
+    }
+
+    @Test
+    void writesBumpTheVersionOfWhatTheyChanged() {
+        long transactions = FamilyQueryCache.getTransactionsVersion();
+        long debts = FamilyQueryCache.getDebtsVersion();
+
+        transaksiDAO.addTransaksi(transaksi("TR-2", "T-1", 25_000));
+        assertNotEquals(transactions, FamilyQueryCache.getTransactionsVersion());
+        assertEquals(debts, FamilyQueryCache.getDebtsVersion());
+
+        transactions = FamilyQueryCache.getTransactionsVersion();
+        utangDAO.payDebt("U-1", 200_000, DATE, null);
+        assertNotEquals(debts, FamilyQueryCache.getDebtsVersion());
+        assertEquals(transactions, FamilyQueryCache.getTransactionsVersion());
+    }
+
+    @Test
+    void writesForAMemberRefreshTheFamilyLists() {
+        transaksiDAO.getTransactionsForMultipleUsers(FAMILY);
+        utangDAO.getDebtsWithUserInfo(FAMILY);
+
+        transaksiDAO.addTransaksi(transaksi("TR-2", "T-1", 25_000));
+        assertEquals(2, transaksiDAO.getTransactionsForMultipleUsers(FAMILY).size());
+
+        Transaksi edited = transaksi("TR-2", "T-1", 30_000);
+        transaksiDAO.updateTransaksi(edited);
+        assertEquals(30_000, transaksiDAO.getTransactionsForMultipleUsers(FAMILY).get(0).getNominal(), 0.001);
+
+        transaksiDAO.deleteTransaksi("TR-1");
+        assertEquals(1, transaksiDAO.getTransactionsForMultipleUsers(FAMILY).size());
+
+        utangDAO.payDebt("U-1", 200_000, DATE, null);
+        assertEquals(300_000, utangDAO.getDebtsWithUserInfo(FAMILY).get(0).getSisaUtang(), 0.001);
+
+        userDAO.updateUser(new User("T-1", "Sari Dewi", 16, "sari@example.com", "x", "Tanggungan"));
+        assertEquals("Sari Dewi", utangDAO.getDebtsWithUserInfo(FAMILY).get(0).getUserName());
+
+        utangDAO.deleteUtang("U-1");
+        assertEquals(0, utangDAO.getDebtsWithUserInfo(FAMILY).size());
+    }
+
+    @Test
+    void writesReturnTheRowsTheyChanged() {
+        assertEquals("TR-2", transaksiDAO.addTransaksi(transaksi("TR-2", "T-1", 25_000)).getTransaksiId());
+
+        Transaksi replaced = transaksiDAO.updateTransaksi(transaksi("TR-2", "T-1", 30_000));
+        assertEquals(25_000, replaced.getNominal(), 0.001);
+        assertNull(transaksiDAO.updateTransaksi(transaksi("TR-404", "T-1", 1)));
+
+        assertEquals(30_000, transaksiDAO.deleteTransaksi("TR-2").getNominal(), 0.001);
+        assertNull(transaksiDAO.deleteTransaksi("TR-2"));
+
+        Utang stored = utangDAO.addUtang(new Utang("U-2", "P-1", 100_000, 0.1, DATE, "Belum Lunas", "Bank"));
+        assertEquals(110_000, stored.getSisaUtang(), 0.001);
+        assertNull(utangDAO.addUtang(new Utang("U-2", "P-1", 1, 0, DATE, "Belum Lunas", "Bank")));
+    }
+
+    @Test
+    void writesForAnotherFamilyKeepTheEntry() {
+        transaksiDAO.getTransactionsForMultipleUsers(FAMILY);
+        utangDAO.getDebtsWithUserInfo(FAMILY);
+
+        transaksiDAO.addTransaksi(transaksi("TR-9", "P-2", 1_000));
+        utangDAO.addUtang(new Utang("U-9", "P-2", 1_000, 0, DATE, "Belum Lunas", "Teman"));
+        int afterWrites = statements.get();
+
+        transaksiDAO.getTransactionsForMultipleUsers(FAMILY);
+        utangDAO.getDebtsWithUserInfo(FAMILY);
+        assertEquals(afterWrites, statements.get());
+    }
+
+    @Test
+    void failedQueriesAreNotCached() throws SQLException {
+        // Both tables missing for a moment stands in for a transient error such as SQLITE_BUSY
+        execute("ALTER TABLE Transaksi RENAME TO Transaksi_lama");
+        execute("ALTER TABLE Utang RENAME TO Utang_lama");
+        assertThrows(RuntimeException.class, () -> transaksiDAO.getTransactionsForMultipleUsers(FAMILY));
+        assertThrows(RuntimeException.class, () -> utangDAO.getDebtsWithUserInfo(FAMILY));
+        execute("ALTER TABLE Transaksi_lama RENAME TO Transaksi");
+        execute("ALTER TABLE Utang_lama RENAME TO Utang");
+
+        assertEquals(1, transaksiDAO.getTransactionsForMultipleUsers(FAMILY).size());
+        assertEquals(1, utangDAO.getDebtsWithUserInfo(FAMILY).size());
+    }
+
+    @Test
+    void callersGetCopies() {
+        List<UtangWithUserInfo> debts = utangDAO.getDebtsWithUserInfo(FAMILY);
+        debts.get(0).setSisaUtang(0);
+        debts.clear();
+
+        assertEquals(500_000, utangDAO.getDebtsWithUserInfo(FAMILY).get(0).getSisaUtang(), 0.001);
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection conn = DatabaseManager.connect();
+                Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private static Transaksi transaksi(String id, String userId, double nominal) {
+        return new Transaksi(id, userId, "Pengeluaran", "Makanan", nominal, DATE, null, false, "Belanja");
+    }
+}
@@ -0,0 +1,127 @@
+package com.subwayit.dao;
+
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.TestDatabase;
+import com.subwayit.database.UnitOfWork;
+import com.subwayit.model.Transaksi;
+import com.subwayit.model.User;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compares the cost of filtering transactions by 1 to 10,000 user IDs with one exact
+ * placeholder per ID, with {@link InList} (power-of-two buckets up to
+ * {@link InList#MAX_BUCKET}, json_each above), and with json_each for every size. Each
+ * query is prepared and run on one connection, as the DAOs do, and returns the matching
+ * transactions.
+ *
+ * Run after "mvn test-compile" with the test classpath, for example:
+ * java -cp target/classes:target/test-classes:&lt;sqlite-jdbc jar&gt; com.subwayit.dao.InListBenchmark [rowsPerUser]
+ */
+public class InListBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int[] SET_SIZES = { 1, 3, 10, 50, 100, 1_000, 10_000 };
+
+    public static void main(String[] args) throws SQLException {
+        int rowsPerUser = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        TestDatabase db = TestDatabase.create();
+        try {
+            populate(rowsPerUser);
+        } finally {
+            System.setOut(original);
+        }
+
+        try (db) {
+            System.out.printf("%d users, %d transactions each%n", USERS, rowsPerUser);
+            System.out.printf("%8s %14s %14s %14s %8s%n", "ids", "exact ms/q", "InList ms/q", "json ms/q", "rows");
+            for (int size : SET_SIZES) {
+                List<String> ids = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    ids.add("BENCH-" + (i * (USERS / size)));
+                }
+                int iterations = Math.max(5, 20_000 / size);
+                String exact = String.join(",", Collections.nCopies(size, "?"));
+                InList inList = InList.of(ids);
+                String json = "SELECT value FROM json_each(?)";
+                List<String> jsonParams = InList.of(padForJson(ids)).params();
+
+                double[] exactMs = time(exact, ids, iterations);
+                double[] inListMs = time(inList.placeholders(), inList.params(), iterations);
+                double[] jsonMs = time(json, jsonParams, iterations);
+                System.out.printf("%8d %14.3f %14.3f %14.3f %8.0f%n", size, exactMs[0], inListMs[0], jsonMs[0],
+                        inListMs[1]);
+            }
+        }
+    }
+
+    private static void populate(int rowsPerUser) throws SQLException {
+        UserDAO userDAO = new UserDAO();
+        UnitOfWork.run(() -> {
+            for (int u = 0; u < USERS; u++) {
+                userDAO.addUser(new User("BENCH-" + u, "Bench " + u, 30, "bench@example.com", "x", "Tanggungan"));
+            }
+        });
+        List<Transaksi> rows = new ArrayList<>(USERS * rowsPerUser);
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int u = 0; u < USERS; u++) {
+            for (int r = 0; r < rowsPerUser; r++) {
+                rows.add(new Transaksi("TRX-" + u + "-" + r, "BENCH-" + u, "Pengeluaran", "Makanan", 10_000,
+                        start.plusDays((u + r) % 1500), null, false, "bench"));
+            }
+        }
+        new TransaksiDAO().addTransaksiBatch(rows);
+    }
+
+    /**
+     * The JSON form is only chosen above MAX_BUCKET; repeating the IDs pushes a small set
+     * over the threshold without changing which rows match.
+     */
+    private static List<String> padForJson(List<String> ids) {
+        List<String> padded = new ArrayList<>(ids);
+        for (int i = 0; padded.size() <= InList.MAX_BUCKET; i++) {
+            padded.add(ids.get(0) + "#" + i);
+        }
+        return padded;
+    }
+
+    /**
+     * @return milliseconds per query and the number of rows the last run returned
+     */
+    private static double[] time(String placeholders, List<String> params, int iterations) throws SQLException {
+        String sql = "SELECT transaksi_id, user_id, nominal FROM Transaksi WHERE user_id IN (" + placeholders
+                + ") ORDER BY tanggal_transaksi DESC";
+        int rows = 0;
+        long t0 = 0;
+        try (Connection conn = DatabaseManager.connect()) {
+            for (int i = -1; i < iterations; i++) {
+                if (i == 0) {
+                    t0 = System.nanoTime(); // the first run only warms up
+                }
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int p = 0; p < params.size(); p++) {
+                        pstmt.setString(p + 1, params.get(p));
+                    }
+                    ResultSet rs = pstmt.executeQuery();
+                    rows = 0;
+                    while (rs.next()) {
+                        rows++;
+                    }
+                }
+            }
+        }
+        return new double[] { (System.nanoTime() - t0) / 1_000_000.0 / iterations, rows };
+    }
+}
@@ -0,0 +1,99 @@
+package com.subwayit.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.subwayit.database.TestDatabase;
+import com.subwayit.model.Transaksi;
+import com.subwayit.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class InListTest {
+
+    private TestDatabase db;
+    private final UserDAO userDAO = new UserDAO();
+    private final TransaksiDAO transaksiDAO = new TransaksiDAO();
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void smallSetsArePaddedToPowerOfTwoBuckets() {
+        assertEquals("?", InList.of(List.of("A")).placeholders());
+        assertEquals("?,?", InList.of(List.of("A", "B")).placeholders());
+        InList three = InList.of(List.of("A", "B", "C"));
+        assertEquals("?,?,?,?", three.placeholders());
+        assertEquals(List.of("A", "B", "C", "C"), three.params());
+        assertEquals(3, three.size());
+
+        InList duplicates = InList.of(Arrays.asList("A", "A", null, "B"));
+        assertEquals(List.of("A", "B"), duplicates.params());
+        assertEquals("NULL", InList.of(Arrays.asList((String) null)).placeholders());
+    }
+
+    @Test
+    void familySizesShareAFewStatementShapes() {
+        Set<String> shapes = new HashSet<>();
+        for (int n = 1; n <= 200; n++) {
+            shapes.add(InList.of(ids(n)).placeholders());
+        }
+        shapes.add(InList.of(ids(10_000)).placeholders());
+        // 1, 2, 4, ..., 64 placeholders plus json_each
+        assertEquals(8, shapes.size());
+        assertFalse(InList.of(ids(InList.MAX_BUCKET)).usesJson());
+        assertTrue(InList.of(ids(InList.MAX_BUCKET + 1)).usesJson());
+    }
+
+    @Test
+    void largeSetsMatchTheSameRowsThroughJsonEach() {
+        List<Transaksi> rows = new ArrayList<>();
+        List<String> userIds = ids(2_000);
+        // IDs that need escaping inside the JSON array
+        userIds.add("U-\"quoted\"");
+        userIds.add("U-back\\slash");
+        for (String userId : List.of("U-7", "U-1999", "U-\"quoted\"", "U-back\\slash")) {
+            userDAO.addUser(new User(userId, "Bench", 30, "bench@example.com", "x", "Tanggungan"));
+            rows.add(new Transaksi("TRX-" + userId, userId, "Pengeluaran", "Makanan", 1_000,
+                    LocalDate.of(2024, 1, 1), null, false, "test"));
+        }
+        transaksiDAO.addTransaksiBatch(rows);
+
+        assertEquals(4, transaksiDAO.countTransactionsForUsers(userIds));
+        assertEquals(4, transaksiDAO.getTransactionsForMultipleUsers(userIds).size());
+        assertEquals(4, transaksiDAO.getTransactionsPage(userIds, null, 10).getItems().size());
+        assertEquals(1, transaksiDAO.countTransactionsForUsers(List.of("U-7", "U-8", "U-9")));
+    }
+
+    @Test
+    void moreIdsThanSqliteAllowsVariablesStillWork() {
+        List<String> userIds = ids(40_000);
+        assertEquals(0, transaksiDAO.countTransactionsForUsers(userIds));
+        assertEquals(0, new UtangDAO().getDebtsWithUserInfo(userIds).size());
+    }
+
+    private static List<String> ids(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add("U-" + i);
+        }
+        return ids;
+    }
+}
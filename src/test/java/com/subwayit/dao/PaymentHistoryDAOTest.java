@@ -0,0 +1,169 @@
+package com.subwayit.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.TestDatabase;
+import com.subwayit.model.PaymentHistory;
+import com.subwayit.model.Utang;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PaymentHistoryDAOTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 10);
+
+    private TestDatabase db;
+    private final UtangDAO utangDAO = new UtangDAO();
+    private final PaymentHistoryDAO paymentHistoryDAO = new PaymentHistoryDAO();
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void ledgerPagesCoverEveryPaymentNewestFirst() {
+        utangDAO.addUtang(debt("UTG-1", "P-1", 1_000_000));
+        // two payments per day so pages have to break ties on id
+        for (int i = 0; i < 25; i++) {
+            utangDAO.payDebt("UTG-1", 1_000 + i, START.plusDays(i / 2), "cicilan " + i);
+        }
+
+        List<PaymentHistory> all = new ArrayList<>();
+        PaymentHistoryDAO.LedgerCursor cursor = null;
+        int pages = 0;
+        do {
+            PaymentHistoryDAO.LedgerPage page = paymentHistoryDAO.getLedger("UTG-1", cursor, 10);
+            all.addAll(page.getItems());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(25, all.size());
+        assertEquals("cicilan 24", all.get(0).getNotes());
+        assertEquals("cicilan 0", all.get(24).getNotes());
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < all.size(); i++) {
+            assertTrue(ids.add(all.get(i).getId()));
+            if (i > 0) {
+                assertFalse(all.get(i).getPaymentDate().isAfter(all.get(i - 1).getPaymentDate()));
+            }
+        }
+        double expectedTotal = 25 * 1_000 + 24 * 25 / 2.0;
+        assertEquals(expectedTotal, paymentHistoryDAO.getTotalPaid("UTG-1"), 0.001);
+    }
+
+    @Test
+    void deletingADebtDeletesItsLedger() {
+        utangDAO.addUtang(debt("UTG-1", "P-1", 500_000));
+        utangDAO.addUtang(debt("UTG-2", "P-1", 500_000));
+        utangDAO.payDebt("UTG-1", 10_000, START, null);
+        utangDAO.payDebt("UTG-2", 20_000, START, null);
+
+        assertTrue(utangDAO.deleteUtang("UTG-1"));
+        assertFalse(utangDAO.deleteUtang("UTG-1"));
+
+        assertTrue(paymentHistoryDAO.getLedger("UTG-1", null, 10).getItems().isEmpty());
+        assertEquals(20_000, paymentHistoryDAO.getTotalPaid("UTG-2"), 0.001);
+    }
+
+    @Test
+    void monthlyTotalsCoverEveryDebtOfTheFamily() {
+        utangDAO.addUtang(debt("UTG-1", "P-1", 500_000));
+        utangDAO.addUtang(debt("UTG-2", "T-1", 500_000));
+        utangDAO.addUtang(debt("UTG-3", "X-1", 500_000));
+        utangDAO.payDebt("UTG-1", 10_000, LocalDate.of(2024, 1, 5), null);
+        utangDAO.payDebt("UTG-2", 20_000, LocalDate.of(2024, 1, 31), null);
+        utangDAO.payDebt("UTG-1", 30_000, LocalDate.of(2024, 3, 1), null);
+        utangDAO.payDebt("UTG-3", 99_000, LocalDate.of(2024, 3, 1), null);
+        utangDAO.payDebt("UTG-1", 40_000, LocalDate.of(2024, 4, 1), null);
+
+        List<PaymentHistoryDAO.MonthlyPaymentTotal> totals = paymentHistoryDAO.getMonthlyTotals(
+                List.of("P-1", "T-1"), YearMonth.of(2024, 1), YearMonth.of(2024, 3));
+
+        assertEquals(2, totals.size());
+        assertEquals(YearMonth.of(2024, 1), totals.get(0).getMonth());
+        assertEquals(2, totals.get(0).getCount());
+        assertEquals(30_000, totals.get(0).getTotal(), 0.001);
+        assertEquals(YearMonth.of(2024, 3), totals.get(1).getMonth());
+        assertEquals(30_000, totals.get(1).getTotal(), 0.001);
+    }
+
+    @Test
+    void recomputeFindsAndRepairsDriftAcrossChunks() throws SQLException {
+        int debts = PaymentHistoryDAO.RECOMPUTE_CHUNK_SIZE * 3 + 7;
+        List<Utang> batch = new ArrayList<>();
+        for (int i = 0; i < debts; i++) {
+            batch.add(debt(String.format("UTG-%04d", i), "P-1", 100_000));
+        }
+        utangDAO.addUtangBatch(batch);
+        for (int i = 0; i < debts; i += 3) {
+            utangDAO.payDebt(String.format("UTG-%04d", i), 25_000, START, null);
+        }
+        utangDAO.payDebt("UTG-0009", 75_000, START, null); // paid off
+        assertTrue(paymentHistoryDAO.verifySisaUtang(4).isConsistent());
+
+        setSisaUtang("UTG-0003", 100_000);  // payment applied to the ledger only
+        setSisaUtang("UTG-0500", 1);        // legacy balance without a ledger row
+        setSisaUtang("UTG-0009", 10);       // paid off but still shows an amount
+
+        PaymentHistoryDAO.RecomputeReport verify = paymentHistoryDAO.verifySisaUtang(4);
+        assertEquals(debts, verify.getDebtsChecked());
+        assertEquals(2, verify.getDrifts().size());
+        assertFalse(verify.getDrifts().get(0).isRepaired());
+        assertEquals(100_000, sisaUtang("UTG-0003"), 0.001);
+
+        PaymentHistoryDAO.RecomputeReport report = paymentHistoryDAO.recomputeSisaUtang(4);
+        assertEquals(2, report.getDrifts().size());
+        assertTrue(report.getDrifts().stream().allMatch(PaymentHistoryDAO.Drift::isRepaired));
+        assertEquals(75_000, sisaUtang("UTG-0003"), 0.001);
+        assertEquals(1, sisaUtang("UTG-0500"), 0.001);
+        assertEquals(0, sisaUtang("UTG-0009"), 0.001);
+        assertTrue(paymentHistoryDAO.verifySisaUtang(1).isConsistent());
+    }
+
+    private static Utang debt(String id, String userId, double jumlah) {
+        return new Utang(id, userId, jumlah, 0, START.plusYears(1), "Belum Lunas", "Bank");
+    }
+
+    private static void setSisaUtang(String utangId, double sisa) throws SQLException {
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement("UPDATE Utang SET sisa_utang = ? WHERE utang_id = ?")) {
+            pstmt.setDouble(1, sisa);
+            pstmt.setString(2, utangId);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static double sisaUtang(String utangId) throws SQLException {
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement pstmt = conn.prepareStatement("SELECT sisa_utang FROM Utang WHERE utang_id = ?")) {
+            pstmt.setString(1, utangId);
+            ResultSet rs = pstmt.executeQuery();
+            rs.next();
+            return rs.getDouble(1);
+        }
+    }
+}
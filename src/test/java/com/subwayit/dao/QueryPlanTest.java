@@ -0,0 +1,230 @@
+package com.subwayit.dao;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.TestDatabase;
+import com.subwayit.model.Admin;
+import com.subwayit.model.Penanggung;
+import com.subwayit.model.Tanggungan;
+import com.subwayit.model.Transaksi;
+import com.subwayit.model.User;
+import com.subwayit.model.Utang;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs every DAO method against a migrated database, captures the SQL they issue and
+ * checks each statement's EXPLAIN QUERY PLAN. A statement that filters rows (has a WHERE
+ * clause outside any subquery) must not fall back to a full table scan; listings without
+ * one, such as getAllUsers(), read the whole table on purpose and are exempt.
+ */
+public class QueryPlanTest {
+
+    private static final Pattern SCAN = Pattern.compile("^SCAN (\\S+)(.*)$");
+    private static final Pattern NAMED_SUBPLAN = Pattern.compile("^(?:MATERIALIZE|CO-ROUTINE) (\\S+)");
+
+    private TestDatabase db;
+    private final Set<String> statements = new LinkedHashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        DatabaseManager.setStatementListener(sql -> {
+            synchronized (statements) {
+                statements.add(sql.trim());
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void everyFilteredDaoQueryUsesAnIndex() throws SQLException {
+        exerciseAllDaos();
+        DatabaseManager.setStatementListener(null);
+
+        List<String> problems = new ArrayList<>();
+        int checked = 0;
+        for (String sql : statements) {
+            String upper = sql.toUpperCase(Locale.ROOT);
+            boolean dml = upper.startsWith("SELECT") || upper.startsWith("UPDATE") || upper.startsWith("DELETE")
+                    || upper.startsWith("WITH");
+            if (!dml || !hasTopLevelWhere(upper)) {
+                continue;
+            }
+            checked++;
+            for (String scan : fullScans(sql)) {
+                problems.add(scan + "  <-  " + sql);
+            }
+        }
+
+        assertTrue(checked > 10, "expected the DAOs to issue filtered queries, only saw " + checked);
+        if (!problems.isEmpty()) {
+            fail("Full table scans in filtered queries:\n  " + String.join("\n  ", problems));
+        }
+    }
+
+    private static boolean hasTopLevelWhere(String upperSql) {
+        int depth = 0;
+        for (int i = 0; i < upperSql.length(); i++) {
+            char c = upperSql.charAt(i);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && upperSql.startsWith(" WHERE ", i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the "SCAN x" plan lines that read a base table without any index
+     */
+    private List<String> fullScans(String sql) throws SQLException {
+        List<String> details = new ArrayList<>();
+        try (Connection conn = DatabaseManager.connect();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+            while (rs.next()) {
+                details.add(rs.getString("detail"));
+            }
+        }
+
+        Set<String> subplans = new HashSet<>();
+        for (String detail : details) {
+            Matcher m = NAMED_SUBPLAN.matcher(detail);
+            if (m.find()) {
+                subplans.add(m.group(1));
+            }
+        }
+
+        List<String> scans = new ArrayList<>();
+        for (String detail : details) {
+            Matcher m = SCAN.matcher(detail);
+            if (!m.matches()) {
+                continue;
+            }
+            String target = m.group(1);
+            String rest = m.group(2);
+            boolean indexed = rest.contains("INDEX") || rest.contains("VIRTUAL TABLE");
+            boolean derived = target.equals("CONSTANT") || target.startsWith("(") || subplans.contains(target);
+            if (!indexed && !derived) {
+                scans.add(detail);
+            }
+        }
+        return scans;
+    }
+
+    private void exerciseAllDaos() {
+        UserDAO userDAO = new UserDAO();
+        PenanggungDAO penanggungDAO = new PenanggungDAO(userDAO);
+        TanggunganDAO tanggunganDAO = new TanggunganDAO(userDAO);
+        AdminDAO adminDAO = new AdminDAO();
+        TransaksiDAO transaksiDAO = new TransaksiDAO();
+        UtangDAO utangDAO = new UtangDAO();
+
+        Penanggung head = new Penanggung("P-1", "Budi", 45, "budi@example.com", "x", "Guru");
+        penanggungDAO.addPenanggung(head);
+        Tanggungan child = new Tanggungan("T-1", "Sari", 15, "sari@example.com", "x", "Anak", "SMP", "Pelajar",
+                "P-1");
+        tanggunganDAO.addTanggunganToPenanggung(child, "P-1");
+        tanggunganDAO.addTanggunganToPenanggung(new Tanggungan("T-2", "Adi", 12, "adi@example.com", "x", "Anak",
+                "SD", "Pelajar", "P-1"), "P-1");
+        FamilyMembershipDAO membershipDAO = new FamilyMembershipDAO();
+        membershipDAO.addMember("P-1", "T-1");
+        membershipDAO.getMemberIds("P-1");
+        membershipDAO.getPenanggungIdOf("T-1");
+        membershipDAO.getFamilyUserIds("T-1");
+        membershipDAO.loadFamily("T-1");
+        membershipDAO.loadFamily("P-1");
+        membershipDAO.removeMember("P-1", "T-2");
+        penanggungDAO.updatePenanggung(head);
+        adminDAO.addAdmin(new Admin("A-1", "Admin", 30, "admin@example.com", "x", "A-1"));
+
+        userDAO.getUserByUserId("P-1");
+        userDAO.updateUser(new User("P-1", "Budi S", 45, "budi@example.com", "x", "Penanggung"));
+        userDAO.getAllUsers();
+        penanggungDAO.getPenanggungById("P-1");
+        penanggungDAO.getAllPenanggung();
+        tanggunganDAO.getTanggunganById("T-1");
+        tanggunganDAO.getTanggunganByIds(List.of("T-1", "T-2"));
+        tanggunganDAO.updateTanggungan(child);
+        tanggunganDAO.getAllTanggungan();
+        tanggunganDAO.getTanggunanByPenanggungId("P-1");
+        adminDAO.getAdminById("A-1");
+        adminDAO.updateAdmin(new Admin("A-1", "Admin", 31, "admin@example.com", "x", "A-1"));
+        adminDAO.getAllAdmins();
+
+        LocalDate today = LocalDate.of(2024, 5, 1);
+        Transaksi trx = new Transaksi("TRX-1", "P-1", "Pengeluaran", "Makanan", 25_000, today, null, false, "makan");
+        transaksiDAO.addTransaksi(trx);
+        transaksiDAO.getAllTransactionsForUser("P-1");
+        transaksiDAO.getAllTransactions();
+        transaksiDAO.getTransactionsForMultipleUsers(List.of("P-1", "T-1"));
+        transaksiDAO.getTransactionsPage(List.of("P-1", "T-1"), null, 20);
+        transaksiDAO.getTransactionsPage(List.of("P-1", "T-1"),
+                new TransaksiDAO.PageCursor(today, "TRX-1"), 20);
+        transaksiDAO.getMonthlySummaries(List.of("P-1", "T-1"), today.withDayOfMonth(1), today.plusMonths(1));
+        transaksiDAO.countTransactionsForUsers(List.of("P-1", "T-1"));
+        TransaksiRollupDAO rollupDAO = new TransaksiRollupDAO();
+        rollupDAO.getRollup(List.of("P-1", "T-1"), YearMonth.of(2024, 1), YearMonth.of(2024, 12));
+        rollupDAO.getMonthlySummaries(List.of("P-1", "T-1"), YearMonth.of(2024, 1), YearMonth.of(2024, 12));
+        rollupDAO.countTransactions(List.of("P-1", "T-1"));
+        transaksiDAO.updateTransaksi(trx);
+        transaksiDAO.deleteTransaksi("TRX-1");
+
+        Utang utang = new Utang("UTG-1", "P-1", 1_000_000, 0.05, today.plusMonths(6), "Belum Lunas", "Bank");
+        utangDAO.addUtang(utang);
+        utangDAO.updateUtang("UTG-1", 1_200_000, 0.05, today.plusMonths(7), "Bank");
+        utangDAO.updatePayment("UTG-1", 100_000);
+        PaymentHistoryDAO paymentHistoryDAO = new PaymentHistoryDAO();
+        paymentHistoryDAO.getLedger("UTG-1", null, 20);
+        paymentHistoryDAO.getLedger("UTG-1", new PaymentHistoryDAO.LedgerCursor(today, 1), 20);
+        paymentHistoryDAO.getTotalPaid("UTG-1");
+        paymentHistoryDAO.getMonthlyTotals(List.of("P-1", "T-1"), YearMonth.of(2024, 1), YearMonth.of(2024, 12));
+        paymentHistoryDAO.recomputeSisaUtang(2);
+        utangDAO.getDebtsWithUserInfo(List.of("P-1", "T-1"));
+
+        // Sets above InList.MAX_BUCKET are matched through json_each
+        List<String> manyUsers = new ArrayList<>(List.of("P-1", "T-1"));
+        for (int i = 0; i < InList.MAX_BUCKET; i++) {
+            manyUsers.add("X-" + i);
+        }
+        transaksiDAO.getTransactionsForMultipleUsers(manyUsers);
+        transaksiDAO.getTransactionsPage(manyUsers, new TransaksiDAO.PageCursor(today, "TRX-1"), 20);
+        transaksiDAO.countTransactionsForUsers(manyUsers);
+        rollupDAO.countTransactions(manyUsers);
+        utangDAO.getDebtsWithUserInfo(manyUsers);
+        paymentHistoryDAO.getMonthlyTotals(manyUsers, YearMonth.of(2024, 1), YearMonth.of(2024, 12));
+        utangDAO.deleteUtang("UTG-1");
+
+        tanggunganDAO.deleteTanggungan("T-1");
+        adminDAO.deleteAdmin("A-1");
+        penanggungDAO.deletePenanggung("P-1");
+        userDAO.deleteUser("A-1");
+    }
+}
@@ -0,0 +1,113 @@
+package com.subwayit.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.TestDatabase;
+import com.subwayit.model.Admin;
+import com.subwayit.model.Penanggung;
+import com.subwayit.model.Tanggungan;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Guards against N+1 lookups: listing methods must run the same number of statements
+ * and borrow the same number of connections whether there is one row or many.
+ */
+public class StatementCountTest {
+
+    private TestDatabase db;
+    private final AtomicInteger statements = new AtomicInteger();
+    private final UserDAO userDAO = new UserDAO();
+    private final PenanggungDAO penanggungDAO = new PenanggungDAO(userDAO);
+    private final TanggunganDAO tanggunganDAO = new TanggunganDAO(userDAO);
+    private final AdminDAO adminDAO = new AdminDAO();
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        DatabaseManager.setStatementListener(sql -> statements.incrementAndGet());
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void listingsCostOneStatementRegardlessOfRowCount() {
+        addFamilies(0, 1);
+        long[] small = measureAll();
+        addFamilies(1, 25);
+        long[] large = measureAll();
+
+        assertEquals(25, penanggungDAO.getAllPenanggung().size());
+        assertEquals(50, tanggunganDAO.getAllTanggungan().size());
+        assertEquals(25, adminDAO.getAllAdmins().size());
+        for (int i = 0; i < small.length; i += 2) {
+            assertEquals(1, small[i], "statements for call " + i / 2);
+            assertEquals(small[i], large[i], "statements for call " + i / 2);
+            assertEquals(1, large[i + 1], "connections for call " + i / 2);
+        }
+    }
+
+    @Test
+    void familyLookupCostsOneStatementRegardlessOfFamilySize() {
+        penanggungDAO.addPenanggung(new Penanggung("P-0", "Kepala", 40, "p@example.com", "x", "Guru"));
+        for (int c = 0; c < 30; c++) {
+            tanggunganDAO.addTanggunganToPenanggung(new Tanggungan("T-" + c, "Anak " + c, 10, "t" + c + "@example.com",
+                    "x", "Anak", "SD", "Pelajar", "P-0"), "P-0");
+        }
+        List<String> ids = penanggungDAO.getPenanggungById("P-0").getAnggotaTanggunganIds();
+
+        statements.set(0);
+        long borrows = DatabaseManager.getPoolStats().getBorrows();
+        List<Tanggungan> family = tanggunganDAO.getTanggunganByIds(ids);
+
+        assertEquals(1, statements.get());
+        assertEquals(1, DatabaseManager.getPoolStats().getBorrows() - borrows);
+        assertEquals(ids, family.stream().map(Tanggungan::getUserId).collect(Collectors.toList()));
+        assertEquals(2, tanggunganDAO.getTanggunganByIds(List.of("T-5", "T-404", "T-1", "T-5")).size());
+        assertTrue(tanggunganDAO.getTanggunganByIds(List.of()).isEmpty());
+    }
+
+    /**
+     * @return statements and connection borrows for each listing call, interleaved
+     */
+    private long[] measureAll() {
+        List<Supplier<List<?>>> calls = List.of(
+                penanggungDAO::getAllPenanggung,
+                tanggunganDAO::getAllTanggungan,
+                adminDAO::getAllAdmins,
+                () -> tanggunganDAO.getTanggunanByPenanggungId("P-0"),
+                userDAO::getAllUsers);
+        long[] result = new long[calls.size() * 2];
+        for (int i = 0; i < calls.size(); i++) {
+            statements.set(0);
+            long borrows = DatabaseManager.getPoolStats().getBorrows();
+            calls.get(i).get();
+            result[2 * i] = statements.get();
+            result[2 * i + 1] = DatabaseManager.getPoolStats().getBorrows() - borrows;
+        }
+        return result;
+    }
+
+    private void addFamilies(int from, int to) {
+        for (int i = from; i < to; i++) {
+            penanggungDAO.addPenanggung(new Penanggung("P-" + i, "Kepala " + i, 40, "p" + i + "@example.com", "x", "Guru"));
+            for (int c = 0; c < 2; c++) {
+                tanggunganDAO.addTanggunganToPenanggung(new Tanggungan("T-" + i + "-" + c, "Anak " + c, 10 + c,
+                        "t" + i + c + "@example.com", "x", "Anak", "SD", "Pelajar", "P-" + i), "P-" + i);
+            }
+            adminDAO.addAdmin(new Admin("A-" + i, "Admin " + i, 30, "a" + i + "@example.com", "x", "A-" + i));
+        }
+    }
+}
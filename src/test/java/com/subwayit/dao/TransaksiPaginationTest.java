@@ -0,0 +1,85 @@
+package com.subwayit.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.subwayit.database.TestDatabase;
+import com.subwayit.model.Transaksi;
+import com.subwayit.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TransaksiPaginationTest {
+
+    private TestDatabase db;
+    private final TransaksiDAO transaksiDAO = new TransaksiDAO();
+    private final List<Transaksi> all = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        UserDAO userDAO = new UserDAO();
+        for (String id : List.of("U-1", "U-2", "U-3")) {
+            userDAO.addUser(new User(id, "Nama " + id, 30, id + "@example.com", "x", "Tanggungan"));
+        }
+        // Several rows share a date so the transaksi_id tie-breaker matters
+        for (int i = 0; i < 95; i++) {
+            all.add(new Transaksi(String.format("TRX-%03d", i), "U-" + (1 + i % 3), "Pengeluaran", "Makanan", i,
+                    LocalDate.of(2024, 1, 1).plusDays(i / 4), null, false, "item " + i));
+        }
+        transaksiDAO.addTransaksiBatch(all);
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void pagesCoverEveryRowOnceInKeysetOrder() {
+        List<String> expected = all.stream()
+                .sorted(Comparator.comparing(Transaksi::getTanggalTransaksi)
+                        .thenComparing(Transaksi::getTransaksiId).reversed())
+                .map(Transaksi::getTransaksiId)
+                .collect(Collectors.toList());
+
+        List<String> paged = new ArrayList<>();
+        TransaksiDAO.PageCursor cursor = null;
+        int pages = 0;
+        do {
+            TransaksiDAO.TransaksiPage page = transaksiDAO.getTransactionsPage(List.of("U-1", "U-2", "U-3"), cursor, 10);
+            page.getItems().forEach(t -> paged.add(t.getTransaksiId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(10, pages);
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        TransaksiDAO.TransaksiPage page = transaksiDAO.getTransactionsPage(List.of("U-1"), null, 1000);
+
+        assertEquals(32, page.getItems().size());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    void exactPageSizeIsNotReportedAsMore() {
+        TransaksiDAO.TransaksiPage first = transaksiDAO.getTransactionsPage(List.of("U-3"), null, 31);
+
+        assertEquals(31, first.getItems().size());
+        assertFalse(first.hasMore());
+        assertTrue(transaksiDAO.getTransactionsPage(List.of("U-3"), null, 30).hasMore());
+    }
+}
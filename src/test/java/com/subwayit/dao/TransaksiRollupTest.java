@@ -0,0 +1,112 @@
+package com.subwayit.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.TestDatabase;
+import com.subwayit.model.Transaksi;
+import com.subwayit.model.User;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TransaksiRollupTest {
+
+    private TestDatabase db;
+    private final TransaksiDAO transaksiDAO = new TransaksiDAO();
+    private final TransaksiRollupDAO rollupDAO = new TransaksiRollupDAO();
+    private static final List<String> FAMILY = List.of("U-1", "U-2");
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        UserDAO userDAO = new UserDAO();
+        userDAO.addUser(new User("U-1", "Budi", 40, "budi@example.com", "x", "Penanggung"));
+        userDAO.addUser(new User("U-2", "Sari", 15, "sari@example.com", "x", "Tanggungan"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void everyWritePathKeepsTheRollupConsistent() {
+        List<Transaksi> batch = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            batch.add(trx("B-" + i, i % 2 == 0 ? "U-1" : "U-2", i % 5 == 0 ? "Pemasukan" : "Pengeluaran",
+                    i % 3 == 0 ? "Makanan" : "Transport", 1_000 + i, LocalDate.of(2024, 1, 1).plusDays(i)));
+        }
+        transaksiDAO.addTransaksiBatch(batch);
+        transaksiDAO.addTransaksi(trx("S-1", "U-1", "Pengeluaran", "Makanan", 5_000, LocalDate.of(2024, 2, 10)));
+
+        // Move a row to another month, jenis and kategori
+        transaksiDAO.updateTransaksi(trx("S-1", "U-1", "Pemasukan", "Gaji", 7_500, LocalDate.of(2024, 3, 5)));
+        transaksiDAO.deleteTransaksi("B-0");
+        transaksiDAO.deleteTransaksi("does-not-exist");
+
+        TransaksiRollupDAO.VerifyReport report = rollupDAO.verify();
+        assertTrue(report.isConsistent(), report.getMismatches().toString());
+        assertEquals(60, rollupDAO.countTransactions(FAMILY));
+    }
+
+    @Test
+    void rollupSummariesMatchRawAggregation() {
+        for (int i = 0; i < 40; i++) {
+            transaksiDAO.addTransaksi(trx("T-" + i, i % 2 == 0 ? "U-1" : "U-2", i % 4 == 0 ? "Pemasukan" : "Pengeluaran",
+                    "Umum", 100 * i, LocalDate.of(2023, 11, 20).plusDays(i * 3)));
+        }
+        List<TransaksiDAO.MonthlySummary> raw = transaksiDAO.getMonthlySummaries(FAMILY, LocalDate.of(2023, 11, 1),
+                LocalDate.of(2024, 4, 1));
+        List<TransaksiDAO.MonthlySummary> rolled = rollupDAO.getMonthlySummaries(FAMILY, YearMonth.of(2023, 11),
+                YearMonth.of(2024, 3));
+
+        assertEquals(raw.size(), rolled.size());
+        for (int i = 0; i < raw.size(); i++) {
+            assertEquals(raw.get(i).getUserId(), rolled.get(i).getUserId());
+            assertEquals(raw.get(i).getMonth(), rolled.get(i).getMonth());
+            assertEquals(raw.get(i).getCount(), rolled.get(i).getCount());
+            assertEquals(raw.get(i).getTotalPemasukan(), rolled.get(i).getTotalPemasukan(), 0.001);
+            assertEquals(raw.get(i).getTotalPengeluaran(), rolled.get(i).getTotalPengeluaran(), 0.001);
+        }
+    }
+
+    @Test
+    void failedInsertDoesNotTouchTheRollup() {
+        transaksiDAO.addTransaksi(trx("X-1", "U-1", "Pengeluaran", "Makanan", 1_000, LocalDate.of(2024, 1, 1)));
+        transaksiDAO.addTransaksi(trx("X-1", "U-1", "Pengeluaran", "Makanan", 9_999, LocalDate.of(2024, 1, 2)));
+
+        assertEquals(1, rollupDAO.countTransactions(FAMILY));
+        assertTrue(rollupDAO.verify().isConsistent());
+    }
+
+    @Test
+    void rebuildReportsAndRepairsDrift() throws SQLException {
+        transaksiDAO.addTransaksi(trx("D-1", "U-1", "Pengeluaran", "Makanan", 1_000, LocalDate.of(2024, 1, 1)));
+        try (Connection conn = DatabaseManager.connect(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE TransaksiBulanan SET total = total + 1");
+        }
+
+        TransaksiRollupDAO.VerifyReport report = rollupDAO.rebuild();
+
+        assertFalse(report.isConsistent());
+        assertEquals(1, report.getMismatches().size());
+        assertTrue(rollupDAO.verify().isConsistent());
+    }
+
+    private static Transaksi trx(String id, String userId, String jenis, String kategori, double nominal,
+            LocalDate tanggal) {
+        return new Transaksi(id, userId, jenis, kategori, nominal, tanggal, null, false, "desc " + id);
+    }
+}
@@ -0,0 +1,82 @@
+package com.subwayit.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.subwayit.database.DatabaseManager;
+import com.subwayit.database.TestDatabase;
+import com.subwayit.model.Transaksi;
+import com.subwayit.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TransaksiStreamTest {
+
+    private TestDatabase db;
+    private final TransaksiDAO transaksiDAO = new TransaksiDAO();
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        UserDAO userDAO = new UserDAO();
+        userDAO.addUser(new User("U-1", "Budi", 40, "budi@example.com", "x", "Penanggung"));
+        userDAO.addUser(new User("U-2", "Sari", 15, "sari@example.com", "x", "Tanggungan"));
+        List<Transaksi> rows = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            rows.add(new Transaksi("TRX-" + i, i % 2 == 0 ? "U-1" : "U-2", "Pengeluaran", "Makanan", i,
+                    LocalDate.of(2023, 1, 1).plusDays(i), null, false, "item " + i));
+        }
+        transaksiDAO.addTransaksiBatch(rows);
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void streamMatchesListInOrder() {
+        transaksiDAO.setFetchSize(16);
+        List<String> expected = ids(transaksiDAO.getTransactionsForMultipleUsers(List.of("U-1", "U-2")));
+
+        List<String> streamed;
+        try (Stream<Transaksi> rows = transaksiDAO.streamTransactionsForMultipleUsers(List.of("U-1", "U-2"))) {
+            streamed = rows.map(Transaksi::getTransaksiId).collect(Collectors.toList());
+        }
+
+        assertEquals(300, streamed.size());
+        assertEquals(expected, streamed);
+        assertEquals(0, DatabaseManager.getPoolStats().getActive());
+    }
+
+    @Test
+    void closingAPartlyReadStreamReleasesTheConnection() {
+        try (Stream<Transaksi> rows = transaksiDAO.streamAllTransactions()) {
+            assertEquals(5, rows.limit(5).count());
+            assertEquals(1, DatabaseManager.getPoolStats().getActive());
+        }
+        assertEquals(0, DatabaseManager.getPoolStats().getActive());
+    }
+
+    @Test
+    void forEachVisitsEveryRow() {
+        double[] total = { 0 };
+        long visited = transaksiDAO.forEachTransactionForUsers(List.of("U-1"), t -> total[0] += t.getNominal());
+
+        assertEquals(150, visited);
+        assertEquals(transaksiDAO.getAllTransactionsForUser("U-1").stream().mapToDouble(Transaksi::getNominal).sum(),
+                total[0], 0.001);
+        assertEquals(0, DatabaseManager.getPoolStats().getActive());
+    }
+
+    private static List<String> ids(List<Transaksi> rows) {
+        return rows.stream().map(Transaksi::getTransaksiId).collect(Collectors.toList());
+    }
+}
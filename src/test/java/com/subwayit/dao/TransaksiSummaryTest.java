@@ -0,0 +1,85 @@
+package com.subwayit.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.subwayit.database.TestDatabase;
+import com.subwayit.model.Transaksi;
+import com.subwayit.model.User;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TransaksiSummaryTest {
+
+    private TestDatabase db;
+    private final TransaksiDAO transaksiDAO = new TransaksiDAO();
+    private final List<Transaksi> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        UserDAO userDAO = new UserDAO();
+        userDAO.addUser(new User("U-1", "Budi", 40, "budi@example.com", "x", "Penanggung"));
+        userDAO.addUser(new User("U-2", "Sari", 15, "sari@example.com", "x", "Tanggungan"));
+        userDAO.addUser(new User("U-3", "Lain", 50, "lain@example.com", "x", "Penanggung"));
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < 120; i++) {
+            String userId = "U-" + (1 + i % 3);
+            String jenis = i % 4 == 0 ? "Pemasukan" : "Pengeluaran";
+            rows.add(new Transaksi("TRX-" + i, userId, jenis, "Umum", 1_000 + i, start.plusDays(i), null, false, "x"));
+        }
+        transaksiDAO.addTransaksiBatch(rows);
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void matchesJavaAggregationPerUserAndMonth() {
+        LocalDate from = LocalDate.of(2024, 2, 1);
+        LocalDate to = LocalDate.of(2024, 4, 1);
+        List<TransaksiDAO.MonthlySummary> summaries = transaksiDAO.getMonthlySummaries(List.of("U-1", "U-2"), from, to);
+
+        assertEquals(4, summaries.size()); // Feb and Mar for two users
+        for (TransaksiDAO.MonthlySummary summary : summaries) {
+            int count = 0;
+            double earn = 0, spend = 0;
+            for (Transaksi t : rows) {
+                if (t.getUserId().equals(summary.getUserId())
+                        && YearMonth.from(t.getTanggalTransaksi()).equals(summary.getMonth())) {
+                    count++;
+                    if (t.getJenis().equalsIgnoreCase("Pemasukan")) {
+                        earn += t.getNominal();
+                    } else {
+                        spend += t.getNominal();
+                    }
+                }
+            }
+            assertEquals(count, summary.getCount());
+            assertEquals(earn, summary.getTotalPemasukan(), 0.001);
+            assertEquals(spend, summary.getTotalPengeluaran(), 0.001);
+        }
+        assertEquals(YearMonth.of(2024, 2), summaries.get(0).getMonth());
+    }
+
+    @Test
+    void rangeBoundsAreHalfOpen() {
+        // Jan 1 to Jan 31 is exclusive of Jan 31: 30 days, 10 per user
+        List<TransaksiDAO.MonthlySummary> summaries = transaksiDAO.getMonthlySummaries(List.of("U-1", "U-2", "U-3"),
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31));
+        assertEquals(30, summaries.stream().mapToInt(TransaksiDAO.MonthlySummary::getCount).sum());
+    }
+
+    @Test
+    void countsOnlyRequestedUsers() {
+        assertEquals(80, transaksiDAO.countTransactionsForUsers(List.of("U-1", "U-3")));
+    }
+}
@@ -0,0 +1,166 @@
+package com.subwayit.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ConnectionPoolTest {
+
+    private File file;
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = File.createTempFile("subwayit-pool-", ".db");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        file.delete();
+    }
+
+    @Test
+    void closedConnectionsAreReused() throws SQLException {
+        pool = newPool(2, 1_000, 0);
+
+        Connection first = pool.borrow();
+        String physical = first.toString();
+        first.close();
+        assertTrue(first.isClosed());
+        assertThrows(SQLException.class, first::createStatement);
+
+        try (Connection second = pool.borrow()) {
+            assertEquals(physical, second.toString());
+        }
+        ConnectionPool.Stats stats = pool.getStats();
+        assertEquals(1, stats.getCreated());
+        assertEquals(2, stats.getBorrows());
+        assertEquals(0, stats.getActive());
+        assertEquals(1, stats.getIdle());
+    }
+
+    @Test
+    void borrowTimesOutWhenEveryConnectionIsInUse() throws SQLException {
+        pool = newPool(1, 50, 0);
+
+        try (Connection held = pool.borrow()) {
+            assertFalse(held.isClosed());
+            long start = System.nanoTime();
+            SQLException e = assertThrows(SQLException.class, pool::borrow);
+            assertTrue(e.getMessage().contains("Timed out"));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 40);
+        }
+
+        ConnectionPool.Stats stats = pool.getStats();
+        assertEquals(1, stats.getTimeouts());
+        assertEquals(1, stats.getBorrows());
+        // The permit of the timed-out borrow was never taken, so the pool is usable again
+        try (Connection conn = pool.borrow()) {
+            assertFalse(conn.isClosed());
+        }
+    }
+
+    @Test
+    void waitingBorrowGetsTheReturnedConnectionAndIsTimed() throws Exception {
+        pool = newPool(1, 5_000, 0);
+        Connection held = pool.borrow();
+        CountDownLatch waiting = new CountDownLatch(1);
+
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> {
+            waiting.countDown();
+            try (Connection conn = pool.borrow()) {
+                return conn.toString();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        waiting.await();
+        Thread.sleep(50);
+        String physical = held.toString();
+        held.close();
+
+        assertEquals(physical, waiter.get(5, TimeUnit.SECONDS));
+        ConnectionPool.Stats stats = pool.getStats();
+        assertEquals(2, stats.getBorrows());
+        assertEquals(1, stats.getCreated());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(stats.getMaxWaitNanos()) >= 40);
+        assertTrue(stats.getAverageWaitMillis() > 0);
+    }
+
+    @Test
+    void uncommittedWorkIsRolledBackOnReturn() throws SQLException {
+        pool = newPool(1, 1_000, 0);
+        try (Connection conn = pool.borrow()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE t (x INTEGER)");
+                conn.setAutoCommit(false);
+                stmt.execute("INSERT INTO t VALUES (1)");
+            }
+        }
+
+        try (Connection conn = pool.borrow()) {
+            assertTrue(conn.getAutoCommit());
+            try (Statement stmt = conn.createStatement();
+                    ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t")) {
+                rs.next();
+                assertEquals(0, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    void heldConnectionIsReportedOnceAsLeak() throws Exception {
+        pool = newPool(1, 1_000, 20);
+
+        Connection held = pool.borrow();
+        Thread.sleep(50);
+        pool.detectLeaks();
+        pool.detectLeaks();
+        assertEquals(1, pool.getStats().getLeaks());
+        held.close();
+
+        Connection quick = pool.borrow();
+        pool.detectLeaks();
+        quick.close();
+        assertEquals(1, pool.getStats().getLeaks());
+    }
+
+    @Test
+    void shutdownRejectsBorrowsAndClosesReturnedConnections() throws SQLException {
+        pool = newPool(1, 1_000, 0);
+        Connection held = pool.borrow();
+
+        pool.shutdown();
+        assertThrows(SQLException.class, pool::borrow);
+        held.close();
+
+        ConnectionPool.Stats stats = pool.getStats();
+        assertEquals(0, stats.getActive());
+        assertEquals(0, stats.getIdle());
+        assertTrue(held.isClosed());
+    }
+
+    private ConnectionPool newPool(int size, long timeoutMillis, long leakThresholdMillis) {
+        return new ConnectionPool("jdbc:sqlite:" + file.getAbsolutePath(), size, timeoutMillis, leakThresholdMillis,
+                List.of(), 0);
+    }
+}
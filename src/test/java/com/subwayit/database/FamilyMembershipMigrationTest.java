@@ -0,0 +1,68 @@
+package com.subwayit.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Migrates a version 5 database holding comma-separated anggota_tanggungan_ids lists and
+ * checks the resulting FamilyMembership rows.
+ */
+public class FamilyMembershipMigrationTest {
+
+    private File file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = File.createTempFile("subwayit-migration-", ".db");
+    }
+
+    @AfterEach
+    void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    void convertsCommaSeparatedListsAndDropsTheColumn() throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath())) {
+            new SchemaMigrator(SchemaMigrations.all().subList(0, 5)).migrate(conn);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("INSERT INTO Penanggung(penanggung_id, pekerjaan, anggota_tanggungan_ids) "
+                        + "VALUES ('P-1', 'Guru', 'T-3,T-1,T-404'), ('P-2', 'Dokter', ''), ('P-3', 'Petani', NULL)");
+                stmt.execute("INSERT INTO Tanggungan(tanggungan_id, nama, umur, penanggung_id) VALUES "
+                        + "('T-1', 'Sari', 15, 'P-1'), ('T-2', 'Adi', 12, 'P-1'), ('T-3', 'Dewi', 9, 'P-1'), "
+                        + "('T-4', 'Rina', 20, 'P-3')");
+            }
+
+            new SchemaMigrator(SchemaMigrations.all()).migrate(conn);
+
+            // listed order first, then members only known through Tanggungan.penanggung_id
+            assertEquals(List.of("P-1:T-3", "P-1:T-1", "P-1:T-2", "P-3:T-4"), memberships(conn));
+            assertFalse(SchemaMigrations.columnExists(conn, "Penanggung", "anggota_tanggungan_ids"));
+        }
+    }
+
+    private static List<String> memberships(Connection conn) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(
+                        "SELECT penanggung_id, tanggungan_id FROM FamilyMembership ORDER BY penanggung_id, rowid")) {
+            while (rs.next()) {
+                rows.add(rs.getString(1) + ":" + rs.getString(2));
+            }
+        }
+        return rows;
+    }
+}
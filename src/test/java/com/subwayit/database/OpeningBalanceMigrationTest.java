@@ -0,0 +1,96 @@
+package com.subwayit.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.subwayit.dao.PaymentHistoryDAO;
+import com.subwayit.dao.UtangDAO;
+import com.subwayit.model.PaymentHistory;
+import com.subwayit.model.Utang;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Migrates a version 7 database whose debts were paid down before payment_history was
+ * written, and checks that editing them or running the recompute job keeps their balance.
+ */
+public class OpeningBalanceMigrationTest {
+
+    private static final LocalDate DUE = LocalDate.of(2025, 6, 1);
+
+    private File file;
+    private TestDatabase db;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = File.createTempFile("subwayit-migration-", ".db");
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath())) {
+            new SchemaMigrator(SchemaMigrations.all().subList(0, 7)).migrate(conn);
+            insertDebt(conn, "UTG-PAID", 100_000, 0.1, "Belum Lunas", 40_000); // 70.000 paid, no ledger row
+            insertDebt(conn, "UTG-LUNAS", 50_000, 0, "Lunas", 0);
+            insertDebt(conn, "UTG-V2", 80_000, 0.05, "Belum Lunas", 80_000); // v2 backfill left out the interest
+            insertDebt(conn, "UTG-NEW", 10_000, 0, "Belum Lunas", 10_000);
+        }
+        db = TestDatabase.open(file);
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void editingAPaidDownDebtKeepsItsBalance() {
+        UtangDAO utangDAO = new UtangDAO();
+
+        Utang paid = utangDAO.updateUtang("UTG-PAID", 100_000, 0.1, DUE.plusMonths(1), "Bank Baru");
+        Utang lunas = utangDAO.updateUtang("UTG-LUNAS", 50_000, 0, DUE, "Koperasi");
+
+        assertEquals(40_000, paid.getSisaUtang(), 0.001);
+        assertEquals("Belum Lunas", paid.getStatus());
+        assertEquals(0, lunas.getSisaUtang(), 0.001);
+        assertEquals("Lunas", lunas.getStatus());
+        assertEquals(UtangDAO.PaymentOutcome.PAID_OFF,
+                utangDAO.payDebt("UTG-PAID", 40_000, DUE, null).getOutcome());
+    }
+
+    @Test
+    void legacyBalancesGetOneOpeningRowAndAreConsistent() {
+        PaymentHistoryDAO paymentHistoryDAO = new PaymentHistoryDAO();
+
+        List<PaymentHistory> opening = paymentHistoryDAO.getLedger("UTG-PAID", null, 10).getItems();
+        assertEquals(1, opening.size());
+        assertEquals(70_000, opening.get(0).getPaymentAmount(), 0.001);
+        assertEquals(4_000, paymentHistoryDAO.getTotalPaid("UTG-V2"), 0.001);
+        assertTrue(paymentHistoryDAO.getLedger("UTG-NEW", null, 10).getItems().isEmpty());
+
+        assertTrue(paymentHistoryDAO.verifySisaUtang(2).isConsistent());
+        assertTrue(paymentHistoryDAO.recomputeSisaUtang(2).isConsistent());
+    }
+
+    private static void insertDebt(Connection conn, String utangId, double jumlah, double bunga, String status,
+            double sisaUtang) throws SQLException {
+        String sql = "INSERT INTO Utang(utang_id, user_id, jumlah, bunga, tanggal_jatuh_tempo, status, creditor, "
+                + "sisa_utang) VALUES(?, 'P-1', ?, ?, ?, ?, 'Bank', ?)";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, utangId);
+            pstmt.setDouble(2, jumlah);
+            pstmt.setDouble(3, bunga);
+            pstmt.setDate(4, Date.valueOf(DUE));
+            pstmt.setString(5, status);
+            pstmt.setDouble(6, sisaUtang);
+            pstmt.executeUpdate();
+        }
+    }
+}
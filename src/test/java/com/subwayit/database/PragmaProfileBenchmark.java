@@ -0,0 +1,117 @@
+package com.subwayit.database;
+
+import com.subwayit.dao.TransaksiDAO;
+import com.subwayit.dao.UserDAO;
+import com.subwayit.dao.UtangDAO;
+import com.subwayit.model.Transaksi;
+import com.subwayit.model.User;
+import com.subwayit.model.Utang;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures insert and read throughput on the Transaksi and Utang tables under each
+ * {@link PragmaProfile} preset. Every preset gets a fresh database file.
+ *
+ * Run after "mvn test-compile" with the test classpath, for example:
+ * java -cp target/classes:target/test-classes:&lt;sqlite-jdbc jar&gt; com.subwayit.database.PragmaProfileBenchmark [rows] [reads]
+ */
+public class PragmaProfileBenchmark {
+
+    private static final int USERS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int reads = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        System.out.printf("%-12s %14s %14s %14s %14s%n", "profile", "trx insert/s", "utang insert/s",
+                "trx read/s", "utang read/s");
+        for (PragmaProfile profile : PragmaProfile.presets()) {
+            File dbFile = File.createTempFile("subwayit-bench-" + profile.getName() + "-", ".db");
+            dbFile.deleteOnExit();
+            new File(dbFile.getPath() + "-wal").deleteOnExit();
+            new File(dbFile.getPath() + "-shm").deleteOnExit();
+
+            DatabaseManager.setPragmaProfile(profile);
+            DatabaseManager.setDatabaseUrl("jdbc:sqlite:" + dbFile.getAbsolutePath());
+            Result result = quietly(() -> run(rows, reads));
+            System.out.printf("%-12s %14.0f %14.0f %14.0f %14.0f%n", profile.getName(), result.transaksiInserts,
+                    result.utangInserts, result.transaksiReads, result.utangReads);
+        }
+        DatabaseManager.shutdown();
+    }
+
+    private static Result run(int rows, int reads) {
+        DatabaseManager.initializeDatabase();
+        TransaksiDAO transaksiDAO = new TransaksiDAO();
+        UtangDAO utangDAO = new UtangDAO();
+        UserDAO userDAO = new UserDAO();
+        List<String> userIds = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            userIds.add("BENCH-" + u);
+            userDAO.addUser(new User("BENCH-" + u, "Bench " + u, 30, "bench@example.com", "x", "Tanggungan"));
+        }
+
+        Result result = new Result();
+        LocalDate start = LocalDate.of(2020, 1, 1);
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            transaksiDAO.addTransaksi(new Transaksi("TRX-" + i, userIds.get(i % USERS),
+                    i % 3 == 0 ? "Pemasukan" : "Pengeluaran", "Makanan", 10_000 + i,
+                    start.plusDays(i % 1500), null, false, "bench " + i));
+        }
+        result.transaksiInserts = perSecond(rows, System.nanoTime() - t0);
+
+        t0 = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            utangDAO.addUtang(new Utang("UTG-" + i, userIds.get(i % USERS), 1_000_000, 0.05,
+                    start.plusDays(i % 1500), "Belum Lunas", "Bank"));
+        }
+        result.utangInserts = perSecond(rows, System.nanoTime() - t0);
+
+        t0 = System.nanoTime();
+        long readRows = 0;
+        for (int i = 0; i < reads; i++) {
+            readRows += transaksiDAO.getTransactionsForMultipleUsers(userIds).size();
+        }
+        result.transaksiReads = perSecond(readRows, System.nanoTime() - t0);
+
+        t0 = System.nanoTime();
+        readRows = 0;
+        for (int i = 0; i < reads; i++) {
+            readRows += utangDAO.getDebtsWithUserInfo(userIds).size();
+        }
+        result.utangReads = perSecond(readRows, System.nanoTime() - t0);
+        return result;
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return count / (nanos / 1_000_000_000.0);
+    }
+
+    /**
+     * The DAOs log every row to stdout; silence that so it does not dominate the timings.
+     */
+    private static <T> T quietly(java.util.function.Supplier<T> action) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            return action.get();
+        } finally {
+            System.setOut(original);
+        }
+    }
+
+    private static class Result {
+        double transaksiInserts;
+        double utangInserts;
+        double transaksiReads;
+        double utangReads;
+    }
+}
@@ -0,0 +1,136 @@
+package com.subwayit.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.subwayit.dao.TransaksiDAO;
+import com.subwayit.model.Transaksi;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StatementCacheTest {
+
+    private TestDatabase db;
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void hotPathsReuseCompiledStatements() {
+        TransaksiDAO transaksiDAO = new TransaksiDAO();
+        LocalDate date = LocalDate.of(2024, 1, 1);
+        StatementCache.Stats before = DatabaseManager.getStatementCacheStats();
+
+        for (int i = 0; i < 20; i++) {
+            transaksiDAO.addTransaksi(new Transaksi("TRX-" + i, "U-1", "Pengeluaran", "Makanan", 1_000, date, null,
+                    false, "test"));
+            assertEquals(i + 1, transaksiDAO.countTransactionsForUsers(List.of("U-1")));
+        }
+
+        StatementCache.Stats after = DatabaseManager.getStatementCacheStats();
+        long misses = after.getMisses() - before.getMisses();
+        long hits = after.getHits() - before.getHits();
+        assertTrue(misses <= 5, "each distinct statement should compile once per connection, got " + misses);
+        assertTrue(hits >= 19 * 3, "expected the insert, rollup upsert and count to hit, got " + hits);
+    }
+
+    @Test
+    void reusedStatementStartsClean() throws SQLException {
+        String sql = "SELECT ? || COALESCE(?, '-')";
+        try (Connection conn = DatabaseManager.connect()) {
+            PreparedStatement first = conn.prepareStatement(sql);
+            first.setString(1, "a");
+            first.setString(2, "b");
+            ResultSet rs = first.executeQuery();
+            rs.next();
+            first.close();
+            assertTrue(first.isClosed());
+            assertThrows(SQLException.class, first::executeQuery);
+
+            PreparedStatement second = conn.prepareStatement(sql);
+            assertSame(first, second);
+            second.setString(1, "c");
+            ResultSet again = second.executeQuery();
+            assertTrue(again.next());
+            assertEquals("c-", again.getString(1));
+            second.close();
+        }
+    }
+
+    @Test
+    void nestedUseOfTheSameSqlGetsItsOwnStatement() throws SQLException {
+        String sql = "SELECT ?";
+        try (Connection conn = DatabaseManager.connect();
+                PreparedStatement outer = conn.prepareStatement(sql);
+                PreparedStatement inner = conn.prepareStatement(sql)) {
+            assertNotSame(outer, inner);
+            outer.setInt(1, 1);
+            inner.setInt(1, 2);
+            ResultSet outerRows = outer.executeQuery();
+            ResultSet innerRows = inner.executeQuery();
+            outerRows.next();
+            innerRows.next();
+            assertEquals(1, outerRows.getInt(1));
+            assertEquals(2, innerRows.getInt(1));
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedStatementsAreEvictedAndUnclosedOnesDropped() throws SQLException, IOException {
+        File file = File.createTempFile("subwayit-stmt-cache-", ".db");
+        ConnectionPool pool = new ConnectionPool("jdbc:sqlite:" + file.getAbsolutePath(), 1, 1_000, 0, List.of(), 2);
+        try {
+            try (Connection conn = pool.borrow()) {
+                for (String sql : List.of("SELECT 1", "SELECT 2", "SELECT 3", "SELECT 1")) {
+                    conn.prepareStatement(sql).close();
+                }
+            }
+            StatementCache.Stats stats = pool.getStatementCacheStats();
+            assertEquals(2, stats.getCached());
+            assertEquals(2, stats.getEvictions());
+            assertEquals(4, stats.getMisses());
+
+            PreparedStatement forgotten;
+            try (Connection conn = pool.borrow()) {
+                forgotten = conn.prepareStatement("SELECT 3");
+                try (Statement plain = conn.createStatement()) {
+                    plain.execute("SELECT 1");
+                }
+            }
+            // The statement was still open when the connection went back, so it is not reused
+            assertTrue(forgotten.isClosed());
+            try (Connection conn = pool.borrow()) {
+                PreparedStatement fresh = conn.prepareStatement("SELECT 3");
+                assertNotSame(forgotten, fresh);
+                assertFalse(fresh.isClosed());
+                fresh.close();
+            }
+        } finally {
+            pool.shutdown();
+            file.delete();
+        }
+    }
+}
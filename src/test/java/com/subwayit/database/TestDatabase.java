@@ -0,0 +1,56 @@
+package com.subwayit.database;
+
+import com.subwayit.dao.EntityCache;
+import com.subwayit.dao.FamilyQueryCache;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A throw-away SQLite file wired into {@link DatabaseManager} for the duration of a test.
+ * The schema is migrated on creation; close() shuts the pool down and deletes the files.
+ * The DAO caches are emptied on both, so no test sees rows cached from another database.
+ */
+public final class TestDatabase implements AutoCloseable {
+
+    private final File file;
+
+    private TestDatabase(File file) {
+        this.file = file;
+    }
+
+    public static TestDatabase create() {
+        try {
+            return open(File.createTempFile("subwayit-test-", ".db"));
+        } catch (IOException e) {
+            throw new RuntimeException("Gagal membuat database uji: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Wires an existing file, e.g. one seeded at an older schema version, and migrates it
+     * to the latest version as the application would at startup.
+     */
+    public static TestDatabase open(File file) {
+        EntityCache.clear();
+        FamilyQueryCache.clear();
+        DatabaseManager.setDatabaseUrl("jdbc:sqlite:" + file.getAbsolutePath());
+        DatabaseManager.initializeDatabase();
+        return new TestDatabase(file);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() {
+        DatabaseManager.setStatementListener(null);
+        DatabaseManager.shutdown();
+        EntityCache.clear();
+        FamilyQueryCache.clear();
+        file.delete();
+        new File(file.getPath() + "-wal").delete();
+        new File(file.getPath() + "-shm").delete();
+    }
+}
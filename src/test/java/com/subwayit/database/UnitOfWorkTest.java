@@ -0,0 +1,138 @@
+package com.subwayit.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.subwayit.dao.PenanggungDAO;
+import com.subwayit.dao.TanggunganDAO;
+import com.subwayit.dao.UserDAO;
+import com.subwayit.model.Penanggung;
+import com.subwayit.model.Tanggungan;
+import com.subwayit.model.User;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class UnitOfWorkTest {
+
+    private TestDatabase db;
+    private UserDAO userDAO;
+    private PenanggungDAO penanggungDAO;
+    private TanggunganDAO tanggunganDAO;
+
+    @BeforeEach
+    void setUp() {
+        db = TestDatabase.create();
+        userDAO = new UserDAO();
+        penanggungDAO = new PenanggungDAO(userDAO);
+        tanggunganDAO = new TanggunganDAO(userDAO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.close();
+    }
+
+    @Test
+    void commitsAllWritesOnOneConnection() throws SQLException {
+        long borrowsBefore = DatabaseManager.getPoolStats().getBorrows();
+        UnitOfWork.run(() -> {
+            userDAO.addUser(user("U-1"));
+            userDAO.addUser(user("U-2"));
+            assertSame(DatabaseManager.connect(), DatabaseManager.connect());
+        });
+
+        assertEquals(1, DatabaseManager.getPoolStats().getBorrows() - borrowsBefore);
+        assertNotNull(userDAO.getUserByUserId("U-1"));
+        assertNotNull(userDAO.getUserByUserId("U-2"));
+    }
+
+    @Test
+    void rollsBackWhenWorkThrows() {
+        assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+            userDAO.addUser(user("U-1"));
+            throw new IllegalStateException("boom");
+        }));
+
+        assertNull(userDAO.getUserByUserId("U-1"));
+        assertFalse(UnitOfWork.isActive());
+    }
+
+    @Test
+    void rollsBackWhenWorkThrowsAnError() {
+        assertThrows(AssertionError.class, () -> UnitOfWork.run(() -> {
+            userDAO.addUser(user("U-1"));
+            throw new AssertionError("boom");
+        }));
+
+        assertNull(userDAO.getUserByUserId("U-1"));
+        assertFalse(UnitOfWork.isActive());
+    }
+
+    @Test
+    void swallowedSqlErrorStillRollsBack() {
+        userDAO.addUser(user("U-1"));
+
+        // addUser logs and swallows the duplicate key error; the unit of work must not commit U-2
+        SQLException e = assertThrows(SQLException.class, () -> UnitOfWork.run(() -> {
+            userDAO.addUser(user("U-2"));
+            userDAO.addUser(user("U-1"));
+        }));
+
+        assertNotNull(e.getCause());
+        assertNull(userDAO.getUserByUserId("U-2"));
+    }
+
+    @Test
+    void nestedCallsJoinTheOuterTransaction() {
+        assertThrows(IllegalStateException.class, () -> UnitOfWork.run(() -> {
+            Connection outer = DatabaseManager.connect();
+            UnitOfWork.run(() -> {
+                assertSame(outer, DatabaseManager.connect());
+                userDAO.addUser(user("U-1"));
+            });
+            throw new IllegalStateException("outer fails after inner finished");
+        }));
+
+        assertNull(userDAO.getUserByUserId("U-1"));
+    }
+
+    @Test
+    void addDependentToUnknownHeadLeavesNothingBehind() {
+        Tanggungan child = new Tanggungan("T-1", "Sari", 15, "sari@example.com", "x", "Anak", "SMP", "Pelajar",
+                "P-404");
+
+        assertThrows(RuntimeException.class, () -> tanggunganDAO.addTanggunganToPenanggung(child, "P-404"));
+
+        assertNull(userDAO.getUserByUserId("T-1"));
+        assertNull(tanggunganDAO.getTanggunganById("T-1"));
+    }
+
+    @Test
+    void addDependentLinksToHead() {
+        penanggungDAO.addPenanggung(new Penanggung("P-1", "Budi", 45, "budi@example.com", "x", "Guru"));
+        tanggunganDAO.addTanggunganToPenanggung(new Tanggungan("T-1", "Sari", 15, "sari@example.com", "x", "Anak",
+                "SMP", "Pelajar", "P-1"), "P-1");
+        tanggunganDAO.addTanggunganToPenanggung(new Tanggungan("T-2", "Adi", 12, "adi@example.com", "x", "Anak",
+                "SD", "Pelajar", "P-1"), "P-1");
+
+        Penanggung head = penanggungDAO.getPenanggungById("P-1");
+        assertEquals(2, head.getAnggotaTanggunganIds().size());
+        assertTrue(head.getAnggotaTanggunganIds().contains("T-1"));
+        assertTrue(head.getAnggotaTanggunganIds().contains("T-2"));
+        assertEquals("P-1", tanggunganDAO.getTanggunganById("T-2").getPenanggungId());
+    }
+
+    private static User user(String id) {
+        return new User(id, "Nama " + id, 30, id + "@example.com", "x", "Penanggung");
+    }
+}
@@ -0,0 +1,116 @@
+package com.subwayit.gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.subwayit.gui.NavigationController.Destination;
+
+import javafx.scene.Scene;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class NavigationControllerTest {
+
+    private final Map<Destination, List<FakePage>> built = new EnumMap<>(Destination.class);
+    private final List<NavigationController.Stats> reported = new ArrayList<>();
+    private NavigationController navigation;
+    private int loginShown;
+
+    @BeforeEach
+    void setUp() {
+        // Scenes need the FX toolkit, so the fake pages hand out none and nothing is put on a stage
+        navigation = new NavigationController(null, null, scene -> { }, destination -> {
+            FakePage page = new FakePage();
+            built.computeIfAbsent(destination, d -> new ArrayList<>()).add(page);
+            return page;
+        }, () -> loginShown++);
+        navigation.setDiagnosticsListener(reported::add);
+    }
+
+    @Test
+    void revisitingAPageReusesItAndOnlyRefreshesChangedData() {
+        navigation.show(Destination.DASHBOARD);
+        navigation.show(Destination.DEBT);
+        navigation.show(Destination.DASHBOARD);
+
+        FakePage dashboard = built.get(Destination.DASHBOARD).get(0);
+        assertEquals(1, built.get(Destination.DASHBOARD).size());
+        assertEquals(1, dashboard.scenesCreated);
+        assertEquals(1, dashboard.refreshChecks);
+
+        dashboard.changed = true;
+        navigation.show(Destination.DEBT);
+        navigation.show(Destination.DASHBOARD);
+
+        NavigationController.Stats stats = navigation.getStats();
+        assertEquals(5, stats.getNavigations());
+        assertEquals(2, stats.getPagesBuilt());
+        assertEquals(1, stats.getRefreshes());
+        assertEquals(2, stats.getRetainedPages());
+        assertEquals(5, reported.size());
+        assertTrue(stats.getMaxNavigationMs() >= stats.getAvgNavigationMs());
+        assertTrue(stats.getUsedHeapBytes() > 0);
+    }
+
+    @Test
+    void disposeReleasesEveryPageAndBuildsThemAgainAfterwards() {
+        navigation.show(Destination.DASHBOARD);
+        navigation.show(Destination.MEMBERS);
+        FakePage dashboard = built.get(Destination.DASHBOARD).get(0);
+
+        navigation.dispose();
+
+        assertTrue(dashboard.disposed);
+        assertTrue(built.get(Destination.MEMBERS).get(0).disposed);
+        assertEquals(0, navigation.getStats().getRetainedPages());
+
+        navigation.show(Destination.DASHBOARD);
+        assertEquals(2, built.get(Destination.DASHBOARD).size());
+        assertSame(dashboard, built.get(Destination.DASHBOARD).get(0));
+    }
+
+    @Test
+    void signOutDisposesThePagesAndShowsTheLoginScreenOnce() {
+        navigation.show(Destination.DASHBOARD);
+        FakePage dashboard = built.get(Destination.DASHBOARD).get(0);
+
+        navigation.signOut();
+
+        assertTrue(dashboard.disposed);
+        assertEquals(1, loginShown);
+        assertEquals(0, navigation.getStats().getRetainedPages());
+    }
+
+    private static final class FakePage implements ManagedPage {
+        private int scenesCreated;
+        private int refreshChecks;
+        private boolean changed;
+        private boolean disposed;
+
+        @Override
+        public Scene createScene() {
+            scenesCreated++;
+            return null;
+        }
+
+        @Override
+        public boolean refreshIfChanged() {
+            refreshChecks++;
+            boolean wasChanged = changed;
+            changed = false;
+            return wasChanged;
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+        }
+    }
+}
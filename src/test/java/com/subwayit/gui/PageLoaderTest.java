@@ -0,0 +1,137 @@
+package com.subwayit.gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.subwayit.dao.DaoExecutor;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PageLoaderTest {
+
+    private DaoExecutor daoExecutor;
+    // Stands in for the JavaFX Application Thread
+    private ExecutorService fxThread;
+
+    @BeforeEach
+    void setUp() {
+        daoExecutor = new DaoExecutor(1);
+        fxThread = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        daoExecutor.shutdown();
+        fxThread.shutdownNow();
+    }
+
+    @Test
+    void appliesResultOnTheFxThreadAndRecordsTheLoad() throws Exception {
+        PageLoader loader = new PageLoader("applies", daoExecutor, fxThread);
+        List<String> applied = new CopyOnWriteArrayList<>();
+        List<Boolean> onFxThread = new CopyOnWriteArrayList<>();
+        Thread fx = onFx(() -> Thread.currentThread());
+
+        onFx(() -> {
+            // Like a page: the load starts while the scene is being built
+            return loader.timed(() -> {
+                loader.load("rows", () -> "data", result -> {
+                    applied.add(result);
+                    onFxThread.add(Thread.currentThread() == fx);
+                });
+                return "scene";
+            });
+        });
+        drain();
+
+        assertEquals(List.of("data"), applied);
+        assertEquals(List.of(true), onFxThread);
+        PageLoader.Stats stats = PageLoader.getStats("applies");
+        assertNotNull(stats);
+        assertEquals(1, stats.getLoads());
+        assertTrue(stats.getLastReadyMs() >= stats.getLastBlockedMs() - 0.001);
+    }
+
+    @Test
+    void newerLoadOfTheSameKeyReplacesTheOlderOne() throws Exception {
+        PageLoader loader = new PageLoader("replaces", daoExecutor, fxThread);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        List<String> applied = new CopyOnWriteArrayList<>();
+
+        onFx(() -> {
+            loader.load("rows", () -> {
+                await(releaseFirst);
+                return "old";
+            }, applied::add);
+            loader.load("rows", () -> "new", applied::add);
+            return null;
+        });
+        releaseFirst.countDown();
+        drain();
+
+        assertEquals(List.of("new"), applied);
+    }
+
+    @Test
+    void cancelledLoadIsNeverApplied() throws Exception {
+        PageLoader loader = new PageLoader("cancelled", daoExecutor, fxThread);
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        List<String> applied = new CopyOnWriteArrayList<>();
+
+        onFx(() -> {
+            loader.load("rows", () -> {
+                queryStarted.countDown();
+                await(releaseQuery);
+                return "late";
+            }, applied::add);
+            return null;
+        });
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+
+        // The user navigates away while the query is still running
+        onFx(() -> {
+            loader.cancel();
+            loader.load("rows", () -> "after", applied::add);
+            return null;
+        });
+        releaseQuery.countDown();
+        drain();
+
+        assertTrue(applied.isEmpty());
+        assertNull(PageLoader.getStats("cancelled"));
+    }
+
+    private <T> T onFx(Callable<T> task) throws Exception {
+        return fxThread.submit(task).get(5, TimeUnit.SECONDS);
+    }
+
+    // Waits until the background queries are done and their apply tasks have run
+    private void drain() throws Exception {
+        for (int i = 0; i < 50 && daoExecutor.getStats().getActiveReads() > 0; i++) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(20);
+        onFx(() -> null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
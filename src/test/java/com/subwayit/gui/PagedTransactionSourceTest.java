@@ -0,0 +1,103 @@
+package com.subwayit.gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.subwayit.dao.DaoExecutor;
+import com.subwayit.dao.TransaksiDAO;
+import com.subwayit.model.Transaksi;
+
+import javafx.collections.ListChangeListener;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PagedTransactionSourceTest {
+
+    private static final List<String> FAMILY = List.of("P-1", "T-1");
+
+    private DaoExecutor executor;
+    private PagedTransactionSource source;
+
+    @BeforeEach
+    void setUp() {
+        executor = new DaoExecutor(1);
+        // No page is ever requested here, so neither the DAO nor the FX thread is used
+        source = new PagedTransactionSource(new TransaksiDAO(), new PageLoader("patches", executor, Runnable::run));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void editsThatKeepTheirPlaceAreReplacedInPlace() {
+        source.show(FAMILY, page(true, trx("C", 3), trx("B", 2), trx("A", 1)));
+        AtomicInteger structuralChanges = new AtomicInteger();
+        source.getItems().addListener((ListChangeListener<Transaksi>) change -> {
+            while (change.next()) {
+                if (!change.wasReplaced()) {
+                    structuralChanges.incrementAndGet();
+                }
+            }
+        });
+
+        Transaksi edited = trx("B", 2);
+        assertTrue(source.upsert(edited));
+        assertSame(edited, source.getItems().get(1));
+        assertEquals(0, structuralChanges.get());
+
+        // A new date moves the row to where the newest-first order puts it
+        assertTrue(source.upsert(trx("A", 4)));
+        assertEquals(List.of("A", "C", "B"), ids());
+    }
+
+    @Test
+    void rowsBeyondTheLoadedPagesWaitForScrolling() {
+        source.show(FAMILY, page(true, trx("C", 3), trx("B", 2)));
+
+        assertFalse(source.upsert(trx("A", 1)));
+        assertTrue(source.upsert(trx("D", 5)));
+        assertFalse(source.upsert(new Transaksi("X", "P-2", "Pengeluaran", "Makanan", 1, day(9), null, false, "")));
+        assertEquals(List.of("D", "C", "B"), ids());
+
+        assertTrue(source.remove("C"));
+        assertFalse(source.remove("C"));
+        assertEquals(List.of("D", "B"), ids());
+    }
+
+    @Test
+    void theLastPageTakesRowsAtItsEnd() {
+        source.show(FAMILY, page(false, trx("C", 3)));
+
+        assertTrue(source.upsert(trx("A", 1)));
+        assertEquals(List.of("C", "A"), ids());
+    }
+
+    private List<String> ids() {
+        return source.getItems().stream().map(Transaksi::getTransaksiId).collect(Collectors.toList());
+    }
+
+    private static TransaksiDAO.TransaksiPage page(boolean hasMore, Transaksi... rows) {
+        Transaksi last = rows[rows.length - 1];
+        return new TransaksiDAO.TransaksiPage(List.of(rows),
+                hasMore ? new TransaksiDAO.PageCursor(last.getTanggalTransaksi(), last.getTransaksiId()) : null);
+    }
+
+    private static Transaksi trx(String id, int day) {
+        return new Transaksi(id, "T-1", "Pengeluaran", "Makanan", 1_000, day(day), null, false, "item " + id);
+    }
+
+    private static LocalDate day(int day) {
+        return LocalDate.of(2024, 3, day);
+    }
+}